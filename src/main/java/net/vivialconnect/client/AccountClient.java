@@ -0,0 +1,534 @@
+package net.vivialconnect.client;
+
+import java.net.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import net.vivialconnect.http.HttpURLConnectionTransport;
+import net.vivialconnect.http.RequestSigner;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.format.ResponseDecoder;
+import net.vivialconnect.model.log.CompactLog;
+import net.vivialconnect.model.message.CompactMessage;
+
+/**
+ * A client bound to a single VivialConnect account: its credentials, and the transport, codecs,
+ * limits and thread pools its requests go through.
+ * <p>
+ * Instances are immutable and safe to share between threads, so one JVM can serve many accounts at
+ * once, each with its own client:
+ * <pre>
+ * <code>
+ * AccountClient tenant = AccountClient.builder(accountId, apiKey, apiSecret)
+ *                                     .readTimeout(5000)
+ *                                     .build();
+ *
+ * List&lt;Message&gt; messages = tenant.call(new Callable&lt;List&lt;Message&gt;&gt;() {
+ *     public List&lt;Message&gt; call() throws VivialConnectException {
+ *         return Message.getMessages();
+ *     }
+ * });
+ * </code>
+ * </pre>
+ * Resource operations run against the client bound to the current thread by {@link #call(Callable)},
+ * or against the default client configured through {@link VivialConnectClient} when there is none.
+ * Asynchronous operations submitted while a client is bound run against that same client.
+ */
+public final class AccountClient {
+
+    private static final ThreadLocal<AccountClient> CURRENT = new ThreadLocal<AccountClient>();
+
+    private final int accountId;
+    private final String apiKey;
+    private final String apiSecret;
+    private final RequestSigner requestSigner;
+
+    private final String apiBaseUrl;
+    private final String accountUrl;
+    private final Proxy proxy;
+    private final Transport transport;
+    private final AsyncDispatcher asyncDispatcher;
+    private final ResponseDecoder responseDecoder;
+    private final RateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+    private final HedgingPolicy hedgingPolicy;
+    private final RequestCoalescer requestCoalescer;
+    private final ResourceCache resourceCache;
+    private final long maxResponseSize;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+
+    private AccountClient(Builder builder) {
+        this.accountId = builder.accountId;
+        this.apiKey = builder.apiKey;
+        this.apiSecret = builder.apiSecret;
+        this.requestSigner = builder.requestSigner;
+        this.apiBaseUrl = builder.apiBaseUrl;
+        this.accountUrl = builder.apiBaseUrl + "/accounts/" + builder.accountId;
+        this.proxy = builder.proxy;
+        this.transport = builder.transport;
+        this.asyncDispatcher = builder.asyncDispatcher;
+        this.responseDecoder = builder.responseDecoder;
+        this.rateLimiter = builder.rateLimiter;
+        this.retryPolicy = builder.retryPolicy;
+        this.circuitBreaker = builder.circuitBreaker;
+        this.hedgingPolicy = builder.hedgingPolicy;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.resourceCache = builder.resourceCache;
+        this.maxResponseSize = builder.maxResponseSize;
+        this.connectTimeoutMillis = builder.connectTimeoutMillis;
+        this.readTimeoutMillis = builder.readTimeoutMillis;
+    }
+
+    /**
+     * Starts building a client for the given account.
+     *
+     * @param accountId the VivialConnect account ID
+     * @param apiKey the VivialConnect API key
+     * @param apiSecret the VivialConnect API secret
+     * @return a builder holding the default settings
+     *
+     * @throws IllegalArgumentException if any of the arguments are invalid (ie, null or empty)
+     */
+    public static Builder builder(int accountId, String apiKey, String apiSecret) {
+        return new Builder().credentials(accountId, apiKey, apiSecret);
+    }
+
+    /**
+     * Starts building a client with the same settings as this one.
+     *
+     * @return a builder holding this client's settings
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Runs an operation with this client bound to the current thread, so that every resource
+     * operation it performs runs against this client.
+     *
+     * @param operation the operation to run
+     * @return the result of the operation
+     *
+     * @throws VivialConnectException if the operation fails; other checked exceptions are wrapped
+     *         in a {@link VivialConnectException}
+     */
+    public <T> T call(Callable<T> operation) throws VivialConnectException {
+        AccountClient previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try {
+            return operation.call();
+        } catch (VivialConnectException vce) {
+            throw vce;
+        } catch (RuntimeException re) {
+            throw re;
+        } catch (Exception e) {
+            throw new VivialConnectException(e);
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Runs an operation asynchronously on this client's dispatcher, with this client bound to the
+     * thread it runs on.
+     *
+     * @param operation the operation to run
+     * @param callback notified once the operation completes, may be null
+     * @return a {@link Future} holding the operation's result
+     *
+     * @see AsyncDispatcher#submit(Callable, AsyncCallback)
+     */
+    public <T> Future<T> submit(final Callable<T> operation, AsyncCallback<T> callback) {
+        return getAsyncDispatcher().submit(new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                return AccountClient.this.call(operation);
+            }
+        }, callback);
+    }
+
+    /**
+     * Gets the client bound to the current thread by {@link #call(Callable)}.
+     *
+     * @return the bound client, or null if there is none
+     */
+    static AccountClient bound() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Wraps an operation so that it runs against the current thread's bound client, if any, on
+     * whatever thread eventually calls it.
+     */
+    static <T> Callable<T> propagate(final Callable<T> operation) {
+        final AccountClient client = bound();
+        if (client == null) {
+            return operation;
+        }
+
+        return new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                return client.call(operation);
+            }
+        };
+    }
+
+    public int getAccountId() {
+        return accountId;
+    }
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public String getApiSecret() {
+        return apiSecret;
+    }
+
+    /**
+     * Gets the signer holding this client's credentials.
+     *
+     * @return the request signer
+     *
+     * @throws IllegalStateException if the client has no credentials
+     */
+    public RequestSigner getRequestSigner() {
+        if (requestSigner == null) {
+            throw new IllegalStateException("VivialConnectClient.init() must be called before sending requests");
+        }
+
+        return requestSigner;
+    }
+
+    public String getApiBaseUrl() {
+        return apiBaseUrl;
+    }
+
+    /**
+     * Gets the URL the account's resources are under, such as
+     * <code>https://api.vivialconnect.net/api/v1.0/accounts/12345</code>, without an extension.
+     *
+     * @return the account URL
+     */
+    public String getAccountUrl() {
+        return accountUrl;
+    }
+
+    public Proxy getProxy() {
+        return proxy;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Gets the dispatcher that runs this client's asynchronous operations. Unless one was set,
+     * clients share a dispatcher backed by a pool of daemon threads.
+     *
+     * @return the async dispatcher
+     */
+    public AsyncDispatcher getAsyncDispatcher() {
+        return asyncDispatcher != null ? asyncDispatcher : SharedDispatcher.INSTANCE;
+    }
+
+    public ResponseDecoder getResponseDecoder() {
+        return responseDecoder;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Gets the circuit breaker guarding this client's requests.
+     *
+     * @return the circuit breaker, or null if requests are not guarded
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Gets the policy used to hedge this client's GET requests.
+     *
+     * @return the hedging policy, or null if requests are not hedged
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    /**
+     * Gets the coalescer that lets this client's identical concurrent GET requests share one
+     * request.
+     *
+     * @return the request coalescer, or null if requests are not coalesced
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    /**
+     * Gets the cache that keeps this client's responses for resources that rarely change.
+     *
+     * @return the resource cache, or null if responses are not cached
+     */
+    public ResourceCache getResourceCache() {
+        return resourceCache;
+    }
+
+    public long getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    public int getConnectTimeout() {
+        return connectTimeoutMillis;
+    }
+
+    public int getReadTimeout() {
+        return readTimeoutMillis;
+    }
+
+    /* Created on first use, so that clients that never go async don't start a pool */
+    private static final class SharedDispatcher {
+
+        static final AsyncDispatcher INSTANCE = new AsyncDispatcher(AsyncDispatcher.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Builds {@link AccountClient} instances. Settings left unset keep the defaults documented on
+     * {@link VivialConnectClient}.
+     */
+    public static final class Builder {
+
+        /* Shared by clients that don't set their own; it holds no per-account state */
+        private static final Transport DEFAULT_TRANSPORT = new HttpURLConnectionTransport();
+        private static final ResponseDecoder DEFAULT_RESPONSE_DECODER = new ResponseDecoder();
+        private static final ResponseDecoder COMPACT_RESPONSE_DECODER = new ResponseDecoder(true);
+
+        private int accountId;
+        private String apiKey;
+        private String apiSecret;
+        private RequestSigner requestSigner;
+
+        private String apiBaseUrl = "https://api.vivialconnect.net/api/v1.0";
+        private Proxy proxy;
+        private Transport transport = DEFAULT_TRANSPORT;
+        private AsyncDispatcher asyncDispatcher;
+        private ResponseDecoder responseDecoder = DEFAULT_RESPONSE_DECODER;
+        private RateLimiter rateLimiter;
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+        private CircuitBreaker circuitBreaker;
+        private HedgingPolicy hedgingPolicy;
+        private RequestCoalescer requestCoalescer;
+        private ResourceCache resourceCache;
+        private long maxResponseSize = VivialConnectClient.DEFAULT_MAX_RESPONSE_SIZE;
+        private int connectTimeoutMillis = VivialConnectClient.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+        private int readTimeoutMillis = VivialConnectClient.DEFAULT_READ_TIMEOUT_MILLIS;
+
+
+        Builder() {
+
+        }
+
+        private Builder(AccountClient client) {
+            this.accountId = client.accountId;
+            this.apiKey = client.apiKey;
+            this.apiSecret = client.apiSecret;
+            this.requestSigner = client.requestSigner;
+            this.apiBaseUrl = client.apiBaseUrl;
+            this.proxy = client.proxy;
+            this.transport = client.transport;
+            this.asyncDispatcher = client.asyncDispatcher;
+            this.responseDecoder = client.responseDecoder;
+            this.rateLimiter = client.rateLimiter;
+            this.retryPolicy = client.retryPolicy;
+            this.circuitBreaker = client.circuitBreaker;
+            this.hedgingPolicy = client.hedgingPolicy;
+            this.requestCoalescer = client.requestCoalescer;
+            this.resourceCache = client.resourceCache;
+            this.maxResponseSize = client.maxResponseSize;
+            this.connectTimeoutMillis = client.connectTimeoutMillis;
+            this.readTimeoutMillis = client.readTimeoutMillis;
+        }
+
+        /**
+         * Sets the account and the credentials requests are signed with.
+         *
+         * @throws IllegalArgumentException if any of the arguments are invalid (ie, null or empty)
+         */
+        public Builder credentials(int accountId, String apiKey, String apiSecret) {
+            if (accountId < 1) {
+                throw createIllegalArgumentException("accountId");
+            }
+
+            this.accountId = accountId;
+            this.apiKey = validateStringArg(apiKey, "apiKey");
+            this.apiSecret = validateStringArg(apiSecret, "apiSecret");
+            this.requestSigner = null;
+
+            return this;
+        }
+
+        public Builder apiBaseUrl(String apiBaseUrl) {
+            this.apiBaseUrl = validateStringArg(apiBaseUrl, "apiBaseUrl");
+            return this;
+        }
+
+        public Builder proxy(Proxy proxy) {
+            this.proxy = proxy;
+            return this;
+        }
+
+        public Builder transport(Transport transport) {
+            this.transport = validateNotNull(transport, "transport");
+            return this;
+        }
+
+        public Builder asyncDispatcher(AsyncDispatcher asyncDispatcher) {
+            this.asyncDispatcher = validateNotNull(asyncDispatcher, "asyncDispatcher");
+            return this;
+        }
+
+        public Builder responseDecoder(ResponseDecoder responseDecoder) {
+            this.responseDecoder = validateNotNull(responseDecoder, "responseDecoder");
+            return this;
+        }
+
+        /**
+         * Sets whether messages and logs are decoded as {@link CompactMessage} and
+         * {@link CompactLog} instances, which take less memory when many of them are kept. This
+         * replaces any response decoder set before. Disabled by default.
+         */
+        public Builder compactModels(boolean compactModels) {
+            this.responseDecoder = compactModels ? COMPACT_RESPONSE_DECODER : DEFAULT_RESPONSE_DECODER;
+            return this;
+        }
+
+        public Builder rateLimiter(RateLimiter rateLimiter) {
+            this.rateLimiter = validateNotNull(rateLimiter, "rateLimiter");
+            return this;
+        }
+
+        public Builder retryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = validateNotNull(retryPolicy, "retryPolicy");
+            return this;
+        }
+
+        /**
+         * Guards requests with a circuit breaker, or stops guarding them if null. Requests are not
+         * guarded by default.
+         */
+        public Builder circuitBreaker(CircuitBreaker circuitBreaker) {
+            this.circuitBreaker = circuitBreaker;
+            return this;
+        }
+
+        /**
+         * Hedges GET requests with the given policy, or stops hedging them if null. Requests are
+         * not hedged by default.
+         */
+        public Builder hedgingPolicy(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * Coalesces identical concurrent GET requests with the given coalescer, or stops coalescing
+         * them if null. Requests are not coalesced by default.
+         */
+        public Builder requestCoalescer(RequestCoalescer requestCoalescer) {
+            this.requestCoalescer = requestCoalescer;
+            return this;
+        }
+
+        /**
+         * Caches responses with the given cache, or stops caching them if null. Responses are not
+         * cached by default.
+         */
+        public Builder resourceCache(ResourceCache resourceCache) {
+            this.resourceCache = resourceCache;
+            return this;
+        }
+
+        public Builder maxResponseSize(long maxResponseSize) {
+            if (maxResponseSize < 1) {
+                throw createIllegalArgumentException("maxResponseSize");
+            }
+
+            this.maxResponseSize = maxResponseSize;
+            return this;
+        }
+
+        public Builder connectTimeout(int connectTimeoutMillis) {
+            if (connectTimeoutMillis < 0) {
+                throw createIllegalArgumentException("connectTimeoutMillis");
+            }
+
+            this.connectTimeoutMillis = connectTimeoutMillis;
+            return this;
+        }
+
+        public Builder readTimeout(int readTimeoutMillis) {
+            if (readTimeoutMillis < 0) {
+                throw createIllegalArgumentException("readTimeoutMillis");
+            }
+
+            this.readTimeoutMillis = readTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Builds the client. A client built without a rate limiter gets its own, with no limits.
+         *
+         * @return the client
+         */
+        public AccountClient build() {
+            if (requestSigner == null && apiKey != null) {
+                requestSigner = new RequestSigner(apiKey, apiSecret);
+            }
+
+            if (rateLimiter == null) {
+                rateLimiter = new RateLimiter();
+            }
+
+            return new AccountClient(this);
+        }
+
+        private static String validateStringArg(String arg, String argName) {
+            if (arg == null || arg.isEmpty()) {
+                throw createIllegalArgumentException(argName);
+            }
+
+            return arg;
+        }
+
+        private static <T> T validateNotNull(T arg, String argName) {
+            if (arg == null) {
+                throw createIllegalArgumentException(argName);
+            }
+
+            return arg;
+        }
+
+        private static IllegalArgumentException createIllegalArgumentException(String argName) {
+            return new IllegalArgumentException(String.format("'%s' param is not valid", argName));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package net.vivialconnect.client;
+
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * Receives the outcome of an asynchronous operation.
+ * <p>
+ * Both methods are called on the thread that ran the operation, so they should return quickly
+ * and must not block waiting on other asynchronous operations.
+ *
+ * @param <T> the operation's result type
+ *
+ * @see AsyncDispatcher
+ */
+public interface AsyncCallback<T> {
+
+    void onSuccess(T result);
+
+
+    void onFailure(VivialConnectException e);
+}
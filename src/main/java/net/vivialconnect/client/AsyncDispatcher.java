@@ -0,0 +1,195 @@
+package net.vivialconnect.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * Runs API operations on an {@link ExecutorService}, keeping at most a fixed number of them in
+ * flight at once.
+ * <p>
+ * When the limit is reached, {@link #submit(Callable, AsyncCallback)} blocks the submitting thread
+ * until one of the running operations completes. This applies back-pressure to producers instead
+ * of queueing an unbounded number of requests.
+ * <p>
+ * Every resource's <code>...Async</code> method goes through the dispatcher returned by
+ * {@link VivialConnectClient#getAsyncDispatcher()}. Operations without a dedicated async method
+ * can be submitted directly:
+ * <pre>
+ * <code>
+ * Future&lt;Integer&gt; count = VivialConnectClient.getAsyncDispatcher().submit(new Callable&lt;Integer&gt;() {
+ *     public Integer call() throws VivialConnectException {
+ *         return Contact.count();
+ *     }
+ * });
+ * </code>
+ * </pre>
+ */
+public class AsyncDispatcher {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * Creates a dispatcher backed by a pool of daemon threads.
+     *
+     * @param maxInFlight the maximum number of operations running at once
+     */
+    public AsyncDispatcher(int maxInFlight) {
+        this(Executors.newCachedThreadPool(new DaemonThreadFactory("vivialconnect-async")), maxInFlight);
+    }
+
+    /**
+     * Creates a dispatcher that runs operations on the given executor.
+     *
+     * @param executor the executor operations will run on
+     * @param maxInFlight the maximum number of operations running at once
+     *
+     * @throws IllegalArgumentException if executor is null or maxInFlight is less than 1
+     */
+    public AsyncDispatcher(ExecutorService executor, int maxInFlight) {
+        if (executor == null) {
+            throw new IllegalArgumentException("'executor' param is not valid");
+        }
+
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("'maxInFlight' param is not valid");
+        }
+
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight, true);
+    }
+
+    public <T> Future<T> submit(Callable<T> operation) {
+        return submit(operation, null);
+    }
+
+    /**
+     * Submits an operation for asynchronous execution.
+     * <p>
+     * The operation runs against the submitting thread's {@link AccountClient} and under its
+     * {@link Deadline}, if any.
+     *
+     * @param operation the operation to run
+     * @param callback notified once the operation completes, may be null
+     * @return a {@link Future} holding the operation's result. If the operation fails,
+     *         {@link Future#get()} throws an {@link java.util.concurrent.ExecutionException}
+     *         whose cause is the original exception
+     *
+     * @throws RejectedExecutionException if the executor rejects the operation, or if the
+     *         submitting thread is interrupted while waiting for a free slot
+     */
+    public <T> Future<T> submit(Callable<T> operation, final AsyncCallback<T> callback) {
+        final Callable<T> task = AccountClient.propagate(Deadline.propagate(operation));
+        acquireSlot();
+
+        try {
+            return executor.submit(new Callable<T>() {
+
+                @Override
+                public T call() throws Exception {
+                    T result = null;
+                    Exception failure = null;
+                    try {
+                        result = task.call();
+                    } catch (Exception e) {
+                        failure = e;
+                    } finally {
+                        /* Released before the callback runs, so callbacks may chain further submissions */
+                        inFlight.release();
+                    }
+
+                    if (failure != null) {
+                        notifyFailure(callback, failure);
+                        throw failure;
+                    }
+
+                    notifySuccess(callback, result);
+                    return result;
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            inFlight.release();
+            throw ree;
+        }
+    }
+
+    private void acquireSlot() {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for an in-flight slot", ie);
+        }
+    }
+
+    /*
+     * A callback that throws must not change the outcome of the operation, so its exception goes to
+     * the thread's uncaught exception handler instead of into the Future
+     */
+    private static <T> void notifySuccess(AsyncCallback<T> callback, T result) {
+        if (callback == null) {
+            return;
+        }
+
+        try {
+            callback.onSuccess(result);
+        } catch (RuntimeException re) {
+            reportCallbackFailure(re);
+        }
+    }
+
+    private static <T> void notifyFailure(AsyncCallback<T> callback, Exception e) {
+        if (callback == null) {
+            return;
+        }
+
+        try {
+            if (e instanceof VivialConnectException) {
+                callback.onFailure((VivialConnectException) e);
+            } else {
+                callback.onFailure(new VivialConnectException(e));
+            }
+        } catch (RuntimeException re) {
+            reportCallbackFailure(re);
+        }
+    }
+
+    private static void reportCallbackFailure(RuntimeException re) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, re);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Gets the number of operations currently submitted and not yet completed.
+     *
+     * @return the in-flight operation count
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Stops accepting new operations. Operations already in flight run to completion.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
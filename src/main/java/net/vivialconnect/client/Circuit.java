@@ -0,0 +1,164 @@
+package net.vivialconnect.client;
+
+/**
+ * The state of one endpoint group's circuit, and the outcomes of its most recent calls.
+ * <p>
+ * Outcomes are kept in a ring buffer the size of the sliding window. The failure and slow-call
+ * rates are only evaluated once the window holds the minimum number of calls.
+ * <p>
+ * Every change of state starts a new generation. A call's outcome only counts if it completes in
+ * the generation it was let through in, so a slow call let through while the circuit was closed
+ * can't close a half-open circuit or be mistaken for one of its probes.
+ */
+final class Circuit {
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final CircuitBreaker config;
+
+    private final byte[] outcomes;
+    private int next;
+    private int calls;
+    private int failedCalls;
+    private int slowCalls;
+
+    private CircuitBreaker.State state = CircuitBreaker.State.CLOSED;
+    private long generation;
+    private long openedAtNanos;
+    private int probesStarted;
+    private int probesSucceeded;
+
+
+    Circuit(CircuitBreaker config) {
+        this.config = config;
+        this.outcomes = new byte[config.getWindowSize()];
+    }
+
+    /**
+     * Lets a call through, as a probe if the circuit is half-open.
+     *
+     * @return the call's permit, or null if the circuit is open or all probes are in flight
+     */
+    synchronized CircuitBreaker.Permit tryAcquire(long nowNanos) {
+        if (state == CircuitBreaker.State.OPEN) {
+            if (retryAfterNanos(nowNanos) > 0) {
+                return null;
+            }
+
+            state = CircuitBreaker.State.HALF_OPEN;
+            generation++;
+            probesStarted = 0;
+            probesSucceeded = 0;
+        }
+
+        if (state == CircuitBreaker.State.HALF_OPEN) {
+            if (probesStarted >= config.getHalfOpenProbes()) {
+                return null;
+            }
+
+            probesStarted++;
+            return new CircuitBreaker.Permit(this, generation, true);
+        }
+
+        return new CircuitBreaker.Permit(this, generation, false);
+    }
+
+    /**
+     * Tells how long the circuit stays open.
+     *
+     * @return the time left before probes are allowed in nanoseconds, or 0 if they already are
+     */
+    synchronized long retryAfterNanos(long nowNanos) {
+        if (state != CircuitBreaker.State.OPEN) {
+            return 0;
+        }
+
+        return Math.max(0, openedAtNanos + config.getOpenDurationNanos() - nowNanos);
+    }
+
+    synchronized void onResult(long callGeneration, boolean probe, boolean failed, long durationNanos, long nowNanos) {
+        if (callGeneration != generation) {
+            /* Let through before the circuit last changed state; its outcome no longer matters */
+            return;
+        }
+
+        boolean slow = durationNanos >= config.getSlowCallDurationNanos();
+
+        if (probe) {
+            if (failed || slow) {
+                open(nowNanos);
+            } else if (++probesSucceeded >= config.getHalfOpenProbes()) {
+                close();
+            }
+
+            return;
+        }
+
+        record((byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0)));
+
+        if (calls >= config.getMinimumCalls()
+                && (failedCalls >= config.getFailureRateThreshold() * calls
+                    || slowCalls >= config.getSlowCallRateThreshold() * calls)) {
+            open(nowNanos);
+        }
+    }
+
+    /**
+     * Forgets a call that was let through but cancelled before its outcome was known, so that a
+     * probe slot it held can be used by another call.
+     */
+    synchronized void onCancelled(long callGeneration, boolean probe) {
+        if (probe && callGeneration == generation) {
+            probesStarted--;
+        }
+    }
+
+    synchronized CircuitBreaker.State getState() {
+        return state;
+    }
+
+    private void record(byte outcome) {
+        if (calls == outcomes.length) {
+            forget(outcomes[next]);
+        } else {
+            calls++;
+        }
+
+        outcomes[next] = outcome;
+        if ((outcome & FAILED) != 0) {
+            failedCalls++;
+        }
+
+        if ((outcome & SLOW) != 0) {
+            slowCalls++;
+        }
+
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void forget(byte outcome) {
+        if ((outcome & FAILED) != 0) {
+            failedCalls--;
+        }
+
+        if ((outcome & SLOW) != 0) {
+            slowCalls--;
+        }
+    }
+
+    private void open(long nowNanos) {
+        state = CircuitBreaker.State.OPEN;
+        generation++;
+        openedAtNanos = nowNanos;
+    }
+
+    private void close() {
+        state = CircuitBreaker.State.CLOSED;
+        generation++;
+        next = 0;
+        calls = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+    }
+}
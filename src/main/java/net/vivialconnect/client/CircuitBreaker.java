@@ -0,0 +1,295 @@
+package net.vivialconnect.client;
+
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import net.vivialconnect.model.error.CircuitOpenException;
+
+/**
+ * Stops sending requests to an endpoint group that keeps failing or responding slowly, so that
+ * callers fail fast instead of each waiting out its own failure, and the API gets room to recover.
+ * <p>
+ * Each endpoint group (account and endpoint class, as for the {@link RateLimiter}) has its own
+ * circuit:
+ * <ul>
+ * <li><b>Closed:</b> requests go through. The outcomes of the last {@link Builder#windowSize(int)}
+ * requests are tracked, and once at least {@link Builder#minimumCalls(int)} have been seen, the
+ * circuit opens if the share of failed requests (network errors, timeouts and HTTP 5xx responses)
+ * or of slow requests reaches its threshold.</li>
+ * <li><b>Open:</b> requests fail immediately with a {@link CircuitOpenException}, for
+ * {@link Builder#openDuration(long, TimeUnit)}.</li>
+ * <li><b>Half-open:</b> a few probe requests go through. If all of them succeed quickly, the
+ * circuit closes; if any fails or is slow, it opens again.</li>
+ * </ul>
+ * A request only counts towards the state it was let through in: one still in flight when the
+ * circuit changes state is ignored, so only real probes decide whether a half-open circuit closes.
+ * Cancelled requests, such as hedged requests that lost the race, don't count at all.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDurationNanos;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<String, Circuit>();
+
+
+    private CircuitBreaker(Builder builder) {
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDurationNanos = builder.slowCallDurationNanos;
+        this.openDurationNanos = builder.openDurationNanos;
+        this.halfOpenProbes = builder.halfOpenProbes;
+    }
+
+    /**
+     * Starts building a circuit breaker.
+     *
+     * @return a builder holding the default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Lets a request to the given endpoint through, unless its circuit is open. Every request let
+     * through must be followed by a call to {@link Permit#onResult(boolean, long)} or
+     * {@link Permit#onCancelled()} on the returned permit.
+     *
+     * @param endpoint the request URL
+     * @return the permit the request was let through with
+     *
+     * @throws CircuitOpenException if the circuit is open, or half-open with all probes in flight
+     */
+    public Permit acquire(URL endpoint) throws CircuitOpenException {
+        EndpointGroup group = EndpointGroup.of(endpoint);
+        Circuit circuit = circuitFor(group.getKey());
+
+        long nowNanos = System.nanoTime();
+        Permit permit = circuit.tryAcquire(nowNanos);
+        if (permit == null) {
+            throw new CircuitOpenException("Circuit open for " + group.getKey() + " after repeated failures",
+                                           TimeUnit.NANOSECONDS.toMillis(circuit.retryAfterNanos(nowNanos)));
+        }
+
+        return permit;
+    }
+
+    /**
+     * Gets the state of the given endpoint's circuit.
+     *
+     * @param endpoint the request URL
+     * @return the circuit state
+     */
+    public State getState(URL endpoint) {
+        return circuitFor(EndpointGroup.of(endpoint).getKey()).getState();
+    }
+
+    private Circuit circuitFor(String key) {
+        Circuit circuit = circuits.get(key);
+        if (circuit == null) {
+            circuit = new Circuit(this);
+
+            Circuit existing = circuits.putIfAbsent(key, circuit);
+            if (existing != null) {
+                circuit = existing;
+            }
+        }
+
+        return circuit;
+    }
+
+    int getWindowSize() {
+        return windowSize;
+    }
+
+    int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    double getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    double getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    long getSlowCallDurationNanos() {
+        return slowCallDurationNanos;
+    }
+
+    long getOpenDurationNanos() {
+        return openDurationNanos;
+    }
+
+    int getHalfOpenProbes() {
+        return halfOpenProbes;
+    }
+
+    /**
+     * A request let through by {@link CircuitBreaker#acquire(URL)}, tied to the state its circuit
+     * was in at the time. Its outcome is ignored if the circuit has changed state since.
+     */
+    public static final class Permit {
+
+        private final Circuit circuit;
+        private final long generation;
+        private final boolean probe;
+
+
+        Permit(Circuit circuit, long generation, boolean probe) {
+            this.circuit = circuit;
+            this.generation = generation;
+            this.probe = probe;
+        }
+
+        /**
+         * Records the outcome of the request.
+         *
+         * @param failed whether the request failed in a way that suggests the API is unhealthy
+         * @param durationNanos how long the request took
+         */
+        public void onResult(boolean failed, long durationNanos) {
+            circuit.onResult(generation, probe, failed, durationNanos, System.nanoTime());
+        }
+
+        /**
+         * Records that the request was cancelled, or never sent, so its outcome says nothing about
+         * the API's health.
+         */
+        public void onCancelled() {
+            circuit.onCancelled(generation, probe);
+        }
+
+        /**
+         * Tells whether the request is one of a half-open circuit's probes.
+         */
+        public boolean isProbe() {
+            return probe;
+        }
+    }
+
+    /**
+     * Builds {@link CircuitBreaker} instances.
+     */
+    public static final class Builder {
+
+        private int windowSize = 100;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 1.0;
+        private long slowCallDurationNanos = TimeUnit.SECONDS.toNanos(10);
+        private long openDurationNanos = TimeUnit.SECONDS.toNanos(30);
+        private int halfOpenProbes = 5;
+
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets how many of the most recent requests are tracked per circuit. Defaults to 100.
+         */
+        public Builder windowSize(int windowSize) {
+            if (windowSize < 1) {
+                throw createIllegalArgumentException("windowSize");
+            }
+
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Sets how many requests must have been tracked before the circuit may open. Defaults to 20,
+         * or to the window size if that is smaller.
+         */
+        public Builder minimumCalls(int minimumCalls) {
+            if (minimumCalls < 1) {
+                throw createIllegalArgumentException("minimumCalls");
+            }
+
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * Sets the share of failed requests, between 0 and 1, that opens the circuit. Defaults to
+         * 0.5.
+         */
+        public Builder failureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = validateRate(failureRateThreshold, "failureRateThreshold");
+            return this;
+        }
+
+        /**
+         * Sets the share of slow requests, between 0 and 1, that opens the circuit, and how long a
+         * request must take to count as slow. Defaults to 1 (every tracked request) and 10 seconds.
+         */
+        public Builder slowCalls(double slowCallRateThreshold, long slowCallDuration, TimeUnit unit) {
+            if (slowCallDuration < 1) {
+                throw createIllegalArgumentException("slowCallDuration");
+            }
+
+            this.slowCallRateThreshold = validateRate(slowCallRateThreshold, "slowCallRateThreshold");
+            this.slowCallDurationNanos = unit.toNanos(slowCallDuration);
+            return this;
+        }
+
+        /**
+         * Sets how long an open circuit rejects requests before letting probes through. Defaults to
+         * 30 seconds.
+         */
+        public Builder openDuration(long openDuration, TimeUnit unit) {
+            if (openDuration < 0) {
+                throw createIllegalArgumentException("openDuration");
+            }
+
+            this.openDurationNanos = unit.toNanos(openDuration);
+            return this;
+        }
+
+        /**
+         * Sets how many probe requests a half-open circuit lets through, all of which must succeed
+         * for the circuit to close. Defaults to 5.
+         */
+        public Builder halfOpenProbes(int halfOpenProbes) {
+            if (halfOpenProbes < 1) {
+                throw createIllegalArgumentException("halfOpenProbes");
+            }
+
+            this.halfOpenProbes = halfOpenProbes;
+            return this;
+        }
+
+        public CircuitBreaker build() {
+            return new CircuitBreaker(this);
+        }
+
+        private static double validateRate(double rate, String argName) {
+            if (!(rate > 0 && rate <= 1)) {
+                throw createIllegalArgumentException(argName);
+            }
+
+            return rate;
+        }
+
+        private static IllegalArgumentException createIllegalArgumentException(String argName) {
+            return new IllegalArgumentException(String.format("'%s' param is not valid", argName));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package net.vivialconnect.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * A point in time by which a call to the API must complete.
+ * <p>
+ * Every request made by an operation run with {@link #call(Callable)} shares the deadline: waiting
+ * for the rate limiter, signing, connecting, sending, reading the response and any retries all
+ * count against it, and the connect and read timeouts are shortened to the time left. A request
+ * that can't complete before the deadline fails with a
+ * {@link net.vivialconnect.model.error.RequestTimeoutException}.
+ * <pre>
+ * <code>
+ * Message sent = Deadline.after(2, TimeUnit.SECONDS).call(new Callable&lt;Message&gt;() {
+ *     public Message call() throws VivialConnectException {
+ *         return message.send();
+ *     }
+ * });
+ * </code>
+ * </pre>
+ * Asynchronous operations submitted while a deadline is in effect run under that same deadline.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<Deadline>();
+
+    private final long deadlineNanos;
+
+
+    private Deadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Creates a deadline the given amount of time from now.
+     *
+     * @param duration the time allowed
+     * @param unit the unit of duration
+     * @return the deadline
+     */
+    public static Deadline after(long duration, TimeUnit unit) {
+        return new Deadline(System.nanoTime() + unit.toNanos(duration));
+    }
+
+    /**
+     * Gets the deadline the current thread is running under.
+     *
+     * @return the deadline, or null if there is none
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs an operation under this deadline. If the operation already runs under an earlier
+     * deadline, that one is kept.
+     *
+     * @param operation the operation to run
+     * @return the result of the operation
+     *
+     * @throws VivialConnectException if the operation fails; other checked exceptions are wrapped
+     *         in a {@link VivialConnectException}
+     */
+    public <T> T call(Callable<T> operation) throws VivialConnectException {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(previous != null && previous.deadlineNanos - deadlineNanos < 0 ? previous : this);
+
+        try {
+            return operation.call();
+        } catch (VivialConnectException vce) {
+            throw vce;
+        } catch (RuntimeException re) {
+            throw re;
+        } catch (Exception e) {
+            throw new VivialConnectException(e);
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Wraps an operation so that it runs under the current thread's deadline, if any, on whatever
+     * thread eventually calls it.
+     */
+    static <T> Callable<T> propagate(final Callable<T> operation) {
+        final Deadline deadline = current();
+        if (deadline == null) {
+            return operation;
+        }
+
+        return new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                return deadline.call(operation);
+            }
+        };
+    }
+
+    /**
+     * Gets the time left before the deadline.
+     *
+     * @param unit the unit of the result
+     * @return the time left, or 0 if the deadline has passed
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+}
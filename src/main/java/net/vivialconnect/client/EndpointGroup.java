@@ -0,0 +1,59 @@
+package net.vivialconnect.client;
+
+import java.net.URL;
+
+/**
+ * The account and endpoint class a request URL belongs to, such as account 12345 and
+ * {@link RateLimiter#MESSAGES} for <code>/api/v1.0/accounts/12345/messages/6789.json</code>.
+ * Requests in the same group share a rate limit and a circuit.
+ */
+final class EndpointGroup {
+
+    private static final String ACCOUNTS_SEGMENT = "/accounts/";
+
+    private final String accountId;
+    private final String endpointClass;
+
+
+    private EndpointGroup(String accountId, String endpointClass) {
+        this.accountId = accountId;
+        this.endpointClass = endpointClass;
+    }
+
+    static EndpointGroup of(URL endpoint) {
+        String path = endpoint.getPath();
+
+        int accountStart = path.indexOf(ACCOUNTS_SEGMENT);
+        if (accountStart == -1) {
+            return new EndpointGroup("", "");
+        }
+
+        accountStart += ACCOUNTS_SEGMENT.length();
+        int accountEnd = path.indexOf('/', accountStart);
+        if (accountEnd == -1) {
+            return new EndpointGroup(stripExtension(path.substring(accountStart)), RateLimiter.ACCOUNT);
+        }
+
+        int classEnd = path.indexOf('/', accountEnd + 1);
+        String endpointClass = classEnd == -1 ? path.substring(accountEnd + 1) : path.substring(accountEnd + 1, classEnd);
+
+        return new EndpointGroup(path.substring(accountStart, accountEnd), stripExtension(endpointClass));
+    }
+
+    private static String stripExtension(String segment) {
+        int dot = segment.indexOf('.');
+        return dot == -1 ? segment : segment.substring(0, dot);
+    }
+
+    static String key(String accountId, String endpointClass) {
+        return accountId + "/" + endpointClass;
+    }
+
+    String getKey() {
+        return key(accountId, endpointClass);
+    }
+
+    String getEndpointClass() {
+        return endpointClass;
+    }
+}
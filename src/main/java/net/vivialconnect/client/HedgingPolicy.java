@@ -0,0 +1,298 @@
+package net.vivialconnect.client;
+
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import net.vivialconnect.http.Cancellation;
+
+/**
+ * Cuts the tail latency of GET requests by sending a second, identical request when the first one
+ * is slower than usual, and keeping whichever response arrives first.
+ * <p>
+ * The second request is sent once the first has been pending for longer than the given percentile
+ * of recent latencies to the same endpoint group (account and endpoint class, as for the
+ * {@link RateLimiter}), or for the minimum delay until enough requests have been seen. The losing
+ * request is cancelled: it is aborted through its {@link Cancellation}, which closes its connection,
+ * its thread is interrupted, and its response, if any, is discarded.
+ * <p>
+ * Hedging adds load to the API, so it is capped by a budget: at most
+ * <code>maxExtraLoad</code> extra requests per request sent, with a small allowance for bursts.
+ * Once the budget is spent, requests are sent once until it refills.
+ * <p>
+ * Only GET requests are hedged, since sending them twice has no side effects. The first request
+ * is sent on the caller's thread, so a request that completes in time costs no thread handoff;
+ * only second requests run on a pool of daemon threads owned by the policy. When the second
+ * request wins, closing the first one's connection makes it fail at once, even when its thread is
+ * blocked on a socket read that ignores the interrupt, so the caller returns the second response
+ * without waiting for the first. Instances are safe to share between threads.
+ */
+public class HedgingPolicy {
+
+    /* Hedges that may be sent back to back once the budget has filled up */
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double maxExtraLoad;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+
+    private final ConcurrentMap<String, LatencyTracker> latencies = new ConcurrentHashMap<String, LatencyTracker>();
+
+    private double budget = MAX_BUDGET;
+
+    /**
+     * Creates a hedging policy.
+     *
+     * @param percentile the latency percentile, between 0 and 1, after which a second request is
+     *                   sent, such as 0.95
+     * @param minDelayMillis the shortest delay before a second request is sent, also used until
+     *                       enough latencies have been seen to estimate the percentile
+     * @param maxExtraLoad the maximum number of extra requests per request, such as 0.05 for 5%
+     *
+     * @throws IllegalArgumentException if percentile or maxExtraLoad is not between 0 and 1, or
+     *         minDelayMillis is negative
+     */
+    public HedgingPolicy(double percentile, long minDelayMillis, double maxExtraLoad) {
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("'percentile' param is not valid");
+        }
+
+        if (minDelayMillis < 0) {
+            throw new IllegalArgumentException("'minDelayMillis' param is not valid");
+        }
+
+        if (!(maxExtraLoad > 0 && maxExtraLoad <= 1)) {
+            throw new IllegalArgumentException("'maxExtraLoad' param is not valid");
+        }
+
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.maxExtraLoad = maxExtraLoad;
+        this.executor = Executors.newCachedThreadPool(new DaemonThreadFactory("vivialconnect-hedge"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("vivialconnect-hedge-timer"));
+    }
+
+    /**
+     * Sends a request on the calling thread, and a second one on another thread if the first is
+     * slow.
+     *
+     * @param endpoint the request URL, which selects the latencies the delay is based on
+     * @param attempt sends the request and decodes its response; called once or twice, possibly
+     *                concurrently
+     * @return the result of the first attempt to succeed
+     *
+     * @throws Exception the failure of the last attempt to complete, if none succeeded
+     */
+    public <T> T execute(URL endpoint, Callable<T> attempt) throws Exception {
+        LatencyTracker tracker = trackerFor(endpoint);
+        Callable<T> timedAttempt = timed(attempt, tracker);
+        creditRequest();
+
+        final Race<T> race = new Race<T>(Thread.currentThread(), timedAttempt);
+        ScheduledFuture<?> hedgeTimer = timer.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                race.startHedge();
+            }
+        }, hedgeDelayNanos(tracker), TimeUnit.NANOSECONDS);
+
+        try {
+            T result;
+            try {
+                result = race.first.call(timedAttempt);
+            } catch (Exception firstFailure) {
+                return race.firstFailed(firstFailure);
+            }
+
+            return race.firstSucceeded(result);
+        } finally {
+            hedgeTimer.cancel(false);
+            race.finish();
+        }
+    }
+
+    private long hedgeDelayNanos(LatencyTracker tracker) {
+        return Math.max(minDelayNanos, tracker.getPercentileNanos());
+    }
+
+    private synchronized boolean tryHedge() {
+        if (budget < 1) {
+            return false;
+        }
+
+        budget -= 1;
+        return true;
+    }
+
+    private synchronized void creditRequest() {
+        budget = Math.min(MAX_BUDGET, budget + maxExtraLoad);
+    }
+
+    private <T> Callable<T> timed(final Callable<T> attempt, final LatencyTracker tracker) {
+        return new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                long startNanos = System.nanoTime();
+                T result = attempt.call();
+                tracker.record(System.nanoTime() - startNanos);
+
+                return result;
+            }
+        };
+    }
+
+    private LatencyTracker trackerFor(URL endpoint) {
+        String key = EndpointGroup.of(endpoint).getKey();
+
+        LatencyTracker tracker = latencies.get(key);
+        if (tracker == null) {
+            tracker = new LatencyTracker(percentile);
+
+            LatencyTracker existing = latencies.putIfAbsent(key, tracker);
+            if (existing != null) {
+                tracker = existing;
+            }
+        }
+
+        return tracker;
+    }
+
+    /**
+     * Stops the threads second requests are sent on. The policy must not be used afterwards.
+     */
+    public void shutdown() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * The first attempt, run by the caller, against the second one, run on the policy's pool once
+     * the hedge delay has passed. Whichever succeeds first wins, and the other one is aborted; if
+     * the second one wins, it also interrupts the caller so that the first one is abandoned.
+     */
+    private final class Race<T> implements Callable<Void> {
+
+        private final Thread caller;
+        private final Callable<T> attempt;
+        private final Cancellation first = new Cancellation();
+        private final Cancellation second = new Cancellation();
+
+        private boolean done;
+        private boolean callerAttempting = true;
+        private boolean callerInterrupted;
+        private Future<Void> hedge;
+        private boolean hedgeRunning;
+        private boolean hedgeWon;
+        private T hedgeResult;
+        private Exception hedgeFailure;
+
+        Race(Thread caller, Callable<T> attempt) {
+            this.caller = caller;
+            this.attempt = attempt;
+        }
+
+        synchronized void startHedge() {
+            if (!done && tryHedge()) {
+                hedgeRunning = true;
+                hedge = executor.submit(this);
+            }
+        }
+
+        @Override
+        public Void call() {
+            try {
+                T result = second.call(attempt);
+                hedgeSucceeded(result);
+            } catch (Exception e) {
+                hedgeFailed(e);
+            }
+
+            return null;
+        }
+
+        private synchronized void hedgeSucceeded(T result) {
+            hedgeRunning = false;
+            if (!done) {
+                done = true;
+                hedgeWon = true;
+                hedgeResult = result;
+                if (callerAttempting) {
+                    callerInterrupted = true;
+                    first.cancel();
+                    caller.interrupt();
+                }
+            }
+
+            notifyAll();
+        }
+
+        private synchronized void hedgeFailed(Exception failure) {
+            hedgeRunning = false;
+            hedgeFailure = failure;
+            notifyAll();
+        }
+
+        synchronized T firstSucceeded(T result) {
+            callerAttempting = false;
+            if (hedgeWon) {
+                return takeHedgeResult();
+            }
+
+            done = true;
+            return result;
+        }
+
+        /**
+         * Waits for the second attempt if it is still running, since it may yet succeed.
+         */
+        synchronized T firstFailed(Exception firstFailure) throws Exception {
+            callerAttempting = false;
+            boolean waited = false;
+            while (hedgeRunning && !hedgeWon) {
+                waited = true;
+                try {
+                    wait();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    done = true;
+                    throw firstFailure;
+                }
+            }
+
+            if (hedgeWon) {
+                return takeHedgeResult();
+            }
+
+            done = true;
+            throw waited ? hedgeFailure : firstFailure;
+        }
+
+        private T takeHedgeResult() {
+            if (callerInterrupted) {
+                /* Clears the interrupt the second attempt used to stop the first */
+                Thread.interrupted();
+            }
+
+            return hedgeResult;
+        }
+
+        synchronized void finish() {
+            done = true;
+            if (hedge != null) {
+                second.cancel();
+                hedge.cancel(true);
+            }
+        }
+    }
+}
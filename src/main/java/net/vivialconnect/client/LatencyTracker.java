@@ -0,0 +1,53 @@
+package net.vivialconnect.client;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent requests to an endpoint group and estimates a percentile
+ * from them.
+ * <p>
+ * The percentile is recomputed after every {@link #RECOMPUTE_INTERVAL} samples rather than on every
+ * request, since sorting the window costs more than reading a cached value.
+ */
+final class LatencyTracker {
+
+    private static final int WINDOW_SIZE = 256;
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final double percentile;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private long cachedPercentileNanos = -1;
+
+
+    LatencyTracker(double percentile) {
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long latencyNanos) {
+        samples[next] = latencyNanos;
+        next = (next + 1) % WINDOW_SIZE;
+        if (count < WINDOW_SIZE) {
+            count++;
+        }
+
+        if (++sinceRecompute >= RECOMPUTE_INTERVAL) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            cachedPercentileNanos = sorted[Math.min(count - 1, (int) (percentile * count))];
+        }
+    }
+
+    /**
+     * Gets the estimated percentile latency.
+     *
+     * @return the latency in nanoseconds, or -1 until enough requests have been seen
+     */
+    synchronized long getPercentileNanos() {
+        return cachedPercentileNanos;
+    }
+}
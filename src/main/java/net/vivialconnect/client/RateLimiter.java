@@ -0,0 +1,261 @@
+package net.vivialconnect.client;
+
+import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces requests to the API so that they stay under its rate limits instead of being rejected
+ * with HTTP 429 (Too Many Requests).
+ * <p>
+ * Requests are grouped by account and endpoint class (the resource right after the account in the
+ * URL, such as {@link #MESSAGES}, {@link #NUMBERS} or {@link #LOGS}), and each group gets its own
+ * token bucket. A limit set for an account and endpoint class takes precedence over one set for the
+ * endpoint class alone, which takes precedence over the default limit. By default nothing is
+ * limited.
+ * <p>
+ * The limiter adapts to the API: when a request is throttled, the rate of its group is halved and
+ * the group is paused for as long as the <code>Retry-After</code> header asks, even when no limit
+ * was set. Every successful request then raises the rate back a little, up to the configured limit,
+ * so the client settles at the highest rate the API sustains.
+ * <p>
+ * Changing a limit resets the state of every group.
+ */
+public class RateLimiter {
+
+    public static final String MESSAGES = "messages";
+    public static final String NUMBERS = "numbers";
+    public static final String LOGS = "logs";
+    public static final String CONNECTORS = "connectors";
+    public static final String CONTACTS = "contacts";
+    public static final String USERS = "users";
+
+    /** The endpoint class of the account itself, such as <code>/accounts/12345.json</code> */
+    public static final String ACCOUNT = "account";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private static final String RETRY_AFTER_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    private static final Limit UNLIMITED = new Limit(Double.POSITIVE_INFINITY, 1);
+
+    private final ConcurrentMap<String, Limit> limits = new ConcurrentHashMap<String, Limit>();
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+
+    private volatile Limit defaultLimit = UNLIMITED;
+
+    /**
+     * Sets the limit of every endpoint class that has no limit of its own.
+     *
+     * @param permitsPerSecond the maximum sustained number of requests per second
+     * @param burst the number of requests that may be sent at once after a quiet period
+     *
+     * @throws IllegalArgumentException if permitsPerSecond is not positive or burst is less than 1
+     */
+    public void setDefaultLimit(double permitsPerSecond, int burst) {
+        defaultLimit = createLimit(permitsPerSecond, burst);
+        buckets.clear();
+    }
+
+    /**
+     * Sets the limit of an endpoint class, for every account.
+     *
+     * @param endpointClass the endpoint class, such as {@link #MESSAGES}
+     * @param permitsPerSecond the maximum sustained number of requests per second
+     * @param burst the number of requests that may be sent at once after a quiet period
+     *
+     * @throws IllegalArgumentException if endpointClass is null, permitsPerSecond is not positive or
+     *         burst is less than 1
+     */
+    public void setLimit(String endpointClass, double permitsPerSecond, int burst) {
+        limits.put(classKey(validateEndpointClass(endpointClass)), createLimit(permitsPerSecond, burst));
+        buckets.clear();
+    }
+
+    /**
+     * Sets the limit of an endpoint class for a single account.
+     *
+     * @param accountId the account ID
+     * @param endpointClass the endpoint class, such as {@link #MESSAGES}
+     * @param permitsPerSecond the maximum sustained number of requests per second
+     * @param burst the number of requests that may be sent at once after a quiet period
+     *
+     * @throws IllegalArgumentException if endpointClass is null, permitsPerSecond is not positive or
+     *         burst is less than 1
+     */
+    public void setLimit(int accountId, String endpointClass, double permitsPerSecond, int burst) {
+        limits.put(groupKey(String.valueOf(accountId), validateEndpointClass(endpointClass)), createLimit(permitsPerSecond, burst));
+        buckets.clear();
+    }
+
+    /**
+     * Removes every limit and resets every group.
+     */
+    public void clearLimits() {
+        limits.clear();
+        defaultLimit = UNLIMITED;
+        buckets.clear();
+    }
+
+    /**
+     * Waits until a request to the given endpoint may be sent.
+     *
+     * @param endpoint the request URL
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void acquire(URL endpoint) throws InterruptedException {
+        long waitNanos = bucketFor(endpoint).reserve(System.nanoTime());
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Waits until a request to the given endpoint may be sent, unless that takes longer than the
+     * given timeout.
+     *
+     * @param endpoint the request URL
+     * @param timeout the maximum time to wait
+     * @param unit the unit of timeout
+     * @return true if the request may be sent, false if it would have to wait longer than the
+     *         timeout, in which case it doesn't count against the limit
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean tryAcquire(URL endpoint, long timeout, TimeUnit unit) throws InterruptedException {
+        long waitNanos = bucketFor(endpoint).reserve(System.nanoTime(), unit.toNanos(timeout));
+        if (waitNanos < 0) {
+            return false;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+
+        return true;
+    }
+
+    /**
+     * Adapts the rate of the endpoint's group to the API's response.
+     *
+     * @param endpoint the request URL
+     * @param statusCode the HTTP status code of the response
+     * @param retryAfter the value of the <code>Retry-After</code> header, may be null
+     */
+    public void onResponse(URL endpoint, int statusCode, String retryAfter) {
+        TokenBucket bucket = bucketFor(endpoint);
+        if (statusCode == TOO_MANY_REQUESTS) {
+            bucket.onThrottled(parseRetryAfter(retryAfter), System.nanoTime());
+        } else if (statusCode < 400) {
+            bucket.onSuccess();
+        }
+    }
+
+    /**
+     * Gets the current rate of the given endpoint's group, which is lower than its limit while the
+     * limiter is recovering from throttled requests.
+     *
+     * @param endpoint the request URL
+     * @return the current rate in requests per second
+     */
+    public double getCurrentRate(URL endpoint) {
+        return bucketFor(endpoint).getRate();
+    }
+
+    private TokenBucket bucketFor(URL endpoint) {
+        EndpointGroup group = EndpointGroup.of(endpoint);
+        String key = group.getKey();
+
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            Limit limit = limitFor(key, group.getEndpointClass());
+            bucket = new TokenBucket(limit.permitsPerSecond, limit.burst, System.nanoTime());
+
+            TokenBucket existing = buckets.putIfAbsent(key, bucket);
+            if (existing != null) {
+                bucket = existing;
+            }
+        }
+
+        return bucket;
+    }
+
+    private Limit limitFor(String groupKey, String endpointClass) {
+        Limit limit = limits.get(groupKey);
+        if (limit == null) {
+            limit = limits.get(classKey(endpointClass));
+        }
+
+        return limit != null ? limit : defaultLimit;
+    }
+
+    /**
+     * Parses a <code>Retry-After</code> header, which holds either a number of seconds or an HTTP
+     * date.
+     *
+     * @return the time to wait in nanoseconds, or 0 if the header is missing or malformed
+     */
+    static long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return 0;
+        }
+
+        String value = retryAfter.trim();
+        try {
+            return TimeUnit.SECONDS.toNanos(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            /* Not a number of seconds, so it should be a date */
+        }
+
+        try {
+            long delayMillis = new SimpleDateFormat(RETRY_AFTER_DATE_FORMAT, Locale.US).parse(value).getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    private static String classKey(String endpointClass) {
+        return groupKey("*", endpointClass);
+    }
+
+    private static String groupKey(String accountId, String endpointClass) {
+        return EndpointGroup.key(accountId, endpointClass);
+    }
+
+    private static String validateEndpointClass(String endpointClass) {
+        if (endpointClass == null) {
+            throw new IllegalArgumentException("'endpointClass' param is not valid");
+        }
+
+        return endpointClass;
+    }
+
+    private static Limit createLimit(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("'permitsPerSecond' param is not valid");
+        }
+
+        if (burst < 1) {
+            throw new IllegalArgumentException("'burst' param is not valid");
+        }
+
+        return new Limit(permitsPerSecond, burst);
+    }
+
+    private static final class Limit {
+
+        private final double permitsPerSecond;
+        private final int burst;
+
+        private Limit(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package net.vivialconnect.client;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.vivialconnect.model.error.RequestTimeoutException;
+
+/**
+ * Lets concurrent identical GET requests share a single request to the API.
+ * <p>
+ * The first caller, the leader, sends the request; callers asking for the same URL, query and
+ * response type while it is in flight wait for it and receive the same response body, or the same
+ * exception. Each caller decodes the body into its own objects, so a caller may change what it
+ * gets back without affecting the others. Once the request completes, the next caller sends a new
+ * one, so results are never served stale.
+ * <p>
+ * The shared request runs under the leader's {@link Deadline}, and a waiting caller gives up at its
+ * own. If the leader runs out of time first, the callers that still have time don't fail with it:
+ * one of them sends the request again, and the rest wait for that one.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, FutureTask<?>> inFlight = new ConcurrentHashMap<String, FutureTask<?>>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Runs an operation, or joins the identical one already in flight.
+     *
+     * @param key identifies the operation, such as the request URL
+     * @param operation sends the request and reads its response body; the result is shared with
+     *                  every caller that joins, so it must not be modified
+     * @param deadline the deadline the caller, and the operation, run under; may be null
+     * @return the result of the operation
+     *
+     * @throws RequestTimeoutException if the deadline passes while waiting for another caller's
+     *         request
+     * @throws Exception the failure of the operation
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> operation, Deadline deadline) throws Exception {
+        while (true) {
+            FutureTask<T> task = new FutureTask<T>(operation);
+
+            FutureTask<T> leader = (FutureTask<T>) inFlight.putIfAbsent(key, task);
+            if (leader == null) {
+                try {
+                    task.run();
+                } finally {
+                    inFlight.remove(key, task);
+                }
+
+                return getResult(task);
+            }
+
+            coalesced.incrementAndGet();
+            try {
+                if (deadline == null) {
+                    return getResult(leader);
+                }
+
+                return getResult(leader, deadline.remaining(TimeUnit.NANOSECONDS));
+            } catch (RequestTimeoutException rte) {
+                if (deadline != null && deadline.isExpired()) {
+                    throw rte;
+                }
+
+                /* The leader ran out of time, but this caller hasn't: send the request again, or join whoever does */
+            }
+        }
+    }
+
+    private static <T> T getResult(FutureTask<T> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static <T> T getResult(FutureTask<T> task, long timeoutNanos) throws Exception {
+        try {
+            return task.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            throw new RequestTimeoutException("Deadline exceeded while waiting for an identical request in flight", e);
+        }
+    }
+
+    private static Exception unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return (Exception) cause;
+    }
+
+    /**
+     * Gets the number of requests in flight, each possibly shared by several callers.
+     *
+     * @return the in-flight request count
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Gets how many callers have been served another caller's request instead of sending their own.
+     *
+     * @return the coalesced request count
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,243 @@
+package net.vivialconnect.client;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the responses of GET requests for resources that rarely change, such as the account,
+ * connectors, numbers, users and contacts, so that reading them again doesn't go to the API.
+ * <p>
+ * Only responses decoded to a resource class given a time-to-live with
+ * {@link Builder#ttl(Class, long, TimeUnit)} are cached, such as <code>Connector.class</code> for
+ * <code>Connector.getConnectorById()</code>; lists and counts are not unless their own classes are
+ * given one. Entries are kept until their time-to-live runs out, and once the cache holds
+ * {@link Builder#maxEntries(int)} of them, the least recently used one is evicted.
+ * <p>
+ * The cache stores response bodies rather than resources, so every read decodes a new instance
+ * that the caller is free to change. Any other request sent through the client, such as an update
+ * or a delete, evicts every entry of its endpoint group (account and endpoint class, as for the
+ * {@link RateLimiter}), and responses to reads that were in flight meanwhile are not cached.
+ * Changes made outside the client are only seen once entries expire.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public class ResourceCache {
+
+    private final int maxEntries;
+    private final Map<Class<?>, Long> ttlNanos;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, Long> invalidatedAtNanos = new HashMap<String, Long>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+
+    private ResourceCache(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.ttlNanos = new HashMap<Class<?>, Long>(builder.ttlNanos);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Starts building a response cache.
+     *
+     * @return a builder holding the default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Tells whether responses decoded to the given class are cached.
+     *
+     * @param resourceClass the class responses are decoded to
+     * @return true if the class was given a time-to-live
+     */
+    public boolean isCacheable(Class<?> resourceClass) {
+        return ttlNanos.containsKey(resourceClass);
+    }
+
+    /**
+     * Gets the response body cached for a request, if it hasn't expired.
+     *
+     * @param endpoint the request URL, query string included
+     * @param resourceClass the class the response is decoded to
+     * @return the response body, or null if it isn't cached
+     */
+    public synchronized byte[] get(URL endpoint, Class<?> resourceClass) {
+        String key = key(endpoint, resourceClass);
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAtNanos - System.nanoTime() <= 0) {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.body;
+    }
+
+    /**
+     * Caches the response body of a request, unless its resource class isn't cacheable or its
+     * endpoint group has been invalidated since the request was sent.
+     *
+     * @param endpoint the request URL, query string included
+     * @param resourceClass the class the response is decoded to
+     * @param body the response body, which must not be changed afterwards
+     * @param sentAtNanos when the request was sent, as given by {@link System#nanoTime()}
+     */
+    public synchronized void put(URL endpoint, Class<?> resourceClass, byte[] body, long sentAtNanos) {
+        Long ttl = ttlNanos.get(resourceClass);
+        if (ttl == null) {
+            return;
+        }
+
+        String group = EndpointGroup.of(endpoint).getKey();
+
+        Long invalidatedAt = invalidatedAtNanos.get(group);
+        if (invalidatedAt != null && invalidatedAt.longValue() - sentAtNanos >= 0) {
+            return;
+        }
+
+        entries.put(key(endpoint, resourceClass), new Entry(group, body, System.nanoTime() + ttl.longValue()));
+
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Evicts every entry of the endpoint group a request belongs to, as done after a request that
+     * may change resources.
+     *
+     * @param endpoint the request URL
+     */
+    public synchronized void invalidate(URL endpoint) {
+        String group = EndpointGroup.of(endpoint).getKey();
+        invalidatedAtNanos.put(group, System.nanoTime());
+
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().group.equals(group)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Evicts every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets how many reads were served from the cache.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets how many reads of cacheable resources had to go to the API.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets how many entries were evicted to keep the cache within its size.
+     *
+     * @return the eviction count
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private static String key(URL endpoint, Class<?> resourceClass) {
+        return endpoint.toString() + ' ' + resourceClass.getName();
+    }
+
+    private static final class Entry {
+
+        private final String group;
+        private final byte[] body;
+        private final long expiresAtNanos;
+
+
+        private Entry(String group, byte[] body, long expiresAtNanos) {
+            this.group = group;
+            this.body = body;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    /**
+     * Builds {@link ResourceCache} instances.
+     */
+    public static final class Builder {
+
+        private int maxEntries = 1000;
+        private final Map<Class<?>, Long> ttlNanos = new HashMap<Class<?>, Long>();
+
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets how many responses the cache holds at most. Defaults to 1000.
+         */
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("'maxEntries' param is not valid");
+            }
+
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Caches responses decoded to the given resource class for the given time. No class is cached
+         * by default.
+         */
+        public Builder ttl(Class<?> resourceClass, long ttl, TimeUnit unit) {
+            if (resourceClass == null) {
+                throw new IllegalArgumentException("'resourceClass' param is not valid");
+            }
+
+            if (ttl < 1) {
+                throw new IllegalArgumentException("'ttl' param is not valid");
+            }
+
+            ttlNanos.put(resourceClass, unit.toNanos(ttl));
+            return this;
+        }
+
+        public ResourceCache build() {
+            return new ResourceCache(this);
+        }
+    }
+}
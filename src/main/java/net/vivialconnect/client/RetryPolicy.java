@@ -0,0 +1,133 @@
+package net.vivialconnect.client;
+
+import java.io.IOException;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.util.ResponseTooLargeException;
+
+/**
+ * Decides whether, and after how long, a failed request is sent again.
+ * <p>
+ * Requests are retried after transient failures only: a network error, or an HTTP 429 (Too Many
+ * Requests), 502 (Bad Gateway), 503 (Service Unavailable) or 504 (Gateway Timeout) response.
+ * Retries back off exponentially with full jitter, that is, a random delay between zero and
+ * <code>initialBackoff * 2^(attempt - 1)</code>, capped at the maximum backoff, so clients that
+ * failed together don't retry together.
+ * <p>
+ * Only idempotent requests are retried: GET, PUT and DELETE requests, and POST requests sent with
+ * an idempotency key, such as {@link net.vivialconnect.model.message.Message#send(String)}.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 2000;
+    public static final long DEFAULT_MAX_ELAPSED_MILLIS = 10000;
+
+    /** Sends every request once */
+    public static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, 0);
+
+    /** The policy used unless another one is set with {@link VivialConnectClient#setRetryPolicy(RetryPolicy)} */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF_MILLIS,
+                                                              DEFAULT_MAX_BACKOFF_MILLIS, DEFAULT_MAX_ELAPSED_MILLIS);
+
+    private static final Random JITTER = new Random();
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long maxElapsedMillis;
+
+    /**
+     * Creates a retry policy.
+     *
+     * @param maxAttempts the maximum number of times a request is sent, including the first one
+     * @param initialBackoffMillis the upper bound of the delay before the first retry
+     * @param maxBackoffMillis the upper bound of the delay before any retry
+     * @param maxElapsedMillis no retry is started if it would begin more than this long after the
+     *                         first attempt
+     *
+     * @throws IllegalArgumentException if maxAttempts is less than 1 or any duration is negative
+     */
+    public RetryPolicy(int maxAttempts, long initialBackoffMillis, long maxBackoffMillis, long maxElapsedMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("'maxAttempts' param is not valid");
+        }
+
+        if (initialBackoffMillis < 0 || maxBackoffMillis < 0 || maxElapsedMillis < 0) {
+            throw new IllegalArgumentException("'backoff' params are not valid");
+        }
+
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.maxElapsedMillis = maxElapsedMillis;
+    }
+
+    /**
+     * Decides what to do after an attempt failed.
+     *
+     * @param failure why the attempt failed
+     * @param attempt the number of the attempt that failed, starting at 1
+     * @param elapsedMillis the time since the first attempt started
+     * @return how long to wait before the next attempt in milliseconds, or -1 if the request must
+     *         not be retried
+     */
+    public long retryDelayMillis(Exception failure, int attempt, long elapsedMillis) {
+        if (attempt >= maxAttempts || !isTransient(failure)) {
+            return -1;
+        }
+
+        long delayMillis = (long) (JITTER.nextDouble() * backoffCeilingMillis(attempt));
+        if (elapsedMillis + delayMillis > maxElapsedMillis) {
+            return -1;
+        }
+
+        return delayMillis;
+    }
+
+    /**
+     * Tells whether a request failed for a reason that may go away by itself.
+     *
+     * @param failure why the request failed
+     * @return true for network errors and HTTP 429, 502, 503 and 504 responses
+     */
+    public static boolean isTransient(Exception failure) {
+        if (failure instanceof VivialConnectException) {
+            return isTransientStatus(((VivialConnectException) failure).getResponseCode());
+        }
+
+        /* A malformed or oversized response won't be any better the second time */
+        return failure instanceof IOException && !(failure instanceof JsonProcessingException)
+                && !(failure instanceof ResponseTooLargeException);
+    }
+
+    private static boolean isTransientStatus(int responseCode) {
+        return responseCode == 429 || responseCode == 502 || responseCode == 503 || responseCode == 504;
+    }
+
+    private long backoffCeilingMillis(int attempt) {
+        return (long) Math.min(initialBackoffMillis * Math.pow(2, attempt - 1), maxBackoffMillis);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    public long getMaxElapsedMillis() {
+        return maxElapsedMillis;
+    }
+}
@@ -0,0 +1,116 @@
+package net.vivialconnect.client;
+
+/**
+ * A token bucket whose refill rate adapts to throttling: it is halved on every throttled response
+ * and climbs back towards the configured rate one small step per successful response.
+ * <p>
+ * Permits are reserved rather than taken, so the balance may go negative: each caller is told how
+ * long to wait for its own permit, and callers queue up in the order they reserved.
+ */
+final class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /* The rate never drops below this fraction of the configured rate */
+    private static final double MIN_RATE_FRACTION = 1.0 / 64;
+
+    /* Each successful response gives back this fraction of the configured rate */
+    private static final double RECOVERY_FRACTION = 1.0 / 100;
+
+    private final double maxRate;
+    private final double burst;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * Creates a bucket. A rate of {@link Double#POSITIVE_INFINITY} never limits requests, but still
+     * pauses them for as long as the API asks to.
+     */
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.maxRate = permitsPerSecond;
+        this.burst = burst;
+        this.rate = permitsPerSecond;
+        this.tokens = burst;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Reserves one permit.
+     *
+     * @return how long the caller must wait before using the permit, in nanoseconds
+     */
+    synchronized long reserve(long nowNanos) {
+        return reserve(nowNanos, Long.MAX_VALUE);
+    }
+
+    /**
+     * Reserves one permit, unless the caller would have to wait longer than it can.
+     *
+     * @return how long the caller must wait before using the permit in nanoseconds, or -1 if that
+     *         is longer than maxWaitNanos, in which case nothing is reserved
+     */
+    synchronized long reserve(long nowNanos, long maxWaitNanos) {
+        refill(nowNanos);
+
+        long waitNanos = Math.max(0, lastRefillNanos - nowNanos);
+        double balance = tokens;
+        if (!isUnlimited()) {
+            balance -= 1;
+            if (balance < 0) {
+                waitNanos += (long) (-balance / rate * NANOS_PER_SECOND);
+            }
+        }
+
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+
+        tokens = balance;
+        return waitNanos;
+    }
+
+    /**
+     * Slows the bucket down after the API rejected a request.
+     *
+     * @param retryAfterNanos how long the API asked to wait, or 0 if it didn't say
+     */
+    synchronized void onThrottled(long retryAfterNanos, long nowNanos) {
+        refill(nowNanos);
+
+        if (!isUnlimited()) {
+            rate = Math.max(rate / 2, maxRate * MIN_RATE_FRACTION);
+            tokens = Math.min(tokens, 0);
+        }
+
+        /* Nothing refills until the pause is over */
+        lastRefillNanos = Math.max(lastRefillNanos, nowNanos + retryAfterNanos);
+    }
+
+    synchronized void onSuccess() {
+        if (!isUnlimited() && rate < maxRate) {
+            rate = Math.min(maxRate, rate + maxRate * RECOVERY_FRACTION);
+        }
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long nowNanos) {
+        if (nowNanos <= lastRefillNanos) {
+            return;
+        }
+
+        if (!isUnlimited()) {
+            tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) / NANOS_PER_SECOND * rate);
+        }
+
+        lastRefillNanos = nowNanos;
+    }
+
+    private boolean isUnlimited() {
+        return Double.isInfinite(maxRate);
+    }
+}
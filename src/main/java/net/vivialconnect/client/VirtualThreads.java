@@ -0,0 +1,59 @@
+package net.vivialconnect.client;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors backed by virtual threads when the running JVM supports them (Java 21 and
+ * later), falling back to a pool of platform daemon threads otherwise.
+ * <p>
+ * Virtual threads are looked up reflectively, so the SDK keeps running on older JVMs.
+ *
+ * @see VivialConnectClient#useVirtualThreads(int)
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactoryMethod();
+
+    private VirtualThreads() {
+
+    }
+
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Tells whether the running JVM supports virtual threads.
+     *
+     * @return <code>true</code> if {@link #newExecutor()} will return a virtual-thread executor
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task. On JVMs without virtual
+     * threads, returns a cached pool of platform daemon threads instead.
+     *
+     * @return a new executor
+     */
+    public static ExecutorService newExecutor() {
+        if (isSupported()) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (Exception e) {
+                /* Virtual threads may be disabled at runtime; fall through to platform threads */
+            }
+        }
+
+        return Executors.newCachedThreadPool(new DaemonThreadFactory("vivialconnect-async"));
+    }
+}
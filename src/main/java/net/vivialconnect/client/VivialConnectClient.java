@@ -1,37 +1,69 @@
 package net.vivialconnect.client;
 
 import java.net.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
+import net.vivialconnect.http.HttpURLConnectionTransport;
+import net.vivialconnect.http.RequestSigner;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.model.log.CompactLog;
+import net.vivialconnect.model.message.CompactMessage;
 
+
+/**
+ * Configures the default {@link AccountClient}, which resource operations run against unless
+ * another client is bound to the current thread with {@link AccountClient#call(Callable)}.
+ * <p>
+ * Every setter replaces the default client with an updated copy, so requests already in flight
+ * keep the settings they started with.
+ */
 public final class VivialConnectClient {
 
-    private static int accountId;
+    /** Default maximum size of an API response body, in bytes */
+    public static final long DEFAULT_MAX_RESPONSE_SIZE = 16L * 1024 * 1024;
 
-    private static String apiKey;
-    private static String apiSecret;
+    /** Default time to wait for a connection to the API, in milliseconds */
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10000;
 
-    private static String apiBaseUrl = "https://api.vivialconnect.net/api/v1.0";
+    /** Default time to wait for a response from the API, in milliseconds */
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30000;
 
-    private static Proxy proxy = null;
+    private static volatile AccountClient defaultClient = new AccountClient.Builder().build();
 
     private VivialConnectClient() {
 
     }
 
+    public static AccountClient getDefaultClient() {
+        return defaultClient;
+    }
+
+    /**
+     * Gets the client resource operations run against on the current thread: the one bound with
+     * {@link AccountClient#call(Callable)}, or the default client.
+     *
+     * @return the current client
+     */
+    public static AccountClient current() {
+        AccountClient bound = AccountClient.bound();
+        return bound != null ? bound : defaultClient;
+    }
+
     public static String getApiKey() {
-        return apiKey;
+        return defaultClient.getApiKey();
     }
 
     public static String getApiSecret() {
-        return apiSecret;
+        return defaultClient.getApiSecret();
     }
 
     public static int getAccountId() {
-        return accountId;
+        return defaultClient.getAccountId();
     }
 
     public static String getApiBaseUrl() {
-        return apiBaseUrl;
+        return defaultClient.getApiBaseUrl();
     }
     
     /**
@@ -42,8 +74,8 @@ public final class VivialConnectClient {
      * 
      * @param apiBaseUrl the URL the client will use for requests 
      */
-    public static void overrideApiBaseUrl(String apiBaseUrl) {
-        VivialConnectClient.apiBaseUrl = apiBaseUrl;
+    public static synchronized void overrideApiBaseUrl(String apiBaseUrl) {
+        defaultClient = defaultClient.toBuilder().apiBaseUrl(apiBaseUrl).build();
     }
     
     /**
@@ -55,49 +87,253 @@ public final class VivialConnectClient {
      * 
      * @throws IllegalArgumentException if any of the arguments are invalid (ie, null or empty)
      */
-    public static void init(int accountId, String apiKey, String apiSecret) {
-        validateInitialArguments(accountId, apiKey, apiSecret);
+    public static synchronized void init(int accountId, String apiKey, String apiSecret) {
+        defaultClient = defaultClient.toBuilder().credentials(accountId, apiKey, apiSecret).build();
+    }
 
-        VivialConnectClient.accountId = accountId;
-        VivialConnectClient.apiKey = apiKey;
-        VivialConnectClient.apiSecret = apiSecret;
+    /**
+     * Gets the signer holding the credentials passed to {@link #init(int, String, String)}.
+     *
+     * @return the request signer
+     *
+     * @throws IllegalStateException if the client hasn't been initialized
+     */
+    public static RequestSigner getRequestSigner() {
+        return defaultClient.getRequestSigner();
     }
 
-    private static void validateInitialArguments(int accountId, String apiKey, String apiSecret) {
-        validateAccountId(accountId);
-        validateAPIKey(apiKey);
-        validateAPISecret(apiSecret);
+    public static synchronized void setProxy(Proxy proxy) {
+        defaultClient = defaultClient.toBuilder().proxy(proxy).build();
     }
 
-    private static void validateAccountId(int accountId) {
-        if (accountId < 1) {
-            throw createIllegalArgumentException("accountId");
-        }
+    public static Proxy getProxy() {
+        return defaultClient.getProxy();
     }
 
-    private static void validateAPIKey(String apiKey) {
-        validateStringArg(apiKey, "apiKey");
+    /**
+     * Replaces the {@link Transport} used to send requests to the API.
+     * <p>
+     * By default, requests go through a {@link HttpURLConnectionTransport}, which reuses
+     * keep-alive connections between requests.
+     *
+     * @param transport the transport the client will use for requests
+     *
+     * @throws IllegalArgumentException if the transport is null
+     */
+    public static synchronized void setTransport(Transport transport) {
+        defaultClient = defaultClient.toBuilder().transport(transport).build();
     }
 
-    private static void validateAPISecret(String apiSecret) {
-        validateStringArg(apiSecret, "apiSecret");
+    public static Transport getTransport() {
+        return defaultClient.getTransport();
     }
 
-    private static void validateStringArg(String arg, String argName) {
-        if (arg == null || arg.isEmpty()) {
-            throw createIllegalArgumentException(argName);
-        }
+    /**
+     * Sets the executor that runs the asynchronous (<code>...Async</code>) operations, and how
+     * many of them may be in flight at once.
+     * <p>
+     * If this method is never called, asynchronous operations run on a pool of daemon threads with
+     * at most {@link AsyncDispatcher#DEFAULT_MAX_IN_FLIGHT} operations in flight. The previous
+     * executor, if any, is not shut down.
+     *
+     * @param executor the executor asynchronous operations will run on
+     * @param maxInFlight the maximum number of asynchronous operations running at once
+     *
+     * @throws IllegalArgumentException if executor is null or maxInFlight is less than 1
+     */
+    public static synchronized void setAsyncExecutor(ExecutorService executor, int maxInFlight) {
+        defaultClient = defaultClient.toBuilder().asyncDispatcher(new AsyncDispatcher(executor, maxInFlight)).build();
     }
 
-    private static IllegalArgumentException createIllegalArgumentException(String argName) {
-        return new IllegalArgumentException(String.format("'%s' param is not valid", argName));
+    /**
+     * Runs asynchronous (<code>...Async</code>) operations on virtual threads, one per operation,
+     * when the JVM supports them (Java 21 and later). On older JVMs, operations run on a pool of
+     * platform daemon threads instead.
+     * <p>
+     * Virtual threads are cheap enough that the in-flight limit can be sized to the concurrency the
+     * API and network allow rather than to the number of threads the JVM can afford. Keep in mind
+     * that the default transport also limits concurrent requests per host; see
+     * {@link HttpURLConnectionTransport#HttpURLConnectionTransport(int)}. The previous executor, if
+     * any, is not shut down.
+     *
+     * @param maxInFlight the maximum number of asynchronous operations running at once
+     *
+     * @throws IllegalArgumentException if maxInFlight is less than 1
+     *
+     * @see VirtualThreads#isSupported()
+     */
+    public static synchronized void useVirtualThreads(int maxInFlight) {
+        defaultClient = defaultClient.toBuilder().asyncDispatcher(new AsyncDispatcher(VirtualThreads.newExecutor(), maxInFlight)).build();
     }
 
-    public static void setProxy(Proxy proxy) {
-        VivialConnectClient.proxy = proxy;
+    public static AsyncDispatcher getAsyncDispatcher() {
+        return defaultClient.getAsyncDispatcher();
     }
 
-    public static Proxy getProxy() {
-        return proxy;
+    /**
+     * Sets the maximum size, in bytes, of an API response body. Requests whose response is larger
+     * fail with a {@link net.vivialconnect.model.error.VivialConnectException} instead of being
+     * read into memory.
+     * <p>
+     * Defaults to {@link #DEFAULT_MAX_RESPONSE_SIZE}.
+     *
+     * @param maxResponseSize the maximum response size in bytes
+     *
+     * @throws IllegalArgumentException if maxResponseSize is less than 1
+     */
+    public static synchronized void setMaxResponseSize(long maxResponseSize) {
+        defaultClient = defaultClient.toBuilder().maxResponseSize(maxResponseSize).build();
+    }
+
+    public static long getMaxResponseSize() {
+        return defaultClient.getMaxResponseSize();
+    }
+
+    /**
+     * Gets the rate limiter that paces requests to the API. Nothing is limited until a limit is set,
+     * but requests are still paused when the API answers with HTTP 429 and a
+     * <code>Retry-After</code> header.
+     *
+     * @return the rate limiter
+     */
+    public static RateLimiter getRateLimiter() {
+        return defaultClient.getRateLimiter();
+    }
+
+    /**
+     * Sets how failed requests are retried. Only idempotent requests are ever retried; see
+     * {@link RetryPolicy}.
+     * <p>
+     * Defaults to {@link RetryPolicy#DEFAULT}. Use {@link RetryPolicy#NONE} to send every request
+     * once.
+     *
+     * @param retryPolicy the retry policy
+     *
+     * @throws IllegalArgumentException if the retry policy is null
+     */
+    public static synchronized void setRetryPolicy(RetryPolicy retryPolicy) {
+        defaultClient = defaultClient.toBuilder().retryPolicy(retryPolicy).build();
+    }
+
+    public static RetryPolicy getRetryPolicy() {
+        return defaultClient.getRetryPolicy();
+    }
+
+    /**
+     * Sets how long to wait for a connection to the API, including the wait for a free connection
+     * when the transport limits them. Requests that time out fail with a
+     * {@link net.vivialconnect.model.error.RequestTimeoutException}, after being retried if they are
+     * idempotent.
+     * <p>
+     * Defaults to {@link #DEFAULT_CONNECT_TIMEOUT_MILLIS}. Within a {@link Deadline}, the time left
+     * is used instead if it is shorter.
+     *
+     * @param connectTimeoutMillis the connect timeout in milliseconds, or 0 to wait indefinitely
+     *
+     * @throws IllegalArgumentException if connectTimeoutMillis is negative
+     */
+    public static synchronized void setConnectTimeout(int connectTimeoutMillis) {
+        defaultClient = defaultClient.toBuilder().connectTimeout(connectTimeoutMillis).build();
+    }
+
+    public static int getConnectTimeout() {
+        return defaultClient.getConnectTimeout();
+    }
+
+    /**
+     * Sets how long to wait for the API to respond once connected, and then for each read of the
+     * response. Requests that time out fail with a
+     * {@link net.vivialconnect.model.error.RequestTimeoutException}, after being retried if they are
+     * idempotent.
+     * <p>
+     * Defaults to {@link #DEFAULT_READ_TIMEOUT_MILLIS}. Within a {@link Deadline}, the time left is
+     * used instead if it is shorter.
+     *
+     * @param readTimeoutMillis the read timeout in milliseconds, or 0 to wait indefinitely
+     *
+     * @throws IllegalArgumentException if readTimeoutMillis is negative
+     */
+    public static synchronized void setReadTimeout(int readTimeoutMillis) {
+        defaultClient = defaultClient.toBuilder().readTimeout(readTimeoutMillis).build();
+    }
+
+    public static int getReadTimeout() {
+        return defaultClient.getReadTimeout();
+    }
+
+    /**
+     * Guards requests with a circuit breaker, which fails them fast with a
+     * {@link net.vivialconnect.model.error.CircuitOpenException} while an endpoint keeps failing.
+     * Requests are not guarded by default.
+     *
+     * @param circuitBreaker the circuit breaker, or null to stop guarding requests
+     */
+    public static synchronized void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        defaultClient = defaultClient.toBuilder().circuitBreaker(circuitBreaker).build();
+    }
+
+    public static CircuitBreaker getCircuitBreaker() {
+        return defaultClient.getCircuitBreaker();
+    }
+
+    /**
+     * Hedges GET requests: when one is slower than usual, an identical request is sent and the
+     * first response is kept. Requests are not hedged by default.
+     *
+     * @param hedgingPolicy the hedging policy, or null to stop hedging requests
+     */
+    public static synchronized void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        defaultClient = defaultClient.toBuilder().hedgingPolicy(hedgingPolicy).build();
+    }
+
+    public static HedgingPolicy getHedgingPolicy() {
+        return defaultClient.getHedgingPolicy();
+    }
+
+    /**
+     * Lets identical GET requests made concurrently share a single request to the API. Requests
+     * are not coalesced by default.
+     *
+     * @param requestCoalescer the request coalescer, or null to stop coalescing requests
+     *
+     * @see RequestCoalescer
+     */
+    public static synchronized void setRequestCoalescer(RequestCoalescer requestCoalescer) {
+        defaultClient = defaultClient.toBuilder().requestCoalescer(requestCoalescer).build();
+    }
+
+    public static RequestCoalescer getRequestCoalescer() {
+        return defaultClient.getRequestCoalescer();
+    }
+
+    /**
+     * Caches responses for resources that rarely change, such as the account or connectors, and
+     * serves repeated reads from the cache until they expire or are changed through this client.
+     * Responses are not cached by default.
+     *
+     * @param resourceCache the resource cache, or null to stop caching responses
+     *
+     * @see ResourceCache
+     */
+    public static synchronized void setResourceCache(ResourceCache resourceCache) {
+        defaultClient = defaultClient.toBuilder().resourceCache(resourceCache).build();
+    }
+
+    public static ResourceCache getResourceCache() {
+        return defaultClient.getResourceCache();
+    }
+
+    /**
+     * Decodes messages and logs as {@link CompactMessage} and {@link CompactLog} instances, which
+     * take less memory, for applications that keep large numbers of them. Disabled by default.
+     *
+     * @param compactModels whether to decode compact models
+     */
+    public static synchronized void setCompactModels(boolean compactModels) {
+        defaultClient = defaultClient.toBuilder().compactModels(compactModels).build();
+    }
+
+    public static boolean isCompactModels() {
+        return defaultClient.getResponseDecoder().isCompactModels();
     }
 }
@@ -0,0 +1,125 @@
+package net.vivialconnect.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets requests sent on one thread be aborted from another.
+ * <p>
+ * Interrupting a thread does not stop a blocking socket read, so a transport registers the
+ * connection of each request it sends with the {@link #current()} cancellation, if any, and
+ * {@link #cancel()} closes it: a request waiting for its response fails at once rather than once
+ * its read timeout elapses. Requests sent after the cancellation fail before they are sent.
+ * <p>
+ * The {@link net.vivialconnect.client.HedgingPolicy} runs each attempt under a cancellation of its
+ * own, to abort the attempt that lost the race.
+ */
+public final class Cancellation{
+
+    private static final ThreadLocal<Cancellation> CURRENT = new ThreadLocal<Cancellation>();
+
+    /* Usually the one connection of the request in flight */
+    private final List<Closeable> connections = new ArrayList<Closeable>(1);
+    private boolean cancelled;
+
+
+    /**
+     * Gets the cancellation the current thread is running under.
+     *
+     * @return the cancellation, or null if there is none
+     */
+    public static Cancellation current(){
+        return CURRENT.get();
+    }
+
+
+    /**
+     * Runs an operation under this cancellation.
+     *
+     * @param operation the operation to run
+     * @return the result of the operation
+     *
+     * @throws Exception whatever the operation throws
+     */
+    public <T> T call(Callable<T> operation) throws Exception{
+        Cancellation previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try{
+            return operation.call();
+        }finally{
+            if (previous == null){
+                CURRENT.remove();
+            }else{
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+
+    /**
+     * Closes the connections of the requests in flight under this cancellation, and makes later
+     * requests fail before they are sent.
+     */
+    public void cancel(){
+        List<Closeable> open;
+        synchronized (this){
+            if (cancelled){
+                return;
+            }
+
+            cancelled = true;
+            open = new ArrayList<Closeable>(connections);
+            connections.clear();
+        }
+
+        for (Closeable connection : open){
+            closeQuietly(connection);
+        }
+    }
+
+
+    public synchronized boolean isCancelled(){
+        return cancelled;
+    }
+
+
+    /**
+     * Registers the connection of a request about to be sent, to be closed on cancellation.
+     *
+     * @throws InterruptedIOException if this was already cancelled, in which case the connection
+     *         is closed at once
+     */
+    public void register(Closeable connection) throws InterruptedIOException{
+        synchronized (this){
+            if (!cancelled){
+                connections.add(connection);
+                return;
+            }
+        }
+
+        closeQuietly(connection);
+        throw new InterruptedIOException("The request was cancelled");
+    }
+
+
+    /**
+     * Forgets the connection of a request that is over, which must no longer be closed.
+     */
+    public synchronized void unregister(Closeable connection){
+        connections.remove(connection);
+    }
+
+
+    private static void closeQuietly(Closeable connection){
+        try{
+            connection.close();
+        }catch (IOException ignored){
+
+        }
+    }
+}
@@ -20,11 +20,14 @@ public class CanonicalRequestBuilder{
 
     private String method;
     private String body;
+    private byte[] bodyBytes;
     private String requestTimestamp;
 
     private Map<String, String>	headers;
     private Map<String, String>	queryParams;
 
+    private List<String> sortedHeaders;
+
 
     public CanonicalRequestBuilder(){
         this.headers = new HashMap<String, String>();
@@ -46,6 +49,19 @@ public class CanonicalRequestBuilder{
 
     public CanonicalRequestBuilder body(String body){
         this.body = body;
+        this.bodyBytes = null;
+        return this;
+    }
+
+    /**
+     * Sets the body as the exact bytes that will be sent, so they are hashed without being encoded again.
+     *
+     * @param bodyBytes the UTF-8 encoded body, may be null
+     * @return this builder
+     */
+    public CanonicalRequestBuilder body(byte[] bodyBytes){
+        this.bodyBytes = bodyBytes;
+        this.body = null;
         return this;
     }
 
@@ -58,12 +74,14 @@ public class CanonicalRequestBuilder{
 
     public CanonicalRequestBuilder headers(Map<String, String> headers){
         this.headers = headers;
+        this.sortedHeaders = null;
         return this;
     }
 
 
     public CanonicalRequestBuilder addHeader(String name, String value){
         this.headers.put(name, value);
+        this.sortedHeaders = null;
         return this;
     }
 
@@ -97,10 +115,6 @@ public class CanonicalRequestBuilder{
                .append(canonicalizedHeaders).append("\n")
                .append(canonicalizedHeaderNames).append("\n");
 
-        if (bodyIsNull()){
-            this.body = "";
-        }
-
         hashBody(builder);
         
         return builder.toString();
@@ -109,7 +123,7 @@ public class CanonicalRequestBuilder{
 
     private void hashBody(StringBuilder builder) throws NoSuchAlgorithmException, UnsupportedEncodingException{
         MessageDigest digest = MessageDigest.getInstance("SHA-256");
-        digest.update(this.body.getBytes("UTF-8"));
+        digest.update(getBodyBytes());
 
         String hashedBodyInHex = CryptoUtils.toHex(digest.digest());
         builder.append(hashedBodyInHex);
@@ -145,10 +159,10 @@ public class CanonicalRequestBuilder{
 
 
     private List<String> getSortedHeaders(){
-        List<String> sortedHeaders = new ArrayList<String>();
-        sortedHeaders.addAll(headers.keySet());
-
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        if (sortedHeaders == null){
+            sortedHeaders = new ArrayList<String>(headers.keySet());
+            Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        }
 
         return sortedHeaders;
     }
@@ -217,7 +231,11 @@ public class CanonicalRequestBuilder{
     }
 
 
-    private boolean bodyIsNull(){
-        return this.body == null;
+    private byte[] getBodyBytes() throws UnsupportedEncodingException{
+        if (bodyBytes != null){
+            return bodyBytes;
+        }
+
+        return body == null ? new byte[0] : body.getBytes("UTF-8");
     }
 }
\ No newline at end of file
@@ -0,0 +1,158 @@
+package net.vivialconnect.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * {@link Transport} built on the <code>java.net.http.HttpClient</code> introduced in Java 11.
+ * <p>
+ * The client negotiates HTTP/2 with the API and multiplexes concurrent requests as streams over a
+ * single connection, falling back to HTTP/1.1 when the server or an intermediary doesn't support
+ * HTTP/2. Requests are signed before they reach the transport, so signing is unaffected.
+ * <p>
+ * This class requires Java 11 or later and is only compiled when the SDK is built with such a JDK
+ * (the <code>java11</code> build profile). Enable it with:
+ * <pre>
+ * <code>
+ * VivialConnectClient.setTransport(new HttpClientTransport());
+ * </code>
+ * </pre>
+ * Proxies must be configured on the {@link HttpClient} passed to
+ * {@link #HttpClientTransport(HttpClient)}; {@link net.vivialconnect.client.VivialConnectClient#setProxy(Proxy)}
+ * is not supported by this transport. On Java 11, the client refuses to send the signed
+ * <code>Date</code> header unless the JVM is started with
+ * <code>-Djdk.httpclient.allowRestrictedHeaders=date</code>; later JDKs allow it by default.
+ */
+public class HttpClientTransport implements Transport{
+
+    private final HttpClient client;
+
+
+    public HttpClientTransport(){
+        this(HttpClient.newBuilder()
+                       .version(HttpClient.Version.HTTP_2)
+                       .followRedirects(HttpClient.Redirect.NEVER)
+                       .build());
+    }
+
+
+    public HttpClientTransport(HttpClient client){
+        if (client == null){
+            throw new IllegalArgumentException("'client' param is not valid");
+        }
+
+        this.client = client;
+    }
+
+
+    public HttpClient getClient(){
+        return client;
+    }
+
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException{
+        verifyNoProxy(request);
+
+        try{
+            HttpResponse<InputStream> response = client.send(buildRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+            return new HttpClientResponse(response);
+        }catch (HttpTimeoutException hte){
+            /* Surface timeouts the same way as the default transport does */
+            SocketTimeoutException timeout = new SocketTimeoutException(hte.getMessage());
+            timeout.initCause(hte);
+            throw timeout;
+        }catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response");
+        }
+    }
+
+
+    private void verifyNoProxy(TransportRequest request) throws IOException{
+        Proxy proxy = request.getProxy();
+        if (proxy != null && proxy.type() != Proxy.Type.DIRECT){
+            throw new IOException("HttpClientTransport does not support per-request proxies, configure the proxy on the HttpClient instead");
+        }
+    }
+
+
+    private HttpRequest buildRequest(TransportRequest request) throws IOException{
+        HttpRequest.Builder builder;
+        try{
+            builder = HttpRequest.newBuilder(request.getEndpoint().toURI());
+        }catch (URISyntaxException e){
+            throw new IOException(e);
+        }
+
+        HttpRequest.BodyPublisher body = request.hasBody() ? HttpRequest.BodyPublishers.ofByteArray(request.getBody())
+                                                           : HttpRequest.BodyPublishers.noBody();
+        builder.method(request.getMethod(), body);
+
+        /* The client has no per-request connect timeout, so the read timeout covers connecting as well */
+        if (request.getReadTimeoutMillis() > 0){
+            builder.timeout(Duration.ofMillis(request.getReadTimeoutMillis()));
+        }
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()){
+            /* The client derives these from the URI and the body, and rejects them if set explicitly */
+            if ("Host".equalsIgnoreCase(header.getKey()) || "Content-Length".equalsIgnoreCase(header.getKey())){
+                continue;
+            }
+
+            try{
+                builder.header(header.getKey(), header.getValue());
+            }catch (IllegalArgumentException iae){
+                throw new IOException("Header '" + header.getKey() + "' cannot be sent by java.net.http.HttpClient", iae);
+            }
+        }
+
+        return builder.build();
+    }
+
+
+    private static class HttpClientResponse implements TransportResponse{
+
+        private final HttpResponse<InputStream> response;
+
+
+        HttpClientResponse(HttpResponse<InputStream> response){
+            this.response = response;
+        }
+
+
+        @Override
+        public int getStatusCode(){
+            return response.statusCode();
+        }
+
+
+        @Override
+        public String getHeader(String name){
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+
+        @Override
+        public InputStream getBody(){
+            return response.body();
+        }
+
+
+        @Override
+        public void close() throws IOException{
+            /* Closing the stream before it is fully read cancels the HTTP/2 stream, not the connection */
+            response.body().close();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package net.vivialconnect.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default {@link Transport}, built on {@link HttpURLConnection}.
+ * <p>
+ * Connections are kept alive between requests: once a response is closed, whatever is left of its
+ * body is read and the socket goes back to the JDK's keep-alive cache, so the next request to the
+ * same host skips the TCP and TLS handshakes. When more than a few kilobytes are left, as when a
+ * response is abandoned halfway or is too large, the connection is
+ * {@link HttpURLConnection#disconnect() disconnected} instead, since reading the rest would cost
+ * more than a new handshake. Idle sockets are evicted by the keep-alive cache once the server's
+ * keep-alive timeout elapses, and the number of idle sockets kept per host is bounded by the
+ * <code>http.maxConnections</code> system property.
+ * <p>
+ * On top of that, this transport limits how many requests may be in flight against a single
+ * route (scheme, host and port) at once. Callers going over the limit wait for a connection to be
+ * released rather than opening yet another socket; that wait counts against the request's connect
+ * timeout.
+ * <p>
+ * A request sent under a {@link Cancellation} is aborted by disconnecting its connection once the
+ * cancellation is cancelled, as interrupting the thread waiting for the response has no effect.
+ */
+public class HttpURLConnectionTransport implements Transport{
+
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    private static final int DRAIN_BUFFER_SIZE = 4096;
+
+    /* The most that is read from an unconsumed body to keep its connection alive */
+    private static final int MAX_DRAIN_BYTES = 2 * DRAIN_BUFFER_SIZE;
+
+    private final int maxConnectionsPerRoute;
+    private final ConcurrentMap<String, Semaphore> routePermits = new ConcurrentHashMap<String, Semaphore>();
+
+
+    public HttpURLConnectionTransport(){
+        this(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+
+    public HttpURLConnectionTransport(int maxConnectionsPerRoute){
+        if (maxConnectionsPerRoute < 1){
+            throw new IllegalArgumentException("'maxConnectionsPerRoute' param is not valid");
+        }
+
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+
+    public int getMaxConnectionsPerRoute(){
+        return maxConnectionsPerRoute;
+    }
+
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException{
+        Semaphore permits = permitsFor(request.getEndpoint());
+        acquire(permits, request.getConnectTimeoutMillis());
+
+        Cancellation cancellation = Cancellation.current();
+        HttpURLConnection connection = null;
+        Closeable abort = null;
+        try{
+            connection = openConnection(request);
+            abort = abortOnCancel(connection, cancellation);
+            writeBody(connection, request);
+
+            /* Forces the request to be sent and the status line to be read */
+            connection.getResponseCode();
+
+            return new HttpURLConnectionResponse(connection, permits, cancellation, abort);
+        }catch (IOException ioe){
+            /* A failed exchange leaves the socket in an unknown state, so don't let it be reused */
+            if (connection != null){
+                connection.disconnect();
+            }
+
+            forget(cancellation, abort);
+            permits.release();
+            throw ioe;
+        }catch (RuntimeException re){
+            forget(cancellation, abort);
+            permits.release();
+            throw re;
+        }
+    }
+
+
+    /**
+     * Lets a request running under a {@link Cancellation} be aborted from another thread: a
+     * blocking read ignores interrupts, but fails as soon as its connection is disconnected.
+     */
+    private static Closeable abortOnCancel(final HttpURLConnection connection, Cancellation cancellation)
+            throws InterruptedIOException{
+        if (cancellation == null){
+            return null;
+        }
+
+        Closeable abort = new Closeable(){
+
+            @Override
+            public void close(){
+                connection.disconnect();
+            }
+        };
+
+        cancellation.register(abort);
+        return abort;
+    }
+
+
+    private static void forget(Cancellation cancellation, Closeable abort){
+        if (abort != null){
+            cancellation.unregister(abort);
+        }
+    }
+
+
+    private Semaphore permitsFor(URL endpoint){
+        String route = routeOf(endpoint);
+
+        Semaphore permits = routePermits.get(route);
+        if (permits == null){
+            Semaphore newPermits = new Semaphore(maxConnectionsPerRoute, true);
+            permits = routePermits.putIfAbsent(route, newPermits);
+            if (permits == null){
+                permits = newPermits;
+            }
+        }
+
+        return permits;
+    }
+
+
+    private static String routeOf(URL endpoint){
+        int port = endpoint.getPort() == -1 ? endpoint.getDefaultPort() : endpoint.getPort();
+        return endpoint.getProtocol() + "://" + endpoint.getHost().toLowerCase() + ":" + port;
+    }
+
+
+    private static void acquire(Semaphore permits, int timeoutMillis) throws IOException{
+        try{
+            if (timeoutMillis == 0){
+                permits.acquire();
+            }else if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)){
+                throw new SocketTimeoutException("Timed out waiting for a connection");
+            }
+        }catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection");
+        }
+    }
+
+
+    private HttpURLConnection openConnection(TransportRequest request) throws IOException{
+        URL endpoint = request.getEndpoint();
+
+        HttpURLConnection connection = null;
+        if (request.getProxy() == null){
+            connection = (HttpURLConnection) endpoint.openConnection();
+        }else{
+            /* If we call this method, this preempts the systems proxy settings, if any.
+             * We do the call this way so that if the user sets the proxy using the
+             * System.setProperty("http.proxyHost", "something"), it's respected.
+             */
+            connection = (HttpURLConnection) endpoint.openConnection(request.getProxy());
+        }
+
+        connection.setConnectTimeout(request.getConnectTimeoutMillis());
+        connection.setReadTimeout(request.getReadTimeoutMillis());
+        connection.setRequestMethod(request.getMethod());
+        connection.setUseCaches(false);
+        connection.setDoInput(true);
+        connection.setDoOutput(request.hasBody());
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()){
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        return connection;
+    }
+
+
+    private void writeBody(HttpURLConnection connection, TransportRequest request) throws IOException{
+        if (!request.hasBody()){
+            return;
+        }
+
+        byte[] body = request.getBody();
+        connection.setFixedLengthStreamingMode(body.length);
+
+        OutputStream outputStream = connection.getOutputStream();
+        try{
+            outputStream.write(body);
+            outputStream.flush();
+        }finally{
+            outputStream.close();
+        }
+    }
+
+
+    private static class HttpURLConnectionResponse implements TransportResponse{
+
+        private final HttpURLConnection connection;
+        private final Semaphore permits;
+        private final Cancellation cancellation;
+        private final Closeable abort;
+
+        private InputStream body;
+        private boolean closed;
+
+
+        HttpURLConnectionResponse(HttpURLConnection connection, Semaphore permits, Cancellation cancellation,
+                                  Closeable abort){
+            this.connection = connection;
+            this.permits = permits;
+            this.cancellation = cancellation;
+            this.abort = abort;
+        }
+
+
+        @Override
+        public int getStatusCode() throws IOException{
+            return connection.getResponseCode();
+        }
+
+
+        @Override
+        public String getHeader(String name){
+            return connection.getHeaderField(name);
+        }
+
+
+        @Override
+        public InputStream getBody() throws IOException{
+            if (body == null){
+                body = openBody();
+            }
+
+            return body;
+        }
+
+
+        private InputStream openBody() throws IOException{
+            if (connection.getResponseCode() >= 400){
+                InputStream errorStream = connection.getErrorStream();
+                return errorStream == null ? new ByteArrayInputStream(new byte[0]) : errorStream;
+            }
+
+            return connection.getInputStream();
+        }
+
+
+        @Override
+        public void close() throws IOException{
+            if (closed){
+                return;
+            }
+
+            closed = true;
+            try{
+                /* The socket only goes back to the keep-alive cache once the body has been fully read */
+                InputStream stream = getBody();
+                if (drain(stream)){
+                    stream.close();
+                }else{
+                    connection.disconnect();
+                }
+            }catch (IOException ioe){
+                connection.disconnect();
+                throw ioe;
+            }finally{
+                /* The connection may be back in the keep-alive cache, so it must no longer be aborted */
+                forget(cancellation, abort);
+                permits.release();
+            }
+        }
+
+
+        /**
+         * Reads what is left of a body, up to {@link #MAX_DRAIN_BYTES}.
+         *
+         * @return true if the end of the body was reached
+         */
+        private static boolean drain(InputStream stream) throws IOException{
+            byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            int drained = 0;
+            int n;
+            while ((n = stream.read(buffer)) != -1){
+                drained += n;
+                if (drained > MAX_DRAIN_BYTES){
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package net.vivialconnect.http;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.vivialconnect.util.CryptoUtils;
+import net.vivialconnect.util.ProjectProperties;
+
+/**
+ * Signs API requests with an account's API key and secret.
+ * <p>
+ * Everything that doesn't change from one request to the next is computed once: the HMAC key, the
+ * <code>User-Agent</code> headers and the list of signed header names. Each thread keeps its own
+ * initialized {@link Mac}, since a {@link Mac} can't be shared but can be reused once
+ * {@link Mac#doFinal(byte[])} resets it.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public class RequestSigner{
+
+    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+
+    private static final String SIGNED_HEADERS = "accept;date;host";
+    private static final String SIGNED_HEADERS_WITH_CONTENT_TYPE = "accept;content-type;date;host";
+
+    private static final String JSON = "application/json";
+
+    private final String apiKey;
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<Mac> macs;
+
+    private final String userAgent;
+    private final String xUserAgent;
+
+
+    public RequestSigner(String apiKey, String apiSecret){
+        this.apiKey = apiKey;
+        this.secretKey = new SecretKeySpec(apiSecret.getBytes(), SIGNATURE_ALGORITHM);
+
+        /* Fail fast on a key the provider won't accept, rather than on every request */
+        createMac();
+        this.macs = new ThreadLocal<Mac>(){
+
+            @Override
+            protected Mac initialValue(){
+                return createMac();
+            }
+        };
+
+        String appVersion = applicationVersion();
+        this.userAgent = "VivialConnect JavaClient " + appVersion;
+        this.xUserAgent = createXUserAgent(appVersion);
+    }
+
+
+    private Mac createMac(){
+        try{
+            Mac hmac = Mac.getInstance(SIGNATURE_ALGORITHM);
+            hmac.init(secretKey);
+
+            return hmac;
+        }catch (GeneralSecurityException e){
+            throw new IllegalStateException("Unable to initialize " + SIGNATURE_ALGORITHM, e);
+        }
+    }
+
+
+    private static String applicationVersion(){
+        try{
+            return ProjectProperties.getProperty("application.version");
+        }catch (IOException e){
+            return null;
+        }
+    }
+
+
+    private static String createXUserAgent(String appVersion){
+        Map<String, String> xUserAgent = new HashMap<String, String>();
+        xUserAgent.put("client_version", appVersion);
+        xUserAgent.put("lang", "Java");
+        xUserAgent.put("lang_version", System.getProperty("java.version"));
+        xUserAgent.put("publisher", "vivialconnect");
+        xUserAgent.put("platform", System.getProperty("os.name") + " " +
+                                   System.getProperty("os.version") + " " +
+                                   System.getProperty("os.arch"));
+        try{
+            return new ObjectMapper().writeValueAsString(xUserAgent);
+        }catch (IOException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Builds the complete set of headers for a request, including its signature.
+     *
+     * @param method the HTTP method
+     * @param endpoint the request URL, including the query string for GET requests
+     * @param queryParams the query parameters, may be null
+     * @param body the exact bytes of the body that will be sent, may be null
+     * @param hasContentType whether the request declares a JSON <code>Content-Type</code>
+     * @return the request headers
+     * @throws GeneralSecurityException if the canonical request cannot be hashed
+     * @throws UnsupportedEncodingException if UTF-8 isn't supported
+     */
+    public Map<String, String> sign(String method, URL endpoint, Map<String, String> queryParams,
+                                    byte[] body, boolean hasContentType)
+                                    throws GeneralSecurityException, UnsupportedEncodingException{
+        RequestTimestamp timestamp = RequestTimestamp.now();
+
+        Map<String, String> headers = new HashMap<String, String>(16);
+        headers.put("Date", timestamp.getHttpDate());
+        headers.put("Host", endpoint.getHost());
+        headers.put("Accept", JSON);
+
+        if (hasContentType){
+            headers.put("Content-Type", JSON);
+        }
+
+        String canonicalRequest = new CanonicalRequestBuilder().endpoint(endpoint)
+                                                               .requestTimestamp(timestamp.getIso8601())
+                                                               .body(body)
+                                                               .method(method)
+                                                               .headers(headers)
+                                                               .queryParams(queryParams)
+                                                               .build();
+
+        headers.put("Authorization", "HMAC " + apiKey + ":" + signature(canonicalRequest));
+        headers.put("X-Auth-Date", timestamp.getIso8601());
+        headers.put("X-Auth-SignedHeaders", hasContentType ? SIGNED_HEADERS_WITH_CONTENT_TYPE : SIGNED_HEADERS);
+        headers.put("User-Agent", userAgent);
+        headers.put("X-VivialConnect-User-Agent", xUserAgent);
+
+        return headers;
+    }
+
+
+    private String signature(String canonicalRequest) throws UnsupportedEncodingException{
+        byte[] signatureBytes = macs.get().doFinal(canonicalRequest.getBytes("UTF-8"));
+        return CryptoUtils.toHex(signatureBytes);
+    }
+
+
+    public String getApiKey(){
+        return apiKey;
+    }
+}
@@ -0,0 +1,93 @@
+package net.vivialconnect.http;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+
+/**
+ * The two renderings of a request's timestamp the API expects: ISO 8601 for the
+ * <code>X-Auth-Date</code> header and the canonical request, and an HTTP date for the
+ * <code>Date</code> header.
+ * <p>
+ * Both have a one-second resolution, so {@link #now()} formats them at most once per second and
+ * hands out the same instance to every request signed within that second.
+ */
+public final class RequestTimestamp{
+
+    public static final String ISO_8601_FORMAT = "yyyyMMdd'T'HHmmss'Z'";
+    public static final String HTTP_DATE_FORMAT = "E, dd MMM yyyy HH:mm:ss z";
+
+    /* SimpleDateFormat isn't thread-safe, so each thread gets its own */
+    private static final ThreadLocal<DateFormat> ISO_8601 = new ThreadLocal<DateFormat>(){
+
+        @Override
+        protected DateFormat initialValue(){
+            return createGmtFormat(ISO_8601_FORMAT);
+        }
+    };
+
+    private static final ThreadLocal<DateFormat> HTTP_DATE = new ThreadLocal<DateFormat>(){
+
+        @Override
+        protected DateFormat initialValue(){
+            return createGmtFormat(HTTP_DATE_FORMAT);
+        }
+    };
+
+    private static volatile RequestTimestamp current = new RequestTimestamp(Long.MIN_VALUE, null, null);
+
+    private final long epochSecond;
+    private final String iso8601;
+    private final String httpDate;
+
+
+    private RequestTimestamp(long epochSecond, String iso8601, String httpDate){
+        this.epochSecond = epochSecond;
+        this.iso8601 = iso8601;
+        this.httpDate = httpDate;
+    }
+
+    /**
+     * Gets the timestamp for the current second.
+     *
+     * @return the current request timestamp
+     */
+    public static RequestTimestamp now(){
+        long currentTimeMillis = System.currentTimeMillis();
+        long epochSecond = currentTimeMillis / 1000;
+
+        RequestTimestamp timestamp = current;
+        if (timestamp.epochSecond != epochSecond){
+            Date date = new Date(epochSecond * 1000);
+            timestamp = new RequestTimestamp(epochSecond, ISO_8601.get().format(date), HTTP_DATE.get().format(date));
+            current = timestamp;
+        }
+
+        return timestamp;
+    }
+
+
+    public static String formatIso8601(Date date){
+        return ISO_8601.get().format(date);
+    }
+
+
+    private static DateFormat createGmtFormat(String pattern){
+        DateFormat format = new SimpleDateFormat(pattern, Locale.getDefault());
+        format.setTimeZone(new SimpleTimeZone(0, "GMT"));
+
+        return format;
+    }
+
+
+    public String getIso8601(){
+        return iso8601;
+    }
+
+
+    public String getHttpDate(){
+        return httpDate;
+    }
+}
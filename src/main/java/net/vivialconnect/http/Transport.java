@@ -0,0 +1,27 @@
+package net.vivialconnect.http;
+
+import java.io.IOException;
+
+/**
+ * Sends a fully signed request to the VivialConnect API and hands back the raw response.
+ * <p>
+ * Implementations own connection management (pooling, keep-alive, proxies). Request signing
+ * happens before the transport is called, so a transport must send the headers and body
+ * exactly as given.
+ * <p>
+ * Implementations must be safe to use from multiple threads.
+ *
+ * @see HttpURLConnectionTransport
+ */
+public interface Transport{
+
+    /**
+     * Executes the request. The caller must {@link TransportResponse#close() close} the returned
+     * response once its body has been consumed, so the underlying connection can be reused.
+     *
+     * @param request the signed request to send
+     * @return the response, whatever its status code
+     * @throws IOException if the request could not be sent or the response could not be read
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+}
@@ -0,0 +1,91 @@
+package net.vivialconnect.http;
+
+import java.net.Proxy;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+public class TransportRequest{
+
+    private static final byte[] EMPTY_BODY = new byte[0];
+
+    private final String method;
+    private final URL endpoint;
+    private final Map<String, String> headers;
+    private final byte[] body;
+    private final Proxy proxy;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+
+
+    public TransportRequest(String method, URL endpoint, Map<String, String> headers, byte[] body, Proxy proxy){
+        this(method, endpoint, headers, body, proxy, 0, 0);
+    }
+
+
+    public TransportRequest(String method, URL endpoint, Map<String, String> headers, byte[] body, Proxy proxy,
+                            int connectTimeoutMillis, int readTimeoutMillis){
+        this.method = method;
+        this.endpoint = endpoint;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body == null ? EMPTY_BODY : body;
+        this.proxy = proxy;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+
+    public String getMethod(){
+        return method;
+    }
+
+
+    public URL getEndpoint(){
+        return endpoint;
+    }
+
+
+    public Map<String, String> getHeaders(){
+        return headers;
+    }
+
+
+    public byte[] getBody(){
+        return body;
+    }
+
+
+    public boolean hasBody(){
+        return body.length > 0;
+    }
+
+    /**
+     * Gets the proxy this request should go through, or <code>null</code> to use the
+     * system-wide proxy settings.
+     *
+     * @return the proxy, if any
+     */
+    public Proxy getProxy(){
+        return proxy;
+    }
+
+
+    /**
+     * Gets how long to wait for a connection to the API, in milliseconds. 0 means no timeout.
+     *
+     * @return the connect timeout
+     */
+    public int getConnectTimeoutMillis(){
+        return connectTimeoutMillis;
+    }
+
+    /**
+     * Gets how long to wait for the response, and for every read of the response body once it
+     * starts arriving, in milliseconds. 0 means no timeout.
+     *
+     * @return the read timeout
+     */
+    public int getReadTimeoutMillis(){
+        return readTimeoutMillis;
+    }
+}
@@ -0,0 +1,29 @@
+package net.vivialconnect.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface TransportResponse extends Closeable{
+
+    int getStatusCode() throws IOException;
+
+
+    String getHeader(String name);
+
+    /**
+     * Gets the response body. For error responses (status code 400 and above) this is the
+     * error body sent by the server. Never returns <code>null</code>.
+     *
+     * @return the response body stream
+     * @throws IOException if the body cannot be read
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Releases the connection backing this response. Implementations should leave the
+     * underlying socket open for reuse whenever possible.
+     */
+    @Override
+    void close() throws IOException;
+}
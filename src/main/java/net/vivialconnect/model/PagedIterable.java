@@ -0,0 +1,379 @@
+package net.vivialconnect.model;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.error.PageFetchException;
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * Walks every page of a list endpoint, fetching pages lazily as the items are consumed.
+ * <p>
+ * Each call to {@link #iterator()} starts a new walk from the page given in the query parameters,
+ * or from the first page. No request is sent until the iterator is first used. While the items of
+ * one page are consumed, the next page is fetched in the background through the client's
+ * {@link net.vivialconnect.client.AsyncDispatcher}, so a full scan is bound by how fast pages
+ * arrive rather than by the latency of each request in turn.
+ * <p>
+ * When more than one concurrent page is allowed, the total count is fetched first and the pages
+ * it implies are fetched up to that many at a time. Items are still returned in page order. The
+ * walk does not rely on the count being exact: it ends at the first page with fewer items than
+ * the page size, or that is not found, and carries on one page at a time past the last page the
+ * count implied.
+ * <p>
+ * Pages are fetched with the client that was current when the iterable was created, see
+ * {@link VivialConnectClient#current()}, whichever thread iterates over it.
+ * <p>
+ * Failures are thrown from the iterator as a {@link PageFetchException} wrapping the
+ * {@link VivialConnectException}. Iterators are not safe to share between threads; an iterable
+ * can be iterated by several threads at once.
+ */
+public class PagedIterable<T> implements Iterable<T>{
+
+    /** The largest page size the API accepts, used unless the query parameters set a limit */
+    public static final int MAX_PAGE_SIZE = 150;
+
+    private final AccountClient client;
+    private final PageFetcher<T> fetcher;
+    private final Map<String, String> queryParams;
+    private final int firstPage;
+    private final int pageSize;
+    private final int maxConcurrentPages;
+
+
+    /**
+     * Creates an iterable that fetches one page ahead of the consumer.
+     *
+     * @param fetcher fetches one page of items
+     * @param queryParams the filters to send with every page, may be null. Their
+     *                    <code>page</code> and <code>limit</code>, if any, set the first page and
+     *                    the page size
+     */
+    public PagedIterable(PageFetcher<T> fetcher, Map<String, String> queryParams){
+        this(fetcher, queryParams, 1);
+    }
+
+
+    /**
+     * Creates an iterable that fetches up to <code>maxConcurrentPages</code> pages at once, based on
+     * the fetcher's count.
+     *
+     * @param fetcher fetches one page of items, and the total count
+     * @param queryParams the filters to send with every page, may be null. Their
+     *                    <code>page</code> and <code>limit</code>, if any, set the first page and
+     *                    the page size
+     * @param maxConcurrentPages the maximum number of pages being fetched at once
+     *
+     * @throws IllegalArgumentException if fetcher is null, maxConcurrentPages is less than 1, the
+     *         page or limit query parameters are not positive numbers, or the limit is greater than
+     *         {@link #MAX_PAGE_SIZE}
+     */
+    public PagedIterable(PageFetcher<T> fetcher, Map<String, String> queryParams, int maxConcurrentPages){
+        if (fetcher == null){
+            throw new IllegalArgumentException("'fetcher' param is not valid");
+        }
+
+        if (maxConcurrentPages < 1){
+            throw new IllegalArgumentException("'maxConcurrentPages' param is not valid");
+        }
+
+        this.client = VivialConnectClient.current();
+        this.fetcher = fetcher;
+        this.queryParams = queryParams != null ? new HashMap<String, String>(queryParams) : new HashMap<String, String>();
+        this.firstPage = positiveParam(this.queryParams, "page", 1);
+        this.pageSize = fetcher.supportsLimit() ? positiveParam(this.queryParams, "limit", MAX_PAGE_SIZE) : 0;
+        /* The API would send fewer items than asked for, which reads as the last page */
+        if (pageSize > MAX_PAGE_SIZE){
+            throw new IllegalArgumentException("'limit' param is not valid");
+        }
+
+        this.maxConcurrentPages = maxConcurrentPages;
+    }
+
+
+    @Override
+    public PageIterator iterator(){
+        return new PageIterator();
+    }
+
+
+    /**
+     * Waits for a page being fetched in the background, for iterators, which cannot throw checked
+     * exceptions.
+     *
+     * @param pending the page being fetched
+     * @param description what is being fetched, such as "page 3", for the message thrown if the
+     *                    thread is interrupted
+     * @return the page
+     *
+     * @throws PageFetchException wrapping the {@link VivialConnectException} the fetch failed with,
+     *         or one describing any other checked exception or the interruption, in which case the
+     *         thread's interrupt status is set again. Unchecked exceptions and errors are rethrown
+     *         as they are
+     */
+    public static <P> P awaitPage(Future<P> pending, String description){
+        try{
+            return pending.get();
+        }catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new PageFetchException(new VivialConnectException("Interrupted while waiting for " + description, ie));
+        }catch (ExecutionException ee){
+            Throwable cause = ee.getCause();
+            if (cause instanceof VivialConnectException){
+                throw new PageFetchException((VivialConnectException) cause);
+            }
+
+            if (cause instanceof Error){
+                throw (Error) cause;
+            }
+
+            if (cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+
+            throw new PageFetchException(new VivialConnectException(cause));
+        }
+    }
+
+
+    private static int positiveParam(Map<String, String> queryParams, String name, int defaultValue){
+        String value = queryParams.get(name);
+        if (value == null){
+            return defaultValue;
+        }
+
+        try{
+            int number = Integer.parseInt(value.trim());
+            if (number > 0){
+                return number;
+            }
+        }catch (NumberFormatException nfe){
+            /* Reported below */
+        }
+
+        throw new IllegalArgumentException(String.format("'%s' param is not valid", name));
+    }
+
+
+    /**
+     * Fetches the pages of one list endpoint.
+     */
+    public abstract static class PageFetcher<T>{
+
+        /**
+         * Fetches one page of items.
+         *
+         * @param queryParams the caller's filters, with <code>page</code> and, if supported,
+         *                    <code>limit</code> set for this page
+         * @return the items of the page
+         * @throws VivialConnectException if there is an API-level error
+         */
+        public abstract List<T> fetchPage(Map<String, String> queryParams) throws VivialConnectException;
+
+
+        /**
+         * Fetches the total number of items, which sets how many pages are fetched at once. Only
+         * called when more than one concurrent page is allowed.
+         *
+         * @return the total count, or -1 if the endpoint has none, in which case pages are fetched
+         *         one ahead of the consumer
+         * @throws VivialConnectException if there is an API-level error
+         */
+        public int count() throws VivialConnectException{
+            return -1;
+        }
+
+
+        /**
+         * Tells whether the endpoint accepts a <code>limit</code>. Without one, the page size is
+         * unknown and the walk ends at the first empty page.
+         */
+        public boolean supportsLimit(){
+            return true;
+        }
+    }
+
+
+    /**
+     * Iterates over the items of every page in order.
+     */
+    public final class PageIterator implements Iterator<T>{
+
+        private final Deque<Future<List<T>>> pendingPages = new ArrayDeque<Future<List<T>>>();
+
+        private boolean started;
+        private boolean finished;
+        private int nextPageToFetch = firstPage;
+        private int lastPageToFetch = firstPage;
+        private int nextPageToRead = firstPage;
+        private Iterator<T> currentPage = Collections.<T>emptyList().iterator();
+
+
+        private PageIterator(){
+
+        }
+
+
+        @Override
+        public boolean hasNext(){
+            if (!started){
+                start();
+            }
+
+            while (!currentPage.hasNext() && !finished){
+                readNextPage();
+            }
+
+            return currentPage.hasNext();
+        }
+
+
+        @Override
+        public T next(){
+            if (!hasNext()){
+                throw new NoSuchElementException();
+            }
+
+            return currentPage.next();
+        }
+
+
+        @Override
+        public void remove(){
+            throw new UnsupportedOperationException();
+        }
+
+
+        /**
+         * Stops the walk, cancelling the pages being fetched. Iterators that are not consumed to
+         * the end should be closed so that no further requests are sent.
+         */
+        public void close(){
+            finished = true;
+            currentPage = Collections.<T>emptyList().iterator();
+            cancelPendingPages();
+        }
+
+
+        private void start(){
+            started = true;
+
+            if (maxConcurrentPages > 1 && pageSize > 0){
+                int count;
+                try{
+                    count = client.call(new Callable<Integer>(){
+
+                        @Override
+                        public Integer call() throws VivialConnectException{
+                            return fetcher.count();
+                        }
+                    });
+                }catch (VivialConnectException vce){
+                    finished = true;
+                    throw new PageFetchException(vce);
+                }
+
+                if (count >= 0){
+                    int pages = Math.max(1, (count + pageSize - 1) / pageSize);
+                    lastPageToFetch = firstPage + pages - 1;
+                }
+            }
+
+            fetchAhead();
+        }
+
+
+        private void fetchAhead(){
+            while (pendingPages.size() < maxConcurrentPages && nextPageToFetch <= lastPageToFetch){
+                pendingPages.add(fetch(nextPageToFetch++));
+            }
+        }
+
+
+        private Future<List<T>> fetch(int page){
+            final Map<String, String> pageParams = new HashMap<String, String>(queryParams);
+            pageParams.put("page", String.valueOf(page));
+            if (pageSize > 0){
+                pageParams.put("limit", String.valueOf(pageSize));
+            }
+
+            return client.submit(new Callable<List<T>>(){
+
+                @Override
+                public List<T> call() throws VivialConnectException{
+                    return fetcher.fetchPage(pageParams);
+                }
+            }, null);
+        }
+
+
+        private void readNextPage(){
+            Future<List<T>> pending = pendingPages.poll();
+            if (pending == null){
+                finished = true;
+                return;
+            }
+
+            int page = nextPageToRead++;
+            List<T> items = awaitItems(pending, page);
+            boolean lastPage = items == null || (pageSize > 0 ? items.size() < pageSize : items.isEmpty());
+            if (lastPage){
+                close();
+            }else{
+                /* Keep going past the count, which may be stale or not cover the filters */
+                lastPageToFetch = Math.max(lastPageToFetch, page + 1);
+                fetchAhead();
+            }
+
+            if (items != null){
+                currentPage = items.iterator();
+            }
+        }
+
+
+        /**
+         * @return the items of the page, or null if it was not found
+         */
+        private List<T> awaitItems(Future<List<T>> pending, int page){
+            try{
+                List<T> items = awaitPage(pending, "page " + page);
+                return items != null ? items : Collections.<T>emptyList();
+            }catch (PageFetchException pfe){
+                /* Some endpoints answer an empty page with a 404 */
+                if (page > firstPage && pfe.getCause().getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND){
+                    return null;
+                }
+
+                close();
+                throw pfe;
+            }catch (RuntimeException re){
+                close();
+                throw re;
+            }catch (Error e){
+                close();
+                throw e;
+            }
+        }
+
+
+        private void cancelPendingPages(){
+            for (Future<List<T>> pending : pendingPages){
+                pending.cancel(true);
+            }
+
+            pendingPages.clear();
+        }
+    }
+}
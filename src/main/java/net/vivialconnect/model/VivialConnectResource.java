@@ -1,60 +1,76 @@
 package net.vivialconnect.model;
 
-import java.io.BufferedReader;
-import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLEncoder;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.security.GeneralSecurityException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.SimpleTimeZone;
-import java.io.BufferedWriter;
-import java.io.OutputStreamWriter;
-import java.net.Proxy;
-
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.AsyncCallback;
+import net.vivialconnect.client.CircuitBreaker;
+import net.vivialconnect.client.Deadline;
+import net.vivialconnect.client.HedgingPolicy;
+import net.vivialconnect.client.RateLimiter;
+import net.vivialconnect.client.RequestCoalescer;
+import net.vivialconnect.client.ResourceCache;
+import net.vivialconnect.client.RetryPolicy;
 import net.vivialconnect.client.VivialConnectClient;
-import net.vivialconnect.http.CanonicalRequestBuilder;
+import net.vivialconnect.http.Cancellation;
+import net.vivialconnect.http.RequestTimestamp;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
 import net.vivialconnect.model.account.Account;
+import net.vivialconnect.model.error.CircuitOpenException;
 import net.vivialconnect.model.error.ErrorMessage;
 import net.vivialconnect.model.error.NoContentException;
+import net.vivialconnect.model.error.RequestTimeoutException;
 import net.vivialconnect.model.error.VivialConnectException;
 import net.vivialconnect.model.format.JsonBodyBuilder;
+import net.vivialconnect.model.format.ResponseDecoder;
 import net.vivialconnect.model.message.BulkInfo;
 import net.vivialconnect.model.message.BulkInfoCollection;
-import net.vivialconnect.util.CryptoUtils;
+import net.vivialconnect.util.BoundedInputStream;
 import net.vivialconnect.util.ReflectionUtils;
-import net.vivialconnect.util.ProjectProperties;
+import net.vivialconnect.util.ResponseTooLargeException;
 
 public abstract class VivialConnectResource implements Serializable {
 
     private static final long serialVersionUID = -2726239361148612818L;
 
-    private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+    protected static final String ISO_8601_FORMAT = RequestTimestamp.ISO_8601_FORMAT;
+    protected static final String HTTP_DATE_FORMAT = RequestTimestamp.HTTP_DATE_FORMAT;
+
+    protected static Set<Class<?>> classesWithoutRootValue = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
 
-    protected static final String ISO_8601_FORMAT = "yyyyMMdd'T'HHmmss'Z'";
-    protected static final String HTTP_DATE_FORMAT = "E, dd MMM yyyy HH:mm:ss z";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
-    protected static Set<Class<?>> classesWithoutRootValue = new HashSet<Class<?>>();
+    private static final String JSON_EXTENSION = ".json";
+
+    /* Path segments of resource classes, such as "/message" for Message, derived once per class */
+    private static final ConcurrentMap<Class<?>, String> resourceSegments = new ConcurrentHashMap<Class<?>, String>();
 
     static {
         classesWithoutRootValue.add(ResourceCount.class);
@@ -69,93 +85,200 @@ public abstract class VivialConnectResource implements Serializable {
 
 
     protected static String classURLWithSuffix(Class<?> clazz, String suffix){
-        return String.format("%ss/%s.json", singleClassURL(clazz), suffix);
+        return classPath(clazz).append('/').append(suffix).append(JSON_EXTENSION).toString();
+    }
+
+
+    /**
+     * Builds the URL of a resource by ID, such as <code>.../messages/6789.json</code>.
+     */
+    protected static String classURLWithSuffix(Class<?> clazz, long id){
+        return classPath(clazz).append('/').append(id).append(JSON_EXTENSION).toString();
+    }
+
+
+    /**
+     * Builds the URL of a path under a resource, such as <code>.../messages/6789/attachments.json</code>
+     * for an ID of 6789 and a suffix of <code>attachments</code>.
+     */
+    protected static String classURLWithSuffix(Class<?> clazz, long id, String suffix){
+        return classPath(clazz).append('/').append(id).append('/').append(suffix).append(JSON_EXTENSION).toString();
+    }
+
+
+    /**
+     * Builds the URL of a resource by ID under a path, such as <code>.../numbers/local/42.json</code>
+     * for a prefix of <code>local</code> and an ID of 42.
+     */
+    protected static String classURLWithSuffix(Class<?> clazz, String prefix, long id){
+        return classPath(clazz).append('/').append(prefix).append('/').append(id).append(JSON_EXTENSION).toString();
+    }
+
+
+    /**
+     * Builds the URL of a nested resource by ID, such as <code>.../messages/6789/attachments/7.json</code>.
+     */
+    protected static String classURLWithSuffix(Class<?> clazz, long id, String nestedResource, long nestedId){
+        return classPath(clazz).append('/').append(id).append('/').append(nestedResource)
+                               .append('/').append(nestedId).append(JSON_EXTENSION).toString();
     }
 
 
     protected static String classURL(Class<?> clazz){
-        return String.format("%ss.json", singleClassURL(clazz));
+        return classPath(clazz).append(JSON_EXTENSION).toString();
     }
 
 
     protected static String singleClassURL(Class<?> clazz){
+        AccountClient client = VivialConnectClient.current();
         if (Account.class.equals(clazz)){
-            return String.format("%s/accounts/%d.json", VivialConnectClient.getApiBaseUrl(), VivialConnectClient.getAccountId());
+            return client.getAccountUrl() + JSON_EXTENSION;
         }
 
-        return String.format("%s/accounts/%d/%s", VivialConnectClient.getApiBaseUrl(),
-                                                  VivialConnectClient.getAccountId(),
-                                                  ReflectionUtils.className(clazz).toLowerCase());
+        return client.getAccountUrl() + resourceSegment(clazz);
     }
 
 
     protected static String unmappedURL(String resourceName){
-        return String.format("%s.json", formatURLForResource(resourceName));
+        return formatURLForResource(resourceName) + JSON_EXTENSION;
     }
 
 
     protected static String formatURLForResource(String resourceName){
-        return String.format("%s/accounts/%d/%s", VivialConnectClient.getApiBaseUrl(),
-						  VivialConnectClient.getAccountId(),
-                                                  resourceName);
+        return VivialConnectClient.current().getAccountUrl() + '/' + resourceName;
+    }
+
+
+    /**
+     * Starts the URL of a resource class, such as <code>.../accounts/12345/messages</code>, sized
+     * for the suffix that usually follows.
+     */
+    private static StringBuilder classPath(Class<?> clazz){
+        String accountUrl = VivialConnectClient.current().getAccountUrl();
+        String segment = resourceSegment(clazz);
+
+        return new StringBuilder(accountUrl.length() + segment.length() + 48).append(accountUrl).append(segment).append('s');
+    }
+
+
+    private static String resourceSegment(Class<?> clazz){
+        String segment = resourceSegments.get(clazz);
+        if (segment == null){
+            segment = '/' + ReflectionUtils.className(clazz).toLowerCase(Locale.ENGLISH);
+            resourceSegments.put(clazz, segment);
+        }
+
+        return segment;
     }
 
 
     protected static <T> T request(VivialConnectResource.RequestMethod method,
                                    String url, String body, Map<String, String> queryParams,
 			           Class<T> responseClass) throws VivialConnectException{
+        return request(method, url, body, queryParams, responseClass, null);
+    }
+
+    /**
+     * Sends a request through the current thread's client, retrying it after transient failures if
+     * it is idempotent. All attempts share the current thread's {@link Deadline}, if any. Identical
+     * GET requests already in flight are joined rather than sent again when the client coalesces
+     * requests, and cached responses are decoded instead of being fetched when it has a response
+     * cache. Any other request invalidates the cached responses of its endpoint group.
+     *
+     * @param idempotencyKey sent as the <code>Idempotency-Key</code> header so that the API can
+     *                       recognize a retried request; with a key, POST requests are retried
+     *                       too. May be null
+     */
+    protected static <T> T request(VivialConnectResource.RequestMethod method,
+                                   String url, String body, Map<String, String> queryParams,
+                                   Class<T> responseClass, String idempotencyKey) throws VivialConnectException{
+        byte[] bodyBytes;
         try{
-            URL endpoint = createEndpoint(url, method, queryParams);
-            Date currentDate = new Date();
+            bodyBytes = encodeBody(method, body);
+        }catch (UnsupportedEncodingException uee){
+            throw new VivialConnectException(uee);
+        }
+
+        return request(method, url, bodyBytes, queryParams, responseClass, idempotencyKey);
+    }
+
+
+    /**
+     * Sends a request with a JSON body, encoded straight to UTF-8 by the builder rather than going
+     * through a String. See {@link #request(RequestMethod, String, String, Map, Class, String)}.
+     */
+    protected static <T> T requestWithBody(VivialConnectResource.RequestMethod method, String url, JsonBodyBuilder body,
+                                           Class<T> responseClass) throws VivialConnectException{
+        return requestWithBody(method, url, body, responseClass, null);
+    }
+
+
+    protected static <T> T requestWithBody(VivialConnectResource.RequestMethod method, String url, JsonBodyBuilder body,
+                                           Class<T> responseClass, String idempotencyKey) throws VivialConnectException{
+        byte[] bodyBytes = requestSupportsBody(method.name()) ? body.toByteArray() : null;
 
-            String requestTimestamp = createRequestTimestamp(currentDate);
-            String requestDate = createRequestDate(currentDate);
+        return request(method, url, bodyBytes, null, responseClass, idempotencyKey);
+    }
 
-            Map<String, String> headers = new HashMap<String, String>();
-            headers.put("Date", requestDate);
-            headers.put("Host", endpoint.getHost());
-            headers.put("Accept", "application/json");
 
-            if (requestSupportsBody(method.name())){
-                    headers.put("Content-Type", "application/json");
+    private static <T> T request(final VivialConnectResource.RequestMethod method,
+                                 String url, final byte[] bodyBytes, final Map<String, String> queryParams,
+                                 final Class<T> responseClass, final String idempotencyKey) throws VivialConnectException{
+        try{
+            final AccountClient client = VivialConnectClient.current();
+            final URL endpoint = createEndpoint(url, method, queryParams);
+            final Deadline deadline = Deadline.current();
+
+            ResourceCache resourceCache = client.getResourceCache();
+            if (resourceCache != null && method == RequestMethod.GET && resourceCache.isCacheable(responseClass)){
+                byte[] cachedBody = resourceCache.get(endpoint, responseClass);
+                if (cachedBody != null){
+                    return unmarshallResponse(client.getResponseDecoder(), new ByteArrayInputStream(cachedBody), responseClass);
+                }
             }
 
-            CanonicalRequestBuilder canonicalRequestbuilder = new CanonicalRequestBuilder();
-            canonicalRequestbuilder.endpoint(endpoint)
-				   .requestTimestamp(requestTimestamp)
-				   .body(body)
-				   .method(method.name())
-				   .headers(headers)
-				   .queryParams(queryParams);
-
-            String canonicalRequest = canonicalRequestbuilder.build();
-            String signedHeaders = canonicalRequestbuilder.getCanonicalizedHeaderNames();
-            String signature = createSignature(canonicalRequest);
-
-            String authoritzationHeader = buildAuthoritzationHeader(signature);
-            headers.put("Authorization", authoritzationHeader);
-            headers.put("X-Auth-Date", requestTimestamp);
-            headers.put("X-Auth-SignedHeaders", signedHeaders);
-            String appVersion = ProjectProperties.getProperty("application.version");
-            headers.put("User-Agent", "VivialConnect JavaClient " + appVersion);
-
-            Map<String, String> xUserAgent = new HashMap<String, String>();
-            xUserAgent.put("client_version", appVersion);
-            xUserAgent.put("lang", "Java");
-            xUserAgent.put("lang_version", System.getProperty("java.version"));
-            xUserAgent.put("publisher", "vivialconnect");
-            xUserAgent.put("platform", System.getProperty("os.name") + " " +
-                                       System.getProperty("os.version") + " " +
-                                       System.getProperty("os.arch"));
-            ObjectMapper mapper = new ObjectMapper();
-            headers.put("X-VivialConnect-User-Agent", mapper.writeValueAsString(xUserAgent));
-
-            return request(endpoint, method, headers, queryParams, body, responseClass);
-            /* return jerseyRequest(endpoint, method, headers, queryParams, body, responseClass); */
+            try{
+                RequestCoalescer requestCoalescer = client.getRequestCoalescer();
+                if (requestCoalescer == null || method != RequestMethod.GET){
+                    return requestWithRetries(client, endpoint, method, idempotencyKey, deadline, new Callable<T>(){
+
+                        @Override
+                        public T call() throws Exception{
+                            return request(client, endpoint, method, queryParams, bodyBytes, responseClass, idempotencyKey, deadline);
+                        }
+                    });
+                }
+
+                byte[] sharedBody = requestCoalescer.execute(coalescingKey(client, url, queryParams, responseClass), new Callable<byte[]>(){
+
+                    @Override
+                    public byte[] call() throws Exception{
+                        return requestWithRetries(client, endpoint, method, null, deadline, new Callable<byte[]>(){
+
+                            @Override
+                            public byte[] call() throws Exception{
+                                return fetchBody(client, endpoint, queryParams, responseClass, deadline);
+                            }
+                        });
+                    }
+                }, deadline);
+
+                /* Callers sharing a response each decode their own copy of it */
+                return unmarshallResponse(client.getResponseDecoder(), new ByteArrayInputStream(sharedBody), responseClass);
+            }finally{
+                /* Whether or not it succeeded, the request may have changed resources */
+                if (resourceCache != null && method != RequestMethod.GET){
+                    resourceCache.invalidate(endpoint);
+                }
+            }
         }
         catch (NoContentException nce){
             throw nce;
         }
+        catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            throw new VivialConnectException(ie);
+        }
         catch (Exception e){
             VivialConnectException vivialConnectException = handleException(e);
             throw vivialConnectException;
@@ -163,12 +286,87 @@ public abstract class VivialConnectResource implements Serializable {
     }
 
 
+    /**
+     * Runs the attempts at a request until one succeeds, or until the retry policy or the deadline
+     * says to give up. A deadline that passes while a response is being read is reported as a
+     * {@link RequestTimeoutException}, like one that passes between attempts.
+     */
+    private static <T> T requestWithRetries(AccountClient client, URL endpoint, RequestMethod method, String idempotencyKey,
+                                            Deadline deadline, Callable<T> attempt) throws Exception{
+        RetryPolicy retryPolicy = isIdempotent(method, idempotencyKey) ? client.getRetryPolicy() : RetryPolicy.NONE;
+        long startNanos = System.nanoTime();
+
+        Exception lastFailure = null;
+        for (int attemptNumber = 1; ; attemptNumber++){
+            if (deadline != null && deadline.isExpired()){
+                throw new RequestTimeoutException("Deadline exceeded before the request to " + endpoint + " completed", lastFailure);
+            }
+
+            try{
+                return send(client, endpoint, method, attempt);
+                /* return jerseyRequest(endpoint, method, headers, queryParams, body, responseClass); */
+            }catch (Exception e){
+                if (e instanceof SocketTimeoutException && deadline != null && deadline.isExpired()){
+                    throw new RequestTimeoutException("Deadline exceeded before the request to " + endpoint + " completed", e);
+                }
+
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                long delayMillis = retryPolicy.retryDelayMillis(e, attemptNumber, elapsedMillis);
+                if (delayMillis < 0 || (deadline != null && delayMillis >= deadline.remaining(TimeUnit.MILLISECONDS))){
+                    throw e;
+                }
+
+                lastFailure = e;
+                Thread.sleep(delayMillis);
+            }
+        }
+    }
+
+
+    /**
+     * Identifies a GET request by the account it is made for, its URL, its query parameters in
+     * sorted order, and the class its response is decoded to.
+     */
+    private static String coalescingKey(AccountClient client, String url, Map<String, String> queryParams,
+                                        Class<?> responseClass){
+        StringBuilder key = new StringBuilder().append(client.getAccountId()).append(' ').append(url);
+        if (queryParams != null && !queryParams.isEmpty()){
+            key.append(new TreeMap<String, String>(queryParams));
+        }
+
+        return key.append(' ').append(responseClass.getName()).toString();
+    }
+
+
+    private static <T> T send(AccountClient client, URL endpoint, RequestMethod method, Callable<T> attempt) throws Exception{
+        HedgingPolicy hedgingPolicy = client.getHedgingPolicy();
+        if (hedgingPolicy == null || method != RequestMethod.GET){
+            return attempt.call();
+        }
+
+        return hedgingPolicy.execute(endpoint, attempt);
+    }
+
+
+    private static boolean isIdempotent(RequestMethod method, String idempotencyKey){
+        return method != RequestMethod.POST || idempotencyKey != null;
+    }
+
+
+    protected static <T> Future<T> async(Callable<T> operation, AsyncCallback<T> callback){
+        return VivialConnectClient.current().getAsyncDispatcher().submit(operation, callback);
+    }
+
+
     private static VivialConnectException handleException(Exception e){
         VivialConnectException vce = null;
 
 	if (VivialConnectException.class.isAssignableFrom(e.getClass())){
             vce = (VivialConnectException) e;
 	}
+	else if (e instanceof SocketTimeoutException){
+            vce = new RequestTimeoutException(e.getMessage(), e);
+	}
 	else{
             vce = new VivialConnectException(e);
 	}
@@ -203,168 +401,241 @@ public abstract class VivialConnectResource implements Serializable {
 
 
     protected static String createRequestTimestamp(Date currentDate){
-        DateFormat iso8601 = new SimpleDateFormat(ISO_8601_FORMAT);
-        iso8601.setTimeZone(new SimpleTimeZone(0, "GMT"));
-
-        return iso8601.format(currentDate);
+        return RequestTimestamp.formatIso8601(currentDate);
     }
 
 
-    private static String createRequestDate(Date currentDate){
-        DateFormat requestDateFormat = new SimpleDateFormat(HTTP_DATE_FORMAT);
-        requestDateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+    private static <T> T request(AccountClient client, URL endpoint, VivialConnectResource.RequestMethod method,
+                                 Map<String, String> queryParams, byte[] body, Class<T> responseClass,
+                                 String idempotencyKey, Deadline deadline)
+                                 throws IOException, GeneralSecurityException, InterruptedException, NoContentException, VivialConnectException {
+
+        long sentAtNanos = System.nanoTime();
+        TransportResponse response = exchange(client, endpoint, method, queryParams, body, idempotencyKey, deadline);
+
+        try{
+            InputStream responseBody = doRequest(client, response, endpoint, deadline);
+
+            ResourceCache resourceCache = client.getResourceCache();
+            if (resourceCache != null && method == RequestMethod.GET && resourceCache.isCacheable(responseClass)){
+                byte[] cacheableBody = readBody(responseBody);
+                resourceCache.put(endpoint, responseClass, cacheableBody, sentAtNanos);
+
+                responseBody = new ByteArrayInputStream(cacheableBody);
+            }
 
-        return requestDateFormat.format(currentDate);
+            return unmarshallResponse(client.getResponseDecoder(), responseBody, responseClass);
+        }finally{
+            close(response);
+        }
     }
 
 
-    private static String createSignature(String canonicalRequest) throws NoSuchAlgorithmException, InvalidKeyException, UnsupportedEncodingException{
-        Mac hmac = Mac.getInstance(SIGNATURE_ALGORITHM);
-        SecretKeySpec secretKey = new SecretKeySpec(VivialConnectClient.getApiSecret().getBytes(),
-                                                                        SIGNATURE_ALGORITHM);
-        hmac.init(secretKey);
+    /**
+     * Sends a GET request and reads its whole body, to be shared by coalesced callers.
+     */
+    private static byte[] fetchBody(AccountClient client, URL endpoint, Map<String, String> queryParams, Class<?> responseClass,
+                                    Deadline deadline)
+                                    throws IOException, GeneralSecurityException, InterruptedException, NoContentException, VivialConnectException {
+
+        long sentAtNanos = System.nanoTime();
+        TransportResponse response = exchange(client, endpoint, RequestMethod.GET, queryParams, null, null, deadline);
 
-        byte[] signatureBytes = hmac.doFinal(canonicalRequest.getBytes("UTF-8"));
-        return CryptoUtils.toHex(signatureBytes);
+        try{
+            byte[] responseBody = readBody(doRequest(client, response, endpoint, deadline));
+
+            ResourceCache resourceCache = client.getResourceCache();
+            if (resourceCache != null && resourceCache.isCacheable(responseClass)){
+                resourceCache.put(endpoint, responseClass, responseBody, sentAtNanos);
+            }
+
+            return responseBody;
+        }finally{
+            close(response);
+        }
     }
 
 
-    private static String buildAuthoritzationHeader(String signature){
-        return new StringBuilder().append("HMAC ")
-                                  .append(VivialConnectClient.getApiKey())
-                                  .append(":")
-                                  .append(signature)
-                                  .toString();
+    /**
+     * Waits for the rate limiter, sends a request, and lets the rate limiter know how it went.
+     */
+    private static TransportResponse exchange(AccountClient client, URL endpoint, RequestMethod method,
+                                              Map<String, String> queryParams, byte[] body, String idempotencyKey,
+                                              Deadline deadline) throws IOException, GeneralSecurityException, InterruptedException, VivialConnectException{
+        RateLimiter rateLimiter = client.getRateLimiter();
+        if (deadline == null){
+            rateLimiter.acquire(endpoint);
+        }else if (!rateLimiter.tryAcquire(endpoint, deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)){
+            throw new RequestTimeoutException("Deadline exceeded while waiting for the rate limit of " + endpoint, null);
+        }
+
+        TransportResponse response = execute(client, endpoint, method, queryParams, body, idempotencyKey, deadline);
+        try{
+            rateLimiter.onResponse(endpoint, response.getStatusCode(), response.getHeader("Retry-After"));
+        }catch (IOException ioe){
+            close(response);
+            throw ioe;
+        }
+
+        return response;
     }
 
 
-    private static <T> T request(URL endpoint, VivialConnectResource.RequestMethod method, Map<String, String> headers,
-                                    Map<String, String> queryParams, String body, Class<T> responseClass)
-                                    throws IOException, NoContentException, VivialConnectException {
+    /**
+     * Sends a request through the client's transport, and through its circuit breaker if it has
+     * one. Network errors and server errors count as failures; client errors don't, since they say
+     * nothing about the API's health, and neither do requests that were cancelled or never sent.
+     */
+    private static TransportResponse execute(AccountClient client, URL endpoint, RequestMethod method,
+                                             Map<String, String> queryParams, byte[] body, String idempotencyKey,
+                                             Deadline deadline) throws IOException, GeneralSecurityException, CircuitOpenException{
+        CircuitBreaker circuitBreaker = client.getCircuitBreaker();
+        if (circuitBreaker == null){
+            return client.getTransport().execute(signedRequest(client, endpoint, method, queryParams, body, idempotencyKey, deadline));
+        }
 
-        HttpURLConnection connection = null;
+        CircuitBreaker.Permit permit = circuitBreaker.acquire(endpoint);
 
+        long startNanos = 0;
+        boolean sent = false;
+        boolean failed = true;
         try{
-            connection = prepareConnection(endpoint, method);
-            setHeaders(connection, headers);
-            setBody(connection, body);
+            TransportRequest request = signedRequest(client, endpoint, method, queryParams, body, idempotencyKey, deadline);
 
-            String response = doRequest(connection);
+            startNanos = System.nanoTime();
+            sent = true;
+            TransportResponse response = client.getTransport().execute(request);
+            failed = response.getStatusCode() >= 500;
 
-            return unmarshallResponse(response, responseClass);
+            return response;
+        }catch (IOException ioe){
+            sent = sent && !isCancellation(ioe);
+            throw ioe;
         }finally{
-            disconnect(connection);
+            if (sent){
+                permit.onResult(failed, System.nanoTime() - startNanos);
+            }else{
+                permit.onCancelled();
+            }
         }
     }
 
-  private static HttpURLConnection prepareConnection(URL endpoint, RequestMethod method) throws IOException {
-    Proxy proxy = VivialConnectClient.getProxy();
 
-    HttpURLConnection connection = null;
-    if (proxy == null) {
-      connection = (HttpURLConnection) endpoint.openConnection();
-    } else {
-      /* If we call this method, this preempts the systems proxy settings, if any.
-       * We do the call this way so that if the user sets the proxy using the
-       * System.setProperty("http.proxyHost", "something"), it's respected.
-       */
-        connection = (HttpURLConnection) endpoint.openConnection(proxy);
+    /**
+     * Tells whether a request failed because it was cancelled, as a hedged request that lost the
+     * race is, rather than because of the network or the API.
+     */
+    private static boolean isCancellation(IOException ioe){
+        Cancellation cancellation = Cancellation.current();
+        return Thread.currentThread().isInterrupted()
+               || (cancellation != null && cancellation.isCancelled())
+               || (ioe instanceof InterruptedIOException && !(ioe instanceof SocketTimeoutException));
     }
 
-    connection.setRequestMethod(method.name());
-    connection.setUseCaches(false);
-    connection.setDoInput(true);
-    connection.setDoOutput(true);
 
-    return connection;
-  }
+    /**
+     * Signs a request right before it is sent, once any wait for the rate limiter is over, so that
+     * its timestamp is fresh. Every attempt, hedged or retried, gets its own signature.
+     */
+    private static TransportRequest signedRequest(AccountClient client, URL endpoint, RequestMethod method,
+                                                  Map<String, String> queryParams, byte[] body, String idempotencyKey,
+                                                  Deadline deadline) throws GeneralSecurityException, UnsupportedEncodingException{
+        Map<String, String> headers = client.getRequestSigner().sign(method.name(), endpoint, queryParams,
+                                                                    body, requestSupportsBody(method.name()));
+        if (idempotencyKey != null){
+            headers.put(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+
+        return new TransportRequest(method.name(), endpoint, headers, body, client.getProxy(),
+                                    timeoutMillis(client.getConnectTimeout(), deadline),
+                                    timeoutMillis(client.getReadTimeout(), deadline));
+    }
 
+    /**
+     * Shortens a configured timeout to the time left before the deadline. Never returns 0 for a
+     * deadline, since transports read 0 as no timeout at all.
+     */
+    private static int timeoutMillis(int configuredMillis, Deadline deadline){
+        if (deadline == null){
+            return configuredMillis;
+        }
 
-    private static void setHeaders(HttpURLConnection connection, Map<String, String> headers) {
-        for (String headerName : headers.keySet()){
-            String headerValue = headers.get(headerName);
-            connection.setRequestProperty(headerName, headerValue);
+        long remainingMillis = Math.max(1, deadline.remaining(TimeUnit.MILLISECONDS));
+        if (configuredMillis == 0){
+            return (int) Math.min(remainingMillis, Integer.MAX_VALUE);
         }
+
+        return (int) Math.min(configuredMillis, remainingMillis);
     }
 
 
-    private static void setBody(HttpURLConnection connection, String body) throws IOException {
-        if (requestSupportsBody(connection.getRequestMethod()) && body != null && !body.isEmpty()) {
-          DataOutputStream wr = new DataOutputStream(connection.getOutputStream());
-          BufferedWriter outputStream = new BufferedWriter(new OutputStreamWriter(wr, "UTF-8"));
-          outputStream.write(body);
-          outputStream.flush();
-          outputStream.close();
-          wr.close();
+    private static byte[] encodeBody(RequestMethod method, String body) throws UnsupportedEncodingException {
+        if (requestSupportsBody(method.name()) && body != null && !body.isEmpty()) {
+            return body.getBytes("UTF-8");
         }
-    }
 
+        return null;
+    }
 
-    private static String doRequest(HttpURLConnection connection) throws NoContentException, VivialConnectException {
-        BufferedReader reader = null;
 
+    private static InputStream doRequest(AccountClient client, TransportResponse response, URL endpoint,
+                                         Deadline deadline) throws NoContentException, VivialConnectException {
         try{
-            InputStream inputStream = connection.getInputStream();
-            reader = createBufferedReader(inputStream);
+            int responseCode = response.getStatusCode();
+            if (responseCode >= 400){
+                throw convertToVivialException(client, response, endpoint, deadline);
+            }
 
-            String response = readResponse(reader);
-            if (connection.getResponseCode() == 204 /* No Content */){
+            if (responseCode == 204 /* No Content */){
                 throw new NoContentException();
             }
 
-            return response;
+            return responseBody(client, response, endpoint, deadline);
         }catch(IOException ioe){
-            throw convertToVivialException(ioe, connection);
-        }finally{
-            if (reader != null){
-                try{
-                    reader.close();
-                }catch (IOException e){
-                    throw convertToVivialException(e, null);
-                }
-            }
+            throw handleException(ioe);
         }
     }
 
 
-    private static VivialConnectException convertToVivialException(IOException ioe, HttpURLConnection connection){
-        if (connection == null) {
-            return new VivialConnectException(ioe);
+    /**
+     * Opens the body of a response, failing once it grows past the client's maximum response size
+     * or, for a request with a deadline, once the deadline passes while it is still being read.
+     */
+    private static InputStream responseBody(AccountClient client, TransportResponse response, URL endpoint,
+                                            Deadline deadline) throws IOException{
+        long maxResponseSize = client.getMaxResponseSize();
+        String contentLength = response.getHeader("Content-Length");
+        if (contentLength != null && Long.parseLong(contentLength.trim()) > maxResponseSize){
+            throw new ResponseTooLargeException(maxResponseSize);
         }
 
-        BufferedReader reader = null;
+        InputStream body = new BoundedInputStream(response.getBody(), maxResponseSize);
+        if (deadline == null){
+            return body;
+        }
 
-        try{
-            reader = createBufferedReader(connection.getErrorStream());
-            String errorResponse = readResponse(reader);
-            String errorMessage = unmarshalErrorResponse(errorResponse);
+        return new DeadlineInputStream(body, deadline, endpoint);
+    }
 
-            VivialConnectException vivialException = new VivialConnectException(errorMessage, ioe);
-            vivialException.setResponseCode(connection.getResponseCode());
 
-            return vivialException;
-        }catch (IOException e){
-            return new VivialConnectException(e);
-        }finally{
-            if (reader != null){
-                try{
-                    reader.close();
-                }catch (IOException e){
-                    return new VivialConnectException(e);
-                }
-            }
-        }
+    private static VivialConnectException convertToVivialException(AccountClient client, TransportResponse response, URL endpoint,
+                                                                   Deadline deadline) throws IOException{
+        int responseCode = response.getStatusCode();
+        IOException cause = new IOException("Server returned HTTP response code: " + responseCode + " for URL: " + endpoint);
+
+        String errorResponse = readResponse(responseBody(client, response, endpoint, deadline));
+        String errorMessage = unmarshalErrorResponse(client.getResponseDecoder(), errorResponse);
+
+        VivialConnectException vivialException = new VivialConnectException(errorMessage, cause);
+        vivialException.setResponseCode(responseCode);
+
+        return vivialException;
     }
 
 
-    private static String unmarshalErrorResponse(String errorResponse){
+    private static String unmarshalErrorResponse(ResponseDecoder responseDecoder, String errorResponse){
         try{
-            ObjectMapper mapper = new ObjectMapper();
-            Object unmarshalledObject = mapper.reader()
-                                        .forType(ErrorMessage.class)
-                                        .readValue(errorResponse);
-
-            ErrorMessage errorMessage = (ErrorMessage) unmarshalledObject;
+            ErrorMessage errorMessage = responseDecoder.decode(errorResponse, ErrorMessage.class, false);
             return errorMessage.getErrorMessage();
         }catch (Exception e){
             return errorResponse;
@@ -372,50 +643,87 @@ public abstract class VivialConnectResource implements Serializable {
     }
 
 
-    private static BufferedReader createBufferedReader(InputStream inputStream) throws IOException{
-        return new BufferedReader(new InputStreamReader(inputStream));
+    private static String readResponse(InputStream inputStream) throws IOException{
+        return new String(readBody(inputStream), "UTF-8");
     }
 
 
-    private static String readResponse(BufferedReader reader) throws IOException{
-        StringBuilder responseBuilder = new StringBuilder();
-        String line = null;
+    private static byte[] readBody(InputStream inputStream) throws IOException{
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
 
-        while((line = reader.readLine()) != null){
-            responseBuilder.append(line).append("\n");
+        int n;
+        while ((n = inputStream.read(buffer)) != -1){
+            response.write(buffer, 0, n);
         }
 
-        return responseBuilder.toString();
+        return response.toByteArray();
     }
 
 
-    private static <T> T unmarshallResponse(String response, Class<T> responseClass) throws JsonProcessingException, IOException{
-        ObjectMapper mapper = configureObjectMapper(responseClass);
-        return mapper.reader().forType(responseClass).readValue(response);
+    private static <T> T unmarshallResponse(ResponseDecoder responseDecoder, InputStream response, Class<T> responseClass) throws IOException{
+        return responseDecoder.decode(response, responseClass, shouldUnwrapRoot(responseClass));
     }
 
 
-    private static <T> ObjectMapper configureObjectMapper(Class<T> responseClass){
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static boolean shouldUnwrapRoot(Class<?> responseClass){
+        return !classesWithoutRootValue.contains(responseClass);
+    }
 
-        if (shouldUnwrapRoot(responseClass)){
-            mapper.enable(DeserializationFeature.UNWRAP_ROOT_VALUE);
-        }
 
-        return mapper;
+    private static void close(TransportResponse response){
+        try{
+            response.close();
+        }catch (IOException e){
+            /* The response has already been read; the connection just won't be reused */
+        }
     }
 
 
-    private static boolean shouldUnwrapRoot(Class<?> responseClass){
-        return !classesWithoutRootValue.contains(responseClass);
-    }
+    /**
+     * Checks the deadline before every read, so that a body trickling in just fast enough to beat
+     * the read timeout can't keep a call going past its deadline. Fails with a
+     * {@link SocketTimeoutException}, which is reported as a {@link RequestTimeoutException}.
+     */
+    private static class DeadlineInputStream extends FilterInputStream{
+
+        private final Deadline deadline;
+        private final URL endpoint;
+
+
+        DeadlineInputStream(InputStream in, Deadline deadline, URL endpoint){
+            super(in);
+            this.deadline = deadline;
+            this.endpoint = endpoint;
+        }
+
+
+        @Override
+        public int read() throws IOException{
+            checkDeadline();
+            return super.read();
+        }
+
 
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException{
+            checkDeadline();
+            return super.read(buffer, offset, length);
+        }
 
-    private static void disconnect(HttpURLConnection connection){
-        if (connection != null){
-            connection.disconnect();
-	   }
+
+        @Override
+        public long skip(long n) throws IOException{
+            checkDeadline();
+            return super.skip(n);
+        }
+
+
+        private void checkDeadline() throws SocketTimeoutException{
+            if (deadline.isExpired()){
+                throw new SocketTimeoutException("Deadline exceeded while reading the response from " + endpoint);
+            }
+        }
     }
 
 
@@ -85,19 +85,19 @@ public class Account extends VivialConnectResource{
      * @throws VivialConnectException if there is an API-level error
      */
     public Account update() throws VivialConnectException{
-        Account updatedAccount = request(RequestMethod.PUT, singleClassURL(Account.class),
-                                        buildJsonBodyForUpdate(), null, Account.class);
+        Account updatedAccount = requestWithBody(RequestMethod.PUT, singleClassURL(Account.class),
+                                                 buildJsonBodyForUpdate(), Account.class);
         updateFields(updatedAccount);
         
         return this;
     }
 
 
-    private String buildJsonBodyForUpdate(){
+    private JsonBodyBuilder buildJsonBodyForUpdate(){
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Account.class);
         fillOptionalFieldsForUpdate(builder);
 
-        return builder.build();
+        return builder;
     }
 
 
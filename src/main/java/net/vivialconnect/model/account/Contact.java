@@ -4,8 +4,12 @@ import java.lang.reflect.Field;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
+import net.vivialconnect.client.AsyncCallback;
+import net.vivialconnect.model.PagedIterable;
 import net.vivialconnect.model.ResourceCount;
 import net.vivialconnect.model.VivialConnectResource;
 import net.vivialconnect.model.error.NoContentException;
@@ -17,6 +21,19 @@ public class Contact extends VivialConnectResource{
 
     private static final long serialVersionUID = 3140451099385557777L;
 
+    private static final PagedIterable.PageFetcher<Contact> CONTACT_PAGES = new PagedIterable.PageFetcher<Contact>(){
+
+        @Override
+        public List<Contact> fetchPage(Map<String, String> queryParams) throws VivialConnectException{
+            return getContacts(queryParams);
+        }
+
+        @Override
+        public int count() throws VivialConnectException{
+            return Contact.count();
+        }
+    };
+
     private static String[] REQUIRED_FIELDS = { "firstName", "lastName", "email", "contactType" };
 
     /** Unique identifier of the user object */
@@ -114,6 +131,24 @@ public class Contact extends VivialConnectResource{
         updateObjectState(contact);
     }
 
+    /**
+     * Creates a new contact asynchronously. See {@link #create()} for details.
+     *
+     * @param callback notified with this contact once created, or with the error, may be null
+     * @return a {@link Future} holding this contact with the newly-created properties
+     *
+     * @see Contact#create()
+     */
+    public Future<Contact> createAsync(AsyncCallback<Contact> callback){
+        return async(new Callable<Contact>(){
+
+            @Override
+            public Contact call() throws VivialConnectException{
+                return create();
+            }
+        }, callback);
+    }
+
     /**
      * Creates a new contact using the provided fields.
      * <p>
@@ -130,8 +165,8 @@ public class Contact extends VivialConnectResource{
      */
     public Contact create() throws VivialConnectException{
         verifyRequiredFields();
-        Contact createdContact = request(RequestMethod.POST, classURL(Contact.class),
-                                        jsonBodyForCreate(), null, Contact.class);
+        Contact createdContact = requestWithBody(RequestMethod.POST, classURL(Contact.class),
+                                                 jsonBodyForCreate(), Contact.class);
 
         updateObjectState(createdContact);
         
@@ -186,12 +221,12 @@ public class Contact extends VivialConnectResource{
     }
 
 
-    private String jsonBodyForCreate(){
+    private JsonBodyBuilder jsonBodyForCreate(){
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Contact.class);
         addRequiredFields(builder);
         addOptionalFields(builder);
 
-        return builder.build();
+        return builder;
     }
 
 
@@ -260,8 +295,8 @@ public class Contact extends VivialConnectResource{
      */
     public Contact update() throws VivialConnectException{
         verifyRequiredFields();
-        Contact updatedContact = request(RequestMethod.PUT, classURLWithSuffix(Contact.class, String.valueOf(getId())),
-                                        jsonBodyForUpdate(), null, Contact.class);
+        Contact updatedContact = requestWithBody(RequestMethod.PUT, classURLWithSuffix(Contact.class, getId()),
+                                                 jsonBodyBuilder, Contact.class);
         updateObjectState(updatedContact);
         return this;
     }
@@ -285,7 +320,7 @@ public class Contact extends VivialConnectResource{
      */
     public boolean delete() throws VivialConnectException{
         try{
-            request(RequestMethod.DELETE, classURLWithSuffix(Contact.class, String.valueOf(getId())), null, null, String.class);
+            request(RequestMethod.DELETE, classURLWithSuffix(Contact.class, getId()), null, null, String.class);
         }catch(NoContentException nce){
             return true;
         }
@@ -328,6 +363,35 @@ public class Contact extends VivialConnectResource{
         return request(RequestMethod.GET, classURL(Contact.class), null, queryParams, ContactCollection.class).getContacts();
     }
 
+    /**
+     * Iterates over every contact matching the given filters, fetching pages lazily, one page ahead
+     * of the consumer.
+     *
+     * @param queryParams the filters to apply, see {@link #getContacts(Map)}. Their <code>page</code>
+     *                    and <code>limit</code> set the first page and the page size, which defaults to 150
+     * @return an iterable whose iterators walk every page, throwing a
+     *         {@link net.vivialconnect.model.error.PageFetchException} if a page cannot be fetched
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<Contact> iterateContacts(Map<String, String> queryParams){
+        return new PagedIterable<Contact>(CONTACT_PAGES, queryParams);
+    }
+
+    /**
+     * Iterates over every contacts matching the given filters, fetching up to
+     * <code>maxConcurrentPages</code> pages at once based on the total count.
+     *
+     * @param queryParams the filters to apply, see {@link #iterateContacts(Map)}
+     * @param maxConcurrentPages the maximum number of pages being fetched at once
+     * @return an iterable whose iterators walk every page, in order
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<Contact> iterateContacts(Map<String, String> queryParams, int maxConcurrentPages){
+        return new PagedIterable<Contact>(CONTACT_PAGES, queryParams, maxConcurrentPages);
+    }
+
      /**
      * Search for a {@link Contact} by its ID using the API.
      * <p>
@@ -342,7 +406,7 @@ public class Contact extends VivialConnectResource{
      * @see #getContacts(Map)
      */
     public static Contact getContactById(int contactId) throws VivialConnectException{
-        return new Contact(request(RequestMethod.GET, classURLWithSuffix(Contact.class, String.valueOf(contactId)), null, null, Contact.class));
+        return new Contact(request(RequestMethod.GET, classURLWithSuffix(Contact.class, contactId), null, null, Contact.class));
     }
 
     /**
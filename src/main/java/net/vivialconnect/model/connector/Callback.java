@@ -62,7 +62,7 @@ public class Callback extends VivialConnectResource{
 
 
     public static ConnectorWithCallbacks getCallbacks(int connectorId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, String.format("%d/callbacks", connectorId)), null, null, Connector.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, connectorId, "callbacks"), null, null, Connector.class);
     }
 
 
@@ -3,10 +3,13 @@ package net.vivialconnect.model.connector;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
 
+import net.vivialconnect.client.AsyncCallback;
 import net.vivialconnect.model.ResourceCount;
 import net.vivialconnect.model.VivialConnectResource;
 import net.vivialconnect.model.error.NoContentException;
@@ -78,7 +81,7 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
      * @see #getConnectors()
      */
     public static Connector getConnectorById(int connectorId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, String.valueOf(connectorId)), null, null, Connector.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, connectorId), null, null, Connector.class);
     }
 
     /**
@@ -115,8 +118,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("name", getName());
 
-        Connector createdConnector = request(RequestMethod.POST, classURL(Connector.class),
-                                                    builder.build(), null, Connector.class);
+        Connector createdConnector = requestWithBody(RequestMethod.POST, classURL(Connector.class),
+                                                            builder, Connector.class);
 
         updateObjectState(createdConnector);
         
@@ -144,8 +147,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
                                                  .addParamPair("id", getId())
                                                  .addParamPair("name", getName());
 
-        Connector updatedConnector = request(RequestMethod.PUT, classURLWithSuffix(Connector.class, String.valueOf(getId())),
-                                                                                    builder.build(), null, Connector.class);
+        Connector updatedConnector = requestWithBody(RequestMethod.PUT, classURLWithSuffix(Connector.class, getId()),
+                                                                                            builder, Connector.class);
 
         updateObjectState(updatedConnector);
         return this;
@@ -179,7 +182,7 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
      */
     public boolean delete() throws VivialConnectException{
         try{
-            request(RequestMethod.DELETE, classURLWithSuffix(Connector.class, String.valueOf(getId())), null, null, String.class);
+            request(RequestMethod.DELETE, classURLWithSuffix(Connector.class, getId()), null, null, String.class);
         }catch (NoContentException nce){
                 return true;
         }
@@ -319,13 +322,31 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("callbacks", callbacks);
 
-        Connector connectorWithCallbacks = request(RequestMethod.POST, classURLWithSuffix(Connector.class, String.format("%d/callbacks", getId())),
-                                                                                                        builder.build(), null, Connector.class);
+        Connector connectorWithCallbacks = requestWithBody(RequestMethod.POST, classURLWithSuffix(Connector.class, getId(), "callbacks"),
+                                                                                                                builder, Connector.class);
         mergeCallbackFields(connectorWithCallbacks);
         
         return this;
     }
 
+    /**
+     * Asynchronously associates the list of callbacks added to this connector. See {@link #createCallbacks()} for details.
+     *
+     * @param callback notified with the connector holding the created callbacks, or with the error, may be null
+     * @return a {@link Future} holding the connector with the created callbacks
+     *
+     * @see Connector#createCallbacks()
+     */
+    public Future<ConnectorWithCallbacks> createCallbacksAsync(AsyncCallback<ConnectorWithCallbacks> callback) {
+        return async(new Callable<ConnectorWithCallbacks>(){
+
+            @Override
+            public ConnectorWithCallbacks call() throws VivialConnectException{
+                return createCallbacks();
+            }
+        }, callback);
+    }
+
     /**
      * Updates the list of callbacks, editing any existing ones and adding any new ones, associated to
      * this connector. Here's an example of how to edit an existing callback:
@@ -355,8 +376,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("callbacks", callbacks);
 
-        Connector connectorWithCallbacks = request(RequestMethod.PUT, classURLWithSuffix(Connector.class, String.format("%d/callbacks", getId())),
-                                                                                                        builder.build(), null, Connector.class);
+        Connector connectorWithCallbacks = requestWithBody(RequestMethod.PUT, classURLWithSuffix(Connector.class, getId(), "callbacks"),
+                                                                                                                builder, Connector.class);
         mergeCallbackFields(connectorWithCallbacks);
         
         return this;
@@ -413,8 +434,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("callbacks", callbacks);
 
-        return request(RequestMethod.DELETE, classURLWithSuffix(Connector.class, String.format("%d/callbacks", getId())),
-                                                                                builder.build(), null, Connector.class);
+        return requestWithBody(RequestMethod.DELETE, classURLWithSuffix(Connector.class, getId(), "callbacks"),
+                                                                                        builder, Connector.class);
     }
 
 
@@ -511,8 +532,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("phone_numbers", phoneNumbers);
 
-        Connector connectorWithPhoneNumbers = request(RequestMethod.POST, classURLWithSuffix(Connector.class, String.format("%d/phone_numbers", getId())),
-                                                                                                                builder.build(), null, Connector.class);
+        Connector connectorWithPhoneNumbers = requestWithBody(RequestMethod.POST, classURLWithSuffix(Connector.class, getId(), "phone_numbers"),
+                                                                                                                        builder, Connector.class);
         mergePhoneNumberFields(connectorWithPhoneNumbers);
         
         return this;
@@ -546,8 +567,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("phone_numbers", phoneNumbers);
 
-        Connector connectorWithPhoneNumbers = request(RequestMethod.PUT, classURLWithSuffix(Connector.class, String.format("%d/phone_numbers", getId())),
-                                                                                                                 builder.build(), null, Connector.class);
+        Connector connectorWithPhoneNumbers = requestWithBody(RequestMethod.PUT, classURLWithSuffix(Connector.class, getId(), "phone_numbers"),
+                                                                                                                         builder, Connector.class);
         mergePhoneNumberFields(connectorWithPhoneNumbers);
         
         return this;
@@ -599,8 +620,8 @@ public class Connector extends VivialConnectResource implements ConnectorWithCal
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Connector.class)
                                                  .addParamPair("phone_numbers", phoneNumbers);
 
-        return request(RequestMethod.DELETE, classURLWithSuffix(Connector.class, String.format("%d/phone_numbers", getId())),
-                                                                                    builder.build(), null, Connector.class);
+        return requestWithBody(RequestMethod.DELETE, classURLWithSuffix(Connector.class, getId(), "phone_numbers"),
+                                                                                            builder, Connector.class);
     }
 
 
@@ -30,12 +30,12 @@ public class PhoneNumber extends VivialConnectResource{
 
 
     public static ConnectorWithPhoneNumbers getPhoneNumbers(int connectorId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, String.format("%d/phone_numbers", connectorId)), null, null, Connector.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, connectorId, "phone_numbers"), null, null, Connector.class);
     }
 
 
     public static int count(int connectorId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, String.format("%d/phone_numbers/count", connectorId)), null, null, ResourceCount.class).getCount();
+        return request(RequestMethod.GET, classURLWithSuffix(Connector.class, connectorId, "phone_numbers/count"), null, null, ResourceCount.class).getCount();
     }
 
 
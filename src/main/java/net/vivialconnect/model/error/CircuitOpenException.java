@@ -0,0 +1,29 @@
+package net.vivialconnect.model.error;
+
+/**
+ * Thrown without contacting the API when the circuit breaker has stopped requests to an endpoint
+ * that has been failing or responding slowly.
+ *
+ * @see net.vivialconnect.client.CircuitBreaker
+ */
+public class CircuitOpenException extends VivialConnectException {
+
+    private static final long serialVersionUID = -3390127164255829174L;
+
+    private final long retryAfterMillis;
+
+
+    public CircuitOpenException(String message, long retryAfterMillis) {
+        super(message, null);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets how long until the circuit lets a trial request through.
+     *
+     * @return the time in milliseconds, or 0 if trial requests are already in flight
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
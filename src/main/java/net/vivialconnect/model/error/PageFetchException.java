@@ -0,0 +1,24 @@
+package net.vivialconnect.model.error;
+
+/**
+ * Thrown while iterating over the pages of a list endpoint when a page cannot be fetched. Iterators
+ * cannot throw checked exceptions, so the {@link VivialConnectException} describing the failure is
+ * wrapped in this one.
+ *
+ * @see net.vivialconnect.model.PagedIterable
+ */
+public class PageFetchException extends RuntimeException{
+
+    private static final long serialVersionUID = 7315904478206614237L;
+
+
+    public PageFetchException(VivialConnectException cause){
+        super(cause.getMessage(), cause);
+    }
+
+
+    @Override
+    public synchronized VivialConnectException getCause(){
+        return (VivialConnectException) super.getCause();
+    }
+}
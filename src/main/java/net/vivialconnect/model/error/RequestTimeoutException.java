@@ -0,0 +1,19 @@
+package net.vivialconnect.model.error;
+
+/**
+ * Thrown when a request doesn't complete in time: connecting to the API or waiting for its response
+ * took longer than the configured timeouts, or the call's deadline passed.
+ *
+ * @see net.vivialconnect.client.VivialConnectClient#setConnectTimeout(int)
+ * @see net.vivialconnect.client.VivialConnectClient#setReadTimeout(int)
+ * @see net.vivialconnect.client.Deadline
+ */
+public class RequestTimeoutException extends VivialConnectException {
+
+    private static final long serialVersionUID = 2817453396602584771L;
+
+
+    public RequestTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
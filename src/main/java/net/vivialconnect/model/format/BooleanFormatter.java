@@ -0,0 +1,9 @@
+package net.vivialconnect.model.format;
+
+public class BooleanFormatter extends StreamingValueFormatter{
+
+    @Override
+    public void writeValue(Object value, JsonWriter writer){
+        writer.value(((Boolean) value).booleanValue());
+    }
+}
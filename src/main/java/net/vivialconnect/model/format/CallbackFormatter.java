@@ -2,18 +2,24 @@ package net.vivialconnect.model.format;
 
 import net.vivialconnect.model.connector.Callback;
 
-public class CallbackFormatter implements JsonValueFormatter{
+public class CallbackFormatter extends StreamingValueFormatter{
 
     @Override
-    public String formatValue(Object value){
+    public void writeValue(Object value, JsonWriter writer){
         Callback callback = (Callback) value;
 
-        JsonBodyBuilder builder = JsonBodyBuilder.emptyJson();
-        builder.addParamPair("event_type", callback.getEventType());
-        builder.addParamPair("message_type", callback.getMessageType());
-        builder.addParamPair("url", callback.getUrl());
-        builder.addParamPair("method", callback.getMethod());
+        writer.beginObject();
+        writeIfPresent(writer, "event_type", callback.getEventType());
+        writeIfPresent(writer, "message_type", callback.getMessageType());
+        writeIfPresent(writer, "url", callback.getUrl());
+        writeIfPresent(writer, "method", callback.getMethod());
+        writer.endObject();
+    }
+
 
-        return builder.build();
+    private static void writeIfPresent(JsonWriter writer, String name, String value){
+        if (value != null){
+            writer.name(name).value(value);
+        }
     }
-}
\ No newline at end of file
+}
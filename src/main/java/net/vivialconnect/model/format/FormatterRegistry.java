@@ -1,42 +1,143 @@
 package net.vivialconnect.model.format;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import net.vivialconnect.model.connector.Callback;
 import net.vivialconnect.model.connector.PhoneNumber;
 
+/**
+ * Finds the {@link JsonValueFormatter} that writes a value into a request body.
+ * <p>
+ * Formatters are registered for a class or an interface, and apply to its subclasses and
+ * implementations too: the formatter registered for <code>Collection</code> writes any list or set,
+ * and the one registered for <code>Number</code> any number. For a given class, the closest
+ * registration wins, looking at the class itself, then at the interfaces it implements, then at its
+ * superclass in the same way. Classes with no registration are written as strings.
+ * <p>
+ * The formatter found is cached per class, so the hierarchy is only walked once. Lookups don't
+ * lock, and formatters are stateless, so the registry is safe to share between threads.
+ */
 public class FormatterRegistry{
 	
-    private static FormatterRegistry instance;
+    private static final FormatterRegistry instance = new FormatterRegistry();
+
+    private static final JsonValueFormatter DEFAULT_FORMATTER = new StringFormatter();
 
-    private Map<Class<?>, JsonValueFormatter> classToFormatterMap;
+    private final ConcurrentMap<Class<?>, JsonValueFormatter> classToFormatterMap = new ConcurrentHashMap<Class<?>, JsonValueFormatter>();
+    private final ConcurrentMap<Class<?>, JsonValueFormatter> resolvedFormatters = new ConcurrentHashMap<Class<?>, JsonValueFormatter>();
 
     private FormatterRegistry(){
-        classToFormatterMap = new HashMap<Class<?>, JsonValueFormatter>();
-        classToFormatterMap.put(String.class, new StringFormatter());
+        classToFormatterMap.put(CharSequence.class, new StringFormatter());
         classToFormatterMap.put(Integer.class, new IntegerFormatter());
-        classToFormatterMap.put(ArrayList.class, new ListFormatter());
+        classToFormatterMap.put(Number.class, new NumberFormatter());
+        classToFormatterMap.put(Boolean.class, new BooleanFormatter());
+        classToFormatterMap.put(Collection.class, new ListFormatter());
         classToFormatterMap.put(Callback.class, new CallbackFormatter());
         classToFormatterMap.put(PhoneNumber.class, new PhoneNumberFormatter());
     }
 
 
+    /**
+     * Registers the formatter for a class or an interface, and for its subclasses and
+     * implementations that have no closer registration. Formatters should be registered before
+     * request bodies are built, since bodies being built at the same time may not see the change.
+     */
+    public void register(Class<?> valueClass, JsonValueFormatter formatter){
+        if (valueClass == null){
+            throw new IllegalArgumentException("'valueClass' param is not valid");
+        }
+
+        if (formatter == null){
+            throw new IllegalArgumentException("'formatter' param is not valid");
+        }
+
+        classToFormatterMap.put(valueClass, formatter);
+        resolvedFormatters.clear();
+    }
+
+
     public JsonValueFormatter getFormatter(Class<?> valueClass){
-        JsonValueFormatter formatter = classToFormatterMap.get(valueClass);
+        JsonValueFormatter formatter = resolvedFormatters.get(valueClass);
         if (formatter == null){
-            formatter = new StringFormatter();
+            formatter = resolve(valueClass);
+            resolvedFormatters.put(valueClass, formatter);
         }
 
         return formatter;
     }
 
 
-    public static FormatterRegistry getInstance(){
-        if (instance == null){
-            instance = new FormatterRegistry();
+    /**
+     * Writes a value with the formatter registered for its class, straight into the writer if the
+     * formatter supports it.
+     */
+    public void writeValue(Object value, JsonWriter writer){
+        if (value == null){
+            writer.nullValue();
+            return;
+        }
+
+        JsonValueFormatter formatter = getFormatter(value.getClass());
+        if (formatter instanceof StreamingValueFormatter){
+            ((StreamingValueFormatter) formatter).writeValue(value, writer);
+        }else{
+            writer.rawValue(formatter.formatValue(value));
         }
+    }
+
+
+    private JsonValueFormatter resolve(Class<?> valueClass){
+        for (Class<?> type = valueClass; type != null; type = type.getSuperclass()){
+            JsonValueFormatter formatter = classToFormatterMap.get(type);
+            if (formatter != null){
+                return formatter;
+            }
 
+            formatter = resolveInterfaces(type);
+            if (formatter != null){
+                return formatter;
+            }
+        }
+
+        return DEFAULT_FORMATTER;
+    }
+
+
+    /* Looks at the interfaces of a class breadth-first, so that List is found before Collection */
+    private JsonValueFormatter resolveInterfaces(Class<?> type){
+        Deque<Class<?>> pending = new ArrayDeque<Class<?>>();
+        Set<Class<?>> seen = new HashSet<Class<?>>();
+        for (Class<?> implemented : type.getInterfaces()){
+            pending.add(implemented);
+        }
+
+        while (!pending.isEmpty()){
+            Class<?> candidate = pending.poll();
+            if (!seen.add(candidate)){
+                continue;
+            }
+
+            JsonValueFormatter formatter = classToFormatterMap.get(candidate);
+            if (formatter != null){
+                return formatter;
+            }
+
+            for (Class<?> superInterface : candidate.getInterfaces()){
+                pending.add(superInterface);
+            }
+        }
+
+        return null;
+    }
+
+
+    public static FormatterRegistry getInstance(){
         return instance;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,10 @@
 package net.vivialconnect.model.format;
 
-public class IntegerFormatter implements JsonValueFormatter{
+public class IntegerFormatter extends StreamingValueFormatter{
 	
     @Override
-    public String formatValue(Object value){
+    public void writeValue(Object value, JsonWriter writer){
         Integer intValue = (Integer) value;
-        return String.valueOf(intValue);
+        writer.value(intValue.longValue());
     }
-}
\ No newline at end of file
+}
@@ -3,27 +3,34 @@ package net.vivialconnect.model.format;
 import java.util.Map;
 import net.vivialconnect.util.ReflectionUtils;
 
+/**
+ * Builds the JSON body of a request, writing each parameter as UTF-8 into a {@link JsonWriter} as
+ * it is added. String values are escaped.
+ * <p>
+ * Building doesn't close the builder: parameters may still be added afterwards, and the next build
+ * includes them.
+ */
 public class JsonBodyBuilder{
 
     private String className;
-    private StringBuilder builder;
+    private JsonWriter writer;
 
     private FormatterRegistry registry = FormatterRegistry.getInstance();
 
 
     private JsonBodyBuilder(){
-        this.builder = new StringBuilder();
-        this.builder.append("{");
+        this.writer = new JsonWriter();
+        this.writer.beginObject();
     }
 
 
     private JsonBodyBuilder(String className){
         this.className = className;
 
-        this.builder = new StringBuilder();
-        this.builder.append("{\"");
-        this.builder.append(translateClassName());
-        this.builder.append("\":{");
+        this.writer = new JsonWriter();
+        this.writer.beginObject();
+        this.writer.name(translateClassName());
+        this.writer.beginObject();
     }
 
 
@@ -47,13 +54,8 @@ public class JsonBodyBuilder{
             return this;
         }
 
-        JsonValueFormatter formatter = registry.getFormatter(value.getClass());
-
-        this.builder.append("\"");
-        this.builder.append(name);
-        this.builder.append("\":");
-        this.builder.append(formatter.formatValue(value));
-        this.builder.append(",");
+        this.writer.name(name);
+        registry.writeValue(value, this.writer);
 
         return this;
     }
@@ -70,30 +72,40 @@ public class JsonBodyBuilder{
 
 
     public String build(){
-        removeTrailingComma();
-        closeJsonObject();
+        int openSize = closeJsonObject();
+        String json = this.writer.toString();
+        this.writer.truncate(openSize);
 
-        return this.builder.toString();
+        return json;
     }
 
 
-    private void closeJsonObject(){
-        this.builder.append(hasClassName() ? "}}" : "}");
-    }
-
+    /**
+     * Builds the body as UTF-8 bytes, ready to be signed and sent.
+     */
+    public byte[] toByteArray(){
+        int openSize = closeJsonObject();
+        byte[] json = this.writer.toByteArray();
+        this.writer.truncate(openSize);
 
-    private boolean hasClassName(){
-        return this.className != null && !this.className.isEmpty();
+        return json;
     }
 
 
-    private void removeTrailingComma(){
-        int lastCharIndex = this.builder.length() - 1;
-        char lastChar = this.builder.charAt(lastCharIndex);
+    private int closeJsonObject(){
+        int openSize = this.writer.size();
 
-        if (lastChar == ','){
-            this.builder.deleteCharAt(lastCharIndex);
+        this.writer.endObject();
+        if (hasClassName()){
+            this.writer.endObject();
         }
+
+        return openSize;
+    }
+
+
+    private boolean hasClassName(){
+        return this.className != null && !this.className.isEmpty();
     }
 
 
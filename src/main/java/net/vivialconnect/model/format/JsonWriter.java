@@ -0,0 +1,314 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+
+/**
+ * Writes JSON as UTF-8 straight into a byte buffer, escaping strings as it goes, so that a request
+ * body is encoded once and can be signed and sent as is.
+ * <p>
+ * Commas between values and members are inserted automatically. The writer does not check that
+ * names and values alternate or that objects and arrays are balanced; that is up to the caller.
+ * It can be {@link #reset()} and reused, keeping its buffer. Instances are not thread-safe.
+ */
+public class JsonWriter{
+
+    private static final byte[] HEX_DIGITS = { '0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+    private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+
+    private byte[] buffer;
+    private int count;
+
+
+    public JsonWriter(){
+        this(256);
+    }
+
+
+    public JsonWriter(int initialCapacity){
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+
+    public JsonWriter beginObject(){
+        separate();
+        write('{');
+        return this;
+    }
+
+
+    public JsonWriter endObject(){
+        write('}');
+        return this;
+    }
+
+
+    public JsonWriter beginArray(){
+        separate();
+        write('[');
+        return this;
+    }
+
+
+    public JsonWriter endArray(){
+        write(']');
+        return this;
+    }
+
+
+    /**
+     * Writes the name of an object member, which must be followed by its value.
+     */
+    public JsonWriter name(String name){
+        separate();
+        writeString(name);
+        write(':');
+        return this;
+    }
+
+
+    public JsonWriter value(String value){
+        if (value == null){
+            return nullValue();
+        }
+
+        separate();
+        writeString(value);
+        return this;
+    }
+
+
+    public JsonWriter value(long value){
+        separate();
+
+        if (value == Long.MIN_VALUE){
+            writeAscii(String.valueOf(value));
+            return this;
+        }
+
+        if (value < 0){
+            write('-');
+            value = -value;
+        }
+
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10){
+            digits++;
+        }
+
+        ensureCapacity(digits);
+        for (int i = count + digits - 1; i >= count; i--){
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        count += digits;
+        return this;
+    }
+
+
+    public JsonWriter value(boolean value){
+        separate();
+        write(value ? TRUE : FALSE);
+        return this;
+    }
+
+
+    public JsonWriter nullValue(){
+        separate();
+        write(NULL);
+        return this;
+    }
+
+
+    /**
+     * Writes a value that is already JSON, such as the output of a {@link JsonValueFormatter}, as is.
+     */
+    public JsonWriter rawValue(String json){
+        separate();
+        writeUtf8(json);
+        return this;
+    }
+
+
+    /**
+     * Gets the number of bytes written so far.
+     */
+    public int size(){
+        return count;
+    }
+
+
+    /**
+     * Discards everything written after the given size, as returned by {@link #size()}.
+     */
+    public void truncate(int size){
+        if (size < 0 || size > count){
+            throw new IllegalArgumentException("'size' param is not valid");
+        }
+
+        count = size;
+    }
+
+
+    /**
+     * Discards everything written, keeping the buffer for reuse.
+     */
+    public void reset(){
+        count = 0;
+    }
+
+
+    public byte[] toByteArray(){
+        return Arrays.copyOf(buffer, count);
+    }
+
+
+    public void writeTo(OutputStream out) throws IOException{
+        out.write(buffer, 0, count);
+    }
+
+
+    @Override
+    public String toString(){
+        try{
+            return new String(buffer, 0, count, "UTF-8");
+        }catch (UnsupportedEncodingException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    /* A comma is due unless nothing was written yet, or the last thing written opened a scope or named a member */
+    private void separate(){
+        if (count == 0){
+            return;
+        }
+
+        byte last = buffer[count - 1];
+        if (last != '{' && last != '[' && last != ':'){
+            write(',');
+        }
+    }
+
+
+    private void writeString(String value){
+        write('"');
+
+        int length = value.length();
+        for (int i = 0; i < length; i++){
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\'){
+                ensureCapacity(2);
+                buffer[count++] = '\\';
+                buffer[count++] = (byte) c;
+            }else if (c < 0x20){
+                writeControlCharacter(c);
+            }else if (c < 0x80){
+                write(c);
+            }else{
+                i = writeNonAscii(value, i);
+            }
+        }
+
+        write('"');
+    }
+
+
+    private void writeControlCharacter(char c){
+        ensureCapacity(6);
+        buffer[count++] = '\\';
+
+        switch (c){
+            case '\b': buffer[count++] = 'b'; break;
+            case '\f': buffer[count++] = 'f'; break;
+            case '\n': buffer[count++] = 'n'; break;
+            case '\r': buffer[count++] = 'r'; break;
+            case '\t': buffer[count++] = 't'; break;
+            default:
+                buffer[count++] = 'u';
+                buffer[count++] = '0';
+                buffer[count++] = '0';
+                buffer[count++] = HEX_DIGITS[c >> 4];
+                buffer[count++] = HEX_DIGITS[c & 0xF];
+        }
+    }
+
+
+    private void writeUtf8(String value){
+        int length = value.length();
+        for (int i = 0; i < length; i++){
+            char c = value.charAt(i);
+            if (c < 0x80){
+                write(c);
+            }else{
+                i = writeNonAscii(value, i);
+            }
+        }
+    }
+
+
+    /**
+     * Encodes the non-ASCII character at the given index, and the low surrogate after it if it is
+     * a high surrogate. Unpaired surrogates are written as '?', as {@link String#getBytes(String)}
+     * does.
+     *
+     * @return the index of the last character consumed
+     */
+    private int writeNonAscii(String value, int index){
+        char c = value.charAt(index);
+        ensureCapacity(4);
+
+        if (c < 0x800){
+            buffer[count++] = (byte) (0xC0 | (c >> 6));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE){
+            buffer[count++] = (byte) (0xE0 | (c >> 12));
+            buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (c & 0x3F));
+        }else if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))){
+            int codePoint = Character.toCodePoint(c, value.charAt(++index));
+            buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+        }else{
+            buffer[count++] = '?';
+        }
+
+        return index;
+    }
+
+
+    private void writeAscii(String value){
+        int length = value.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++){
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+
+    private void write(int b){
+        ensureCapacity(1);
+        buffer[count++] = (byte) b;
+    }
+
+
+    private void write(byte[] bytes){
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+
+    private void ensureCapacity(int extra){
+        if (count + extra > buffer.length){
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, count + extra));
+        }
+    }
+}
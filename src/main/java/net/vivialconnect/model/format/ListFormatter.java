@@ -1,24 +1,18 @@
 package net.vivialconnect.model.format;
 
-import java.util.List;
+import java.util.Collection;
 
-public class ListFormatter implements JsonValueFormatter{
+public class ListFormatter extends StreamingValueFormatter{
 	
-    private StringBuilder builder;
-
-
     @Override
-    public String formatValue(Object value){
-        this.builder = new StringBuilder();
-        this.builder.append("[");
-
-        List list = (List) value;
+    public void writeValue(Object value, JsonWriter writer){
+        FormatterRegistry registry = FormatterRegistry.getInstance();
 
-        for (Object object : list){
-            JsonValueFormatter formatter = FormatterRegistry.getInstance().getFormatter(object.getClass());
-            builder.append(formatter.formatValue(object)).append(",");
+        writer.beginArray();
+        for (Object object : (Collection<?>) value){
+            registry.writeValue(object, writer);
         }
 
-        return builder.deleteCharAt(builder.length() - 1).append("]").toString();
+        writer.endArray();
     }
-}
\ No newline at end of file
+}
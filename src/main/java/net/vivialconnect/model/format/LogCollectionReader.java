@@ -0,0 +1,50 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import net.vivialconnect.model.log.LogCollection;
+
+public class LogCollectionReader extends ResourceReader<LogCollection>{
+
+    private static final int LAST_KEY = 0;
+    private static final int LOG_ITEMS = 1;
+
+    private static final Map<String, Integer> FIELDS = fields("last_key", "log_items");
+
+    private final LogReader logReader;
+
+
+    public LogCollectionReader(){
+        this(false);
+    }
+
+
+    /**
+     * @param compact whether to read the logs in their compact form
+     */
+    public LogCollectionReader(boolean compact){
+        this.logReader = new LogReader(compact);
+    }
+
+
+    @Override
+    public LogCollection read(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        LogCollection collection = new LogCollection();
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case LAST_KEY: collection.setLastKey(readString(parser)); break;
+                case LOG_ITEMS: collection.setLogs(readList(parser, logReader)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return collection;
+    }
+}
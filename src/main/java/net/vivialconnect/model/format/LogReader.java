@@ -0,0 +1,185 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import net.vivialconnect.model.log.CompactLog;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogData;
+
+public class LogReader extends ResourceReader<Log>{
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final int LOG_ID = 0;
+    private static final int ACCOUNT_ID = 1;
+    private static final int ACCOUNT_ID_ITEM_ID = 2;
+    private static final int ACCOUNT_ID_LOG_TYPE = 3;
+    private static final int ACCOUNT_ID_OPERATOR_ID = 4;
+    private static final int LOG_TYPE = 5;
+    private static final int ITEM_TYPE = 6;
+    private static final int ITEM_ID = 7;
+    private static final int OPERATOR_TYPE = 8;
+    private static final int OPERATOR_ID = 9;
+    private static final int ORIGIN = 10;
+    private static final int LOG_DATA = 11;
+    private static final int LOG_DATA_JSON = 12;
+    private static final int LOG_TIMESTAMP = 13;
+    private static final int DESCRIPTION = 14;
+    private static final int LOG_COUNT = 15;
+    private static final int AGGREGATE_KEY = 16;
+
+    private static final Map<String, Integer> FIELDS = fields("log_id", "account_id", "account_id_item_id",
+                                                             "account_id_log_type", "account_id_operator_id",
+                                                             "log_type", "item_type", "item_id", "operator_type",
+                                                             "operator_id", "origin", "log_data", "log_data_json",
+                                                             "log_timestamp", "description", "log_count", "aggregate_key");
+
+    private static final int RECEIVER = 0;
+    private static final int SENDER = 1;
+    private static final int TEXT = 2;
+
+    private static final Map<String, Integer> LOG_DATA_FIELDS = fields("receiver", "sender", "text");
+
+    private final boolean compact;
+
+
+    public LogReader(){
+        this(false);
+    }
+
+
+    /**
+     * @param compact whether to read logs as {@link CompactLog} instances
+     */
+    public LogReader(boolean compact){
+        this.compact = compact;
+    }
+
+
+    @Override
+    public Log read(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        if (compact){
+            return readCompact(parser);
+        }
+
+        Log log = new Log();
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case LOG_ID: log.setLogId(readString(parser)); break;
+                case ACCOUNT_ID: log.setAccountId(readInt(parser)); break;
+                case ACCOUNT_ID_ITEM_ID: log.setAccountIdItemId(readString(parser)); break;
+                case ACCOUNT_ID_LOG_TYPE: log.setAccountIdLogType(readString(parser)); break;
+                case ACCOUNT_ID_OPERATOR_ID: log.setAccountIdOperatorId(readString(parser)); break;
+                case LOG_TYPE: log.setLogType(readString(parser)); break;
+                case ITEM_TYPE: log.setItemType(readString(parser)); break;
+                case ITEM_ID: log.setItemId(readString(parser)); break;
+                case OPERATOR_TYPE: log.setOperatorType(readString(parser)); break;
+                case OPERATOR_ID: log.setOperatorId(readInt(parser)); break;
+                case ORIGIN: log.setOrigin(readString(parser)); break;
+                case LOG_DATA: log.setLogData(readLogData(parser)); break;
+                case LOG_DATA_JSON: log.setLogDataJson(readString(parser)); break;
+                case LOG_TIMESTAMP: log.setLogTimestamp(readString(parser)); break;
+                case DESCRIPTION: log.setDescription(readString(parser)); break;
+                case LOG_COUNT: log.setLogCount(readInt(parser)); break;
+                case AGGREGATE_KEY: log.setAggregateKey(readString(parser)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return log;
+    }
+
+
+    private static Log readCompact(JsonParser parser) throws IOException{
+        CompactLog log = new CompactLog();
+        String accountIdItemId = null;
+        String accountIdLogType = null;
+        String accountIdOperatorId = null;
+        LogData logData = null;
+
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case LOG_ID: log.setLogId(readString(parser)); break;
+                case ACCOUNT_ID: log.setAccountId(readInt(parser)); break;
+                case ACCOUNT_ID_ITEM_ID: accountIdItemId = readString(parser); break;
+                case ACCOUNT_ID_LOG_TYPE: accountIdLogType = readString(parser); break;
+                case ACCOUNT_ID_OPERATOR_ID: accountIdOperatorId = readString(parser); break;
+                case LOG_TYPE: log.setLogType(StringPool.intern(readString(parser))); break;
+                case ITEM_TYPE: log.setItemType(StringPool.intern(readString(parser))); break;
+                case ITEM_ID: log.setItemId(readString(parser)); break;
+                case OPERATOR_TYPE: log.setOperatorType(StringPool.intern(readString(parser))); break;
+                case OPERATOR_ID: log.setOperatorId(readInt(parser)); break;
+                case ORIGIN: log.setOrigin(StringPool.intern(readString(parser))); break;
+                case LOG_DATA: logData = readLogData(parser); break;
+                case LOG_DATA_JSON: log.setLogDataJson(readString(parser)); break;
+                case LOG_TIMESTAMP: log.setLogTimestamp(readString(parser)); break;
+                case DESCRIPTION: log.setDescription(readString(parser)); break;
+                case LOG_COUNT: log.setLogCount(readInt(parser)); break;
+                case AGGREGATE_KEY: log.setAggregateKey(StringPool.intern(readString(parser))); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        /* Set once the fields they are built from are known, so the log can drop the keys it rebuilds */
+        log.setAccountIdItemId(accountIdItemId);
+        log.setAccountIdLogType(accountIdLogType);
+        log.setAccountIdOperatorId(accountIdOperatorId);
+
+        if (log.getLogDataJson() == null){
+            log.setLogData(logData);
+        }
+
+        return log;
+    }
+
+
+    /**
+     * Decodes the log data held in a log's <code>log_data_json</code>.
+     *
+     * @return the log data, or null if the JSON is null or not valid
+     */
+    public static LogData readLogData(String json){
+        if (json == null){
+            return null;
+        }
+
+        try{
+            JsonParser parser = JSON_FACTORY.createParser(json);
+            try{
+                parser.nextToken();
+                return readLogData(parser);
+            }finally{
+                parser.close();
+            }
+        }catch (IOException e){
+            return null;
+        }
+    }
+
+
+    private static LogData readLogData(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        LogData logData = new LogData();
+        for (Integer field = nextField(parser, LOG_DATA_FIELDS); field != null; field = nextField(parser, LOG_DATA_FIELDS)){
+            switch (field.intValue()){
+                case RECEIVER: logData.setReceiver(readString(parser)); break;
+                case SENDER: logData.setSender(readString(parser)); break;
+                case TEXT: logData.setText(readString(parser)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return logData;
+    }
+}
@@ -0,0 +1,48 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import net.vivialconnect.model.message.MessageCollection;
+
+public class MessageCollectionReader extends ResourceReader<MessageCollection>{
+
+    private static final int MESSAGES = 0;
+
+    private static final Map<String, Integer> FIELDS = fields("messages");
+
+    private final MessageReader messageReader;
+
+
+    public MessageCollectionReader(){
+        this(false);
+    }
+
+
+    /**
+     * @param compact whether to read the messages in their compact form
+     */
+    public MessageCollectionReader(boolean compact){
+        this.messageReader = new MessageReader(compact);
+    }
+
+
+    @Override
+    public MessageCollection read(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        MessageCollection collection = new MessageCollection();
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case MESSAGES: collection.setMessages(readList(parser, messageReader)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return collection;
+    }
+}
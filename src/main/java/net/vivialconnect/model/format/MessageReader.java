@@ -0,0 +1,98 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import net.vivialconnect.model.message.CompactMessage;
+import net.vivialconnect.model.message.Message;
+
+public class MessageReader extends ResourceReader<Message>{
+
+    private static final int ID = 0;
+    private static final int DATE_CREATED = 1;
+    private static final int DATE_MODIFIED = 2;
+    private static final int ACCOUNT_ID = 3;
+    private static final int MASTER_ACCOUNT_ID = 4;
+    private static final int MESSAGE_TYPE = 5;
+    private static final int DIRECTION = 6;
+    private static final int TO_NUMBER = 7;
+    private static final int FROM_NUMBER = 8;
+    private static final int CONNECTOR_ID = 9;
+    private static final int SENT = 10;
+    private static final int NUM_MEDIA = 11;
+    private static final int NUM_SEGMENTS = 12;
+    private static final int BODY = 13;
+    private static final int STATUS = 14;
+    private static final int ERROR_CODE = 15;
+    private static final int ERROR_MESSAGE = 16;
+    private static final int PRICE = 17;
+    private static final int PRICE_CURRENCY = 18;
+    private static final int BULK_ID = 19;
+
+    private static final Map<String, Integer> FIELDS = fields("id", "date_created", "date_modified", "account_id",
+                                                             "master_account_id", "message_type", "direction",
+                                                             "to_number", "from_number", "connector_id", "sent",
+                                                             "num_media", "num_segments", "body", "status",
+                                                             "error_code", "error_message", "price",
+                                                             "price_currency", "bulk_id");
+
+    private final boolean compact;
+
+
+    public MessageReader(){
+        this(false);
+    }
+
+
+    /**
+     * @param compact whether to read messages as {@link CompactMessage} instances, sharing the
+     *                instances of their low-cardinality strings
+     */
+    public MessageReader(boolean compact){
+        this.compact = compact;
+    }
+
+
+    @Override
+    public Message read(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        Message message = compact ? new CompactMessage() : new Message();
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case ID: message.setId(readInt(parser)); break;
+                case DATE_CREATED: message.setDateCreated(readDate(parser)); break;
+                case DATE_MODIFIED: message.setDateModified(readDate(parser)); break;
+                case ACCOUNT_ID: message.setAccountId(readInt(parser)); break;
+                case MASTER_ACCOUNT_ID: message.setMasterAccountId(readInt(parser)); break;
+                case MESSAGE_TYPE: message.setMessageType(pooled(readString(parser))); break;
+                case DIRECTION: message.setDirection(pooled(readString(parser))); break;
+                case TO_NUMBER: message.setToNumber(readString(parser)); break;
+                case FROM_NUMBER: message.setFromNumber(readString(parser)); break;
+                case CONNECTOR_ID: message.setConnectorId(readInt(parser)); break;
+                case SENT: message.setSent(readDate(parser)); break;
+                case NUM_MEDIA: message.setNumMedia(readInt(parser)); break;
+                case NUM_SEGMENTS: message.setNumSegments(readInt(parser)); break;
+                case BODY: message.setBody(readString(parser)); break;
+                case STATUS: message.setStatus(pooled(readString(parser))); break;
+                case ERROR_CODE: message.setErrorCode(pooled(readString(parser))); break;
+                case ERROR_MESSAGE: message.setErrorMessage(readString(parser)); break;
+                case PRICE: message.setPrice(readInt(parser)); break;
+                case PRICE_CURRENCY: message.setPriceCurrency(pooled(readString(parser))); break;
+                case BULK_ID: message.setBulkId(readString(parser)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return message;
+    }
+
+
+    private String pooled(String value){
+        return compact ? StringPool.intern(value) : value;
+    }
+}
@@ -0,0 +1,35 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import net.vivialconnect.model.number.NumberCollection;
+
+public class NumberCollectionReader extends ResourceReader<NumberCollection>{
+
+    private static final int PHONE_NUMBERS = 0;
+
+    private static final Map<String, Integer> FIELDS = fields("phone_numbers");
+
+    private final NumberReader numberReader = new NumberReader();
+
+
+    @Override
+    public NumberCollection read(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        NumberCollection collection = new NumberCollection();
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case PHONE_NUMBERS: collection.setNumbers(readList(parser, numberReader)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return collection;
+    }
+}
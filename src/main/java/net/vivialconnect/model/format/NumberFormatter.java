@@ -0,0 +1,26 @@
+package net.vivialconnect.model.format;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+public class NumberFormatter extends StreamingValueFormatter{
+
+    @Override
+    public void writeValue(Object value, JsonWriter writer){
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte){
+            writer.value(((Number) value).longValue());
+        }else if (value instanceof Double || value instanceof Float){
+            double doubleValue = ((Number) value).doubleValue();
+            if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)){
+                /* JSON has no literal for these */
+                writer.value(String.valueOf(doubleValue));
+            }else{
+                writer.rawValue(String.valueOf(value));
+            }
+        }else if (value instanceof BigInteger || value instanceof BigDecimal){
+            writer.rawValue(value.toString());
+        }else{
+            writer.value(value.toString());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import net.vivialconnect.model.number.Number;
+
+public class NumberReader extends ResourceReader<Number>{
+
+    private static final int ID = 0;
+    private static final int DATE_CREATED = 1;
+    private static final int DATE_MODIFIED = 2;
+    private static final int ACCOUNT_ID = 3;
+    private static final int NAME = 4;
+    private static final int PHONE_NUMBER = 5;
+    private static final int PHONE_NUMBER_TYPE = 6;
+    private static final int STATUS_TEXT_URL = 7;
+    private static final int INCOMING_TEXT_URL = 8;
+    private static final int INCOMING_TEXT_METHOD = 9;
+    private static final int INCOMING_TEXT_FALLBACK_URL = 10;
+    private static final int INCOMING_TEXT_FALLBACK_METHOD = 11;
+    private static final int VOICE_FORWARDING_NUMBER = 12;
+    private static final int CITY = 13;
+    private static final int REGION = 14;
+    private static final int LATA = 15;
+    private static final int RATE_CENTER = 16;
+    private static final int ACTIVE = 17;
+    private static final int CONNECTOR_ID = 18;
+
+    private static final Map<String, Integer> FIELDS = fields("id", "date_created", "date_modified", "account_id", "name",
+                                                             "phone_number", "phone_number_type", "status_text_url",
+                                                             "incoming_text_url", "incoming_text_method",
+                                                             "incoming_text_fallback_url", "incoming_text_fallback_method",
+                                                             "voice_forwarding_number", "city", "region", "lata",
+                                                             "rate_center", "active", "connector_id");
+
+
+    @Override
+    public Number read(JsonParser parser) throws IOException{
+        if (!startObject(parser)){
+            return null;
+        }
+
+        Number number = new Number();
+        for (Integer field = nextField(parser, FIELDS); field != null; field = nextField(parser, FIELDS)){
+            switch (field.intValue()){
+                case ID: number.setId(readInt(parser)); break;
+                case DATE_CREATED: number.setDateCreated(readDate(parser)); break;
+                case DATE_MODIFIED: number.setDateModified(readDate(parser)); break;
+                case ACCOUNT_ID: number.setAccountId(readInt(parser)); break;
+                case NAME: number.setName(readString(parser)); break;
+                case PHONE_NUMBER: number.setPhoneNumber(readString(parser)); break;
+                case PHONE_NUMBER_TYPE: number.setPhoneNumberType(readString(parser)); break;
+                case STATUS_TEXT_URL: number.setStatusTextUrl(readString(parser)); break;
+                case INCOMING_TEXT_URL: number.setIncomingTextUrl(readString(parser)); break;
+                case INCOMING_TEXT_METHOD: number.setIncomingTextMethod(readString(parser)); break;
+                case INCOMING_TEXT_FALLBACK_URL: number.setIncomingTextFallbackUrl(readString(parser)); break;
+                case INCOMING_TEXT_FALLBACK_METHOD: number.setIncomingTextFallbackMethod(readString(parser)); break;
+                case VOICE_FORWARDING_NUMBER: number.setVoiceForwardingNumber(readString(parser)); break;
+                case CITY: number.setCity(readString(parser)); break;
+                case REGION: number.setRegion(readString(parser)); break;
+                case LATA: number.setLata(readString(parser)); break;
+                case RATE_CENTER: number.setRateCenter(readString(parser)); break;
+                case ACTIVE: number.setActive(readBoolean(parser)); break;
+                case CONNECTOR_ID: number.setConnectorId(readInt(parser)); break;
+                default: parser.skipChildren();
+            }
+        }
+
+        return number;
+    }
+}
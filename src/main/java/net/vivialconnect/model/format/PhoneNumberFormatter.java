@@ -2,16 +2,18 @@ package net.vivialconnect.model.format;
 
 import net.vivialconnect.model.connector.PhoneNumber;
 
-public class PhoneNumberFormatter implements JsonValueFormatter{
+public class PhoneNumberFormatter extends StreamingValueFormatter{
 
     @Override
-    public String formatValue(Object value){
+    public void writeValue(Object value, JsonWriter writer){
         PhoneNumber phoneNumber = (PhoneNumber) value;
 
-        JsonBodyBuilder builder = JsonBodyBuilder.emptyJson();
-        builder.addParamPair("phone_number", phoneNumber.getPhoneNumber());
-        builder.addParamPair("phone_number_id", phoneNumber.getPhoneNumberId());
+        writer.beginObject();
+        if (phoneNumber.getPhoneNumber() != null){
+            writer.name("phone_number").value(phoneNumber.getPhoneNumber());
+        }
 
-        return builder.build();
+        writer.name("phone_number_id").value(phoneNumber.getPhoneNumberId());
+        writer.endObject();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,327 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+
+/**
+ * Reads one resource class from a JSON stream by calling its setters directly, instead of going
+ * through Jackson's reflection-based data binding.
+ * <p>
+ * Readers are written for the resources decoded most often and registered with the
+ * {@link ResponseDecoder}, which uses Jackson for every other class. They decode values the way
+ * Jackson's defaults do: unknown properties are skipped, null numbers and booleans read as 0 and
+ * false, numeric strings are accepted for numbers, and dates are ISO-8601 strings in UTC unless
+ * they carry an offset, or epoch milliseconds. Subclasses map property names to indexes once, with
+ * {@link #fields(String...)}, and switch on them. Readers must be safe to share between threads.
+ */
+public abstract class ResourceReader<T>{
+
+    /**
+     * Reads a value, starting at its first token.
+     *
+     * @param parser a parser whose current token is the start of the value
+     * @return the value read, or null for a JSON null
+     */
+    public abstract T read(JsonParser parser) throws IOException;
+
+
+    /**
+     * Maps property names to their position in the given list, for subclasses to switch on.
+     */
+    protected static Map<String, Integer> fields(String... names){
+        Map<String, Integer> fields = new HashMap<String, Integer>(names.length * 2);
+        for (int i = 0; i < names.length; i++){
+            fields.put(names[i], i);
+        }
+
+        return fields;
+    }
+
+
+    /**
+     * Moves to the value of the next property of the current object.
+     *
+     * @return the index of the property in <code>fields</code>, -1 for a property to skip, or
+     *         null at the end of the object
+     */
+    protected static Integer nextField(JsonParser parser, Map<String, Integer> fields) throws IOException{
+        String name = parser.nextFieldName();
+        if (name == null){
+            if (parser.getCurrentToken() != JsonToken.END_OBJECT){
+                throw new JsonParseException(parser, "Expected a property name or the end of an object");
+            }
+
+            return null;
+        }
+
+        parser.nextToken();
+
+        Integer field = fields.get(name);
+        return field == null ? Integer.valueOf(-1) : field;
+    }
+
+
+    /**
+     * Checks that the current token starts an object.
+     *
+     * @return false if it is a JSON null instead
+     */
+    protected static boolean startObject(JsonParser parser) throws IOException{
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL){
+            return false;
+        }
+
+        if (token != JsonToken.START_OBJECT){
+            throw new JsonParseException(parser, "Expected an object but found " + token);
+        }
+
+        return true;
+    }
+
+
+    protected static String readString(JsonParser parser) throws IOException{
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_STRING){
+            return parser.getText();
+        }
+
+        if (token == JsonToken.VALUE_NULL){
+            return null;
+        }
+
+        if (token.isScalarValue()){
+            return parser.getText();
+        }
+
+        throw new JsonParseException(parser, "Expected a string but found " + token);
+    }
+
+
+    protected static int readInt(JsonParser parser) throws IOException{
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT){
+            return parser.getValueAsInt();
+        }
+
+        if (token == JsonToken.VALUE_NULL){
+            return 0;
+        }
+
+        if (token == JsonToken.VALUE_STRING){
+            String text = parser.getText().trim();
+            if (text.isEmpty()){
+                return 0;
+            }
+
+            try{
+                return Integer.parseInt(text);
+            }catch (NumberFormatException e){
+                throw new JsonParseException(parser, "Not a valid int: " + text);
+            }
+        }
+
+        throw new JsonParseException(parser, "Expected an int but found " + token);
+    }
+
+
+    protected static boolean readBoolean(JsonParser parser) throws IOException{
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE){
+            return token == JsonToken.VALUE_TRUE;
+        }
+
+        if (token == JsonToken.VALUE_NULL){
+            return false;
+        }
+
+        if (token == JsonToken.VALUE_NUMBER_INT){
+            return parser.getIntValue() != 0;
+        }
+
+        if (token == JsonToken.VALUE_STRING){
+            String text = parser.getText().trim();
+            if ("true".equals(text) || "True".equals(text)){
+                return true;
+            }
+
+            if ("false".equals(text) || "False".equals(text) || text.isEmpty()){
+                return false;
+            }
+        }
+
+        throw new JsonParseException(parser, "Expected a boolean but found " + token);
+    }
+
+
+    protected static Date readDate(JsonParser parser) throws IOException{
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT){
+            return new Date(parser.getLongValue());
+        }
+
+        if (token == JsonToken.VALUE_NULL){
+            return null;
+        }
+
+        if (token != JsonToken.VALUE_STRING){
+            throw new JsonParseException(parser, "Expected a date but found " + token);
+        }
+
+        String text = parser.getText().trim();
+        if (text.isEmpty()){
+            return null;
+        }
+
+        Date date = parseIso8601(text);
+        if (date != null){
+            return date;
+        }
+
+        try{
+            return new StdDateFormat().parse(text);
+        }catch (ParseException e){
+            throw new JsonParseException(parser, "Not a valid date: " + text);
+        }
+    }
+
+
+    protected static List<String> readStringList(JsonParser parser) throws IOException{
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL){
+            return null;
+        }
+
+        expectArray(parser);
+
+        List<String> values = new ArrayList<String>();
+        while (parser.nextToken() != JsonToken.END_ARRAY){
+            values.add(readString(parser));
+        }
+
+        return values;
+    }
+
+
+    protected static <E> List<E> readList(JsonParser parser, ResourceReader<E> elementReader) throws IOException{
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL){
+            return null;
+        }
+
+        expectArray(parser);
+
+        List<E> values = new ArrayList<E>();
+        while (parser.nextToken() != JsonToken.END_ARRAY){
+            values.add(elementReader.read(parser));
+        }
+
+        return values;
+    }
+
+
+    private static void expectArray(JsonParser parser) throws IOException{
+        if (parser.getCurrentToken() != JsonToken.START_ARRAY){
+            throw new JsonParseException(parser, "Expected an array but found " + parser.getCurrentToken());
+        }
+    }
+
+
+    /**
+     * Parses the common <code>yyyy-MM-ddTHH:mm:ss[.SSS][Z|+hh:mm|+hhmm]</code> forms without a
+     * DateFormat.
+     *
+     * @return the date, or null if the text has another form
+     */
+    private static Date parseIso8601(String text){
+        int length = text.length();
+        if (length < 19 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(10) != 'T'
+                || text.charAt(13) != ':' || text.charAt(16) != ':'){
+            return null;
+        }
+
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 1970 || month < 1 || month > 12 || day < 1 || day > 31 || hour < 0 || hour > 23
+                || minute < 0 || minute > 59 || second < 0 || second > 59){
+            return null;
+        }
+
+        int index = 19;
+        int millis = 0;
+        if (index < length && text.charAt(index) == '.'){
+            millis = digits(text, index + 1, 3);
+            if (millis < 0){
+                return null;
+            }
+
+            index += 4;
+        }
+
+        int offsetMinutes = 0;
+        if (index < length){
+            char sign = text.charAt(index);
+            if (sign == 'Z' && index + 1 == length){
+                index++;
+            }else if ((sign == '+' || sign == '-') && (length - index == 6 || length - index == 5)){
+                int offsetHours = digits(text, index + 1, 2);
+                int offsetMins = length - index == 6 && text.charAt(index + 3) == ':' ? digits(text, index + 4, 2) : digits(text, index + 3, 2);
+                if (offsetHours < 0 || offsetMins < 0){
+                    return null;
+                }
+
+                offsetMinutes = (sign == '-' ? -1 : 1) * (offsetHours * 60 + offsetMins);
+                index = length;
+            }else{
+                return null;
+            }
+        }
+
+        long seconds = daysSinceEpoch(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - offsetMinutes * 60L;
+
+        return new Date(seconds * 1000 + millis);
+    }
+
+
+    /* Days from 1970-01-01 to the given date of the Gregorian calendar */
+    private static long daysSinceEpoch(int year, int month, int day){
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+
+    private static int digits(String text, int start, int count){
+        if (start + count > text.length()){
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = start; i < start + count; i++){
+            char c = text.charAt(i);
+            if (c < '0' || c > '9'){
+                return -1;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,193 @@
+package net.vivialconnect.model.format;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import net.vivialconnect.model.log.CompactLog;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogCollection;
+import net.vivialconnect.model.message.CompactMessage;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.model.message.MessageCollection;
+import net.vivialconnect.model.number.Number;
+import net.vivialconnect.model.number.NumberCollection;
+
+/**
+ * Decodes JSON API responses straight from the response stream.
+ * <p>
+ * The resources decoded most often, messages, numbers and logs, are read by a
+ * {@link ResourceReader} registered for their class, which calls their setters directly. Every
+ * other class goes through a single {@link ObjectMapper}, configured once, with an
+ * {@link ObjectReader} built and cached the first time the class is decoded. Readers are immutable,
+ * so the decoder is safe to share between threads.
+ * <p>
+ * A decoder created with compact models decodes messages and logs as their compact subclasses,
+ * for callers that keep large numbers of them in memory.
+ */
+public class ResponseDecoder{
+
+    private final boolean compactModels;
+    private final JsonFactory jsonFactory;
+    private final ObjectReader baseReader;
+    private final DeserializationConfig deserializationConfig;
+
+    private final ConcurrentMap<Class<?>, ResourceReader<?>> resourceReaders = new ConcurrentHashMap<Class<?>, ResourceReader<?>>();
+
+    private final ConcurrentMap<Class<?>, ObjectReader> rootReaders = new ConcurrentHashMap<Class<?>, ObjectReader>();
+    private final ConcurrentMap<Class<?>, ObjectReader> plainReaders = new ConcurrentHashMap<Class<?>, ObjectReader>();
+    private final ConcurrentMap<Class<?>, String> rootNames = new ConcurrentHashMap<Class<?>, String>();
+
+
+    public ResponseDecoder(){
+        this(false);
+    }
+
+
+    /**
+     * Creates a decoder.
+     *
+     * @param compactModels whether to decode messages and logs as {@link CompactMessage} and
+     *                      {@link CompactLog} instances, which take less memory
+     */
+    public ResponseDecoder(boolean compactModels){
+        this.compactModels = compactModels;
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        /* Leave the stream open: the transport drains and closes it so the connection can be reused */
+        mapper.configure(JsonParser.Feature.AUTO_CLOSE_SOURCE, false);
+
+        this.jsonFactory = mapper.getFactory();
+        this.baseReader = mapper.reader();
+        this.deserializationConfig = mapper.getDeserializationConfig();
+
+        register(Message.class, new MessageReader(compactModels));
+        register(MessageCollection.class, new MessageCollectionReader(compactModels));
+        register(Number.class, new NumberReader());
+        register(NumberCollection.class, new NumberCollectionReader());
+        register(Log.class, new LogReader(compactModels));
+        register(LogCollection.class, new LogCollectionReader(compactModels));
+    }
+
+
+    public boolean isCompactModels(){
+        return compactModels;
+    }
+
+
+    /**
+     * Decodes the given class with a reader instead of Jackson's data binding, replacing any
+     * reader registered for it before.
+     */
+    public <T> void register(Class<T> type, ResourceReader<T> reader){
+        resourceReaders.put(type, reader);
+    }
+
+    /**
+     * Decodes a value of the given type from the stream. The stream is left open.
+     *
+     * @param inputStream the response body
+     * @param type the class to decode
+     * @param unwrapRoot whether the value is wrapped in a single-property root object, such as
+     *                   <code>{"message": {...}}</code>
+     * @return the decoded value
+     * @throws IOException if the stream cannot be read or does not hold a valid value
+     */
+    public <T> T decode(InputStream inputStream, Class<T> type, boolean unwrapRoot) throws IOException{
+        ResourceReader<T> resourceReader = resourceReaderFor(type);
+        if (resourceReader != null){
+            return read(jsonFactory.createParser(inputStream), resourceReader, unwrapRoot ? rootName(type) : null);
+        }
+
+        return readerFor(type, unwrapRoot).readValue(inputStream);
+    }
+
+
+    public <T> T decode(String content, Class<T> type, boolean unwrapRoot) throws IOException{
+        ResourceReader<T> resourceReader = resourceReaderFor(type);
+        if (resourceReader != null){
+            return read(jsonFactory.createParser(content), resourceReader, unwrapRoot ? rootName(type) : null);
+        }
+
+        return readerFor(type, unwrapRoot).readValue(content);
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private <T> ResourceReader<T> resourceReaderFor(Class<T> type){
+        return (ResourceReader<T>) resourceReaders.get(type);
+    }
+
+
+    /**
+     * @param rootName the name of the property wrapping the value, or null if it is not wrapped
+     */
+    private static <T> T read(JsonParser parser, ResourceReader<T> resourceReader, String rootName) throws IOException{
+        try{
+            parser.nextToken();
+            if (rootName == null){
+                return resourceReader.read(parser);
+            }
+
+            /* The value is wrapped in an object with a single property, such as {"message": {...}} */
+            if (parser.getCurrentToken() != JsonToken.START_OBJECT || parser.nextToken() != JsonToken.FIELD_NAME){
+                throw new JsonParseException(parser, "Expected an object wrapping the value");
+            }
+
+            if (!rootName.equals(parser.getCurrentName())){
+                throw new JsonParseException(parser, String.format("Root name '%s' does not match the expected '%s'",
+                                                                   parser.getCurrentName(), rootName));
+            }
+
+            parser.nextToken();
+            T value = resourceReader.read(parser);
+
+            if (parser.nextToken() != JsonToken.END_OBJECT){
+                throw new JsonParseException(parser, "Expected the end of the object wrapping the value");
+            }
+
+            return value;
+        }finally{
+            parser.close();
+        }
+    }
+
+
+    private String rootName(Class<?> type){
+        String rootName = rootNames.get(type);
+        if (rootName == null){
+            rootName = deserializationConfig.findRootName(type).getSimpleName();
+            rootNames.putIfAbsent(type, rootName);
+        }
+
+        return rootName;
+    }
+
+
+    private ObjectReader readerFor(Class<?> type, boolean unwrapRoot){
+        ConcurrentMap<Class<?>, ObjectReader> readers = unwrapRoot ? rootReaders : plainReaders;
+
+        ObjectReader reader = readers.get(type);
+        if (reader == null){
+            reader = baseReader.forType(type);
+            if (unwrapRoot){
+                reader = reader.with(DeserializationFeature.UNWRAP_ROOT_VALUE);
+            }
+
+            readers.putIfAbsent(type, reader);
+        }
+
+        return reader;
+    }
+}
@@ -0,0 +1,19 @@
+package net.vivialconnect.model.format;
+
+/**
+ * A {@link JsonValueFormatter} that writes values straight into the body being built instead of
+ * returning them as Strings, so that nested values don't need intermediate copies.
+ */
+public abstract class StreamingValueFormatter implements JsonValueFormatter{
+
+    public abstract void writeValue(Object value, JsonWriter writer);
+
+
+    @Override
+    public String formatValue(Object value){
+        JsonWriter writer = new JsonWriter(64);
+        writeValue(value, writer);
+
+        return writer.toString();
+    }
+}
@@ -1,14 +1,9 @@
 package net.vivialconnect.model.format;
 
-public class StringFormatter implements JsonValueFormatter{
+public class StringFormatter extends StreamingValueFormatter{
 	
     @Override
-    public String formatValue(Object value){
-        StringBuilder builder = new StringBuilder();
-        builder.append("\"");
-        builder.append(value);
-        builder.append("\"");
-
-        return builder.toString();
+    public void writeValue(Object value, JsonWriter writer){
+        writer.value(String.valueOf(value));
     }
-}
\ No newline at end of file
+}
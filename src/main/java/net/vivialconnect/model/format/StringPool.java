@@ -0,0 +1,42 @@
+package net.vivialconnect.model.format;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shares one instance of each low-cardinality string read from responses, such as message
+ * statuses and log types, between all the models holding it.
+ * <p>
+ * The pool is bounded: once it is full, strings it does not hold yet are returned as they are, so a
+ * field that turns out to have many distinct values cannot make it grow without limit.
+ */
+final class StringPool{
+
+    private static final int MAX_SIZE = 16384;
+
+    private static final ConcurrentMap<String, String> pool = new ConcurrentHashMap<String, String>();
+
+
+    private StringPool(){
+
+    }
+
+
+    static String intern(String value){
+        if (value == null){
+            return null;
+        }
+
+        String pooled = pool.get(value);
+        if (pooled != null){
+            return pooled;
+        }
+
+        if (pool.size() >= MAX_SIZE){
+            return value;
+        }
+
+        pooled = pool.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+}
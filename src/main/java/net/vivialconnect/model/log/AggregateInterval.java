@@ -0,0 +1,95 @@
+package net.vivialconnect.model.log;
+
+/**
+ * The time buckets logs are aggregated into, named as the <code>aggregatorType</code> of
+ * {@link Log#getAggregate(java.util.Date, java.util.Date, String)}.
+ * <p>
+ * Buckets are in UTC. Times are in microseconds since the epoch, as returned by
+ * {@link LogTimestamp#toEpochMicros(String)}.
+ */
+public enum AggregateInterval {
+
+    MINUTES("minutes", 12, 60L * 1000000L),
+    HOURS("hours", 10, 3600L * 1000000L),
+    DAYS("days", 8, 86400L * 1000000L),
+    MONTHS("months", 6, 0L),
+    YEARS("years", 4, 0L);
+
+    private final String aggregatorType;
+    private final int timestampLength;
+    private final long fixedLengthMicros;
+
+    AggregateInterval(String aggregatorType, int timestampLength, long fixedLengthMicros) {
+        this.aggregatorType = aggregatorType;
+        this.timestampLength = timestampLength;
+        this.fixedLengthMicros = fixedLengthMicros;
+    }
+
+    /**
+     * Gets the interval of an aggregator type.
+     *
+     * @param aggregatorType one of minutes, hours, days, months or years
+     * @return the interval
+     *
+     * @throws IllegalArgumentException if the aggregator type is not one of those
+     */
+    public static AggregateInterval of(String aggregatorType) {
+        for (AggregateInterval interval : values()) {
+            if (interval.aggregatorType.equals(aggregatorType)) {
+                return interval;
+            }
+        }
+
+        throw new IllegalArgumentException("'aggregatorType' param is not valid");
+    }
+
+    public String getAggregatorType() {
+        return aggregatorType;
+    }
+
+    /**
+     * Gets the start of the bucket holding a time.
+     */
+    public long truncate(long epochMicros) {
+        if (fixedLengthMicros > 0) {
+            return epochMicros - floorMod(epochMicros, fixedLengthMicros);
+        }
+
+        return LogTimestamp.toEpochMicros(LogTimestamp.format(epochMicros).substring(0, timestampLength));
+    }
+
+    /**
+     * Gets the start of the bucket following the one starting at the given time.
+     */
+    public long next(long bucketStartMicros) {
+        if (fixedLengthMicros > 0) {
+            return bucketStartMicros + fixedLengthMicros;
+        }
+
+        String timestamp = LogTimestamp.format(bucketStartMicros);
+        int year = Integer.parseInt(timestamp.substring(0, 4));
+        int month = this == MONTHS ? Integer.parseInt(timestamp.substring(4, 6)) : 12;
+        if (month == 12) {
+            year++;
+            month = 1;
+        } else {
+            month++;
+        }
+
+        String next = year + (month < 10 ? "0" : "") + month;
+        return LogTimestamp.toEpochMicros(next.substring(0, timestampLength));
+    }
+
+    /**
+     * Formats the start of a bucket the way aggregated logs give it, such as
+     * <code>YYYYMMDDhh</code> for hourly buckets.
+     */
+    public String format(long bucketStartMicros) {
+        return LogTimestamp.format(bucketStartMicros).substring(0, timestampLength);
+    }
+
+    private static long floorMod(long x, long y) {
+        long mod = x % y;
+        return mod < 0 ? mod + y : mod;
+    }
+}
@@ -0,0 +1,182 @@
+package net.vivialconnect.model.log;
+
+import net.vivialconnect.model.format.LogReader;
+
+/**
+ * A {@link Log} that takes less memory, decoded when compact models are enabled on the client.
+ * <p>
+ * Compared with a regular log:
+ * <ul>
+ * <li>The timestamp is held as microseconds since the epoch, and only formatted back when
+ * {@link #getLogTimestamp()} is called.</li>
+ * <li>The <code>account_id_item_id</code>, <code>account_id_log_type</code> and
+ * <code>account_id_operator_id</code> keys are not kept when they are just the account id joined
+ * to the other field with a dash, as the API returns them; their getters rebuild them. A key the
+ * response did not carry stays null.</li>
+ * <li>The log data is not kept next to <code>log_data_json</code>: {@link #getLogData()} decodes it
+ * from the JSON on each call.</li>
+ * <li>Types and origins share one string instance per distinct value with every other compact
+ * log.</li>
+ * </ul>
+ */
+public class CompactLog extends Log{
+
+    private static final long serialVersionUID = 4735618239617301268L;
+
+    /* Keys rebuilt from the other fields by their getters */
+    private static final int ITEM_KEY = 1;
+    private static final int LOG_TYPE_KEY = 2;
+    private static final int OPERATOR_KEY = 4;
+
+    private long logTimestamp = LogTimestamp.NONE;
+
+    private byte derivedKeys;
+
+
+    @Override
+    public String getAccountIdItemId(){
+        return isDerived(ITEM_KEY) ? withAccountId(getItemId()) : super.getAccountIdItemId();
+    }
+
+
+    @Override
+    public void setAccountIdItemId(String accountIdItemId){
+        boolean derived = accountIdItemId != null && accountIdItemId.equals(withAccountId(getItemId()));
+        setDerived(ITEM_KEY, derived);
+        super.setAccountIdItemId(derived ? null : accountIdItemId);
+    }
+
+
+    @Override
+    public String getAccountIdLogType(){
+        return isDerived(LOG_TYPE_KEY) ? withAccountId(getLogType()) : super.getAccountIdLogType();
+    }
+
+
+    @Override
+    public void setAccountIdLogType(String accountIdLogType){
+        boolean derived = accountIdLogType != null && accountIdLogType.equals(withAccountId(getLogType()));
+        setDerived(LOG_TYPE_KEY, derived);
+        super.setAccountIdLogType(derived ? null : accountIdLogType);
+    }
+
+
+    @Override
+    public String getAccountIdOperatorId(){
+        return isDerived(OPERATOR_KEY) ? withAccountId(getOperatorId()) : super.getAccountIdOperatorId();
+    }
+
+
+    @Override
+    public void setAccountIdOperatorId(String accountIdOperatorId){
+        boolean derived = accountIdOperatorId != null && accountIdOperatorId.equals(withAccountId(getOperatorId()));
+        setDerived(OPERATOR_KEY, derived);
+        super.setAccountIdOperatorId(derived ? null : accountIdOperatorId);
+    }
+
+
+    @Override
+    public void setAccountId(int accountId){
+        keepDerivedKeys();
+        super.setAccountId(accountId);
+    }
+
+
+    @Override
+    public void setLogType(String logType){
+        keepDerivedKeys();
+        super.setLogType(logType);
+    }
+
+
+    @Override
+    public void setItemId(String itemId){
+        keepDerivedKeys();
+        super.setItemId(itemId);
+    }
+
+
+    @Override
+    public void setOperatorId(int operatorId){
+        keepDerivedKeys();
+        super.setOperatorId(operatorId);
+    }
+
+
+    /**
+     * Gets the log data, decoding it from <code>log_data_json</code> unless it was set directly. The
+     * result is not kept, so callers reading it repeatedly should hold on to it.
+     *
+     * @return the log data, or null if there is none or the JSON is not valid
+     */
+    @Override
+    public LogData getLogData(){
+        LogData logData = super.getLogData();
+        if (logData != null || getLogDataJson() == null){
+            return logData;
+        }
+
+        return LogReader.readLogData(getLogDataJson());
+    }
+
+
+    @Override
+    public String getLogTimestamp(){
+        return logTimestamp != LogTimestamp.NONE ? LogTimestamp.format(logTimestamp) : super.getLogTimestamp();
+    }
+
+
+    @Override
+    public void setLogTimestamp(String logTimestamp){
+        long micros = LogTimestamp.parse(logTimestamp, true);
+        this.logTimestamp = micros;
+        /* Timestamps of another form are kept as they are */
+        super.setLogTimestamp(micros == LogTimestamp.NONE ? logTimestamp : null);
+    }
+
+
+    /**
+     * @return the log timestamp in microseconds since the epoch, or <code>Long.MIN_VALUE</code> if
+     *         there is none or it is not a full timestamp
+     */
+    public long getLogTimestampMicros(){
+        return logTimestamp;
+    }
+
+
+    private boolean isDerived(int key){
+        return (derivedKeys & key) != 0;
+    }
+
+
+    private void setDerived(int key, boolean derived){
+        derivedKeys = (byte) (derived ? derivedKeys | key : derivedKeys & ~key);
+    }
+
+
+    /* Stores the rebuilt keys before a field they are rebuilt from changes */
+    private void keepDerivedKeys(){
+        if (derivedKeys == 0){
+            return;
+        }
+
+        String accountIdItemId = getAccountIdItemId();
+        String accountIdLogType = getAccountIdLogType();
+        String accountIdOperatorId = getAccountIdOperatorId();
+
+        derivedKeys = 0;
+        super.setAccountIdItemId(accountIdItemId);
+        super.setAccountIdLogType(accountIdLogType);
+        super.setAccountIdOperatorId(accountIdOperatorId);
+    }
+
+
+    private String withAccountId(String value){
+        return value != null ? getAccountId() + "-" + value : null;
+    }
+
+
+    private String withAccountId(int value){
+        return getAccountId() + "-" + value;
+    }
+}
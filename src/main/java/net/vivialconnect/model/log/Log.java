@@ -116,6 +116,18 @@ public class Log extends VivialConnectResource {
     @JsonProperty("description")
     private String description;
 
+    /**
+     * Number of logs counted in this aggregated log. Only set for aggregated logs.
+     */
+    @JsonProperty("log_count")
+    private int logCount;
+
+    /**
+     * The aggregator type of this aggregated log, such as hours. Only set for aggregated logs.
+     */
+    @JsonProperty("aggregate_key")
+    private String aggregateKey;
+
     static {
         classesWithoutRootValue.add(LogCollection.class);
     }
@@ -166,6 +178,22 @@ public class Log extends VivialConnectResource {
         return request(RequestMethod.GET, classURL(Log.class), null, queryParameters, LogCollection.class);
     }
 
+    /**
+     * Reads every log relating to your account activity between the given times, following
+     * <code>last_key</code> from page to page and fetching the next page while the current one is
+     * consumed.
+     *
+     * @param startTime start date and time
+     * @param endTime end date and time
+     * @param queryParameters the filters to apply, see {@link #getLogs(Date, Date, Map)}, may be null
+     * @return a scanner whose iterators read every matching log
+     *
+     * @see LogScanner
+     */
+    public static LogScanner scanLogs(Date startTime, Date endTime, Map<String, String> queryParameters) {
+        return LogScanner.builder(startTime, endTime).queryParams(queryParameters).build();
+    }
+
     /**
      * Returns the list of aggregated logs in your account.
      * <p>
@@ -350,4 +378,20 @@ public class Log extends VivialConnectResource {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public int getLogCount() {
+        return logCount;
+    }
+
+    public void setLogCount(int logCount) {
+        this.logCount = logCount;
+    }
+
+    public String getAggregateKey() {
+        return aggregateKey;
+    }
+
+    public void setAggregateKey(String aggregateKey) {
+        this.aggregateKey = aggregateKey;
+    }
 }
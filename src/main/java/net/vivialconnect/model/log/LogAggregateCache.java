@@ -0,0 +1,512 @@
+package net.vivialconnect.model.log;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.PagedIterable;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.format.JsonWriter;
+
+/**
+ * Serves {@link Log#getAggregate(Date, Date, String, Map)} from the aggregates already read for
+ * buckets that can no longer change.
+ * <p>
+ * The requested range is split into the whole buckets that ended before now, which are served
+ * from the cache once read, and the buckets still open, which are read from the API on every call.
+ * Since logs may be written shortly after the time they record, a bucket is only taken as closed
+ * once {@link Builder#settleTime(long, TimeUnit)} has passed since it ended. A partial bucket at
+ * the start of an unaligned range is also read from the API every time.
+ * <p>
+ * Closed buckets are kept per API base URL, account, aggregator type and filters, including buckets
+ * without any log. Buckets missing from the cache are read with as few requests as possible, one
+ * range per run of consecutive missing buckets. Like the {@link net.vivialconnect.client.ResourceCache},
+ * the cache stores JSON rather than the logs themselves: each bucket is written in the form of an
+ * API response and read back with the client's {@link AccountClient#getResponseDecoder()}, so every
+ * call returns new instances the caller is free to change. Once it holds {@link Builder#maxBuckets(int)} buckets,
+ * the least recently used one is evicted. Given a {@link Builder#storeDirectory(File)}, buckets are
+ * also written there, one file each, and read back by later caches using the same directory.
+ * <pre>
+ * <code>
+ * LogAggregateCache cache = LogAggregateCache.builder().storeDirectory(new File("aggregates")).build();
+ * LogCollection lastWeek = cache.getAggregate(weekAgo, now, "hours", null);
+ * </code>
+ * </pre>
+ * Aggregated logs are returned newest bucket first, as the API returns them, with an empty
+ * <code>last_key</code> as every page has been read.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public class LogAggregateCache {
+
+    public static final int DEFAULT_MAX_BUCKETS = 10000;
+    public static final long DEFAULT_SETTLE_TIME_MILLIS = 5 * 60 * 1000L;
+
+    private static final long MICROS_PER_MILLI = 1000L;
+
+    private static final String FILE_EXTENSION = ".aggregate";
+
+    private final int maxBuckets;
+    private final long settleTimeMillis;
+    private final File storeDirectory;
+
+    private final LinkedHashMap<String, byte[]> buckets;
+
+    private long hits;
+    private long misses;
+
+    private LogAggregateCache(Builder builder) {
+        this.maxBuckets = builder.maxBuckets;
+        this.settleTimeMillis = builder.settleTimeMillis;
+        this.storeDirectory = builder.storeDirectory;
+        this.buckets = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    }
+
+    /**
+     * Starts building an aggregate cache.
+     *
+     * @return a builder holding the default settings
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets the aggregated logs between the given times, as {@link Log#getAggregate(Date, Date,
+     * String, Map)} does, reading closed buckets from the cache.
+     *
+     * @param startTime start date and time
+     * @param endTime end date and time
+     * @param aggregatorType valid values are: minutes, hours, days, months, years
+     * @param queryParameters the filters to apply, may be null. <code>limit</code> and
+     *                        <code>start_key</code> are ignored, as every page is read
+     * @return the aggregated logs
+     *
+     * @throws VivialConnectException if there is an API-level error
+     * @throws IllegalArgumentException if a time is null, endTime is before startTime, or the
+     *         aggregator type is not valid
+     */
+    public LogCollection getAggregate(Date startTime, Date endTime, String aggregatorType,
+                                      Map<String, String> queryParameters) throws VivialConnectException {
+        if (startTime == null) {
+            throw new IllegalArgumentException("'startTime' param is not valid");
+        }
+
+        if (endTime == null || endTime.before(startTime)) {
+            throw new IllegalArgumentException("'endTime' param is not valid");
+        }
+
+        AggregateInterval interval = AggregateInterval.of(aggregatorType);
+        Map<String, String> filters = filters(queryParameters);
+
+        long startMicros = startTime.getTime() * MICROS_PER_MILLI;
+        long endMicros = endTime.getTime() * MICROS_PER_MILLI;
+        long settledMicros = (System.currentTimeMillis() - settleTimeMillis) * MICROS_PER_MILLI;
+
+        long firstBucket = interval.truncate(startMicros);
+        if (firstBucket != startMicros) {
+            firstBucket = interval.next(firstBucket);
+        }
+
+        long closedEnd = interval.truncate(Math.min(endMicros, settledMicros));
+        if (closedEnd <= firstBucket) {
+            return collection(fetch(startMicros, endMicros, interval, filters));
+        }
+
+        List<Log> logs = new ArrayList<Log>();
+        logs.addAll(fetch(closedEnd, endMicros, interval, filters));
+        logs.addAll(closedBuckets(firstBucket, closedEnd, interval, filters));
+        logs.addAll(fetch(startMicros, firstBucket, interval, filters));
+
+        return collection(logs);
+    }
+
+    /**
+     * Evicts every bucket held in memory. Buckets written to the store directory are kept.
+     */
+    public synchronized void clear() {
+        buckets.clear();
+    }
+
+    public synchronized int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Gets the number of closed buckets served from memory or the store directory.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of closed buckets read from the API.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /* Returns the logs of the buckets in [from, to), newest first, reading missing runs from the API */
+    private List<Log> closedBuckets(long from, long to, AggregateInterval interval, Map<String, String> filters)
+            throws VivialConnectException {
+        String queryKey = queryKey(interval, filters);
+
+        List<List<Log>> found = new ArrayList<List<Log>>();
+        long runStart = -1;
+        for (long bucket = from; bucket < to; bucket = interval.next(bucket)) {
+            List<Log> logs = lookup(queryKey + '@' + bucket);
+            if (logs == null && runStart < 0) {
+                runStart = bucket;
+            } else if (logs != null && runStart >= 0) {
+                found.addAll(readRun(queryKey, runStart, bucket, interval, filters));
+                runStart = -1;
+            }
+
+            if (logs != null) {
+                found.add(logs);
+            }
+        }
+
+        if (runStart >= 0) {
+            found.addAll(readRun(queryKey, runStart, to, interval, filters));
+        }
+
+        List<Log> logs = new ArrayList<Log>();
+        for (int i = found.size() - 1; i >= 0; i--) {
+            logs.addAll(found.get(i));
+        }
+
+        return logs;
+    }
+
+    /* Reads the buckets in [from, to) from the API and caches each one, returning them oldest first */
+    private List<List<Log>> readRun(String queryKey, long from, long to, AggregateInterval interval,
+                                    Map<String, String> filters) throws VivialConnectException {
+        TreeMap<Long, List<Log>> run = new TreeMap<Long, List<Log>>();
+        for (long bucket = from; bucket < to; bucket = interval.next(bucket)) {
+            run.put(bucket, new ArrayList<Log>());
+        }
+
+        boolean complete = true;
+        for (Log log : fetch(from, to, interval, filters)) {
+            long micros = LogTimestamp.of(log);
+            List<Log> bucketLogs = micros != LogTimestamp.NONE ? run.get(interval.truncate(micros)) : null;
+            if (bucketLogs != null) {
+                bucketLogs.add(log);
+            } else {
+                /* A log that belongs to no bucket would be lost, so keep the run out of the cache */
+                complete = false;
+                run.firstEntry().getValue().add(log);
+            }
+        }
+
+        synchronized (this) {
+            misses += run.size();
+        }
+
+        if (complete) {
+            for (Map.Entry<Long, List<Log>> bucket : run.entrySet()) {
+                store(queryKey + '@' + bucket.getKey(), bucket.getValue());
+            }
+        }
+
+        return new ArrayList<List<Log>>(run.values());
+    }
+
+    /* Reads every page of aggregated logs in [from, to) */
+    private List<Log> fetch(long fromMicros, long toMicros, AggregateInterval interval, Map<String, String> filters)
+            throws VivialConnectException {
+        List<Log> logs = new ArrayList<Log>();
+        if (toMicros <= fromMicros) {
+            return logs;
+        }
+
+        Date from = new Date(fromMicros / MICROS_PER_MILLI);
+        Date to = new Date(toMicros / MICROS_PER_MILLI);
+        Map<String, String> pageParams = new HashMap<String, String>(filters);
+        pageParams.put("limit", String.valueOf(PagedIterable.MAX_PAGE_SIZE));
+
+        String startKey = null;
+        while (true) {
+            LogCollection page = Log.getAggregate(from, to, interval.getAggregatorType(), pageParams);
+            if (page != null && page.getLogs() != null) {
+                logs.addAll(page.getLogs());
+            }
+
+            String lastKey = page != null ? page.getLastKey() : null;
+            /* A page pointing back to itself would never end */
+            if (lastKey == null || lastKey.isEmpty() || lastKey.equals(startKey)) {
+                return logs;
+            }
+
+            startKey = lastKey;
+            pageParams.put("start_key", lastKey);
+        }
+    }
+
+    private List<Log> lookup(String bucketKey) {
+        byte[] json;
+        synchronized (this) {
+            json = buckets.get(bucketKey);
+        }
+
+        boolean stored = false;
+        if (json == null && storeDirectory != null) {
+            json = readFile(bucketKey);
+            stored = json != null;
+        }
+
+        List<Log> logs = json != null ? decode(json) : null;
+        if (logs != null) {
+            if (stored) {
+                remember(bucketKey, json);
+            }
+
+            synchronized (this) {
+                hits++;
+            }
+        }
+
+        return logs;
+    }
+
+    private void store(String bucketKey, List<Log> logs) {
+        byte[] json = encode(logs);
+
+        remember(bucketKey, json);
+        if (storeDirectory != null) {
+            writeFile(bucketKey, json);
+        }
+    }
+
+    private synchronized void remember(String bucketKey, byte[] json) {
+        buckets.put(bucketKey, json);
+        if (buckets.size() > maxBuckets) {
+            Iterator<String> eldest = buckets.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /* The store is only an optimization, so a bucket that cannot be read or written is a miss */
+    private byte[] readFile(String bucketKey) {
+        File file = fileOf(bucketKey);
+        if (!file.exists()) {
+            return null;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            if (!bucketKey.equals(in.readUTF())) {
+                return null;
+            }
+
+            byte[] json = new byte[in.readInt()];
+            in.readFully(json);
+            return json;
+        } catch (IOException ioe) {
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private void writeFile(String bucketKey, byte[] json) {
+        File file = fileOf(bucketKey);
+        File temporary = new File(file.getPath() + ".tmp");
+
+        DataOutputStream out = null;
+        try {
+            if (!storeDirectory.isDirectory() && !storeDirectory.mkdirs()) {
+                return;
+            }
+
+            out = new DataOutputStream(new FileOutputStream(temporary));
+            out.writeUTF(bucketKey);
+            out.writeInt(json.length);
+            out.write(json);
+            out.close();
+            out = null;
+
+            if (!temporary.renameTo(file) && !(file.delete() && temporary.renameTo(file))) {
+                temporary.delete();
+            }
+        } catch (IOException ioe) {
+            temporary.delete();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private File fileOf(String bucketKey) {
+        return new File(storeDirectory, Integer.toHexString(bucketKey.hashCode()) + FILE_EXTENSION);
+    }
+
+    /* Writes the logs as the API returns them, with every field the log readers take */
+    private static byte[] encode(List<Log> logs) {
+        JsonWriter json = new JsonWriter().beginObject().name("log_items").beginArray();
+        for (Log log : logs) {
+            json.beginObject()
+                .name("log_id").value(log.getLogId())
+                .name("account_id").value(log.getAccountId())
+                .name("account_id_item_id").value(log.getAccountIdItemId())
+                .name("account_id_log_type").value(log.getAccountIdLogType())
+                .name("account_id_operator_id").value(log.getAccountIdOperatorId())
+                .name("log_type").value(log.getLogType())
+                .name("item_type").value(log.getItemType())
+                .name("item_id").value(log.getItemId())
+                .name("operator_type").value(log.getOperatorType())
+                .name("operator_id").value(log.getOperatorId())
+                .name("origin").value(log.getOrigin())
+                .name("log_data_json").value(log.getLogDataJson())
+                .name("log_timestamp").value(log.getLogTimestamp())
+                .name("description").value(log.getDescription())
+                .name("log_count").value(log.getLogCount())
+                .name("aggregate_key").value(log.getAggregateKey());
+
+            LogData logData = log.getLogDataJson() == null ? log.getLogData() : null;
+            if (logData != null) {
+                json.name("log_data").beginObject()
+                    .name("receiver").value(logData.getReceiver())
+                    .name("sender").value(logData.getSender())
+                    .name("text").value(logData.getText())
+                    .endObject();
+            }
+
+            json.endObject();
+        }
+
+        return json.endArray().endObject().toByteArray();
+    }
+
+    private static List<Log> decode(byte[] json) {
+        try {
+            LogCollection collection = VivialConnectClient.current().getResponseDecoder()
+                    .decode(new ByteArrayInputStream(json), LogCollection.class, false);
+            return collection != null && collection.getLogs() != null ? collection.getLogs() : new ArrayList<Log>();
+        } catch (IOException ioe) {
+            return null;
+        }
+    }
+
+    private static Map<String, String> filters(Map<String, String> queryParameters) {
+        Map<String, String> filters = new TreeMap<String, String>();
+        if (queryParameters != null) {
+            filters.putAll(queryParameters);
+        }
+
+        filters.remove("limit");
+        filters.remove("start_key");
+        filters.remove("start_time");
+        filters.remove("end_time");
+        filters.remove("aggregator_type");
+
+        return filters;
+    }
+
+    /* Filters are sorted, so that equal filters give the same key */
+    private static String queryKey(AggregateInterval interval, Map<String, String> filters) {
+        AccountClient client = VivialConnectClient.current();
+        StringBuilder key = new StringBuilder();
+        key.append(client.getApiBaseUrl()).append('/')
+           .append(client.getAccountId()).append('/')
+           .append(interval.getAggregatorType());
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            key.append('&').append(filter.getKey()).append('=').append(filter.getValue());
+        }
+
+        return key.toString();
+    }
+
+    private static LogCollection collection(List<Log> logs) {
+        LogCollection collection = new LogCollection();
+        collection.setLastKey("");
+        collection.setLogs(logs);
+
+        return collection;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    /**
+     * Builds {@link LogAggregateCache} instances.
+     */
+    public static final class Builder {
+
+        private int maxBuckets = DEFAULT_MAX_BUCKETS;
+        private long settleTimeMillis = DEFAULT_SETTLE_TIME_MILLIS;
+        private File storeDirectory;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the number of closed buckets kept in memory.
+         */
+        public Builder maxBuckets(int maxBuckets) {
+            if (maxBuckets < 1) {
+                throw new IllegalArgumentException("'maxBuckets' param is not valid");
+            }
+
+            this.maxBuckets = maxBuckets;
+            return this;
+        }
+
+        /**
+         * Sets how long after a bucket ends it is taken as closed.
+         */
+        public Builder settleTime(long settleTime, TimeUnit unit) {
+            if (unit == null || settleTime < 0) {
+                throw new IllegalArgumentException("'settleTime' param is not valid");
+            }
+
+            this.settleTimeMillis = unit.toMillis(settleTime);
+            return this;
+        }
+
+        /**
+         * Sets the directory closed buckets are written to and read back from, which is created if
+         * needed.
+         */
+        public Builder storeDirectory(File storeDirectory) {
+            this.storeDirectory = storeDirectory;
+            return this;
+        }
+
+        public LogAggregateCache build() {
+            return new LogAggregateCache(this);
+        }
+    }
+}
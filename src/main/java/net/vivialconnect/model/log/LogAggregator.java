@@ -0,0 +1,411 @@
+package net.vivialconnect.model.log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Counts logs per time bucket locally, as {@link Log#getAggregate(java.util.Date, java.util.Date,
+ * String)} does on the API, and optionally per log type, item type and operator as well.
+ * <p>
+ * Logs are added one at a time, typically from a {@link LogScanner} or a {@link LogBackfill}, so
+ * any range can be rolled up without holding its logs:
+ * <pre>
+ * <code>
+ * LogAggregator aggregator = new LogAggregator(AggregateInterval.HOURS, LogAggregator.Dimension.LOG_TYPE,
+ *                                              LogAggregator.Dimension.OPERATOR_ID);
+ * aggregator.addAll(LogBackfill.builder(monthStart, monthEnd).build());
+ *
+ * List&lt;Log&gt; rollups = aggregator.getRollups();
+ * </code>
+ * </pre>
+ * Counts live in an open-addressing map of <code>long</code> keys to <code>long</code> counts, the
+ * key packing a group and a bucket number. Groups, log types, item types and buckets are each
+ * numbered once, the first time they are seen, so memory grows with the number of distinct
+ * values and counts, not with the number of logs added. Logs without a timestamp are skipped.
+ * <p>
+ * Not safe for use by several threads at once; aggregators fed from separate threads can be
+ * combined with {@link #merge(LogAggregator)}.
+ */
+public class LogAggregator {
+
+    /**
+     * What logs can be counted by, besides their time bucket.
+     */
+    public enum Dimension {
+        LOG_TYPE,
+        ITEM_TYPE,
+        OPERATOR_ID
+    }
+
+    /**
+     * Receives the counts of an aggregator, one group and bucket at a time.
+     */
+    public interface RollupVisitor {
+
+        /**
+         * @param bucketStartMicros the start of the bucket, in microseconds since the epoch
+         * @param logType the log type, or null if logs are not counted by log type
+         * @param itemType the item type, or null if logs are not counted by item type
+         * @param operatorId the operator id, or 0 if logs are not counted by operator
+         * @param count the number of logs
+         */
+        void visit(long bucketStartMicros, String logType, String itemType, int operatorId, long count);
+    }
+
+    private static final int MAX_ITEM_TYPES = 1 << 12;
+    private static final int MAX_LOG_TYPES = 1 << 20;
+
+    private final AggregateInterval interval;
+    private final boolean byLogType;
+    private final boolean byItemType;
+    private final boolean byOperatorId;
+
+    /* Log type and item type numbers, 0 standing for none */
+    private final Map<String, Integer> logTypeIds = new HashMap<String, Integer>();
+    private final List<String> logTypes = new ArrayList<String>(Collections.singletonList((String) null));
+    private final Map<String, Integer> itemTypeIds = new HashMap<String, Integer>();
+    private final List<String> itemTypes = new ArrayList<String>(Collections.singletonList((String) null));
+
+    /* Packed log type, item type and operator id to group number, and back */
+    private final LongLongMap groupIds = new LongLongMap();
+    private long[] groups = new long[16];
+
+    /* Bucket start to bucket number, and back */
+    private final LongLongMap bucketIds = new LongLongMap();
+    private long[] buckets = new long[16];
+
+    /* Group number and bucket number, packed, to count */
+    private final LongLongMap counts = new LongLongMap();
+
+    /* Logs arrive clustered in time, so the last bucket found usually holds the next log too */
+    private long lastBucketStart = LogTimestamp.NONE;
+    private long lastBucketEnd = LogTimestamp.NONE;
+    private int lastBucketId;
+
+    private String lastLogType;
+    private int lastLogTypeId;
+    private String lastItemType;
+    private int lastItemTypeId;
+
+    private long logsAdded;
+    private long logsSkipped;
+
+    /**
+     * Creates an aggregator counting logs per bucket of the given interval.
+     *
+     * @param interval the time buckets to count logs in
+     * @param groupBy what else to count logs by, if anything
+     *
+     * @throws IllegalArgumentException if the interval is null
+     */
+    public LogAggregator(AggregateInterval interval, Dimension... groupBy) {
+        if (interval == null) {
+            throw new IllegalArgumentException("'interval' param is not valid");
+        }
+
+        Set<Dimension> dimensions = EnumSet.noneOf(Dimension.class);
+        if (groupBy != null) {
+            dimensions.addAll(Arrays.asList(groupBy));
+        }
+
+        this.interval = interval;
+        this.byLogType = dimensions.contains(Dimension.LOG_TYPE);
+        this.byItemType = dimensions.contains(Dimension.ITEM_TYPE);
+        this.byOperatorId = dimensions.contains(Dimension.OPERATOR_ID);
+    }
+
+    /**
+     * Counts a log.
+     *
+     * @return false if the log was skipped because it has no valid timestamp
+     *
+     * @throws IllegalStateException if more distinct log types or item types were seen than the
+     *         aggregator can number
+     */
+    public boolean add(Log log) {
+        long micros = LogTimestamp.of(log);
+        if (micros == LogTimestamp.NONE) {
+            logsSkipped++;
+            return false;
+        }
+
+        int logTypeId = byLogType ? logTypeId(log.getLogType()) : 0;
+        int itemTypeId = byItemType ? itemTypeId(log.getItemType()) : 0;
+        int operatorId = byOperatorId ? log.getOperatorId() : 0;
+
+        long group = ((long) logTypeId << 44) | ((long) itemTypeId << 32) | (operatorId & 0xffffffffL);
+        long key = ((long) groupId(group) << 32) | bucketId(micros);
+        counts.add(key, 1L);
+        logsAdded++;
+
+        return true;
+    }
+
+    /**
+     * Counts every log of an iterable, such as a {@link LogScanner} or a {@link LogBackfill}.
+     *
+     * @return the number of logs counted
+     */
+    public long addAll(Iterable<? extends Log> logs) {
+        long added = 0;
+        for (Log log : logs) {
+            if (add(log)) {
+                added++;
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Adds the counts of another aggregator with the same interval and dimensions.
+     *
+     * @throws IllegalArgumentException if the other aggregator counts logs differently, or is this
+     *         one
+     */
+    public void merge(LogAggregator other) {
+        if (other == this || other.interval != interval || other.byLogType != byLogType || other.byItemType != byItemType
+                || other.byOperatorId != byOperatorId) {
+            throw new IllegalArgumentException("'other' param is not valid");
+        }
+
+        for (int slot = 0; slot < other.counts.capacity(); slot++) {
+            if (!other.counts.isUsed(slot)) {
+                continue;
+            }
+
+            long otherKey = other.counts.keyAt(slot);
+            long otherGroup = other.groups[(int) (otherKey >>> 32)];
+            long group = ((long) logTypeId(other.logTypes.get((int) (otherGroup >>> 44))) << 44)
+                    | ((long) itemTypeId(other.itemTypes.get((int) (otherGroup >>> 32) & (MAX_ITEM_TYPES - 1))) << 32)
+                    | (otherGroup & 0xffffffffL);
+            long bucketStart = other.buckets[(int) otherKey];
+
+            long key = ((long) groupId(group) << 32) | bucketId(bucketStart);
+            counts.add(key, other.counts.valueAt(slot));
+        }
+
+        logsAdded += other.logsAdded;
+        logsSkipped += other.logsSkipped;
+    }
+
+    /**
+     * Passes every count to a visitor, in no particular order, without creating any object per
+     * count.
+     */
+    public void visit(RollupVisitor visitor) {
+        for (int slot = 0; slot < counts.capacity(); slot++) {
+            if (!counts.isUsed(slot)) {
+                continue;
+            }
+
+            long key = counts.keyAt(slot);
+            long group = groups[(int) (key >>> 32)];
+            visitor.visit(buckets[(int) key],
+                          logTypes.get((int) (group >>> 44)),
+                          itemTypes.get((int) (group >>> 32) & (MAX_ITEM_TYPES - 1)),
+                          (int) group,
+                          counts.valueAt(slot));
+        }
+    }
+
+    /**
+     * Gets the counts as aggregated logs, in the form {@link Log#getAggregate(java.util.Date,
+     * java.util.Date, String)} returns them: newest bucket first, then by log type, item type and
+     * operator id.
+     *
+     * @return a new list of aggregated logs, one per group and bucket
+     */
+    public List<Log> getRollups() {
+        final List<Log> rollups = new ArrayList<Log>(counts.size());
+        visit(new RollupVisitor() {
+
+            @Override
+            public void visit(long bucketStartMicros, String logType, String itemType, int operatorId, long count) {
+                Log rollup = new Log();
+                rollup.setLogTimestamp(interval.format(bucketStartMicros));
+                rollup.setAggregateKey(interval.getAggregatorType());
+                rollup.setLogType(logType);
+                rollup.setItemType(itemType);
+                rollup.setOperatorId(operatorId);
+                rollup.setLogCount((int) Math.min(count, Integer.MAX_VALUE));
+                rollups.add(rollup);
+            }
+        });
+
+        Collections.sort(rollups, ROLLUP_ORDER);
+
+        return rollups;
+    }
+
+    /**
+     * Gets the number of logs counted for a bucket and group.
+     *
+     * @param bucketStartMicros any time within the bucket, in microseconds since the epoch
+     * @param logType the log type, ignored unless logs are counted by log type
+     * @param itemType the item type, ignored unless logs are counted by item type
+     * @param operatorId the operator id, ignored unless logs are counted by operator
+     * @return the number of logs
+     */
+    public long getCount(long bucketStartMicros, String logType, String itemType, int operatorId) {
+        long bucketId = bucketIds.get(interval.truncate(bucketStartMicros), -1L);
+        Integer logTypeId = byLogType && logType != null ? logTypeIds.get(logType) : Integer.valueOf(0);
+        Integer itemTypeId = byItemType && itemType != null ? itemTypeIds.get(itemType) : Integer.valueOf(0);
+        if (bucketId < 0 || logTypeId == null || itemTypeId == null) {
+            return 0L;
+        }
+
+        long group = ((long) logTypeId.intValue() << 44) | ((long) itemTypeId.intValue() << 32)
+                | ((byOperatorId ? operatorId : 0) & 0xffffffffL);
+        long groupId = groupIds.get(group, -1L);
+
+        return groupId < 0 ? 0L : counts.get((groupId << 32) | bucketId, 0L);
+    }
+
+    public AggregateInterval getInterval() {
+        return interval;
+    }
+
+    /**
+     * Gets the number of distinct group and bucket pairs counted.
+     *
+     * @return the number of counts held
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    public long getLogsAdded() {
+        return logsAdded;
+    }
+
+    /**
+     * Gets the number of logs skipped because they had no valid timestamp.
+     *
+     * @return the skipped log count
+     */
+    public long getLogsSkipped() {
+        return logsSkipped;
+    }
+
+    private int bucketId(long micros) {
+        if (micros >= lastBucketStart && micros < lastBucketEnd) {
+            return lastBucketId;
+        }
+
+        long start = interval.truncate(micros);
+        long id = bucketIds.get(start, -1L);
+        if (id < 0) {
+            id = bucketIds.size();
+            bucketIds.put(start, id);
+            buckets = append(buckets, (int) id, start);
+        }
+
+        lastBucketStart = start;
+        lastBucketEnd = interval.next(start);
+        lastBucketId = (int) id;
+
+        return lastBucketId;
+    }
+
+    private int groupId(long group) {
+        long id = groupIds.get(group, -1L);
+        if (id < 0) {
+            id = groupIds.size();
+            groupIds.put(group, id);
+            groups = append(groups, (int) id, group);
+        }
+
+        return (int) id;
+    }
+
+    private int logTypeId(String logType) {
+        /* Compact logs share one instance per log type, so most lookups end here */
+        if (logType == lastLogType && logType != null) {
+            return lastLogTypeId;
+        }
+
+        int id = number(logType, logTypeIds, logTypes, MAX_LOG_TYPES);
+        lastLogType = logType;
+        lastLogTypeId = id;
+
+        return id;
+    }
+
+    private int itemTypeId(String itemType) {
+        if (itemType == lastItemType && itemType != null) {
+            return lastItemTypeId;
+        }
+
+        int id = number(itemType, itemTypeIds, itemTypes, MAX_ITEM_TYPES);
+        lastItemType = itemType;
+        lastItemTypeId = id;
+
+        return id;
+    }
+
+    private static int number(String value, Map<String, Integer> ids, List<String> values, int max) {
+        if (value == null) {
+            return 0;
+        }
+
+        Integer id = ids.get(value);
+        if (id != null) {
+            return id.intValue();
+        }
+
+        if (values.size() == max) {
+            throw new IllegalStateException("Too many distinct values to count logs by");
+        }
+
+        ids.put(value, values.size());
+        values.add(value);
+
+        return values.size() - 1;
+    }
+
+    private static long[] append(long[] array, int index, long value) {
+        if (index == array.length) {
+            array = Arrays.copyOf(array, array.length << 1);
+        }
+
+        array[index] = value;
+        return array;
+    }
+
+    private static final Comparator<Log> ROLLUP_ORDER = new Comparator<Log>() {
+
+        @Override
+        public int compare(Log a, Log b) {
+            int order = b.getLogTimestamp().compareTo(a.getLogTimestamp());
+            if (order == 0) {
+                order = compareNullable(a.getLogType(), b.getLogType());
+            }
+
+            if (order == 0) {
+                order = compareNullable(a.getItemType(), b.getItemType());
+            }
+
+            if (order == 0) {
+                order = a.getOperatorId() < b.getOperatorId() ? -1 : (a.getOperatorId() == b.getOperatorId() ? 0 : 1);
+            }
+
+            return order;
+        }
+
+        private int compareNullable(String a, String b) {
+            if (a == null || b == null) {
+                return a == null ? (b == null ? 0 : -1) : 1;
+            }
+
+            return a.compareTo(b);
+        }
+    };
+}
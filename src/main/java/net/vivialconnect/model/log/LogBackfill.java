@@ -0,0 +1,510 @@
+package net.vivialconnect.model.log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.AsyncDispatcher;
+import net.vivialconnect.client.Deadline;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.PagedIterable;
+import net.vivialconnect.model.error.PageFetchException;
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * Reads every log in a time range by splitting it into shards and reading several shards at once.
+ * <p>
+ * The <code>last_key</code> chain of {@link Log#getLogs(Date, Date, Map)} can only be followed one
+ * page at a time. A backfill splits <code>[startTime, endTime)</code> into consecutive shards whose
+ * boundaries fall on whole seconds, as the API only takes times in whole seconds, and follows the
+ * key chain of up to {@link Builder#parallelism(int)} shards at once.
+ * <p>
+ * Logs are returned newest first, in descending <code>log_timestamp</code> order, as the API
+ * returns them: the API returns the logs of a time range newest first, and each
+ * <code>last_key</code> carries on towards older logs, so the logs of a shard arrive in order.
+ * Shards are returned one after another from the latest, and each one only keeps the logs whose
+ * timestamp falls within it, so a log the API returns on both sides of a shard boundary is read
+ * once. Shards that are not being returned yet buffer at most {@link Builder#bufferedPages(int)}
+ * pages, after which their requests wait for the caller to catch up, so memory is bounded by the
+ * parallelism rather than the range.
+ * <pre>
+ * <code>
+ * LogBackfill backfill = LogBackfill.builder(monthStart, monthEnd)
+ *         .shardDuration(1, TimeUnit.HOURS)
+ *         .parallelism(8)
+ *         .build();
+ *
+ * for (Log log : backfill) {
+ *     process(log);
+ * }
+ * </code>
+ * </pre>
+ * Shards are read with the client that was current when the builder was created, see
+ * {@link VivialConnectClient#current()}. Each iterator reads them on daemon threads of its own, one
+ * per unit of parallelism, rather than through the client's {@link AsyncDispatcher}: a shard
+ * waiting for the caller to catch up holds its thread, and must not hold an in-flight slot other
+ * operations need. The threads stop once the backfill ends or the iterator is closed. Failures are
+ * thrown from the iterator as a {@link PageFetchException}. Each call to {@link #iterator()} starts
+ * a new backfill; iterators are not safe to share between threads.
+ */
+public class LogBackfill implements Iterable<Log> {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+    public static final int DEFAULT_BUFFERED_PAGES = 2;
+
+    /** The number of shards per unit of parallelism used unless a shard duration or count is set */
+    private static final int DEFAULT_SHARDS_PER_WORKER = 4;
+
+    private static final long MICROS_PER_MILLI = 1000L;
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    /* Marks the end of a shard in its queue */
+    private static final List<Log> END_OF_SHARD = Collections.unmodifiableList(new ArrayList<Log>());
+
+    private final AccountClient client;
+    private final long startMillis;
+    private final long endMillis;
+    /* The start of the range rounded down to a whole second, from which shard boundaries are laid out */
+    private final long firstSecondMillis;
+    private final long shardMillis;
+    private final int parallelism;
+    private final int bufferedPages;
+    private final Map<String, String> queryParams;
+    private final Listener listener;
+
+    private LogBackfill(Builder builder) {
+        this.client = builder.client;
+        this.startMillis = builder.startMillis;
+        this.endMillis = builder.endMillis;
+        this.parallelism = builder.parallelism;
+        this.bufferedPages = builder.bufferedPages;
+        this.queryParams = new HashMap<String, String>(builder.queryParams);
+        this.listener = builder.listener;
+        this.firstSecondMillis = startMillis - startMillis % MILLIS_PER_SECOND;
+
+        long range = endMillis - firstSecondMillis;
+        long shard = builder.shardMillis > 0 ? builder.shardMillis : range / Math.max(1, builder.shardCount);
+        /* The API takes times in whole seconds */
+        this.shardMillis = Math.max(MILLIS_PER_SECOND, shard - shard % MILLIS_PER_SECOND);
+    }
+
+    /**
+     * Starts building a backfill of the logs between the given times.
+     *
+     * @param startTime the start of the range
+     * @param endTime the end of the range
+     * @return a builder for the backfill
+     *
+     * @throws IllegalArgumentException if either time is null, or endTime is before startTime
+     */
+    public static Builder builder(Date startTime, Date endTime) {
+        return new Builder(startTime, endTime);
+    }
+
+    @Override
+    public BackfillIterator iterator() {
+        return new BackfillIterator();
+    }
+
+    /**
+     * Gets the number of shards the range is split into.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        long range = endMillis - firstSecondMillis;
+        return (int) Math.max(1, (range + shardMillis - 1) / shardMillis);
+    }
+
+    /**
+     * Receives the progress of a backfill. Methods are called on the thread iterating over the
+     * logs, and do nothing unless overridden.
+     */
+    public abstract static class Listener {
+
+        /**
+         * Called once every log of a shard has been returned. Shards complete from the latest to
+         * the earliest.
+         *
+         * @param shardStart the start of the shard
+         * @param shardEnd the end of the shard
+         * @param logsRead the number of logs returned so far, this shard included
+         */
+        public void onShardCompleted(Date shardStart, Date shardEnd, long logsRead) {
+
+        }
+    }
+
+    /**
+     * Builds {@link LogBackfill} instances.
+     */
+    public static final class Builder {
+
+        private final AccountClient client = VivialConnectClient.current();
+        private final long startMillis;
+        private final long endMillis;
+        private final Map<String, String> queryParams = new HashMap<String, String>();
+        private long shardMillis;
+        private int shardCount;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int bufferedPages = DEFAULT_BUFFERED_PAGES;
+        private Listener listener = new Listener() {
+        };
+
+        private Builder(Date startTime, Date endTime) {
+            if (startTime == null) {
+                throw new IllegalArgumentException("'startTime' param is not valid");
+            }
+
+            if (endTime == null || endTime.before(startTime)) {
+                throw new IllegalArgumentException("'endTime' param is not valid");
+            }
+
+            this.startMillis = startTime.getTime();
+            this.endMillis = endTime.getTime();
+            this.queryParams.put("limit", String.valueOf(PagedIterable.MAX_PAGE_SIZE));
+        }
+
+        /**
+         * Sets the filters sent with every page, see {@link Log#getLogs(Date, Date, Map)}. A
+         * <code>start_key</code> among them is ignored.
+         */
+        public Builder queryParams(Map<String, String> queryParams) {
+            if (queryParams != null) {
+                this.queryParams.putAll(queryParams);
+                this.queryParams.remove("start_key");
+            }
+
+            return this;
+        }
+
+        /**
+         * Sets the length of each shard, rounded down to whole seconds. Takes precedence over
+         * {@link #shardCount(int)}.
+         */
+        public Builder shardDuration(long duration, TimeUnit unit) {
+            if (duration <= 0 || unit == null) {
+                throw new IllegalArgumentException("'duration' param is not valid");
+            }
+
+            this.shardMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the number of shards the range is split into. Unless set, as is the shard duration,
+         * the range is split into four shards per unit of parallelism.
+         */
+        public Builder shardCount(int shardCount) {
+            if (shardCount < 1) {
+                throw new IllegalArgumentException("'shardCount' param is not valid");
+            }
+
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        /**
+         * Sets the number of shards read at once.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("'parallelism' param is not valid");
+            }
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Sets the number of pages a shard may read ahead of the caller.
+         */
+        public Builder bufferedPages(int bufferedPages) {
+            if (bufferedPages < 1) {
+                throw new IllegalArgumentException("'bufferedPages' param is not valid");
+            }
+
+            this.bufferedPages = bufferedPages;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("'listener' param is not valid");
+            }
+
+            this.listener = listener;
+            return this;
+        }
+
+        public LogBackfill build() {
+            if (shardCount == 0) {
+                shardCount = parallelism * DEFAULT_SHARDS_PER_WORKER;
+            }
+
+            return new LogBackfill(this);
+        }
+    }
+
+    /**
+     * Iterates over the logs of every shard, newest first.
+     */
+    public final class BackfillIterator implements Iterator<Log> {
+
+        private final int shardCount = getShardCount();
+        private final Shard[] shards = new Shard[shardCount];
+
+        private ExecutorService executor;
+        private int nextShardToStart;
+        private int currentShard;
+        private Iterator<Log> currentPage = Collections.<Log>emptyList().iterator();
+        private boolean started;
+        private boolean finished;
+        private long logsRead;
+
+        private BackfillIterator() {
+
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                start();
+            }
+
+            while (!currentPage.hasNext() && !finished) {
+                readNextPage();
+            }
+
+            return currentPage.hasNext();
+        }
+
+        @Override
+        public Log next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            logsRead++;
+            return currentPage.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops the backfill, cancelling the shards being read. Iterators that are not consumed to
+         * the end should be closed so that no further requests are sent.
+         */
+        public void close() {
+            started = true;
+            finished = true;
+            currentPage = Collections.<Log>emptyList().iterator();
+            for (int i = currentShard; i < nextShardToStart; i++) {
+                shards[i].cancel();
+                shards[i] = null;
+            }
+
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+
+        private void start() {
+            started = true;
+            executor = Executors.newFixedThreadPool(Math.min(parallelism, shardCount), new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "vivialconnect-log-backfill");
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+
+            startShards();
+        }
+
+        private void startShards() {
+            while (nextShardToStart < shardCount && nextShardToStart < currentShard + parallelism) {
+                /* The latest shard is returned first */
+                Shard shard = new Shard(shardCount - 1 - nextShardToStart);
+                shards[nextShardToStart++] = shard;
+                shard.start(executor);
+            }
+        }
+
+        private void readNextPage() {
+            Shard shard = shards[currentShard];
+            List<Log> logs;
+            try {
+                logs = shard.take();
+            } catch (PageFetchException pfe) {
+                close();
+                throw pfe;
+            }
+
+            if (logs != END_OF_SHARD) {
+                currentPage = logs.iterator();
+                return;
+            }
+
+            shards[currentShard++] = null;
+            listener.onShardCompleted(new Date(shard.startMillis), new Date(shard.endMillis), logsRead);
+
+            if (currentShard == shardCount) {
+                finished = true;
+                executor.shutdown();
+            } else {
+                startShards();
+            }
+        }
+    }
+
+    /**
+     * Follows the key chain of one shard on a thread of the iterator, handing pages to it.
+     */
+    private final class Shard {
+
+        private final long startMillis;
+        private final long endMillis;
+        private final long minMicros;
+        private final long maxMicros;
+        private final BlockingQueue<List<Log>> pages = new ArrayBlockingQueue<List<Log>>(bufferedPages + 1);
+
+        private volatile boolean cancelled;
+        private volatile VivialConnectException failure;
+        private Future<Void> task;
+
+        Shard(int index) {
+            this.startMillis = index == 0 ? LogBackfill.this.startMillis : firstSecondMillis + index * shardMillis;
+            this.endMillis = Math.min(LogBackfill.this.endMillis, firstSecondMillis + (index + 1) * shardMillis);
+
+            /* The first and last shards keep whatever the API returns at the ends of the range */
+            this.minMicros = index == 0 ? Long.MIN_VALUE : startMillis * MICROS_PER_MILLI;
+            this.maxMicros = endMillis == LogBackfill.this.endMillis ? Long.MAX_VALUE : endMillis * MICROS_PER_MILLI;
+        }
+
+        void start(ExecutorService executor) {
+            /* Shards run under the deadline of the thread that starts them, as dispatched operations do */
+            final Deadline deadline = Deadline.current();
+            final Callable<Void> readPages = new Callable<Void>() {
+
+                @Override
+                public Void call() throws InterruptedException, VivialConnectException {
+                    readPages();
+                    return null;
+                }
+            };
+
+            task = executor.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws InterruptedException {
+                    return run(deadline != null ? new Callable<Void>() {
+
+                        @Override
+                        public Void call() throws VivialConnectException {
+                            return deadline.call(readPages);
+                        }
+                    } : readPages);
+                }
+            });
+        }
+
+        void cancel() {
+            cancelled = true;
+            if (task != null) {
+                task.cancel(true);
+            }
+        }
+
+        private Void run(Callable<Void> readPages) throws InterruptedException {
+            try {
+                client.call(readPages);
+            } catch (VivialConnectException vce) {
+                failure = vce;
+            } catch (RuntimeException re) {
+                failure = new VivialConnectException(re);
+            } finally {
+                if (!cancelled) {
+                    pages.put(END_OF_SHARD);
+                }
+            }
+
+            return null;
+        }
+
+        private void readPages() throws InterruptedException, VivialConnectException {
+            Date start = new Date(startMillis);
+            Date end = new Date(endMillis);
+            Map<String, String> pageParams = new HashMap<String, String>(queryParams);
+            String startKey = null;
+
+            while (!cancelled) {
+                LogCollection page = Log.getLogs(start, end, pageParams);
+                List<Log> logs = page != null ? page.getLogs() : null;
+                if (logs != null && !logs.isEmpty()) {
+                    pages.put(withinShard(logs));
+                }
+
+                String lastKey = page != null ? page.getLastKey() : null;
+                /* A page pointing back to itself would never end */
+                if (lastKey == null || lastKey.isEmpty() || lastKey.equals(startKey)) {
+                    break;
+                }
+
+                startKey = lastKey;
+                pageParams.put("start_key", lastKey);
+            }
+        }
+
+        List<Log> take() {
+            List<Log> logs;
+            try {
+                logs = pages.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new PageFetchException(new VivialConnectException("Interrupted while waiting for a page of logs", ie));
+            }
+
+            if (logs == END_OF_SHARD && failure != null) {
+                throw new PageFetchException(failure);
+            }
+
+            return logs;
+        }
+
+        private List<Log> withinShard(List<Log> logs) {
+            List<Log> kept = null;
+            for (int i = 0; i < logs.size(); i++) {
+                long micros = LogTimestamp.of(logs.get(i));
+                boolean within = micros == LogTimestamp.NONE || (micros >= minMicros && micros < maxMicros);
+                if (!within && kept == null) {
+                    kept = new ArrayList<Log>(logs.subList(0, i));
+                } else if (within && kept != null) {
+                    kept.add(logs.get(i));
+                }
+            }
+
+            return kept != null ? kept : logs;
+        }
+    }
+}
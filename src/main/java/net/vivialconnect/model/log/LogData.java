@@ -1,8 +1,12 @@
 package net.vivialconnect.model.log;
 
+import java.io.Serializable;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-public class LogData{
+public class LogData implements Serializable{
+
+    private static final long serialVersionUID = 4210364918727343150L;
 
     @JsonProperty
     private String receiver;
@@ -0,0 +1,300 @@
+package net.vivialconnect.model.log;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.PagedIterable;
+import net.vivialconnect.model.error.PageFetchException;
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * Reads every log in a time range by following the <code>last_key</code> of each page of
+ * {@link Log#getLogs(Date, Date, Map)}, so callers don't have to pass it back as
+ * <code>start_key</code> themselves.
+ * <p>
+ * Logs are returned one at a time through an iterator. As soon as a page arrives, the next page is
+ * requested in the background through the client's
+ * {@link net.vivialconnect.client.AsyncDispatcher} while the logs of the current page are
+ * consumed. At most two pages are held at any time, so memory stays constant however many logs
+ * the range holds.
+ * <p>
+ * A {@link Listener} is told about each page fetched and, once every log of a page has been
+ * consumed, about the key a new scan can resume from. Persisting that key and passing it to
+ * {@link Builder#resumeFrom(String)} restarts a scan after the last page fully processed:
+ * <pre>
+ * <code>
+ * LogScanner scanner = LogScanner.builder(startTime, endTime)
+ *         .resumeFrom(savedKey)
+ *         .listener(new LogScanner.Listener() {
+ *             public void onCheckpoint(String resumeKey, long logsRead) {
+ *                 save(resumeKey);
+ *             }
+ *         })
+ *         .build();
+ *
+ * for (Log log : scanner) {
+ *     process(log);
+ * }
+ * </code>
+ * </pre>
+ * Pages are fetched with the client that was current when the builder was created, see
+ * {@link VivialConnectClient#current()}. Failures are thrown from the iterator as a
+ * {@link PageFetchException}. Each call to
+ * {@link #iterator()} starts a new scan; iterators are not safe to share between threads.
+ */
+public class LogScanner implements Iterable<Log> {
+
+    private final AccountClient client;
+    private final Date startTime;
+    private final Date endTime;
+    private final Map<String, String> queryParams;
+    private final String resumeKey;
+    private final Listener listener;
+
+    private LogScanner(Builder builder) {
+        this.client = builder.client;
+        this.startTime = builder.startTime;
+        this.endTime = builder.endTime;
+        this.queryParams = new HashMap<String, String>(builder.queryParams);
+        this.resumeKey = builder.resumeKey;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Starts building a scanner over the logs between the given times.
+     *
+     * @param startTime the start of the range
+     * @param endTime the end of the range
+     * @return a builder for the scanner
+     *
+     * @throws IllegalArgumentException if either time is null, or endTime is before startTime
+     */
+    public static Builder builder(Date startTime, Date endTime) {
+        return new Builder(startTime, endTime);
+    }
+
+    @Override
+    public LogIterator iterator() {
+        return new LogIterator();
+    }
+
+    /**
+     * Receives the progress of a scan. Methods are called on the thread iterating over the logs,
+     * and do nothing unless overridden.
+     */
+    public abstract static class Listener {
+
+        /**
+         * Called when a page arrives, before its logs are returned.
+         *
+         * @param pageSize the number of logs in the page
+         * @param logsFetched the number of logs fetched so far, this page included
+         */
+        public void onPageFetched(int pageSize, long logsFetched) {
+
+        }
+
+        /**
+         * Called once every log of a page has been returned, and the caller has moved past the
+         * last of them.
+         *
+         * @param resumeKey the key a new scan can resume from to read the logs after this page,
+         *                  or null if this page was the last one
+         * @param logsRead the number of logs returned so far
+         */
+        public void onCheckpoint(String resumeKey, long logsRead) {
+
+        }
+    }
+
+    /**
+     * Builds {@link LogScanner} instances.
+     */
+    public static final class Builder {
+
+        private final AccountClient client = VivialConnectClient.current();
+        private final Date startTime;
+        private final Date endTime;
+        private final Map<String, String> queryParams = new HashMap<String, String>();
+        private String resumeKey;
+        private Listener listener = new Listener() {
+        };
+
+        private Builder(Date startTime, Date endTime) {
+            if (startTime == null) {
+                throw new IllegalArgumentException("'startTime' param is not valid");
+            }
+
+            if (endTime == null || endTime.before(startTime)) {
+                throw new IllegalArgumentException("'endTime' param is not valid");
+            }
+
+            this.startTime = new Date(startTime.getTime());
+            this.endTime = new Date(endTime.getTime());
+            this.queryParams.put("limit", String.valueOf(PagedIterable.MAX_PAGE_SIZE));
+        }
+
+        /**
+         * Sets the filters sent with every page, see {@link Log#getLogs(Date, Date, Map)}. A
+         * <code>start_key</code> among them is ignored in favour of {@link #resumeFrom(String)}.
+         */
+        public Builder queryParams(Map<String, String> queryParams) {
+            if (queryParams != null) {
+                this.queryParams.putAll(queryParams);
+                this.queryParams.remove("start_key");
+            }
+
+            return this;
+        }
+
+        /**
+         * Resumes a scan from a key passed to {@link Listener#onCheckpoint(String, long)}, instead
+         * of starting at the beginning of the range.
+         */
+        public Builder resumeFrom(String resumeKey) {
+            this.resumeKey = resumeKey;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            if (listener == null) {
+                throw new IllegalArgumentException("'listener' param is not valid");
+            }
+
+            this.listener = listener;
+            return this;
+        }
+
+        public LogScanner build() {
+            return new LogScanner(this);
+        }
+    }
+
+    /**
+     * Iterates over the logs of every page in order.
+     */
+    public final class LogIterator implements Iterator<Log> {
+
+        private Future<LogCollection> pendingPage;
+        private Iterator<Log> currentPage = Collections.<Log>emptyList().iterator();
+        private boolean pageInProgress;
+        private String pendingPageKey;
+        private String nextPageKey;
+        private boolean started;
+        private long logsFetched;
+        private long logsRead;
+
+        private LogIterator() {
+
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!started) {
+                started = true;
+                pendingPage = fetch(resumeKey);
+            }
+
+            while (!currentPage.hasNext()) {
+                if (pageInProgress) {
+                    pageInProgress = false;
+                    listener.onCheckpoint(nextPageKey, logsRead);
+                }
+
+                if (pendingPage == null) {
+                    return false;
+                }
+
+                readNextPage();
+            }
+
+            return true;
+        }
+
+        @Override
+        public Log next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            logsRead++;
+            return currentPage.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Stops the scan, cancelling the page being fetched. Iterators that are not consumed to the
+         * end should be closed so that no further requests are sent.
+         */
+        public void close() {
+            started = true;
+            pageInProgress = false;
+            currentPage = Collections.<Log>emptyList().iterator();
+            if (pendingPage != null) {
+                pendingPage.cancel(true);
+                pendingPage = null;
+            }
+        }
+
+        private void readNextPage() {
+            LogCollection page = awaitPage();
+
+            String lastKey = page != null ? page.getLastKey() : null;
+            /* A page pointing back to itself would never end */
+            boolean hasMore = lastKey != null && !lastKey.isEmpty() && !lastKey.equals(pendingPageKey);
+
+            /* Request the next page before the logs of this one are consumed */
+            nextPageKey = hasMore ? lastKey : null;
+            pendingPage = hasMore ? fetch(lastKey) : null;
+
+            List<Log> logs = page != null && page.getLogs() != null ? page.getLogs() : Collections.<Log>emptyList();
+            logsFetched += logs.size();
+            listener.onPageFetched(logs.size(), logsFetched);
+
+            currentPage = logs.iterator();
+            pageInProgress = true;
+        }
+
+        private Future<LogCollection> fetch(String startKey) {
+            pendingPageKey = startKey;
+
+            final Map<String, String> pageParams = new HashMap<String, String>(queryParams);
+            if (startKey != null) {
+                pageParams.put("start_key", startKey);
+            }
+
+            return client.submit(new Callable<LogCollection>() {
+
+                @Override
+                public LogCollection call() throws VivialConnectException {
+                    return Log.getLogs(startTime, endTime, pageParams);
+                }
+            }, null);
+        }
+
+        private LogCollection awaitPage() {
+            try {
+                return PagedIterable.awaitPage(pendingPage, "a page of logs");
+            } catch (RuntimeException re) {
+                close();
+                throw re;
+            } catch (Error e) {
+                close();
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,469 @@
+package net.vivialconnect.model.log;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.error.PageFetchException;
+import net.vivialconnect.model.error.VivialConnectException;
+
+/**
+ * Follows new logs as they are written, by polling {@link Log#getLogs(Date, Date, Map)} for the
+ * newest window.
+ * <p>
+ * Each poll reads from shortly before the newest log seen so far up to the present, so that logs
+ * written late still get picked up. Logs read again because of that overlap are recognised by
+ * their <code>log_id</code> and skipped, using a bounded set of the most recent ids.
+ * <p>
+ * Polls come closer together while new logs keep arriving and further apart while none do, within
+ * the bounds given to {@link Builder#pollInterval(long, long, TimeUnit)}.
+ * <p>
+ * Given a cursor file, the tailer saves the newest log timestamp and the recent ids there after
+ * every poll that read new logs, once the {@link Listener} has handled them, and picks up from
+ * them when it is created again. A restart then neither reads the whole range again nor hands the
+ * same log twice to the listener:
+ * <pre>
+ * <code>
+ * LogTailer tailer = LogTailer.builder()
+ *         .cursorFile(new File("/var/lib/audit/logs.cursor"))
+ *         .listener(new LogTailer.Listener() {
+ *             public void onLog(Log log) {
+ *                 ingest(log);
+ *             }
+ *         })
+ *         .build();
+ *
+ * tailer.start();
+ * </code>
+ * </pre>
+ * A tailer polls on a single daemon thread against the client current when {@link #start()} is
+ * called. {@link #poll()} runs one poll on the calling thread instead.
+ */
+public class LogTailer {
+
+    public static final long DEFAULT_MIN_POLL_INTERVAL_MILLIS = 1000L;
+    public static final long DEFAULT_MAX_POLL_INTERVAL_MILLIS = 60000L;
+    public static final long DEFAULT_OVERLAP_MILLIS = 60000L;
+    public static final int DEFAULT_RECENT_IDS = 4096;
+
+    private static final long MICROS_PER_MILLI = 1000L;
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private static final String CURSOR_HEADER = "vivialconnect-log-cursor 1";
+
+    private final Map<String, String> queryParams;
+    private final long minPollIntervalMillis;
+    private final long maxPollIntervalMillis;
+    private final long overlapMillis;
+    private final File cursorFile;
+    private final Listener listener;
+
+    private final RecentLogIds recentIds;
+    private long cursorMicros;
+    private long pollIntervalMillis;
+
+    private volatile Thread poller;
+    private volatile boolean stopped;
+
+    private LogTailer(Builder builder) throws VivialConnectException {
+        this.queryParams = new HashMap<String, String>(builder.queryParams);
+        this.minPollIntervalMillis = builder.minPollIntervalMillis;
+        this.maxPollIntervalMillis = builder.maxPollIntervalMillis;
+        this.overlapMillis = builder.overlapMillis;
+        this.cursorFile = builder.cursorFile;
+        this.listener = builder.listener;
+
+        this.recentIds = new RecentLogIds(builder.recentIds);
+        this.cursorMicros = builder.startTime.getTime() * MICROS_PER_MILLI;
+        this.pollIntervalMillis = minPollIntervalMillis;
+
+        if (cursorFile != null && cursorFile.exists()) {
+            readCursor();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Polls the newest window once, handing every log not seen before to the listener.
+     *
+     * @return the number of new logs
+     *
+     * @throws VivialConnectException if a page of logs cannot be fetched or the cursor file cannot
+     *         be written
+     */
+    public synchronized int poll() throws VivialConnectException {
+        long nowMillis = System.currentTimeMillis();
+        /* The API takes times in whole seconds, and the end of the window is excluded */
+        long startMillis = floorToSecond(cursorMicros / MICROS_PER_MILLI - overlapMillis);
+        long endMillis = floorToSecond(nowMillis) + MILLIS_PER_SECOND;
+
+        LogScanner.LogIterator logs = LogScanner.builder(new Date(startMillis), new Date(Math.max(startMillis, endMillis)))
+                .queryParams(queryParams)
+                .build()
+                .iterator();
+
+        int newLogs = 0;
+        long newestMicros = cursorMicros;
+        try {
+            while (logs.hasNext()) {
+                Log log = logs.next();
+                if (log.getLogId() != null && recentIds.contains(log.getLogId())) {
+                    continue;
+                }
+
+                listener.onLog(log);
+                /* Only remembered once handled, so a log the listener failed on is read again */
+                if (log.getLogId() != null) {
+                    recentIds.add(log.getLogId());
+                }
+
+                newLogs++;
+                newestMicros = Math.max(newestMicros, LogTimestamp.of(log));
+            }
+        } catch (PageFetchException pfe) {
+            throw pfe.getCause();
+        } finally {
+            logs.close();
+        }
+
+        if (newLogs > 0) {
+            cursorMicros = newestMicros;
+            if (cursorFile != null) {
+                writeCursor();
+            }
+        }
+
+        adaptPollInterval(newLogs);
+        listener.onPoll(newLogs, pollIntervalMillis);
+
+        return newLogs;
+    }
+
+    /**
+     * Starts polling on a background thread, against the client current on the calling thread.
+     *
+     * @throws IllegalStateException if the tailer was already started
+     */
+    public synchronized void start() {
+        if (poller != null) {
+            throw new IllegalStateException("The tailer was already started");
+        }
+
+        final AccountClient client = VivialConnectClient.current();
+        poller = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                pollUntilStopped(client);
+            }
+        }, "vivialconnect-log-tailer");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Stops polling. A poll in progress is interrupted.
+     */
+    public void stop() {
+        stopped = true;
+
+        Thread thread = poller;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Gets the timestamp of the newest log read, or of the time the tailer started from if none
+     * was read yet.
+     *
+     * @return the cursor as a log timestamp of the form <code>YYYYMMDDhhmmssffffff</code>
+     */
+    public synchronized String getCursor() {
+        return LogTimestamp.format(cursorMicros);
+    }
+
+    /**
+     * Gets the time to wait before the next poll.
+     *
+     * @return the poll interval in milliseconds
+     */
+    public synchronized long getPollInterval() {
+        return pollIntervalMillis;
+    }
+
+    private void pollUntilStopped(final AccountClient client) {
+        Callable<Integer> poll = new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws VivialConnectException {
+                return poll();
+            }
+        };
+
+        while (!stopped) {
+            try {
+                client.call(poll);
+            } catch (VivialConnectException vce) {
+                if (stopped) {
+                    return;
+                }
+
+                backOff(vce);
+            } catch (RuntimeException re) {
+                if (stopped) {
+                    return;
+                }
+
+                backOff(new VivialConnectException(re));
+            }
+
+            try {
+                Thread.sleep(getPollInterval());
+            } catch (InterruptedException ie) {
+                return;
+            }
+        }
+    }
+
+    /* Waits the longest interval after a failed poll, rather than retrying at once */
+    private void backOff(VivialConnectException failure) {
+        synchronized (this) {
+            pollIntervalMillis = maxPollIntervalMillis;
+        }
+
+        listener.onFailure(failure);
+    }
+
+    /* Polls twice as often after new logs, and half as often after none */
+    private void adaptPollInterval(int newLogs) {
+        if (newLogs > 0) {
+            pollIntervalMillis = Math.max(minPollIntervalMillis, pollIntervalMillis / 2);
+        } else {
+            pollIntervalMillis = Math.min(maxPollIntervalMillis, pollIntervalMillis * 2);
+        }
+    }
+
+    private void readCursor() throws VivialConnectException {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(cursorFile), "UTF-8"));
+            if (!CURSOR_HEADER.equals(reader.readLine())) {
+                throw new VivialConnectException("Not a log cursor file: " + cursorFile, null);
+            }
+
+            cursorMicros = Long.parseLong(reader.readLine());
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isEmpty()) {
+                    recentIds.addHash(Long.parseLong(line));
+                }
+            }
+        } catch (IOException ioe) {
+            throw new VivialConnectException("Unable to read log cursor file " + cursorFile, ioe);
+        } catch (NumberFormatException nfe) {
+            throw new VivialConnectException("Not a log cursor file: " + cursorFile, nfe);
+        } finally {
+            closeQuietly(reader);
+        }
+    }
+
+    /* Writes to a temporary file first, so that a crash mid-write leaves the previous cursor intact */
+    private void writeCursor() throws VivialConnectException {
+        File temporary = new File(cursorFile.getPath() + ".tmp");
+
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(temporary), "UTF-8");
+            writer.write(CURSOR_HEADER);
+            writer.write('\n');
+            writer.write(Long.toString(cursorMicros));
+            writer.write('\n');
+            for (long hash : recentIds.hashes()) {
+                writer.write(Long.toString(hash));
+                writer.write('\n');
+            }
+
+            writer.close();
+            writer = null;
+        } catch (IOException ioe) {
+            throw new VivialConnectException("Unable to write log cursor file " + temporary, ioe);
+        } finally {
+            closeQuietly(writer);
+        }
+
+        /* Renaming over an existing file fails on some platforms */
+        if (!temporary.renameTo(cursorFile) && !(cursorFile.delete() && temporary.renameTo(cursorFile))) {
+            throw new VivialConnectException("Unable to replace log cursor file " + cursorFile, null);
+        }
+    }
+
+    private static long floorToSecond(long millis) {
+        return millis - ((millis % MILLIS_PER_SECOND) + MILLIS_PER_SECOND) % MILLIS_PER_SECOND;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+
+        }
+    }
+
+    /**
+     * Receives the logs read by a tailer. {@link #onLog(Log)} must be implemented; the other
+     * methods do nothing unless overridden.
+     */
+    public abstract static class Listener {
+
+        /**
+         * Called for every log not seen before, in the order the API returns them.
+         */
+        public abstract void onLog(Log log);
+
+        /**
+         * Called after every poll.
+         *
+         * @param newLogs the number of logs handed to {@link #onLog(Log)}
+         * @param nextPollMillis the time until the next poll, in milliseconds
+         */
+        public void onPoll(int newLogs, long nextPollMillis) {
+
+        }
+
+        /**
+         * Called on the polling thread when a background poll fails. Polling carries on at the
+         * longest interval.
+         */
+        public void onFailure(VivialConnectException e) {
+
+        }
+    }
+
+    /**
+     * Builds {@link LogTailer} instances.
+     */
+    public static final class Builder {
+
+        private final Map<String, String> queryParams = new HashMap<String, String>();
+        private long minPollIntervalMillis = DEFAULT_MIN_POLL_INTERVAL_MILLIS;
+        private long maxPollIntervalMillis = DEFAULT_MAX_POLL_INTERVAL_MILLIS;
+        private long overlapMillis = DEFAULT_OVERLAP_MILLIS;
+        private int recentIds = DEFAULT_RECENT_IDS;
+        private Date startTime;
+        private File cursorFile;
+        private Listener listener;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Sets the filters sent with every poll, see {@link Log#getLogs(Date, Date, Map)}.
+         */
+        public Builder queryParams(Map<String, String> queryParams) {
+            if (queryParams != null) {
+                this.queryParams.putAll(queryParams);
+            }
+
+            return this;
+        }
+
+        /**
+         * Sets the bounds between which the time between polls adapts.
+         */
+        public Builder pollInterval(long min, long max, TimeUnit unit) {
+            if (unit == null || min <= 0 || max < min) {
+                throw new IllegalArgumentException("'pollInterval' params are not valid");
+            }
+
+            this.minPollIntervalMillis = unit.toMillis(min);
+            this.maxPollIntervalMillis = unit.toMillis(max);
+            return this;
+        }
+
+        /**
+         * Sets how far before the newest log seen each poll starts, to pick up logs written late.
+         */
+        public Builder overlap(long overlap, TimeUnit unit) {
+            if (unit == null || overlap < 0) {
+                throw new IllegalArgumentException("'overlap' param is not valid");
+            }
+
+            this.overlapMillis = unit.toMillis(overlap);
+            return this;
+        }
+
+        /**
+         * Sets the number of recent log ids remembered to skip logs read again. It should exceed the
+         * number of logs written during the overlap.
+         */
+        public Builder recentIds(int recentIds) {
+            if (recentIds < 1) {
+                throw new IllegalArgumentException("'recentIds' param is not valid");
+            }
+
+            this.recentIds = recentIds;
+            return this;
+        }
+
+        /**
+         * Sets the time to read logs from when there is no cursor file to resume from. Defaults to
+         * the time the tailer is built.
+         */
+        public Builder startFrom(Date startTime) {
+            this.startTime = startTime != null ? new Date(startTime.getTime()) : null;
+            return this;
+        }
+
+        /**
+         * Sets the file the cursor is saved to and resumed from.
+         */
+        public Builder cursorFile(File cursorFile) {
+            this.cursorFile = cursorFile;
+            return this;
+        }
+
+        public Builder listener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Builds the tailer, resuming from the cursor file if there is one.
+         *
+         * @throws IllegalArgumentException if no listener was set
+         * @throws VivialConnectException if the cursor file cannot be read
+         */
+        public LogTailer build() throws VivialConnectException {
+            if (listener == null) {
+                throw new IllegalArgumentException("'listener' param is not valid");
+            }
+
+            if (startTime == null) {
+                startTime = new Date();
+            }
+
+            return new LogTailer(this);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package net.vivialconnect.model.log;
+
+/**
+ * Converts log timestamps between the API's <code>YYYYMMDDhhmmssffffff</code> form, a UTC time
+ * with microseconds, and microseconds since the epoch.
+ * <p>
+ * Aggregated logs use shorter prefixes of the same form, such as <code>YYYYMMDDhh</code> for
+ * hourly buckets, which are read as the start of their bucket.
+ */
+public final class LogTimestamp {
+
+    static final long NONE = Long.MIN_VALUE;
+
+    private static final int FULL_LENGTH = 20;
+
+    private static final long MICROS_PER_SECOND = 1000000L;
+    private static final long SECONDS_PER_DAY = 86400L;
+
+    private LogTimestamp() {
+
+    }
+
+    /**
+     * Converts a log timestamp to microseconds since the epoch.
+     *
+     * @param timestamp a timestamp of the form <code>YYYYMMDDhhmmssffffff</code>, or a prefix of it
+     *                  ending after the year, month, day, hour, minute or second
+     * @return the time in microseconds since the epoch
+     *
+     * @throws IllegalArgumentException if the timestamp is not of that form
+     */
+    public static long toEpochMicros(String timestamp) {
+        long micros = parse(timestamp, false);
+        if (micros == NONE) {
+            throw new IllegalArgumentException("'timestamp' param is not valid");
+        }
+
+        return micros;
+    }
+
+    /**
+     * Formats microseconds since the epoch as a full log timestamp.
+     */
+    public static String format(long epochMicros) {
+        long seconds = floorDiv(epochMicros, MICROS_PER_SECOND);
+        long micros = epochMicros - seconds * MICROS_PER_SECOND;
+        long days = floorDiv(seconds, SECONDS_PER_DAY);
+        int secondOfDay = (int) (seconds - days * SECONDS_PER_DAY);
+
+        /* Inverse of daysSinceEpoch() */
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        char[] text = new char[FULL_LENGTH];
+        put(text, 0, 4, year);
+        put(text, 4, 2, month);
+        put(text, 6, 2, day);
+        put(text, 8, 2, secondOfDay / 3600);
+        put(text, 10, 2, secondOfDay / 60 % 60);
+        put(text, 12, 2, secondOfDay % 60);
+        put(text, 14, 6, micros);
+
+        return new String(text);
+    }
+
+    /**
+     * Reads the timestamp of a log, or returns {@link #NONE} if it has none or it is not of the
+     * expected form.
+     */
+    static long of(Log log) {
+        if (log instanceof CompactLog) {
+            long micros = ((CompactLog) log).getLogTimestampMicros();
+            if (micros != NONE) {
+                return micros;
+            }
+        }
+
+        return parse(log.getLogTimestamp(), false);
+    }
+
+    /**
+     * Parses a timestamp, or returns {@link #NONE} if it is not of the expected form.
+     *
+     * @param fullOnly whether only full timestamps are accepted, so that the result formats back to
+     *                 the same text
+     */
+    static long parse(String timestamp, boolean fullOnly) {
+        if (timestamp == null) {
+            return NONE;
+        }
+
+        int length = timestamp.length();
+        if (fullOnly ? length != FULL_LENGTH : length != FULL_LENGTH && (length < 4 || length > 14 || length % 2 != 0)) {
+            return NONE;
+        }
+
+        for (int i = 0; i < length; i++) {
+            char c = timestamp.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+        }
+
+        int year = field(timestamp, 0, 4, 0);
+        int month = field(timestamp, 4, 2, 1);
+        int day = field(timestamp, 6, 2, 1);
+        int hour = field(timestamp, 8, 2, 0);
+        int minute = field(timestamp, 10, 2, 0);
+        int second = field(timestamp, 12, 2, 0);
+        int micros = field(timestamp, 14, 6, 0);
+        if (year < 1970 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23
+                || minute > 59 || second > 59) {
+            return NONE;
+        }
+
+        long seconds = daysSinceEpoch(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second;
+
+        return seconds * MICROS_PER_SECOND + micros;
+    }
+
+    private static int field(String timestamp, int start, int count, int missing) {
+        if (start >= timestamp.length()) {
+            return missing;
+        }
+
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (timestamp.charAt(i) - '0');
+        }
+
+        return value;
+    }
+
+    private static void put(char[] text, int start, int count, long value) {
+        for (int i = start + count - 1; i >= start; i--) {
+            text[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /* Days from 1970-01-01 to the given date of the Gregorian calendar */
+    private static long daysSinceEpoch(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        if ((x % y != 0) && ((x ^ y) < 0)) {
+            quotient--;
+        }
+
+        return quotient;
+    }
+}
@@ -0,0 +1,130 @@
+package net.vivialconnect.model.log;
+
+/**
+ * A map from <code>long</code> keys to <code>long</code> values, with open addressing over plain
+ * arrays so that entries hold no objects.
+ * <p>
+ * Entries are visited by slot: {@link #capacity()} slots, of which those {@link #isUsed(int)}
+ * hold a {@link #keyAt(int)} and a {@link #valueAt(int)}. Entries cannot be removed.
+ * <p>
+ * Not safe for use by several threads at once.
+ */
+final class LongLongMap {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    LongLongMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * @return the value of the key, or <code>missing</code> if there is none
+     */
+    long get(long key, long missing) {
+        int slot = find(key);
+        return used[slot] ? values[slot] : missing;
+    }
+
+    void put(long key, long value) {
+        int slot = find(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+
+        values[slot] = value;
+    }
+
+    /**
+     * Adds to the value of a key, taking a missing key as 0.
+     *
+     * @return the new value
+     */
+    long add(long key, long delta) {
+        int slot = find(key);
+        if (!used[slot]) {
+            slot = insert(slot, key);
+        }
+
+        return values[slot] += delta;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    boolean isUsed(int slot) {
+        return used[slot];
+    }
+
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    long valueAt(int slot) {
+        return values[slot];
+    }
+
+    /* The slot holding the key, or the free slot it would go in */
+    private int find(long key) {
+        int slot = slotOf(key);
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private int insert(int slot, long key) {
+        /* At most half full, so probes stay short */
+        if (size + 1 > keys.length >> 1) {
+            grow();
+            slot = find(key);
+        }
+
+        keys[slot] = key;
+        values[slot] = 0L;
+        used[slot] = true;
+        size++;
+
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private int slotOf(long key) {
+        /* Spreads keys that differ only in their high bits, such as packed pairs */
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,143 @@
+package net.vivialconnect.model.log;
+
+/**
+ * Remembers the most recent log ids seen, up to a fixed capacity, forgetting the oldest first.
+ * <p>
+ * Ids are kept as 64-bit hashes in an open-addressing table of <code>long</code>s alongside a ring
+ * of the same hashes in insertion order, so the set holds no objects per id and never allocates
+ * once created. Two ids sharing a hash would be taken for one another, which at 64 bits is not a
+ * concern for the few thousand ids a set holds.
+ * <p>
+ * Not safe for use by several threads at once.
+ */
+final class RecentLogIds {
+
+    private static final long EMPTY = 0L;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] table;
+    private final int mask;
+    private final long[] ring;
+    private int oldest;
+    private int size;
+
+    RecentLogIds(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("'capacity' param is not valid");
+        }
+
+        /* At most half full, so probes stay short */
+        int tableSize = Integer.highestOneBit(capacity) << 2;
+        this.table = new long[tableSize];
+        this.mask = tableSize - 1;
+        this.ring = new long[capacity];
+    }
+
+    /**
+     * Adds an id, forgetting the oldest one if the set is full.
+     *
+     * @return true if the id was not already in the set
+     */
+    boolean add(String logId) {
+        return addHash(hash(logId));
+    }
+
+    boolean contains(String logId) {
+        return indexOf(hash(logId)) >= 0;
+    }
+
+    /**
+     * Adds the hash of an id, as returned by {@link #hashes()}.
+     *
+     * @return true if the hash was not already in the set
+     */
+    boolean addHash(long hash) {
+        if (hash == EMPTY || indexOf(hash) >= 0) {
+            return false;
+        }
+
+        if (size == ring.length) {
+            removeFromTable(ring[oldest]);
+            ring[oldest] = hash;
+            oldest = (oldest + 1) % ring.length;
+        } else {
+            ring[(oldest + size++) % ring.length] = hash;
+        }
+
+        int slot = slotOf(hash);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+
+        table[slot] = hash;
+
+        return true;
+    }
+
+    /**
+     * @return the hashes of the ids in the set, oldest first
+     */
+    long[] hashes() {
+        long[] hashes = new long[size];
+        for (int i = 0; i < size; i++) {
+            hashes[i] = ring[(oldest + i) % ring.length];
+        }
+
+        return hashes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    static long hash(String logId) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < logId.length(); i++) {
+            hash ^= logId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash != EMPTY ? hash : 1L;
+    }
+
+    private int indexOf(long hash) {
+        int slot = slotOf(hash);
+        while (table[slot] != EMPTY) {
+            if (table[slot] == hash) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /* Removes a hash, shifting back the entries probed past it so that lookups still find them */
+    private void removeFromTable(long hash) {
+        int hole = indexOf(hash);
+        if (hole < 0) {
+            return;
+        }
+
+        table[hole] = EMPTY;
+        int slot = (hole + 1) & mask;
+        while (table[slot] != EMPTY) {
+            int home = slotOf(table[slot]);
+            boolean movable = hole <= slot ? home <= hole || home > slot : home <= hole && home > slot;
+            if (movable) {
+                table[hole] = table[slot];
+                table[slot] = EMPTY;
+                hole = slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int slotOf(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -67,7 +67,7 @@ public class Attachment extends VivialConnectResource{
      *
      */
     public static Attachment getAttachmentById(int messageId, int attachmentId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Message.class, String.format("%d/attachments/%d", messageId, attachmentId)), null, null, Attachment.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Message.class, messageId, "attachments", attachmentId), null, null, Attachment.class);
     }
 
     /**
@@ -80,7 +80,7 @@ public class Attachment extends VivialConnectResource{
      *
      */
     public static int count(int messageId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Message.class, String.format("%d/attachments/count", messageId)), null, null, ResourceCount.class).getCount();
+        return request(RequestMethod.GET, classURLWithSuffix(Message.class, messageId, "attachments/count"), null, null, ResourceCount.class).getCount();
     }
 
     /**
@@ -95,7 +95,7 @@ public class Attachment extends VivialConnectResource{
      */
     public boolean delete() throws VivialConnectException{
         try{
-            request(RequestMethod.DELETE, classURLWithSuffix(Message.class, String.format("%d/attachments/%d", getMessageId(), getId())), null, null, String.class);
+            request(RequestMethod.DELETE, classURLWithSuffix(Message.class, getMessageId(), "attachments", getId()), null, null, String.class);
         }catch(NoContentException e){
             return true;
         }
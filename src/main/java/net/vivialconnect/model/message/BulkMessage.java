@@ -1,15 +1,36 @@
 package net.vivialconnect.model.message;
 
+import net.vivialconnect.client.AsyncCallback;
+import net.vivialconnect.model.PagedIterable;
 import net.vivialconnect.model.VivialConnectResource;
 import net.vivialconnect.model.error.VivialConnectException;
 import net.vivialconnect.model.format.JsonBodyBuilder;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 public class BulkMessage extends VivialConnectResource {
 
+    private static final PagedIterable.PageFetcher<BulkInfo> BULK_PAGES = new PagedIterable.PageFetcher<BulkInfo>() {
+
+        @Override
+        public List<BulkInfo> fetchPage(Map<String, String> queryParams) throws VivialConnectException {
+            int page = Integer.parseInt(queryParams.get("page"));
+            BulkInfoCollection bulks = getBulksCreated(page);
+
+            return page <= bulks.getPages() ? bulks.getBulkList() : Collections.<BulkInfo>emptyList();
+        }
+
+        @Override
+        public boolean supportsLimit() {
+            return false;
+        }
+    };
+
     static {
         classesWithoutRootValue.add(BulkInfo.class);
         classesWithoutRootValue.add(BulkInfoCollection.class);
@@ -67,9 +88,9 @@ public class BulkMessage extends VivialConnectResource {
 
     /**
      * Create the JSON payload for a send a bulk of messages using the properties provided.
-     * @return Structured JSON string with the data for send a bulk of messages.
+     * @return Structured JSON builder with the data for send a bulk of messages.
      */
-    private String createJson(){
+    private JsonBodyBuilder createJson(){
 
         JsonBodyBuilder builder = JsonBodyBuilder.emptyJson();
 
@@ -77,8 +98,7 @@ public class BulkMessage extends VivialConnectResource {
                 .addParamPair("body", body)
                 .addParamPair("connector_id",connectorId)
                 .addParamPair("to_numbers", toNumbers)
-                .addParamPair("media_urls",mediaUrls)
-                .build();
+                .addParamPair("media_urls",mediaUrls);
     }
 
     /**
@@ -113,6 +133,15 @@ public class BulkMessage extends VivialConnectResource {
         return request(RequestMethod.GET, classURLWithSuffix(Message.class, "bulk"), null, queryParams, BulkInfoCollection.class);
     }
 
+    /**
+     * Iterates over every bulk sent, fetching pages lazily, one page ahead of the consumer.
+     * @return an iterable whose iterators walk every page, throwing a
+     *         {@link net.vivialconnect.model.error.PageFetchException} if a page cannot be fetched
+     */
+    public static PagedIterable<BulkInfo> iterateBulksCreated() {
+        return new PagedIterable<BulkInfo>(BULK_PAGES, null);
+    }
+
     /**
      * Send a bulk of messages.
      * @return a BulkInfo with the ID of the bulk.
@@ -124,9 +153,24 @@ public class BulkMessage extends VivialConnectResource {
             throw new VivialConnectException("The list of numbers cannot be null or empty",null);
         }
 
-        String payload = createJson();
+        JsonBodyBuilder payload = createJson();
 
-        return request(RequestMethod.POST, classURLWithSuffix(Message.class, "bulk"),payload, null, BulkInfo.class);
+        return requestWithBody(RequestMethod.POST, classURLWithSuffix(Message.class, "bulk"), payload, BulkInfo.class);
+    }
+
+    /**
+     * Send a bulk of messages asynchronously.
+     * @param callback notified with the BulkInfo once the bulk is accepted, or with the error, may be null.
+     * @return a Future holding the BulkInfo with the ID of the bulk.
+     */
+    public Future<BulkInfo> sendAsync(AsyncCallback<BulkInfo> callback) {
+        return async(new Callable<BulkInfo>() {
+
+            @Override
+            public BulkInfo call() throws VivialConnectException {
+                return send();
+            }
+        }, callback);
     }
 
 }
@@ -0,0 +1,96 @@
+package net.vivialconnect.model.message;
+
+import java.util.Date;
+
+/**
+ * A {@link Message} that takes less memory, decoded when compact models are enabled on the client.
+ * <p>
+ * Its dates are held as epoch milliseconds instead of {@link Date} objects, and its status,
+ * direction, type, currency and error code fields share one string instance per distinct value
+ * with every other compact message. Getters behave as for any message, but each call to a date getter
+ * returns a new {@link Date}; the <code>...Millis()</code> getters avoid that.
+ */
+public class CompactMessage extends Message{
+
+    private static final long serialVersionUID = -3624164209580343167L;
+
+    /* Stands for a null date */
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private long dateCreated = NO_DATE;
+    private long dateModified = NO_DATE;
+    private long sent = NO_DATE;
+
+
+    @Override
+    public Date getDateCreated(){
+        return toDate(dateCreated);
+    }
+
+
+    @Override
+    public void setDateCreated(Date dateCreated){
+        this.dateCreated = toMillis(dateCreated);
+    }
+
+
+    @Override
+    public Date getDateModified(){
+        return toDate(dateModified);
+    }
+
+
+    @Override
+    public void setDateModified(Date dateModified){
+        this.dateModified = toMillis(dateModified);
+    }
+
+
+    @Override
+    public Date getSent(){
+        return toDate(sent);
+    }
+
+
+    @Override
+    public void setSent(Date sent){
+        this.sent = toMillis(sent);
+    }
+
+
+    /**
+     * @return the creation date in milliseconds since the epoch, or <code>Long.MIN_VALUE</code> if
+     *         there is none
+     */
+    public long getDateCreatedMillis(){
+        return dateCreated;
+    }
+
+
+    /**
+     * @return the last modification date in milliseconds since the epoch, or
+     *         <code>Long.MIN_VALUE</code> if there is none
+     */
+    public long getDateModifiedMillis(){
+        return dateModified;
+    }
+
+
+    /**
+     * @return the date the message was sent or received in milliseconds since the epoch, or
+     *         <code>Long.MIN_VALUE</code> if there is none
+     */
+    public long getSentMillis(){
+        return sent;
+    }
+
+
+    private static Date toDate(long millis){
+        return millis == NO_DATE ? null : new Date(millis);
+    }
+
+
+    private static long toMillis(Date date){
+        return date == null ? NO_DATE : date.getTime();
+    }
+}
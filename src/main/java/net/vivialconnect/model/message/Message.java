@@ -2,6 +2,8 @@ package net.vivialconnect.model.message;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
+import net.vivialconnect.client.AsyncCallback;
+import net.vivialconnect.model.PagedIterable;
 import net.vivialconnect.model.ResourceCount;
 import net.vivialconnect.model.VivialConnectResource;
 import net.vivialconnect.model.error.VivialConnectException;
@@ -11,12 +13,27 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 @JsonRootName(value = "message")
 public class Message extends VivialConnectResource{
 	
     private static final long serialVersionUID = 5181807107956389186L;
 
+    private static final PagedIterable.PageFetcher<Message> MESSAGE_PAGES = new PagedIterable.PageFetcher<Message>(){
+
+        @Override
+        public List<Message> fetchPage(Map<String, String> queryParameters) throws VivialConnectException{
+            return getMessages(queryParameters);
+        }
+
+        @Override
+        public int count() throws VivialConnectException{
+            return Message.count();
+        }
+    };
+
     /** Unique identifier of the text message object */
     @JsonProperty
     private int id;
@@ -168,19 +185,68 @@ public class Message extends VivialConnectResource{
      * 
      */
     public Message send() throws VivialConnectException{
-        Message sentMessage = request(RequestMethod.POST, classURL(Message.class), jsonBody(), null, Message.class);
+        return send(null);
+    }
+
+    /**
+     * Sends this text message using the API, retrying after transient failures. See {@link #send()}
+     * for details.
+     * <p>
+     * The idempotency key identifies this message to the API, so that a retried request doesn't
+     * send it twice. Use a new key, such as a random UUID, for every message, and the same key when
+     * sending the same message again. Retries follow
+     * {@link net.vivialconnect.client.VivialConnectClient#getRetryPolicy()}.
+     *
+     * @param idempotencyKey a key unique to this message, or null to send it without retries
+     * @return the message that was just sent
+     * @throws VivialConnectException if there is an API-level error
+     *
+     * @see #send()
+     */
+    public Message send(String idempotencyKey) throws VivialConnectException{
+        Message sentMessage = requestWithBody(RequestMethod.POST, classURL(Message.class), jsonBody(), Message.class, idempotencyKey);
         updateObjectState(sentMessage);
         return this;
     }
-    
+
+    /**
+     * Sends this text message asynchronously. See {@link #send()} for details.
+     *
+     * @return a {@link Future} holding this message once it has been sent
+     *
+     * @see #send()
+     * @see #sendAsync(AsyncCallback)
+     */
+    public Future<Message> sendAsync(){
+        return sendAsync(null);
+    }
+
+    /**
+     * Sends this text message asynchronously, notifying the callback once the API responds.
+     *
+     * @param callback notified with this message once sent, or with the error if sending failed
+     * @return a {@link Future} holding this message once it has been sent
+     *
+     * @see #send()
+     */
+    public Future<Message> sendAsync(AsyncCallback<Message> callback){
+        return async(new Callable<Message>(){
+
+            @Override
+            public Message call() throws VivialConnectException{
+                return send();
+            }
+        }, callback);
+    }
+
 
     private void updateObjectState(Message sentMessage){
         this.id = sentMessage.getId();
         this.accountId = sentMessage.getAccountId();
         this.body = sentMessage.getBody();
         this.connectorId = sentMessage.getConnectorId();
-        this.dateCreated = sentMessage.getDateCreated();
-        this.dateModified = sentMessage.getDateModified();
+        setDateCreated(sentMessage.getDateCreated());
+        setDateModified(sentMessage.getDateModified());
         this.direction = sentMessage.getDirection();
         this.errorCode = sentMessage.getErrorCode();
         this.errorMessage = sentMessage.getErrorMessage();
@@ -193,13 +259,13 @@ public class Message extends VivialConnectResource{
         this.numSegments = sentMessage.getNumSegments();
         this.price = sentMessage.getPrice();
         this.priceCurrency = sentMessage.getPriceCurrency();
-        this.sent = sentMessage.getSent();
+        setSent(sentMessage.getSent());
         this.status = sentMessage.getStatus();
         this.bulkId = sentMessage.getBulkId();
     }
 
 
-    private String jsonBody(){
+    private JsonBodyBuilder jsonBody(){
         JsonBodyBuilder builder = JsonBodyBuilder.forClass(Message.class);
         if (hasMediaUrls()){
             builder.addParamPair("media_urls", mediaUrls);
@@ -211,8 +277,7 @@ public class Message extends VivialConnectResource{
 
         return builder.addParamPair("from_number", this.fromNumber)
                       .addParamPair("to_number", this.toNumber)
-                      .addParamPair("body", this.body)
-                      .build();
+                      .addParamPair("body", this.body);
     }
 
 
@@ -232,7 +297,26 @@ public class Message extends VivialConnectResource{
      * @see #getMessages(Map)
      */
     public static Message getMessageById(int messageId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Message.class, String.valueOf(messageId)), null, null, Message.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Message.class, messageId), null, null, Message.class);
+    }
+
+    /**
+     * Retrieves a single message given an id, asynchronously.
+     *
+     * @param messageId the id of the message to look up
+     * @param callback notified with the message found, or with the error, may be null
+     * @return a {@link Future} holding the message found
+     *
+     * @see #getMessageById(int)
+     */
+    public static Future<Message> getMessageByIdAsync(final int messageId, AsyncCallback<Message> callback){
+        return async(new Callable<Message>(){
+
+            @Override
+            public Message call() throws VivialConnectException{
+                return getMessageById(messageId);
+            }
+        }, callback);
     }
 
     /**
@@ -267,6 +351,67 @@ public class Message extends VivialConnectResource{
         return request(RequestMethod.GET, classURL(Message.class), null, queryParameters, MessageCollection.class).getMessages();
     }
 
+    /**
+     * Iterates over every message matching the given filters, fetching pages lazily, one page ahead
+     * of the consumer.
+     *
+     * @param queryParameters the filters to apply, see {@link #getMessages(Map)}. Their <code>page</code>
+     *                        and <code>limit</code> set the first page and the page size, which defaults to 150
+     * @return an iterable whose iterators walk every page, throwing a
+     *         {@link net.vivialconnect.model.error.PageFetchException} if a page cannot be fetched
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<Message> iterateMessages(Map<String, String> queryParameters){
+        return new PagedIterable<Message>(MESSAGE_PAGES, queryParameters);
+    }
+
+    /**
+     * Iterates over every message matching the given filters, fetching up to
+     * <code>maxConcurrentPages</code> pages at once based on the total count.
+     *
+     * @param queryParameters the filters to apply, see {@link #iterateMessages(Map)}
+     * @param maxConcurrentPages the maximum number of pages being fetched at once
+     * @return an iterable whose iterators walk every page, in order
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<Message> iterateMessages(Map<String, String> queryParameters, int maxConcurrentPages){
+        return new PagedIterable<Message>(MESSAGE_PAGES, queryParameters, maxConcurrentPages);
+    }
+
+    /**
+     * Lists and filters the messages associated with the current account, asynchronously.
+     *
+     * @param queryParameters a map of {@link String } key-value pairs used to filter results, see {@link #getMessages(Map)}
+     * @return a {@link Future} holding the list of messages
+     *
+     * @see #getMessages(Map)
+     * @see #getMessagesAsync(Map, AsyncCallback)
+     */
+    public static Future<List<Message>> getMessagesAsync(Map<String, String> queryParameters){
+        return getMessagesAsync(queryParameters, null);
+    }
+
+    /**
+     * Lists and filters the messages associated with the current account, asynchronously.
+     *
+     * @param queryParameters a map of {@link String } key-value pairs used to filter results, see {@link #getMessages(Map)}
+     * @param callback notified with the list of messages, or with the error, may be null
+     * @return a {@link Future} holding the list of messages
+     *
+     * @see #getMessages(Map)
+     */
+    public static Future<List<Message>> getMessagesAsync(final Map<String, String> queryParameters, AsyncCallback<List<Message>> callback){
+        return async(new Callable<List<Message>>(){
+
+            @Override
+            public List<Message> call() throws VivialConnectException{
+                return getMessages(queryParameters);
+            }
+        }, callback);
+    }
+
     /**
      * Total number of messages in the account. If there are none, this method will return <code>0</code>.
      * 
@@ -286,7 +431,7 @@ public class Message extends VivialConnectResource{
      *
      */
     public List<Attachment> getAttachments() throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(Message.class, String.format("%d/attachments", this.getId())), null, null, AttachmentCollection.class).getAttachments();
+        return request(RequestMethod.GET, classURLWithSuffix(Message.class, this.getId(), "attachments"), null, null, AttachmentCollection.class).getAttachments();
     }
 
     /**
@@ -297,18 +442,17 @@ public class Message extends VivialConnectResource{
      *
      */
     public Message redact() throws VivialConnectException{
-        Message redactedMessage = request(RequestMethod.PUT, classURLWithSuffix(Message.class, String.valueOf(this.getId())), jsonBodyEmpty(), null, Message.class);
+        Message redactedMessage = requestWithBody(RequestMethod.PUT, classURLWithSuffix(Message.class, this.getId()), jsonBodyEmpty(), Message.class);
         updateObjectState(redactedMessage);
         
         return this;
     }
 
 
-    private String jsonBodyEmpty(){
+    private JsonBodyBuilder jsonBodyEmpty(){
         return JsonBodyBuilder.forClass(Message.class)
                               .addParamPair("id", getId())
-                              .addParamPair("body", "")
-                              .build();
+                              .addParamPair("body", "");
     }
 
 
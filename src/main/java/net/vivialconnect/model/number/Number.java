@@ -4,10 +4,14 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
 
+import net.vivialconnect.client.AsyncCallback;
+import net.vivialconnect.model.PagedIterable;
 import net.vivialconnect.model.ResourceCount;
 import net.vivialconnect.model.VivialConnectResource;
 import net.vivialconnect.model.account.Account;
@@ -20,6 +24,19 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
 	
     private static final long serialVersionUID = -1224802858893763457L;
 
+    private static final PagedIterable.PageFetcher<AssociatedNumber> ASSOCIATED_NUMBER_PAGES = new PagedIterable.PageFetcher<AssociatedNumber>() {
+
+        @Override
+        public List<AssociatedNumber> fetchPage(Map<String, String> queryParams) throws VivialConnectException {
+            return getAssociatedNumbers(queryParams);
+        }
+
+        @Override
+        public int count() throws VivialConnectException {
+            return Number.count();
+        }
+    };
+
     private static final String AVAILABLE_US_LOCAL = "available/US/local";
 
     /** Unique identifier of the phone number object */
@@ -150,7 +167,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
      */
     @Override
     public AssociatedNumber update() throws VivialConnectException {
-        AssociatedNumber number = request(RequestMethod.PUT, classURLWithSuffix(Number.class, String.valueOf(getId())),
+        AssociatedNumber number = request(RequestMethod.PUT, classURLWithSuffix(Number.class, getId()),
                                                                         buildJsonBodyForUpdate(), null, Number.class);
         updateObjectState(number);
         
@@ -210,7 +227,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
     public AssociatedNumber updateLocalNumber() throws VivialConnectException {
         ensureNumberIsLocal();
 
-        AssociatedNumber number = request(RequestMethod.PUT, classURLWithSuffix(Number.class, String.format("local/%d", getId())),
+        AssociatedNumber number = request(RequestMethod.PUT, classURLWithSuffix(Number.class, "local", getId()),
                                                                                     buildJsonBodyForUpdate(), null, Number.class);
         updateObjectState(number);
         
@@ -237,7 +254,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
     @Override
     public boolean delete() throws VivialConnectException {
         try {
-            request(RequestMethod.DELETE, classURLWithSuffix(Number.class, String.valueOf(getId())), null, null, String.class);
+            request(RequestMethod.DELETE, classURLWithSuffix(Number.class, getId()), null, null, String.class);
         } catch(NoContentException e) {
             return true;
         }
@@ -260,7 +277,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
         ensureNumberIsLocal();
 
         try {
-            request(RequestMethod.DELETE, classURLWithSuffix(Number.class, String.format("local/%d", getId())), null, null, String.class);
+            request(RequestMethod.DELETE, classURLWithSuffix(Number.class, "local", getId()), null, null, String.class);
         } catch(NoContentException e){
             return true;
         }
@@ -274,7 +291,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
                                                  .addParamPair("phone_number_type", getPhoneNumberType());
         fillOptionalFieldsForBuy(builder);
 
-        return request(RequestMethod.POST, classURL(Number.class), builder.build(), null, Number.class);
+        return requestWithBody(RequestMethod.POST, classURL(Number.class), builder, Number.class);
     }
 
 
@@ -325,7 +342,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
         ifParamValidAddToBuilder(builder, "phone_number", phoneNumber);
         ifParamValidAddToBuilder(builder, "area_code", areaCode);
 
-        return request(RequestMethod.POST, classURLWithSuffix(Number.class, "local"), builder.build(), null, Number.class);
+        return requestWithBody(RequestMethod.POST, classURLWithSuffix(Number.class, "local"), builder, Number.class);
     }
 
     /**
@@ -367,7 +384,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
         ifParamValidAddToBuilder(builder, "area_code", areaCode);
         ifParamValidAddToBuilder(builder, "phone_number_type", phoneNumberType);
 
-        return request(RequestMethod.POST, classURL(Number.class), builder.build(), null, Number.class);
+        return requestWithBody(RequestMethod.POST, classURL(Number.class), builder, Number.class);
     }
 
     /**
@@ -413,6 +430,35 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
         return request(RequestMethod.GET, classURL(Number.class), null, queryParams, NumberCollection.class).getAssociatedNumbers();
     }
 
+    /**
+     * Iterates over every associated number matching the given filters, fetching pages lazily, one page ahead
+     * of the consumer.
+     *
+     * @param queryParams the filters to apply, see {@link #getAssociatedNumbers(Map)}. Their <code>page</code>
+     *                    and <code>limit</code> set the first page and the page size, which defaults to 150
+     * @return an iterable whose iterators walk every page, throwing a
+     *         {@link net.vivialconnect.model.error.PageFetchException} if a page cannot be fetched
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<AssociatedNumber> iterateAssociatedNumbers(Map<String, String> queryParams) {
+        return new PagedIterable<AssociatedNumber>(ASSOCIATED_NUMBER_PAGES, queryParams);
+    }
+
+    /**
+     * Iterates over every associated number matching the given filters, fetching up to
+     * <code>maxConcurrentPages</code> pages at once based on the total count.
+     *
+     * @param queryParams the filters to apply, see {@link #iterateAssociatedNumbers(Map)}
+     * @param maxConcurrentPages the maximum number of pages being fetched at once
+     * @return an iterable whose iterators walk every page, in order
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<AssociatedNumber> iterateAssociatedNumbers(Map<String, String> queryParams, int maxConcurrentPages) {
+        return new PagedIterable<AssociatedNumber>(ASSOCIATED_NUMBER_PAGES, queryParams, maxConcurrentPages);
+    }
+
     /**
      * Search for available phone numbers in a specific region using the API.
      * <p>
@@ -631,7 +677,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
      * 
      */
     public static AssociatedNumber getNumberById(int numberId) throws VivialConnectException {
-        return request(RequestMethod.GET, classURLWithSuffix(Number.class, String.valueOf(numberId)), null, null, Number.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Number.class, numberId), null, null, Number.class);
     }
 
     /**
@@ -644,7 +690,7 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
      * 
      */
     public static AssociatedNumber getLocalNumberById(int numberId) throws VivialConnectException {
-        return request(RequestMethod.GET, classURLWithSuffix(Number.class, String.format("local/%d", numberId)), null, null, Number.class);
+        return request(RequestMethod.GET, classURLWithSuffix(Number.class, "local", numberId), null, null, Number.class);
     }
 
     /**
@@ -664,6 +710,26 @@ public class Number extends VivialConnectResource implements AssociatedNumber, A
     }
 
 
+    /**
+     * Gets information about the device type and carrier that is associated with a specific phone number, asynchronously.
+     *
+     * @param number the number to look up
+     * @param callback notified with the number info, or with the error, may be null
+     * @return a {@link Future} holding the number info
+     *
+     * @see AssociatedNumber#lookup()
+     */
+    public static Future<NumberInfo> lookupAsync(final AssociatedNumber number, AsyncCallback<NumberInfo> callback) {
+        return async(new Callable<NumberInfo>() {
+
+            @Override
+            public NumberInfo call() throws VivialConnectException {
+                return number.lookup();
+            }
+        }, callback);
+    }
+
+
     private String getRawPhoneNumber() {
         /* Removes the leading '+' character from the phone number */
         return getPhoneNumber().substring(1);
@@ -7,6 +7,7 @@ import java.util.Map;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonRootName;
 
+import net.vivialconnect.model.PagedIterable;
 import net.vivialconnect.model.ResourceCount;
 import net.vivialconnect.model.VivialConnectResource;
 import net.vivialconnect.model.account.Account;
@@ -19,6 +20,19 @@ public class User extends VivialConnectResource{
 
     private static final long serialVersionUID = 6871296061820754520L;
 
+    private static final PagedIterable.PageFetcher<User> USER_PAGES = new PagedIterable.PageFetcher<User>(){
+
+        @Override
+        public List<User> fetchPage(Map<String, String> queryParams) throws VivialConnectException{
+            return getUsers(queryParams);
+        }
+
+        @Override
+        public int count() throws VivialConnectException{
+            return User.count();
+        }
+    };
+
     /** Unique identifier of the user object */
     @JsonProperty
     private int id;
@@ -85,7 +99,7 @@ public class User extends VivialConnectResource{
      * @see #getUsers(Map)
      */
     public static User getUserById(int userId) throws VivialConnectException{
-        return request(RequestMethod.GET, classURLWithSuffix(User.class, String.valueOf(userId)), null, null, User.class);
+        return request(RequestMethod.GET, classURLWithSuffix(User.class, userId), null, null, User.class);
     }
 
     /**
@@ -124,6 +138,35 @@ public class User extends VivialConnectResource{
         return request(RequestMethod.GET, classURL(User.class), null, queryParams, UserCollection.class).getUsers();
     }
 
+    /**
+     * Iterates over every user matching the given filters, fetching pages lazily, one page ahead
+     * of the consumer.
+     *
+     * @param queryParams the filters to apply, see {@link #getUsers(Map)}. Their <code>page</code>
+     *                    and <code>limit</code> set the first page and the page size, which defaults to 150
+     * @return an iterable whose iterators walk every page, throwing a
+     *         {@link net.vivialconnect.model.error.PageFetchException} if a page cannot be fetched
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<User> iterateUsers(Map<String, String> queryParams){
+        return new PagedIterable<User>(USER_PAGES, queryParams);
+    }
+
+    /**
+     * Iterates over every users matching the given filters, fetching up to
+     * <code>maxConcurrentPages</code> pages at once based on the total count.
+     *
+     * @param queryParams the filters to apply, see {@link #iterateUsers(Map)}
+     * @param maxConcurrentPages the maximum number of pages being fetched at once
+     * @return an iterable whose iterators walk every page, in order
+     *
+     * @see PagedIterable
+     */
+    public static PagedIterable<User> iterateUsers(Map<String, String> queryParams, int maxConcurrentPages){
+        return new PagedIterable<User>(USER_PAGES, queryParams, maxConcurrentPages);
+    }
+
     /**
      * Total number of users in the account specified. If there are none, this method will return <code>0</code>.
      * 
@@ -147,7 +190,7 @@ public class User extends VivialConnectResource{
      */
     public boolean delete() throws VivialConnectException{
         try{
-            request(RequestMethod.DELETE, classURLWithSuffix(User.class, String.valueOf(getId())), null, null, String.class);
+            request(RequestMethod.DELETE, classURLWithSuffix(User.class, getId()), null, null, String.class);
         }catch (NoContentException nce){
             return true;
         }
@@ -172,8 +215,8 @@ public class User extends VivialConnectResource{
                                                  .addParamPair("_password", oldPassword)
                                                  .addParamPair("password", newPassword);
 
-        String result = request(RequestMethod.PUT, classURLWithSuffix(User.class, String.format("%d/profile/password", getId())),
-                                                                                            builder.build(), null, String.class);
+        String result = requestWithBody(RequestMethod.PUT, classURLWithSuffix(User.class, getId(), "profile/password"),
+                                                                                                    builder, String.class);
 
         return "{}".equals(result);
     }
@@ -0,0 +1,66 @@
+package net.vivialconnect.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails with a {@link ResponseTooLargeException} as soon as more than a given number of bytes have
+ * been read from the wrapped stream.
+ */
+public class BoundedInputStream extends FilterInputStream{
+
+    private final long maxBytes;
+    private long bytesRead;
+
+
+    public BoundedInputStream(InputStream in, long maxBytes){
+        super(in);
+        this.maxBytes = maxBytes;
+    }
+
+
+    @Override
+    public int read() throws IOException{
+        int b = super.read();
+        if (b != -1){
+            count(1);
+        }
+
+        return b;
+    }
+
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException{
+        int n = super.read(buffer, offset, length);
+        if (n > 0){
+            count(n);
+        }
+
+        return n;
+    }
+
+
+    @Override
+    public long skip(long n) throws IOException{
+        long skipped = super.skip(n);
+        count(skipped);
+
+        return skipped;
+    }
+
+
+    @Override
+    public boolean markSupported(){
+        return false;
+    }
+
+
+    private void count(long n) throws IOException{
+        bytesRead += n;
+        if (bytesRead > maxBytes){
+            throw new ResponseTooLargeException(maxBytes);
+        }
+    }
+}
@@ -1,22 +1,18 @@
 package net.vivialconnect.util;
 
-import java.util.Locale;
-
 public class CryptoUtils{
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+
     public static String toHex(byte[] content){
-        StringBuilder hexBuilder = new StringBuilder(content.length * 2);
+        char[] hex = new char[content.length * 2];
         for (int i = 0; i < content.length; i++){
-            String hex = Integer.toHexString(content[i]);
-            if (hex.length() == 1){
-                hexBuilder.append("0");
-            }else if (hex.length() == 8){
-                hex = hex.substring(6);
-            }
-
-            hexBuilder.append(hex);
+            int b = content[i] & 0xFF;
+            hex[i * 2] = HEX_DIGITS[b >>> 4];
+            hex[i * 2 + 1] = HEX_DIGITS[b & 0x0F];
         }
 
-        return hexBuilder.toString().toLowerCase(Locale.getDefault());
+        return new String(hex);
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package net.vivialconnect.util;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a response body is larger than the maximum size the client accepts. Unlike other
+ * I/O failures it is not transient, so requests failing with it are not retried.
+ */
+public class ResponseTooLargeException extends IOException{
+
+    private static final long serialVersionUID = 3719263582120984711L;
+
+
+    public ResponseTooLargeException(long maxBytes){
+        super("Response exceeds the maximum size of " + maxBytes + " bytes");
+    }
+}
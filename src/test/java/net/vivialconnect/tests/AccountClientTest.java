@@ -0,0 +1,149 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.ScriptedTransport;
+
+public class AccountClientTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+
+    @Test
+    public void test_bound_client_is_used_instead_of_the_default_client() throws VivialConnectException {
+        Transport defaultTransport = VivialConnectClient.getTransport();
+        ScriptedTransport defaultScript = new ScriptedTransport().respondByDefault(200, MESSAGE);
+        VivialConnectClient.setTransport(defaultScript);
+
+        try {
+            ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, MESSAGE);
+            AccountClient client = clientFor(2, transport);
+
+            assertEquals("Hi", client.call(getMessage()).getBody());
+
+            assertEquals(0, defaultScript.getRequestCount());
+            assertEquals(1, transport.getRequestCount());
+            assertEquals("https://api.example.com/api/v1.0/accounts/2/messages/5.json",
+                         transport.getRequests().get(0).getEndpoint().toString());
+            assertTrue(transport.getRequests().get(0).getHeaders().get("Authorization").startsWith("HMAC key-2:"));
+        } finally {
+            VivialConnectClient.setTransport(defaultTransport);
+        }
+    }
+
+    @Test
+    public void test_binding_is_restored_after_a_call() throws VivialConnectException {
+        final AccountClient outer = clientFor(1, new ScriptedTransport());
+        final AccountClient inner = clientFor(2, new ScriptedTransport());
+
+        AccountClient seenAfterInner = outer.call(new Callable<AccountClient>() {
+
+            @Override
+            public AccountClient call() throws VivialConnectException {
+                assertSame(inner, inner.call(currentClient()));
+                return VivialConnectClient.current();
+            }
+        });
+
+        assertSame(outer, seenAfterInner);
+        assertSame(VivialConnectClient.getDefaultClient(), VivialConnectClient.current());
+    }
+
+    @Test
+    public void test_bound_client_is_carried_into_async_operations() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, MESSAGE);
+        final AccountClient client = clientFor(2, transport);
+
+        Message message = client.call(new Callable<Future<Message>>() {
+
+            @Override
+            public Future<Message> call() {
+                return Message.getMessageByIdAsync(5, null);
+            }
+        }).get();
+
+        assertEquals("Hi", message.getBody());
+        assertEquals(1, transport.getRequestCount());
+        assertTrue(transport.getRequests().get(0).getEndpoint().getPath().contains("/accounts/2/"));
+
+        AccountClient seenByTask = client.submit(currentClient(), null).get();
+        assertSame(client, seenByTask);
+    }
+
+    @Test
+    public void test_concurrent_clients_do_not_share_state() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<ScriptedTransport> transports = new ArrayList<ScriptedTransport>();
+        List<Future<Message>> results = new ArrayList<Future<Message>>();
+
+        try {
+            for (int i = 0; i < 40; i++) {
+                ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, MESSAGE);
+                final AccountClient client = clientFor(100 + i, transport);
+                transports.add(transport);
+                results.add(executor.submit(new Callable<Message>() {
+
+                    @Override
+                    public Message call() throws VivialConnectException {
+                        return client.call(getMessage());
+                    }
+                }));
+            }
+
+            for (Future<Message> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < transports.size(); i++) {
+            List<TransportRequest> requests = transports.get(i).getRequests();
+            assertEquals(1, requests.size());
+            assertTrue(requests.get(0).getEndpoint().getPath().contains("/accounts/" + (100 + i) + "/"));
+        }
+    }
+
+    private static AccountClient clientFor(int accountId, Transport transport) {
+        return AccountClient.builder(accountId, "key-" + accountId, "secret")
+                            .apiBaseUrl("https://api.example.com/api/v1.0")
+                            .transport(transport)
+                            .build();
+    }
+
+    private static Callable<AccountClient> currentClient() {
+        return new Callable<AccountClient>() {
+
+            @Override
+            public AccountClient call() {
+                return VivialConnectClient.current();
+            }
+        };
+    }
+
+    private static Callable<Message> getMessage() {
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AsyncCallback;
+import net.vivialconnect.client.AsyncDispatcher;
+import net.vivialconnect.model.error.VivialConnectException;
+
+public class AsyncDispatcherTest {
+
+    @Test
+    public void test_slot_is_released_when_the_operation_fails() throws Exception {
+        AsyncDispatcher dispatcher = new AsyncDispatcher(1);
+        final VivialConnectException failure = new VivialConnectException("Failed", null);
+
+        Future<Integer> failed = dispatcher.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws VivialConnectException {
+                throw failure;
+            }
+        });
+
+        try {
+            failed.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException ee) {
+            assertSame(failure, ee.getCause());
+        }
+
+        assertEquals(Integer.valueOf(42), dispatcher.submit(constant(42)).get(1, TimeUnit.SECONDS));
+        awaitIdle(dispatcher);
+    }
+
+    @Test
+    public void test_slot_is_released_when_the_operation_throws_an_error() throws Exception {
+        AsyncDispatcher dispatcher = new AsyncDispatcher(1);
+
+        Future<Integer> failed = dispatcher.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                throw new AssertionError("Broken");
+            }
+        });
+
+        try {
+            failed.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException ee) {
+            assertTrue(ee.getCause() instanceof AssertionError);
+        }
+
+        assertEquals(Integer.valueOf(7), dispatcher.submit(constant(7)).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_throwing_callback_does_not_change_the_outcome() throws Exception {
+        List<Throwable> reported = Collections.synchronizedList(new ArrayList<Throwable>());
+        AsyncDispatcher dispatcher = new AsyncDispatcher(reportingExecutor(reported), 1);
+
+        Future<Integer> succeeded = dispatcher.submit(constant(1), new ThrowingCallback<Integer>());
+        assertEquals(Integer.valueOf(1), succeeded.get(1, TimeUnit.SECONDS));
+
+        final VivialConnectException failure = new VivialConnectException("Failed", null);
+        Future<Integer> failed = dispatcher.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws VivialConnectException {
+                throw failure;
+            }
+        }, new ThrowingCallback<Integer>());
+
+        try {
+            failed.get(1, TimeUnit.SECONDS);
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException ee) {
+            assertSame(failure, ee.getCause());
+        }
+
+        awaitIdle(dispatcher);
+        assertEquals(2, reported.size());
+        assertEquals(Integer.valueOf(2), dispatcher.submit(constant(2)).get(1, TimeUnit.SECONDS));
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void test_callback_may_submit_into_a_full_dispatcher() throws Exception {
+        final AsyncDispatcher dispatcher = new AsyncDispatcher(1);
+        final AtomicReference<Future<Integer>> chained = new AtomicReference<Future<Integer>>();
+        final CountDownLatch submitted = new CountDownLatch(1);
+
+        dispatcher.submit(constant(1), new AsyncCallback<Integer>() {
+
+            @Override
+            public void onSuccess(Integer result) {
+                chained.set(dispatcher.submit(constant(result + 1)));
+                submitted.countDown();
+            }
+
+            @Override
+            public void onFailure(VivialConnectException e) {
+
+            }
+        });
+
+        assertTrue(submitted.await(1, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), chained.get().get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_submitter_waits_for_a_free_slot() throws Exception {
+        AsyncDispatcher dispatcher = new AsyncDispatcher(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        Callable<Integer> blocked = new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws InterruptedException {
+                release.await();
+                return 0;
+            }
+        };
+
+        dispatcher.submit(blocked);
+        dispatcher.submit(blocked);
+        assertEquals(2, dispatcher.getInFlight());
+
+        final AsyncDispatcher full = dispatcher;
+        final CountDownLatch third = new CountDownLatch(1);
+        Thread submitter = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                full.submit(constant(3));
+                third.countDown();
+            }
+        });
+        submitter.start();
+
+        assertFalse(third.await(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(third.await(1, TimeUnit.SECONDS));
+        awaitIdle(dispatcher);
+    }
+
+    private static void awaitIdle(AsyncDispatcher dispatcher) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (dispatcher.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(0, dispatcher.getInFlight());
+    }
+
+    private static Callable<Integer> constant(final int value) {
+        return new Callable<Integer>() {
+
+            @Override
+            public Integer call() {
+                return value;
+            }
+        };
+    }
+
+    private static ExecutorService reportingExecutor(final List<Throwable> reported) {
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+
+                    @Override
+                    public void uncaughtException(Thread t, Throwable e) {
+                        reported.add(e);
+                    }
+                });
+
+                return thread;
+            }
+        });
+    }
+
+    private static class ThrowingCallback<T> implements AsyncCallback<T> {
+
+        @Override
+        public void onSuccess(T result) {
+            throw new IllegalStateException("Callback failed");
+        }
+
+        @Override
+        public void onFailure(VivialConnectException e) {
+            throw new IllegalStateException("Callback failed");
+        }
+    }
+}
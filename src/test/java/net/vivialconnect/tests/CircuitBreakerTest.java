@@ -0,0 +1,213 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.CircuitBreaker;
+import net.vivialconnect.client.HedgingPolicy;
+import net.vivialconnect.model.error.CircuitOpenException;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.ScriptedTransport;
+import net.vivialconnect.tests.data.ScriptedTransport.Reply;
+
+public class CircuitBreakerTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+
+    private static final long OPEN_MILLIS = 100;
+
+    @Test
+    public void test_circuit_opens_once_the_failure_rate_is_reached() throws Exception {
+        CircuitBreaker circuitBreaker = breaker(2);
+        URL endpoint = endpoint("messages");
+
+        circuitBreaker.acquire(endpoint).onResult(false, 0);
+        circuitBreaker.acquire(endpoint).onResult(true, 0);
+        circuitBreaker.acquire(endpoint).onResult(false, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(endpoint));
+
+        circuitBreaker.acquire(endpoint).onResult(true, 0);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(endpoint));
+
+        try {
+            circuitBreaker.acquire(endpoint);
+            fail("Expected a CircuitOpenException");
+        } catch (CircuitOpenException coe) {
+            assertTrue(coe.getRetryAfterMillis() > 0 && coe.getRetryAfterMillis() <= OPEN_MILLIS);
+        }
+
+        /* Other endpoint groups keep their own circuits */
+        circuitBreaker.acquire(endpoint("numbers")).onResult(false, 0);
+    }
+
+    @Test
+    public void test_probes_close_the_circuit_once_all_succeed() throws Exception {
+        CircuitBreaker circuitBreaker = breaker(2);
+        URL endpoint = endpoint("messages");
+        open(circuitBreaker, endpoint);
+
+        CircuitBreaker.Permit first = circuitBreaker.acquire(endpoint);
+        CircuitBreaker.Permit second = circuitBreaker.acquire(endpoint);
+        assertTrue(first.isProbe() && second.isProbe());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(endpoint));
+
+        try {
+            circuitBreaker.acquire(endpoint);
+            fail("Expected a CircuitOpenException");
+        } catch (CircuitOpenException coe) {
+            assertEquals(0, coe.getRetryAfterMillis());
+        }
+
+        first.onResult(false, 0);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(endpoint));
+        second.onResult(false, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(endpoint));
+    }
+
+    @Test
+    public void test_failed_probe_opens_the_circuit_again() throws Exception {
+        CircuitBreaker circuitBreaker = breaker(2);
+        URL endpoint = endpoint("messages");
+        open(circuitBreaker, endpoint);
+
+        circuitBreaker.acquire(endpoint).onResult(true, 0);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(endpoint));
+    }
+
+    @Test
+    public void test_call_let_through_before_the_circuit_opened_is_not_a_probe() throws Exception {
+        CircuitBreaker circuitBreaker = breaker(1);
+        URL endpoint = endpoint("messages");
+
+        CircuitBreaker.Permit straggler = circuitBreaker.acquire(endpoint);
+        assertFalse(straggler.isProbe());
+        open(circuitBreaker, endpoint);
+
+        CircuitBreaker.Permit probe = circuitBreaker.acquire(endpoint);
+        straggler.onResult(false, 0);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(endpoint));
+
+        probe.onResult(false, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(endpoint));
+    }
+
+    @Test
+    public void test_cancelled_probe_frees_its_slot() throws Exception {
+        CircuitBreaker circuitBreaker = breaker(1);
+        URL endpoint = endpoint("messages");
+        open(circuitBreaker, endpoint);
+
+        circuitBreaker.acquire(endpoint).onCancelled();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState(endpoint));
+
+        circuitBreaker.acquire(endpoint).onResult(false, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState(endpoint));
+    }
+
+    @Test
+    public void test_slow_calls_open_the_circuit() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder()
+                                                      .windowSize(4)
+                                                      .minimumCalls(2)
+                                                      .slowCalls(0.5, 10, TimeUnit.MILLISECONDS)
+                                                      .build();
+        URL endpoint = endpoint("messages");
+
+        circuitBreaker.acquire(endpoint).onResult(false, TimeUnit.MILLISECONDS.toNanos(1));
+        circuitBreaker.acquire(endpoint).onResult(false, TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState(endpoint));
+    }
+
+    @Test
+    public void test_server_errors_open_the_circuit_and_client_errors_do_not() throws VivialConnectException {
+        ScriptedTransport notFound = new ScriptedTransport().respondByDefault(404, "{\"message\":\"Not found\"}");
+        CircuitBreaker circuitBreaker = breaker(1);
+        for (int i = 0; i < 4; i++) {
+            getMessageQuietly(notFound.clientBuilder().circuitBreaker(circuitBreaker).build());
+        }
+
+        assertEquals(4, notFound.getRequestCount());
+
+        /* Two server errors make up half of the window of 4, so the rest fail without being sent */
+        ScriptedTransport unavailable = new ScriptedTransport().respondByDefault(500, "{\"message\":\"Error\"}");
+        for (int i = 0; i < 4; i++) {
+            getMessageQuietly(unavailable.clientBuilder().circuitBreaker(circuitBreaker).build());
+        }
+
+        assertEquals(2, unavailable.getRequestCount());
+    }
+
+    @Test
+    public void test_cancelled_hedge_is_not_counted_as_a_failure() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport().enqueue(new Reply(200, MESSAGE).latency(2000))
+                                                             .respondByDefault(200, MESSAGE);
+        CircuitBreaker circuitBreaker = CircuitBreaker.builder().windowSize(1).minimumCalls(1).failureRateThreshold(1).build();
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 50, 1);
+        AccountClient client = transport.clientBuilder().circuitBreaker(circuitBreaker).hedgingPolicy(hedgingPolicy).build();
+
+        try {
+            assertEquals("Hi", client.call(getMessage()).getBody());
+
+            /* Give the interrupted attempt time to report back */
+            Thread.sleep(200);
+        } finally {
+            hedgingPolicy.shutdown();
+        }
+
+        assertEquals(2, transport.getRequestCount());
+        assertEquals(CircuitBreaker.State.CLOSED,
+                     circuitBreaker.getState(transport.getRequests().get(0).getEndpoint()));
+    }
+
+    private static CircuitBreaker breaker(int halfOpenProbes) {
+        return CircuitBreaker.builder()
+                             .windowSize(4)
+                             .minimumCalls(4)
+                             .failureRateThreshold(0.5)
+                             .openDuration(OPEN_MILLIS, TimeUnit.MILLISECONDS)
+                             .halfOpenProbes(halfOpenProbes)
+                             .build();
+    }
+
+    /* Fails enough calls to open the circuit, then waits until it lets probes through */
+    private static void open(CircuitBreaker circuitBreaker, URL endpoint) throws Exception {
+        while (circuitBreaker.getState(endpoint) != CircuitBreaker.State.OPEN) {
+            circuitBreaker.acquire(endpoint).onResult(true, 0);
+        }
+
+        Thread.sleep(OPEN_MILLIS + 20);
+    }
+
+    private static URL endpoint(String resource) throws MalformedURLException {
+        return new URL("https://api.example.com/api/v1.0/accounts/1/" + resource + ".json");
+    }
+
+    private static void getMessageQuietly(AccountClient client) {
+        try {
+            client.call(getMessage());
+        } catch (VivialConnectException vce) {
+            /* expected */
+        }
+    }
+
+    private static Callable<Message> getMessage() {
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        };
+    }
+}
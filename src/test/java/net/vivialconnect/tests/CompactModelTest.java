@@ -0,0 +1,171 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import net.vivialconnect.model.format.ResponseDecoder;
+import net.vivialconnect.model.log.CompactLog;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogCollection;
+import net.vivialconnect.model.log.LogData;
+import net.vivialconnect.model.log.LogTimestamp;
+import net.vivialconnect.model.message.CompactMessage;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.model.message.MessageCollection;
+
+public class CompactModelTest {
+
+    private final ResponseDecoder regularDecoder = new ResponseDecoder();
+    private final ResponseDecoder compactDecoder = new ResponseDecoder(true);
+
+    @Test
+    public void test_compact_messages_match_regular_messages() throws IOException {
+        String fixture = fixture("messages");
+        List<Message> regular = regularDecoder.decode(fixture, MessageCollection.class, false).getMessages();
+        List<Message> compact = compactDecoder.decode(fixture, MessageCollection.class, false).getMessages();
+
+        assertEquals(regular.size(), compact.size());
+        for (int i = 0; i < regular.size(); i++) {
+            Message expected = regular.get(i);
+            Message actual = compact.get(i);
+
+            assertTrue(actual instanceof CompactMessage);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getDateCreated(), actual.getDateCreated());
+            assertEquals(expected.getDateModified(), actual.getDateModified());
+            assertEquals(expected.getSent(), actual.getSent());
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getDirection(), actual.getDirection());
+            assertEquals(expected.getMessageType(), actual.getMessageType());
+            assertEquals(expected.getPriceCurrency(), actual.getPriceCurrency());
+            assertEquals(expected.getBody(), actual.getBody());
+
+            for (int j = 0; j < i; j++) {
+                if (actual.getDirection().equals(compact.get(j).getDirection())) {
+                    assertSame(compact.get(j).getDirection(), actual.getDirection());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_compact_logs_match_regular_logs() throws IOException {
+        String fixture = fixture("logs");
+        List<Log> regular = regularDecoder.decode(fixture, LogCollection.class, false).getLogs();
+        List<Log> compact = compactDecoder.decode(fixture, LogCollection.class, false).getLogs();
+
+        assertEquals(regular.size(), compact.size());
+        for (int i = 0; i < regular.size(); i++) {
+            Log expected = regular.get(i);
+            Log actual = compact.get(i);
+
+            assertTrue(actual instanceof CompactLog);
+            assertEquals(expected.getLogId(), actual.getLogId());
+            assertEquals(expected.getAccountIdItemId(), actual.getAccountIdItemId());
+            assertEquals(expected.getAccountIdLogType(), actual.getAccountIdLogType());
+            assertEquals(expected.getAccountIdOperatorId(), actual.getAccountIdOperatorId());
+            assertEquals(expected.getLogType(), actual.getLogType());
+            assertEquals(expected.getLogTimestamp(), actual.getLogTimestamp());
+            assertEquals(expected.getLogDataJson(), actual.getLogDataJson());
+            assertLogDataEquals(expected.getLogData(), actual.getLogData());
+        }
+    }
+
+    @Test
+    public void test_compact_log_keeps_keys_it_cannot_rebuild() {
+        CompactLog log = new CompactLog();
+        log.setAccountId(1);
+        log.setLogType("message.queued");
+
+        assertNull(log.getAccountIdLogType());
+        assertNull(log.getAccountIdOperatorId());
+
+        log.setAccountIdLogType("1-message.queued");
+        assertEquals("1-message.queued", log.getAccountIdLogType());
+
+        log.setAccountIdLogType("2-message.queued");
+        assertEquals("2-message.queued", log.getAccountIdLogType());
+    }
+
+    @Test
+    public void test_compact_log_keys_absent_from_the_response_stay_null() throws IOException {
+        String fixture = "{\"log_items\":[{\"account_id\":\"1\",\"item_id\":\"+14022048756\",\"log_type\":\"message.queued\","
+                         + "\"operator_id\":7,\"account_id_log_type\":\"1-message.queued\"}]}";
+        Log regular = regularDecoder.decode(fixture, LogCollection.class, false).getLogs().get(0);
+        Log compact = compactDecoder.decode(fixture, LogCollection.class, false).getLogs().get(0);
+
+        assertNull(regular.getAccountIdItemId());
+        assertNull(compact.getAccountIdItemId());
+        assertNull(compact.getAccountIdOperatorId());
+        assertEquals(regular.getAccountIdLogType(), compact.getAccountIdLogType());
+    }
+
+    @Test
+    public void test_compact_log_keys_survive_changes_to_the_fields_they_are_built_from() {
+        CompactLog log = new CompactLog();
+        log.setAccountId(1);
+        log.setItemId("+14022048756");
+        log.setAccountIdItemId("1-+14022048756");
+
+        log.setItemId("+15555550100");
+        log.setAccountId(2);
+
+        assertEquals("1-+14022048756", log.getAccountIdItemId());
+        assertNull(log.getAccountIdLogType());
+    }
+
+    @Test
+    public void test_log_timestamps_round_trip() {
+        long micros = LogTimestamp.toEpochMicros("20171115184924137248");
+
+        assertEquals(1510771764137248L, micros);
+        assertEquals("20171115184924137248", LogTimestamp.format(micros));
+        assertEquals(LogTimestamp.toEpochMicros("20171115180000000000"), LogTimestamp.toEpochMicros("2017111518"));
+        assertEquals("20000229235959999999", LogTimestamp.format(LogTimestamp.toEpochMicros("20000229235959999999")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_invalid_log_timestamp_throws_illegal_argument_exception() {
+        LogTimestamp.toEpochMicros("20170230000000000000");
+    }
+
+    @Test
+    public void test_compact_log_keeps_timestamps_of_other_forms() {
+        CompactLog log = new CompactLog();
+
+        log.setLogTimestamp("2017111517");
+        assertEquals("2017111517", log.getLogTimestamp());
+        assertEquals(Long.MIN_VALUE, log.getLogTimestampMicros());
+    }
+
+    private static void assertLogDataEquals(LogData expected, LogData actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+
+        assertNotNull(actual);
+        assertEquals(expected.getReceiver(), actual.getReceiver());
+        assertEquals(expected.getSender(), actual.getSender());
+        assertEquals(expected.getText(), actual.getText());
+    }
+
+    private static String fixture(String name) throws IOException {
+        InputStream stream = CompactModelTest.class.getClassLoader().getResourceAsStream(name + ".json");
+        try {
+            return IOUtils.toString(stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.Deadline;
+import net.vivialconnect.client.RateLimiter;
+import net.vivialconnect.client.RetryPolicy;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.model.error.RequestTimeoutException;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.ScriptedTransport;
+import net.vivialconnect.tests.data.ScriptedTransport.Reply;
+
+public class DeadlineTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+
+    @Test
+    public void test_timeouts_are_shortened_to_the_time_left() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, MESSAGE);
+        AccountClient client = transport.clientBuilder().connectTimeout(10000).readTimeout(0).build();
+
+        Deadline.after(500, TimeUnit.MILLISECONDS).call(getMessage(client));
+
+        TransportRequest request = transport.getRequests().get(0);
+        assertTrue(request.getConnectTimeoutMillis() > 0 && request.getConnectTimeoutMillis() <= 500);
+        assertTrue(request.getReadTimeoutMillis() > 0 && request.getReadTimeoutMillis() <= 500);
+    }
+
+    @Test
+    public void test_slow_body_fails_once_the_deadline_passes() throws VivialConnectException {
+        /* Each byte beats any read timeout, but the whole body takes over a second */
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(new Reply(200, MESSAGE).trickle(40));
+        AccountClient client = transport.clientBuilder().retryPolicy(new RetryPolicy(3, 1, 5, 10000)).build();
+
+        long startNanos = System.nanoTime();
+        try {
+            Deadline.after(200, TimeUnit.MILLISECONDS).call(getMessage(client));
+            fail("Expected a RequestTimeoutException");
+        } catch (RequestTimeoutException rte) {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 600);
+        }
+
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void test_waiting_for_the_rate_limiter_counts_against_the_deadline() throws VivialConnectException {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setLimit(RateLimiter.MESSAGES, 0.5, 1);
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, MESSAGE);
+        AccountClient client = transport.clientBuilder().rateLimiter(rateLimiter).build();
+
+        client.call(getMessage(client));
+        try {
+            Deadline.after(100, TimeUnit.MILLISECONDS).call(getMessage(client));
+            fail("Expected a RequestTimeoutException");
+        } catch (RequestTimeoutException rte) {
+            /* expected */
+        }
+
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void test_earlier_enclosing_deadline_is_kept() throws VivialConnectException {
+        final Deadline soon = Deadline.after(1, TimeUnit.SECONDS);
+        final Deadline later = Deadline.after(1, TimeUnit.HOURS);
+
+        assertSame(soon, soon.call(new Callable<Deadline>() {
+
+            @Override
+            public Deadline call() throws VivialConnectException {
+                return later.call(currentDeadline());
+            }
+        }));
+        assertSame(soon, later.call(new Callable<Deadline>() {
+
+            @Override
+            public Deadline call() throws VivialConnectException {
+                return soon.call(currentDeadline());
+            }
+        }));
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    public void test_deadline_is_carried_into_async_operations() throws Exception {
+        final AccountClient client = new ScriptedTransport().clientBuilder().build();
+        final Deadline deadline = Deadline.after(1, TimeUnit.MINUTES);
+
+        Deadline seen = deadline.call(new Callable<Deadline>() {
+
+            @Override
+            public Deadline call() throws Exception {
+                return client.submit(currentDeadline(), null).get();
+            }
+        });
+
+        assertSame(deadline, seen);
+    }
+
+    private static Callable<Deadline> currentDeadline() {
+        return new Callable<Deadline>() {
+
+            @Override
+            public Deadline call() {
+                return Deadline.current();
+            }
+        };
+    }
+
+    private static Callable<Message> getMessage(final AccountClient client) {
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return client.call(new Callable<Message>() {
+
+                    @Override
+                    public Message call() throws VivialConnectException {
+                        return Message.getMessageById(5);
+                    }
+                });
+            }
+        };
+    }
+}
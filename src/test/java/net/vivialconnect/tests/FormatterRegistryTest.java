@@ -0,0 +1,109 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.model.format.FormatterRegistry;
+import net.vivialconnect.model.format.JsonBodyBuilder;
+
+public class FormatterRegistryTest {
+
+    private static final int THREADS = 16;
+    private static final int BODIES_PER_THREAD = 2000;
+
+    @Test
+    public void test_lists_of_any_kind_are_written_as_arrays() {
+        assertEquals("{\"to\":[\"+15555550100\",\"+15555550101\"]}", bodyWith("to", Arrays.asList("+15555550100", "+15555550101")));
+        assertEquals("{\"to\":[1,2]}", bodyWith("to", new LinkedList<Integer>(Arrays.asList(1, 2))));
+        assertEquals("{\"to\":[true]}", bodyWith("to", new LinkedHashSet<Boolean>(Collections.singleton(true))));
+        assertEquals("{\"to\":[]}", bodyWith("to", Collections.emptyList()));
+    }
+
+    @Test
+    public void test_numbers_and_booleans_are_not_quoted() {
+        assertEquals("{\"id\":9007199254740993}", bodyWith("id", 9007199254740993L));
+        assertEquals("{\"price\":0.5}", bodyWith("price", 0.5d));
+        assertEquals("{\"active\":false}", bodyWith("active", Boolean.FALSE));
+    }
+
+    @Test
+    public void test_formatter_is_resolved_once_per_class() {
+        FormatterRegistry registry = FormatterRegistry.getInstance();
+
+        assertSame(registry.getFormatter(ArrayList.class), registry.getFormatter(LinkedList.class));
+        assertSame(registry.getFormatter(Long.class), registry.getFormatter(Long.class));
+    }
+
+    @Test
+    public void test_concurrent_bodies_are_written_correctly() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < THREADS; i++) {
+                final int thread = i;
+                results.add(executor.submit(new Callable<Integer>() {
+
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        for (int j = 0; j < BODIES_PER_THREAD; j++) {
+                            assertEquals(expectedBody(thread, j), concurrentBody(thread, j));
+                        }
+
+                        return BODIES_PER_THREAD;
+                    }
+                }));
+            }
+
+            start.countDown();
+
+            int bodies = 0;
+            for (Future<Integer> result : results) {
+                bodies += result.get(60, TimeUnit.SECONDS);
+            }
+
+            assertEquals(THREADS * BODIES_PER_THREAD, bodies);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String concurrentBody(int thread, int index) {
+        List<Object> numbers = new LinkedList<Object>();
+        numbers.add("+1555555" + thread);
+        numbers.add(Long.valueOf(index));
+
+        return JsonBodyBuilder.withCustomClassName("message")
+                              .addParamPair("to_numbers", numbers)
+                              .addParamPair("tags", Arrays.asList("t" + thread, "i" + index))
+                              .addParamPair("active", index % 2 == 0)
+                              .build();
+    }
+
+    private static String expectedBody(int thread, int index) {
+        return "{\"message\":{\"to_numbers\":[\"+1555555" + thread + "\"," + index + "]"
+                + ",\"tags\":[\"t" + thread + "\",\"i" + index + "\"]"
+                + ",\"active\":" + (index % 2 == 0) + "}}";
+    }
+
+    private static String bodyWith(String name, Object value) {
+        return JsonBodyBuilder.emptyJson().addParamPair(name, value).build();
+    }
+}
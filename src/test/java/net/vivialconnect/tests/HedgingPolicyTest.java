@@ -0,0 +1,209 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import net.vivialconnect.client.HedgingPolicy;
+import net.vivialconnect.http.HttpURLConnectionTransport;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
+import net.vivialconnect.tests.data.LocalHttpServer;
+
+public class HedgingPolicyTest {
+
+    @Test
+    public void test_fast_request_runs_once_on_the_calling_thread() throws Exception {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 1000, 1);
+        LocalHttpServer server = new LocalHttpServer();
+
+        try {
+            Attempts attempts = new Attempts(server, 0, 0);
+
+            assertEquals("first", hedgingPolicy.execute(endpoint(), attempts));
+
+            Thread.sleep(100);
+            assertEquals(1, attempts.started.get());
+            assertEquals(0, attempts.startedElsewhere.get());
+        } finally {
+            hedgingPolicy.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_slow_request_is_hedged_and_the_faster_response_wins() throws Exception {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 50, 1);
+        LocalHttpServer server = new LocalHttpServer();
+
+        try {
+            Attempts attempts = new Attempts(server, 5000, 0);
+
+            long startNanos = System.nanoTime();
+            assertEquals("second", hedgingPolicy.execute(endpoint(), attempts));
+
+            /* The first attempt is blocked on a socket read, which only aborting its connection stops */
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 1000);
+            assertEquals(2, attempts.started.get());
+            assertEquals(1, attempts.startedElsewhere.get());
+            assertFalse("The interrupt used to stop the first attempt must not leak", Thread.currentThread().isInterrupted());
+        } finally {
+            hedgingPolicy.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_early_failure_is_not_hedged() throws Exception {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 1000, 1);
+        LocalHttpServer server = new LocalHttpServer();
+
+        try {
+            Attempts attempts = new Attempts(server, 0, 0).failingFirst();
+
+            try {
+                hedgingPolicy.execute(endpoint(), attempts);
+                fail("Expected an IOException");
+            } catch (IOException ioe) {
+                assertEquals("first failed", ioe.getMessage());
+            }
+
+            Thread.sleep(100);
+            assertEquals(1, attempts.started.get());
+        } finally {
+            hedgingPolicy.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_late_failure_waits_for_the_hedge() throws Exception {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 50, 1);
+        LocalHttpServer server = new LocalHttpServer();
+
+        try {
+            Attempts attempts = new Attempts(server, 100, 200).failingFirst();
+
+            assertEquals("second", hedgingPolicy.execute(endpoint(), attempts));
+            assertEquals(2, attempts.started.get());
+        } finally {
+            hedgingPolicy.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_last_failure_is_thrown_when_both_attempts_fail() throws Exception {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.5, 50, 1);
+        LocalHttpServer server = new LocalHttpServer();
+
+        try {
+            Attempts attempts = new Attempts(server, 100, 200).failingFirst().failingSecond();
+
+            try {
+                hedgingPolicy.execute(endpoint(), attempts);
+                fail("Expected an IOException");
+            } catch (IOException ioe) {
+                assertEquals("second failed", ioe.getMessage());
+            }
+        } finally {
+            hedgingPolicy.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_hedges_are_capped_by_the_budget() throws Exception {
+        HedgingPolicy frugal = new HedgingPolicy(0.5, 10, 0.01);
+        LocalHttpServer server = new LocalHttpServer();
+
+        try {
+            Attempts attempts = new Attempts(server, 200, 0);
+            for (int i = 0; i < 15; i++) {
+                frugal.execute(endpoint(), attempts);
+            }
+
+            /* Ten hedges were allowed up front, and 15 requests only earn back 0.15 more */
+            assertEquals(10, attempts.startedElsewhere.get());
+        } finally {
+            frugal.shutdown();
+            server.stop();
+        }
+    }
+
+    private static URL endpoint() throws MalformedURLException {
+        return new URL("https://api.example.com/api/v1.0/accounts/1/messages.json");
+    }
+
+    /*
+     * Sends the first attempt, on the caller's thread, and every other one, on the policy's threads,
+     * to a local server through the default transport, so that slow attempts block on a socket read
+     */
+    private static class Attempts implements Callable<String> {
+
+        private static final int READ_TIMEOUT_MILLIS = 30000;
+
+        private final Thread caller = Thread.currentThread();
+        private final LocalHttpServer server;
+        private final Transport transport = new HttpURLConnectionTransport();
+
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger startedElsewhere = new AtomicInteger();
+
+        Attempts(LocalHttpServer server, long firstMillis, long secondMillis) throws IOException {
+            this.server = server;
+            server.respond("/first", 200, "first".getBytes("UTF-8"));
+            server.respond("/second", 200, "second".getBytes("UTF-8"));
+            server.setLatencyMillis("/first", firstMillis);
+            server.setLatencyMillis("/second", secondMillis);
+        }
+
+        Attempts failingFirst() throws IOException {
+            server.respond("/first", 500, "first failed".getBytes("UTF-8"));
+            return this;
+        }
+
+        Attempts failingSecond() throws IOException {
+            server.respond("/second", 500, "second failed".getBytes("UTF-8"));
+            return this;
+        }
+
+        @Override
+        public String call() throws Exception {
+            started.incrementAndGet();
+
+            boolean first = Thread.currentThread() == caller;
+            if (!first) {
+                startedElsewhere.incrementAndGet();
+            }
+
+            URL url = new URL(server.url(first ? "/first" : "/second"));
+            TransportRequest request = new TransportRequest("GET", url, Collections.<String, String>emptyMap(), null, null, 0,
+                                                            READ_TIMEOUT_MILLIS);
+            TransportResponse response = transport.execute(request);
+            try {
+                String body = IOUtils.toString(response.getBody());
+                if (response.getStatusCode() >= 400) {
+                    throw new IOException(body);
+                }
+
+                return body;
+            } finally {
+                response.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import net.vivialconnect.http.HttpClientTransport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
+import net.vivialconnect.tests.data.LocalHttpServer;
+
+/**
+ * Compiled and run only by the <code>java11</code> build profile, like the transport itself.
+ */
+public class HttpClientTransportTest {
+
+    @Test
+    public void test_response_status_headers_and_body_are_read() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, "{\"message\":{\"id\":1}}".getBytes("UTF-8"));
+
+        try {
+            Map<String, String> headers = new HashMap<String, String>();
+            headers.put("Accept", "application/json");
+            headers.put("Host", "ignored.example.com");
+            headers.put("X-Auth-Signed-Headers", "accept;date;host");
+
+            TransportResponse response = new HttpClientTransport().execute(request("POST", server.url("/ok"), headers, 2000));
+            try {
+                assertEquals(200, response.getStatusCode());
+                assertEquals("application/json", response.getHeader("Content-Type"));
+                assertEquals("{\"message\":{\"id\":1}}", IOUtils.toString(response.getBody(), "UTF-8"));
+            } finally {
+                response.close();
+            }
+
+            assertEquals("accept;date;host", server.getLastRequestHeader("X-Auth-Signed-Headers"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_error_body_is_returned_with_its_status() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/error", 503, "{\"message\":\"Unavailable\"}".getBytes("UTF-8"));
+
+        try {
+            TransportResponse response = new HttpClientTransport().execute(request("GET", server.url("/error"),
+                                                                                   Collections.<String, String>emptyMap(), 2000));
+            assertEquals(503, response.getStatusCode());
+            assertEquals("{\"message\":\"Unavailable\"}", IOUtils.toString(response.getBody(), "UTF-8"));
+            response.close();
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_timeout_surfaces_as_socket_timeout() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/slow", 200, "{}".getBytes("UTF-8"));
+        server.setLatencyMillis(1000);
+
+        try {
+            new HttpClientTransport().execute(request("GET", server.url("/slow"), Collections.<String, String>emptyMap(), 100));
+            fail("Expected a SocketTimeoutException");
+        } catch (SocketTimeoutException ste) {
+            /* expected */
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_per_request_proxy_is_rejected() throws IOException {
+        Proxy proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress("127.0.0.1", 3128));
+
+        try {
+            new HttpClientTransport().execute(new TransportRequest("GET", new URL("http://127.0.0.1/ok"),
+                                                                   Collections.<String, String>emptyMap(), null, proxy, 100, 100));
+            fail("Expected an IOException");
+        } catch (IOException ioe) {
+            assertTrue(ioe.getMessage().contains("proxies"));
+        }
+    }
+
+    private static TransportRequest request(String method, String url, Map<String, String> headers, int timeoutMillis) throws IOException {
+        byte[] body = "POST".equals(method) ? "{\"message\":{}}".getBytes("UTF-8") : null;
+        return new TransportRequest(method, new URL(url), headers, body, null, timeoutMillis, timeoutMillis);
+    }
+}
@@ -0,0 +1,302 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import net.vivialconnect.http.Cancellation;
+import net.vivialconnect.http.HttpURLConnectionTransport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
+import net.vivialconnect.tests.data.LocalHttpServer;
+
+public class HttpURLConnectionTransportTest {
+
+    private static final byte[] SMALL_BODY = bytes("{\"message\":{\"id\":1}}");
+
+    @Test
+    public void test_connection_is_kept_alive_between_requests() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport();
+            for (int i = 0; i < 3; i++) {
+                TransportResponse response = transport.execute(get(server.url("/ok")));
+                assertEquals(200, response.getStatusCode());
+                assertEquals("{\"message\":{\"id\":1}}", IOUtils.toString(response.getBody(), "UTF-8"));
+                response.close();
+            }
+
+            List<Integer> ports = server.getClientPorts();
+            assertEquals(3, ports.size());
+            assertEquals(1, new HashSet<Integer>(ports).size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_route_permit_is_released_after_an_error_response() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/error", 500, bytes("{\"message\":\"Broken\"}"));
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+            for (int i = 0; i < 3; i++) {
+                TransportResponse response = transport.execute(get(server.url("/error")));
+                assertEquals(500, response.getStatusCode());
+                assertEquals("{\"message\":\"Broken\"}", IOUtils.toString(response.getBody(), "UTF-8"));
+                response.close();
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_route_permit_is_released_when_the_body_is_never_read() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+            transport.execute(get(server.url("/ok"))).close();
+            transport.execute(get(server.url("/ok"))).close();
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_route_permit_is_released_when_the_connection_fails() throws IOException {
+        URL closedPort = new URL("http://127.0.0.1:" + unusedPort() + "/ok");
+        HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                transport.execute(new TransportRequest("GET", closedPort, Collections.<String, String>emptyMap(), null, null, 500, 500));
+                fail("Expected a ConnectException");
+            } catch (ConnectException ce) {
+                /* Refused by the OS, not timed out waiting for the route's permit */
+            }
+        }
+    }
+
+    @Test
+    public void test_route_permit_is_released_when_the_request_is_rejected() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+            Map<String, String> invalidHeaders = Collections.singletonMap("X-Broken", "line\nbreak");
+            try {
+                transport.execute(new TransportRequest("GET", new URL(server.url("/ok")), invalidHeaders, null, null, 500, 500));
+                fail("Expected an IllegalArgumentException");
+            } catch (IllegalArgumentException iae) {
+                /* expected */
+            }
+
+            transport.execute(get(server.url("/ok"))).close();
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_closing_twice_releases_the_route_permit_once() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+            TransportResponse first = transport.execute(get(server.url("/ok")));
+            first.close();
+            first.close();
+
+            TransportResponse held = transport.execute(get(server.url("/ok")));
+            try {
+                transport.execute(get(server.url("/ok")));
+                fail("Expected a SocketTimeoutException");
+            } catch (SocketTimeoutException ste) {
+                assertTrue(ste.getMessage().contains("waiting for a connection"));
+            } finally {
+                held.close();
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_request_waits_for_a_permit_of_its_route() throws Exception {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            final HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+            final TransportResponse held = transport.execute(get(server.url("/ok")));
+
+            Thread releaser = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(100);
+                        held.close();
+                    } catch (Exception e) {
+                        /* The waiting request times out and fails the test */
+                    }
+                }
+            });
+            releaser.start();
+
+            long startNanos = System.nanoTime();
+            TransportResponse next = transport.execute(new TransportRequest("GET", new URL(server.url("/ok")),
+                                                                            Collections.<String, String>emptyMap(), null, null, 2000, 2000));
+            InputStream body = next.getBody();
+            assertEquals("{\"message\":{\"id\":1}}", IOUtils.toString(body, "UTF-8"));
+            next.close();
+
+            assertTrue(System.nanoTime() - startNanos >= 50 * 1000000L);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_small_unread_remainder_is_drained_for_reuse() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport();
+            for (int i = 0; i < 2; i++) {
+                TransportResponse response = transport.execute(get(server.url("/ok")));
+                assertEquals('{', response.getBody().read());
+                response.close();
+            }
+
+            assertEquals(1, new HashSet<Integer>(server.getClientPorts()).size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_abandoned_large_body_disconnects() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/large", 200, new byte[1024 * 1024]);
+        server.respond("/ok", 200, SMALL_BODY);
+
+        try {
+            HttpURLConnectionTransport transport = new HttpURLConnectionTransport();
+            TransportResponse response = transport.execute(get(server.url("/large")));
+            assertEquals(0, response.getBody().read());
+            response.close();
+
+            transport.execute(get(server.url("/ok"))).close();
+
+            List<Integer> ports = server.getClientPorts();
+            assertEquals(2, new HashSet<Integer>(ports).size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_cancellation_aborts_a_request_waiting_for_its_response() throws Exception {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond("/slow", 200, SMALL_BODY);
+        server.setLatencyMillis("/slow", 5000);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+        try {
+            final HttpURLConnectionTransport transport = new HttpURLConnectionTransport(1);
+            final TransportRequest request = new TransportRequest("GET", new URL(server.url("/slow")),
+                                                                  Collections.<String, String>emptyMap(), null, null, 200, 30000);
+            Callable<TransportResponse> send = new Callable<TransportResponse>() {
+
+                @Override
+                public TransportResponse call() throws IOException {
+                    return transport.execute(request);
+                }
+            };
+
+            final Cancellation cancellation = new Cancellation();
+            timer.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    cancellation.cancel();
+                }
+            }, 200, TimeUnit.MILLISECONDS);
+
+            /* The read ignores interrupts and would only time out after 30 seconds */
+            long startNanos = System.nanoTime();
+            try {
+                cancellation.call(send);
+                fail("Expected an IOException");
+            } catch (IOException expected) {
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 2000);
+            }
+
+            try {
+                cancellation.call(send);
+                fail("Expected an InterruptedIOException");
+            } catch (InterruptedIOException expected) {
+                /* Not sent at all once cancelled */
+            }
+
+            assertEquals(1, server.getClientPorts().size());
+
+            /* Both requests gave back the route's only permit */
+            server.setLatencyMillis("/slow", 0);
+            transport.execute(request).close();
+        } finally {
+            timer.shutdownNow();
+            server.stop();
+        }
+    }
+
+    private static TransportRequest get(String url) throws IOException {
+        return new TransportRequest("GET", new URL(url), Collections.<String, String>emptyMap(), null, null, 200, 2000);
+    }
+
+    private static int unusedPort() throws IOException {
+        ServerSocket socket = new ServerSocket(0);
+        try {
+            return socket.getLocalPort();
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
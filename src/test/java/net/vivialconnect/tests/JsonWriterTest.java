@@ -0,0 +1,115 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.vivialconnect.model.account.Contact;
+import net.vivialconnect.model.format.JsonBodyBuilder;
+import net.vivialconnect.model.format.JsonWriter;
+
+public class JsonWriterTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void test_quotes_and_backslashes_are_escaped() {
+        assertEquals("\"say \\\"hi\\\"\"", stringValue("say \"hi\""));
+        assertEquals("\"C:\\\\temp\\\\\"", stringValue("C:\\temp\\"));
+    }
+
+    @Test
+    public void test_control_characters_are_escaped() {
+        assertEquals("\"a\\nb\\tc\\rd\\be\\ff\"", stringValue("a\nb\tc\rd\be\ff"));
+        assertEquals("\"\\u0000\\u0001\\u001f\"", stringValue("\u0000\u0001\u001f"));
+        assertEquals("\"\u007f\"", stringValue("\u007f"));
+    }
+
+    @Test
+    public void test_escaped_strings_read_back_unchanged() throws IOException {
+        String[] values = { "plain", "quote \" and \\ slash", "tab\tnew\nline", "\u0000\u001f", "héllo wörld",
+                            "日本語", "emoji \uD83D\uDE00 pair", "" };
+
+        for (String value : values) {
+            JsonWriter writer = new JsonWriter(16).beginObject().name("v").value(value).endObject();
+            assertEquals(value, MAPPER.readTree(writer.toByteArray()).get("v").asText());
+        }
+    }
+
+    @Test
+    public void test_non_ascii_is_encoded_as_utf8() throws IOException {
+        String value = "é日\uD83D\uDE00";
+
+        assertArrayEquals(("\"" + value + "\"").getBytes("UTF-8"), new JsonWriter().value(value).toByteArray());
+    }
+
+    @Test
+    public void test_unpaired_surrogates_are_replaced_like_get_bytes() throws IOException {
+        String[] values = { "\uD83D", "a\uDE00b", "\uDE00\uD83D", "end\uD83D" };
+
+        for (String value : values) {
+            assertArrayEquals(("\"" + value + "\"").getBytes("UTF-8"), new JsonWriter().value(value).toByteArray());
+        }
+    }
+
+    @Test
+    public void test_numbers_literals_and_separators() {
+        JsonWriter writer = new JsonWriter().beginArray()
+                                            .value(0)
+                                            .value(-42)
+                                            .value(Long.MAX_VALUE)
+                                            .value(Long.MIN_VALUE)
+                                            .value(true)
+                                            .nullValue()
+                                            .beginObject().name("a").value(false).name("b").beginArray().endArray().endObject()
+                                            .rawValue("{\"x\":1}")
+                                            .endArray();
+
+        assertEquals("[0,-42,9223372036854775807,-9223372036854775808,true,null,{\"a\":false,\"b\":[]},{\"x\":1}]",
+                     writer.toString());
+    }
+
+    @Test
+    public void test_byte_array_matches_the_built_string() throws IOException {
+        JsonBodyBuilder builder = JsonBodyBuilder.withCustomClassName("message")
+                                                 .addParamPair("body", "héllo \"wörld\"\n\uD83D\uDE00")
+                                                 .addParamPair("to_number", "+15555550100")
+                                                 .addParamPair("id", 7);
+
+        assertArrayEquals(builder.build().getBytes("UTF-8"), builder.toByteArray());
+
+        JsonBodyBuilder empty = JsonBodyBuilder.emptyJson();
+        assertArrayEquals(empty.build().getBytes("UTF-8"), empty.toByteArray());
+        assertEquals("{}", empty.build());
+    }
+
+    @Test
+    public void test_contact_body_can_be_built_again_after_more_fields_are_set() throws IOException {
+        Contact contact = new Contact();
+        contact.setFirstName("Ada");
+
+        JsonNode first = MAPPER.readTree(contact.jsonBodyForUpdate());
+        assertEquals("Ada", first.get("contact").get("first_name").asText());
+        assertEquals(1, first.get("contact").size());
+
+        contact.setEmail("ada@example.com");
+
+        String json = contact.jsonBodyForUpdate();
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> second = MAPPER.readValue(json, Map.class);
+        assertEquals("Ada", second.get("contact").get("first_name"));
+        assertEquals("ada@example.com", second.get("contact").get("email"));
+        assertEquals(json, contact.jsonBodyForUpdate());
+    }
+
+    private static String stringValue(String value) {
+        return new JsonWriter().value(value).toString();
+    }
+}
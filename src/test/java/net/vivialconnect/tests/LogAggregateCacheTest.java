@@ -0,0 +1,212 @@
+package net.vivialconnect.tests;
+
+import static net.vivialconnect.tests.data.FakeLogApi.HOUR_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.MINUTE_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.START_MICROS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.format.ResponseDecoder;
+import net.vivialconnect.model.log.AggregateInterval;
+import net.vivialconnect.model.log.CompactLog;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogAggregateCache;
+import net.vivialconnect.model.log.LogCollection;
+import net.vivialconnect.model.log.LogTimestamp;
+import net.vivialconnect.tests.data.FakeLogApi;
+
+public class LogAggregateCacheTest {
+
+    private static final Date START_TIME = FakeLogApi.time(START_MICROS);
+    private static final Date END_TIME = FakeLogApi.time(START_MICROS + 24 * HOUR_MICROS);
+
+    @Test
+    public void test_closed_buckets_are_read_once() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+        LogCollection direct = aggregate(api, null, START_TIME, END_TIME, "hours");
+
+        LogAggregateCache cache = LogAggregateCache.builder().build();
+        LogCollection first = aggregate(api, cache, START_TIME, END_TIME, "hours");
+        int requests = api.getRequests();
+        LogCollection second = aggregate(api, cache, START_TIME, END_TIME, "hours");
+
+        assertEquals(requests, api.getRequests());
+        assertEquals(24 * 60, totalCount(first.getLogs()));
+        assertSameAggregates(direct.getLogs(), first.getLogs());
+        assertSameAggregates(direct.getLogs(), second.getLogs());
+        assertEquals(24, cache.getMisses());
+        assertEquals(24, cache.getHits());
+    }
+
+    @Test
+    public void test_only_missing_buckets_are_read() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+        LogAggregateCache cache = LogAggregateCache.builder().build();
+
+        aggregate(api, cache, FakeLogApi.time(START_MICROS + 6 * HOUR_MICROS), FakeLogApi.time(START_MICROS + 12 * HOUR_MICROS), "hours");
+        int requests = api.getRequests();
+        LogCollection day = aggregate(api, cache, START_TIME, END_TIME, "hours");
+
+        assertEquals(requests + 2, api.getRequests());
+        assertEquals(24 * 60, totalCount(day.getLogs()));
+        assertEquals(LogTimestamp.format(START_MICROS + 23 * HOUR_MICROS).substring(0, 10), day.getLogs().get(0).getLogTimestamp());
+    }
+
+    @Test
+    public void test_open_tail_and_unaligned_head_are_read_every_time() throws VivialConnectException {
+        long nowMicros = System.currentTimeMillis() * 1000;
+        long firstHour = AggregateInterval.HOURS.truncate(nowMicros) - 3 * HOUR_MICROS;
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(firstHour, 200, MINUTE_MICROS);
+        LogAggregateCache cache = LogAggregateCache.builder().settleTime(0, TimeUnit.MILLISECONDS).build();
+
+        Date start = FakeLogApi.time(firstHour + 30 * MINUTE_MICROS);
+        Date end = FakeLogApi.time(nowMicros + HOUR_MICROS);
+        LogCollection first = aggregate(api, cache, start, end, "hours");
+        int requests = api.getRequests();
+        LogCollection second = aggregate(api, cache, start, end, "hours");
+
+        assertEquals(requests + 2, api.getRequests());
+        assertEquals(totalCount(aggregate(api, null, start, end, "hours").getLogs()), totalCount(second.getLogs()));
+        assertEquals(totalCount(first.getLogs()), totalCount(second.getLogs()));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void test_buckets_are_read_back_from_the_store_directory() throws VivialConnectException, IOException {
+        File directory = File.createTempFile("aggregates", "");
+        assertTrue(directory.delete());
+
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+        aggregate(api, LogAggregateCache.builder().storeDirectory(directory).build(), START_TIME, END_TIME, "days");
+        aggregate(api, LogAggregateCache.builder().storeDirectory(directory).build(), START_TIME, END_TIME, "minutes");
+        int requests = api.getRequests();
+
+        LogAggregateCache restarted = LogAggregateCache.builder().storeDirectory(directory).maxBuckets(100).build();
+        LogCollection days = aggregate(api, restarted, START_TIME, END_TIME, "days");
+        LogCollection minutes = aggregate(api, restarted, START_TIME, END_TIME, "minutes");
+
+        assertEquals(requests, api.getRequests());
+        assertEquals(24 * 60, totalCount(days.getLogs()));
+        assertEquals(24 * 60, totalCount(minutes.getLogs()));
+        assertEquals(100, restarted.size());
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void test_buckets_are_stored_as_json_read_by_the_client_decoder() throws VivialConnectException, IOException {
+        File directory = File.createTempFile("aggregates", "");
+        assertTrue(directory.delete());
+
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+        LogCollection direct = aggregate(api.clientBuilder().build(), null, START_TIME, END_TIME, "hours");
+        aggregate(api.clientBuilder().build(), LogAggregateCache.builder().storeDirectory(directory).build(), START_TIME, END_TIME, "hours");
+        int requests = api.getRequests();
+
+        AccountClient compactClient = api.clientBuilder().responseDecoder(new ResponseDecoder(true)).build();
+        LogCollection restored = aggregate(compactClient, LogAggregateCache.builder().storeDirectory(directory).build(),
+                                           START_TIME, END_TIME, "hours");
+
+        assertEquals(requests, api.getRequests());
+        assertSameAggregates(direct.getLogs(), restored.getLogs());
+        assertTrue(restored.getLogs().get(0) instanceof CompactLog);
+
+        File[] files = directory.listFiles();
+        assertEquals(24, files.length);
+        for (File file : files) {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                assertTrue(IOUtils.toString(in).contains("{\"log_items\":[{\"log_id\":null,\"account_id\":1,"));
+            } finally {
+                in.close();
+            }
+
+            file.delete();
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void test_buckets_are_kept_per_api_base_url() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+        LogAggregateCache cache = LogAggregateCache.builder().build();
+
+        aggregate(api.clientBuilder().build(), cache, START_TIME, END_TIME, "hours");
+        int requests = api.getRequests();
+        aggregate(api.clientBuilder().apiBaseUrl("https://eu.example.com/api/v1.0").build(), cache, START_TIME, END_TIME, "hours");
+
+        assertEquals(requests + 1, api.getRequests());
+        assertEquals(48, cache.getMisses());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_unknown_aggregator_type_is_rejected() throws VivialConnectException {
+        aggregate(new FakeLogApi(0), LogAggregateCache.builder().build(), START_TIME, END_TIME, "weeks");
+    }
+
+    private static LogCollection aggregate(FakeLogApi api, LogAggregateCache cache, Date start, Date end,
+                                           String aggregatorType) throws VivialConnectException {
+        return aggregate(api.clientBuilder().build(), cache, start, end, aggregatorType);
+    }
+
+    private static LogCollection aggregate(AccountClient client, final LogAggregateCache cache, final Date start, final Date end,
+                                           final String aggregatorType) throws VivialConnectException {
+        return client.call(new Callable<LogCollection>() {
+
+            @Override
+            public LogCollection call() throws VivialConnectException {
+                if (cache == null) {
+                    return Log.getAggregate(start, end, aggregatorType);
+                }
+
+                return cache.getAggregate(start, end, aggregatorType, null);
+            }
+        });
+    }
+
+    private static int totalCount(List<Log> logs) {
+        int total = 0;
+        for (Log log : logs) {
+            total += log.getLogCount();
+        }
+
+        return total;
+    }
+
+    private static void assertSameAggregates(List<Log> expected, List<Log> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getLogTimestamp(), actual.get(i).getLogTimestamp());
+            assertEquals(expected.get(i).getLogType(), actual.get(i).getLogType());
+            assertEquals(expected.get(i).getLogCount(), actual.get(i).getLogCount());
+            assertEquals(expected.get(i).getAccountId(), actual.get(i).getAccountId());
+            assertEquals(expected.get(i).getAccountIdLogType(), actual.get(i).getAccountIdLogType());
+            assertEquals(expected.get(i).getAggregateKey(), actual.get(i).getAggregateKey());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package net.vivialconnect.tests;
+
+import static net.vivialconnect.tests.data.FakeLogApi.HOUR_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.MINUTE_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.START_MICROS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.log.AggregateInterval;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogAggregator;
+import net.vivialconnect.model.log.LogScanner;
+import net.vivialconnect.tests.data.FakeLogApi;
+
+public class LogAggregatorTest {
+
+    private static final Date START_TIME = FakeLogApi.time(START_MICROS);
+    private static final Date END_TIME = FakeLogApi.time(START_MICROS + 24 * HOUR_MICROS);
+
+    @Test
+    public void test_rollups_match_api_aggregates() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+
+        for (boolean compact : new boolean[] { false, true }) {
+            LogAggregator aggregator = new LogAggregator(AggregateInterval.HOURS, LogAggregator.Dimension.LOG_TYPE);
+            List<Log> expected = read(api, compact, aggregator);
+            List<Log> rollups = aggregator.getRollups();
+
+            assertEquals(expected.size(), rollups.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getLogTimestamp(), rollups.get(i).getLogTimestamp());
+                assertEquals(expected.get(i).getLogType(), rollups.get(i).getLogType());
+                assertEquals(expected.get(i).getLogCount(), rollups.get(i).getLogCount());
+                assertEquals("hours", rollups.get(i).getAggregateKey());
+            }
+
+            assertEquals(24 * 60, aggregator.getLogsAdded());
+        }
+    }
+
+    @Test
+    public void test_counts_by_operator_and_calendar_buckets() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+
+        LogAggregator months = new LogAggregator(AggregateInterval.MONTHS, LogAggregator.Dimension.OPERATOR_ID,
+                                                 LogAggregator.Dimension.ITEM_TYPE);
+        read(api, true, months);
+        LogAggregator years = new LogAggregator(AggregateInterval.YEARS);
+        read(api, false, years);
+
+        assertEquals(7, months.size());
+        assertEquals(206, months.getCount(START_MICROS + MINUTE_MICROS, null, "msg_out_local_sms", 1));
+        assertEquals(0, months.getCount(START_MICROS, null, "msg_out_local_sms", 8));
+        assertEquals("201801", months.getRollups().get(0).getLogTimestamp());
+        assertNull(months.getRollups().get(0).getLogType());
+
+        assertEquals(1, years.size());
+        assertEquals(24 * 60, years.getCount(START_MICROS, null, null, 0));
+        assertEquals("2018", years.getRollups().get(0).getLogTimestamp());
+    }
+
+    @Test
+    public void test_merge_adds_counts_of_another_aggregator() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 24 * 60, MINUTE_MICROS);
+
+        LogAggregator first = new LogAggregator(AggregateInterval.DAYS, LogAggregator.Dimension.LOG_TYPE);
+        LogAggregator second = new LogAggregator(AggregateInterval.DAYS, LogAggregator.Dimension.LOG_TYPE);
+        read(api, false, first);
+        read(api, true, second);
+        first.merge(second);
+
+        assertEquals(4, first.size());
+        assertEquals(2 * 24 * 60, first.getLogsAdded());
+        assertEquals(2 * 360, first.getCount(START_MICROS, "message.sent", null, 0));
+    }
+
+    @Test
+    public void test_logs_without_timestamp_are_skipped() {
+        LogAggregator aggregator = new LogAggregator(AggregateInterval.MINUTES);
+        Log log = new Log();
+        log.setLogTimestamp("not a timestamp");
+
+        assertFalse(aggregator.add(log));
+        assertEquals(1, aggregator.getLogsSkipped());
+        assertEquals(0, aggregator.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_merge_of_different_dimensions_is_rejected() {
+        new LogAggregator(AggregateInterval.DAYS).merge(new LogAggregator(AggregateInterval.DAYS, LogAggregator.Dimension.LOG_TYPE));
+    }
+
+    /* Feeds every log of the day to the aggregator and returns the API's hourly aggregates of it */
+    private static List<Log> read(FakeLogApi api, boolean compact, final LogAggregator aggregator) throws VivialConnectException {
+        return api.clientBuilder().compactModels(compact).build().call(new Callable<List<Log>>() {
+
+            @Override
+            public List<Log> call() throws VivialConnectException {
+                aggregator.addAll(LogScanner.builder(START_TIME, END_TIME).build());
+                return Log.getAggregate(START_TIME, END_TIME, "hours").getLogs();
+            }
+        });
+    }
+}
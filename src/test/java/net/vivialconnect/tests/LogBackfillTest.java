@@ -0,0 +1,235 @@
+package net.vivialconnect.tests;
+
+import static net.vivialconnect.tests.data.FakeLogApi.HOUR_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.SECOND_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.START_MICROS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.AsyncDispatcher;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogBackfill;
+import net.vivialconnect.model.log.LogTimestamp;
+import net.vivialconnect.tests.data.FakeLogApi;
+
+public class LogBackfillTest {
+
+    private static final Date START_TIME = FakeLogApi.time(START_MICROS);
+    private static final Date END_TIME = FakeLogApi.time(START_MICROS + HOUR_MICROS);
+
+    @Test
+    public void test_backfill_reads_every_log_newest_first() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 3600, SECOND_MICROS);
+        final List<Long> logsReadPerShard = new ArrayList<Long>();
+        final List<Date> shardStarts = new ArrayList<Date>();
+
+        LogBackfill backfill = api.call(new Callable<LogBackfill>() {
+
+            @Override
+            public LogBackfill call() {
+                return LogBackfill.builder(START_TIME, END_TIME)
+                        .shardDuration(5, TimeUnit.MINUTES)
+                        .parallelism(4)
+                        .listener(new LogBackfill.Listener() {
+
+                            @Override
+                            public void onShardCompleted(Date shardStart, Date shardEnd, long logsRead) {
+                                logsReadPerShard.add(logsRead);
+                                shardStarts.add(shardStart);
+                            }
+                        })
+                        .build();
+            }
+        });
+
+        List<Log> logs = readLogs(backfill, -1);
+
+        assertEquals(12, backfill.getShardCount());
+        assertEquals(3600, logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            assertEquals(String.format("%020d", 3600 - i), logs.get(i).getLogId());
+        }
+
+        /* Shards hold several pages each, and the order carries on across their boundaries */
+        assertNewestFirst(logs);
+
+        assertEquals(12, logsReadPerShard.size());
+        assertEquals(Long.valueOf(300), logsReadPerShard.get(0));
+        assertEquals(Long.valueOf(3600), logsReadPerShard.get(11));
+        assertEquals(FakeLogApi.time(START_MICROS + 55 * 60 * SECOND_MICROS), shardStarts.get(0));
+        assertEquals(START_TIME, shardStarts.get(11));
+    }
+
+    @Test
+    public void test_shards_are_read_concurrently() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(20);
+        api.append(START_MICROS, 1200, 3 * SECOND_MICROS);
+
+        List<Log> logs = readLogs(backfill(api, 8, 4), -1);
+
+        assertEquals(1200, logs.size());
+        assertTrue(api.getMaxInFlight() > 1);
+        assertTrue(api.getMaxInFlight() <= 4);
+    }
+
+    @Test
+    public void test_logs_on_a_shard_boundary_are_read_once() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 60, 60 * SECOND_MICROS);
+
+        List<Log> logs = readLogs(backfill(api, 60, LogBackfill.DEFAULT_PARALLELISM), -1);
+
+        assertEquals(60, logs.size());
+        assertEquals(String.format("%020d", 60), logs.get(0).getLogId());
+        assertEquals(String.format("%020d", 1), logs.get(59).getLogId());
+        assertNewestFirst(logs);
+    }
+
+    @Test
+    public void test_closing_early_stops_the_backfill() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(5);
+        api.append(START_MICROS, 3600, SECOND_MICROS);
+
+        List<Log> logs = readLogs(backfill(api, 60, 2), 10);
+
+        assertEquals(10, logs.size());
+        assertTrue(api.getRequests() < 60);
+    }
+
+    @Test
+    public void test_shard_boundaries_fall_on_whole_seconds() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 3600, SECOND_MICROS);
+        final Date startTime = new Date(START_TIME.getTime() + 500);
+        final List<Date> boundaries = new ArrayList<Date>();
+
+        LogBackfill backfill = api.call(new Callable<LogBackfill>() {
+
+            @Override
+            public LogBackfill call() {
+                return LogBackfill.builder(startTime, END_TIME)
+                        .shardDuration(1, TimeUnit.MINUTES)
+                        .listener(new LogBackfill.Listener() {
+
+                            @Override
+                            public void onShardCompleted(Date shardStart, Date shardEnd, long logsRead) {
+                                boundaries.add(shardEnd);
+                            }
+                        })
+                        .build();
+            }
+        });
+
+        List<Log> logs = readLogs(backfill, -1);
+
+        assertEquals(60, backfill.getShardCount());
+        assertEquals(60, boundaries.size());
+        for (Date boundary : boundaries) {
+            assertEquals(0, boundary.getTime() % 1000);
+        }
+
+        /* The API reads the start as a whole second, and the earliest shard keeps what it returns */
+        assertEquals(3600, logs.size());
+        for (int i = 0; i < logs.size(); i++) {
+            assertEquals(String.format("%020d", 3600 - i), logs.get(i).getLogId());
+        }
+    }
+
+    @Test
+    public void test_abandoned_iterator_does_not_hold_dispatcher_slots() throws Exception {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 3600, SECOND_MICROS);
+        final AccountClient client = api.clientBuilder().asyncDispatcher(new AsyncDispatcher(2)).build();
+
+        LogBackfill backfill = client.call(new Callable<LogBackfill>() {
+
+            @Override
+            public LogBackfill call() {
+                return LogBackfill.builder(START_TIME, END_TIME)
+                        .queryParams(Collections.singletonMap("limit", "10"))
+                        .shardCount(4)
+                        .parallelism(2)
+                        .bufferedPages(1)
+                        .build();
+            }
+        });
+
+        LogBackfill.BackfillIterator iterator = backfill.iterator();
+        iterator.next();
+        /* Give the shards time to fill their buffers and wait for the caller */
+        Thread.sleep(100);
+
+        /* Submitting waits for a free slot, so it is done from another thread that can be given up on */
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> operation = executor.submit(new Callable<String>() {
+
+                @Override
+                public String call() throws Exception {
+                    return client.submit(new Callable<String>() {
+
+                        @Override
+                        public String call() {
+                            return "done";
+                        }
+                    }, null).get();
+                }
+            });
+
+            assertEquals("done", operation.get(5, TimeUnit.SECONDS));
+        } finally {
+            iterator.close();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_end_before_start_is_rejected() {
+        LogBackfill.builder(END_TIME, START_TIME);
+    }
+
+    /* Builds the backfill with a client backed by the fake API, which it keeps using once built */
+    private static LogBackfill backfill(FakeLogApi api, final int shardCount, final int parallelism) throws VivialConnectException {
+        return api.call(new Callable<LogBackfill>() {
+
+            @Override
+            public LogBackfill call() {
+                return LogBackfill.builder(START_TIME, END_TIME).shardCount(shardCount).parallelism(parallelism).build();
+            }
+        });
+    }
+
+    private static void assertNewestFirst(List<Log> logs) {
+        for (int i = 1; i < logs.size(); i++) {
+            long newer = LogTimestamp.toEpochMicros(logs.get(i - 1).getLogTimestamp());
+            assertTrue(newer >= LogTimestamp.toEpochMicros(logs.get(i).getLogTimestamp()));
+        }
+    }
+
+    /* Reads logs with no client bound to the thread */
+    private static List<Log> readLogs(LogBackfill backfill, int maxLogs) {
+        List<Log> logs = new ArrayList<Log>();
+        LogBackfill.BackfillIterator iterator = backfill.iterator();
+        while (iterator.hasNext() && logs.size() != maxLogs) {
+            logs.add(iterator.next());
+        }
+
+        iterator.close();
+        return logs;
+    }
+}
@@ -0,0 +1,147 @@
+package net.vivialconnect.tests;
+
+import static net.vivialconnect.tests.data.FakeLogApi.HOUR_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.SECOND_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.START_MICROS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import net.vivialconnect.model.PagedIterable;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.log.LogScanner;
+import net.vivialconnect.tests.data.FakeLogApi;
+
+public class LogScannerTest {
+
+    private static final Date START_TIME = FakeLogApi.time(START_MICROS);
+    private static final Date END_TIME = FakeLogApi.time(START_MICROS + HOUR_MICROS);
+
+    @Test
+    public void test_scan_follows_last_key_across_pages() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 1000, SECOND_MICROS);
+        RecordingListener listener = new RecordingListener();
+
+        List<String> logIds = readLogIds(scanner(api, null, listener), -1);
+
+        assertEquals(1000, logIds.size());
+        assertEquals(String.format("%020d", 1000), logIds.get(0));
+        assertEquals(String.format("%020d", 1), logIds.get(999));
+        assertEquals(7, api.getRequests());
+        assertEquals(7, listener.resumeKeys.size());
+        assertNull(listener.resumeKeys.get(6));
+        assertEquals(1000, listener.logsFetched);
+    }
+
+    @Test
+    public void test_scan_resumes_after_last_checkpoint() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 1000, SECOND_MICROS);
+        RecordingListener listener = new RecordingListener();
+
+        List<String> firstRun = readLogIds(scanner(api, null, listener), 320);
+        String resumeKey = listener.resumeKeys.get(listener.resumeKeys.size() - 1);
+        List<String> secondRun = readLogIds(scanner(api, resumeKey, new RecordingListener()), -1);
+
+        assertEquals(2, listener.resumeKeys.size());
+        assertEquals(300, listener.logsRead);
+        assertEquals(String.format("%020d", 700), secondRun.get(0));
+        assertEquals(320, firstRun.size());
+        assertEquals(700, secondRun.size());
+    }
+
+    @Test
+    public void test_next_page_is_fetched_while_current_page_is_consumed() throws VivialConnectException {
+        final FakeLogApi api = new FakeLogApi(20);
+        api.append(START_MICROS, 300, SECOND_MICROS);
+
+        final List<Integer> requestsAtFirstCheckpoint = new ArrayList<Integer>();
+        LogScanner scanner = scanner(api, null, new LogScanner.Listener() {
+
+            @Override
+            public void onCheckpoint(String resumeKey, long logsRead) {
+                requestsAtFirstCheckpoint.add(api.getRequests());
+            }
+        });
+
+        readLogIds(scanner, -1, 200);
+
+        assertTrue(requestsAtFirstCheckpoint.get(0) >= 2);
+    }
+
+    @Test
+    public void test_empty_range_ends_the_scan() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        RecordingListener listener = new RecordingListener();
+
+        assertTrue(readLogIds(scanner(api, null, listener), -1).isEmpty());
+        assertEquals(1, api.getRequests());
+        assertEquals(1, listener.resumeKeys.size());
+        assertNull(listener.resumeKeys.get(0));
+    }
+
+    /* Builds the scanner with a client backed by the fake API, which it keeps using once built */
+    private static LogScanner scanner(FakeLogApi api, final String resumeKey, final LogScanner.Listener listener)
+            throws VivialConnectException {
+        return api.call(new Callable<LogScanner>() {
+
+            @Override
+            public LogScanner call() {
+                return LogScanner.builder(START_TIME, END_TIME).resumeFrom(resumeKey).listener(listener).build();
+            }
+        });
+    }
+
+    private static List<String> readLogIds(LogScanner scanner, int maxLogs) {
+        return readLogIds(scanner, maxLogs, 0);
+    }
+
+    /* Reads logs with no client bound to the thread, pausing after the first page if asked */
+    private static List<String> readLogIds(LogScanner scanner, int maxLogs, long pauseMillis) {
+        List<String> logIds = new ArrayList<String>();
+        LogScanner.LogIterator logs = scanner.iterator();
+        while (logs.hasNext() && logIds.size() != maxLogs) {
+            logIds.add(logs.next().getLogId());
+            if (logIds.size() == PagedIterable.MAX_PAGE_SIZE && pauseMillis > 0) {
+                pause(pauseMillis);
+            }
+        }
+
+        logs.close();
+        return logIds;
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            throw new AssertionError(ie);
+        }
+    }
+
+    private static class RecordingListener extends LogScanner.Listener {
+
+        private final List<String> resumeKeys = new ArrayList<String>();
+        private long logsFetched;
+        private long logsRead;
+
+        @Override
+        public void onPageFetched(int pageSize, long logsFetched) {
+            this.logsFetched = logsFetched;
+        }
+
+        @Override
+        public void onCheckpoint(String resumeKey, long logsRead) {
+            resumeKeys.add(resumeKey);
+            this.logsRead = logsRead;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package net.vivialconnect.tests;
+
+import static net.vivialconnect.tests.data.FakeLogApi.SECOND_MICROS;
+import static net.vivialconnect.tests.data.FakeLogApi.START_MICROS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogTailer;
+import net.vivialconnect.model.log.LogTimestamp;
+import net.vivialconnect.tests.data.FakeLogApi;
+
+public class LogTailerTest {
+
+    private static final Date START_TIME = FakeLogApi.time(START_MICROS);
+
+    @Test
+    public void test_logs_read_again_in_the_overlap_are_skipped() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 500, SECOND_MICROS);
+        RecordingListener listener = new RecordingListener();
+        LogTailer tailer = LogTailer.builder().startFrom(START_TIME).overlap(5, TimeUnit.MINUTES).listener(listener).build();
+
+        assertEquals(500, poll(api, tailer));
+        api.append(START_MICROS + 500 * SECOND_MICROS, 20, SECOND_MICROS);
+        assertEquals(20, poll(api, tailer));
+        assertEquals(0, poll(api, tailer));
+
+        assertEquals(520, listener.logIds.size());
+        assertEquals(String.format("%020d", 1), listener.logIds.get(499));
+        assertEquals(String.format("%020d", 520), listener.logIds.get(500));
+        assertEquals(LogTimestamp.format(START_MICROS + 519 * SECOND_MICROS), tailer.getCursor());
+    }
+
+    @Test
+    public void test_poll_interval_adapts_to_new_logs() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 10, SECOND_MICROS);
+        LogTailer tailer = LogTailer.builder()
+                .startFrom(START_TIME)
+                .pollInterval(100, 800, TimeUnit.MILLISECONDS)
+                .listener(new RecordingListener())
+                .build();
+
+        poll(api, tailer);
+        assertEquals(100, tailer.getPollInterval());
+
+        poll(api, tailer);
+        poll(api, tailer);
+        assertEquals(400, tailer.getPollInterval());
+
+        poll(api, tailer);
+        poll(api, tailer);
+        assertEquals(800, tailer.getPollInterval());
+
+        api.append(START_MICROS + 10 * SECOND_MICROS, 1, SECOND_MICROS);
+        poll(api, tailer);
+        assertEquals(400, tailer.getPollInterval());
+    }
+
+    @Test
+    public void test_restart_resumes_from_cursor_file() throws VivialConnectException, IOException {
+        File cursorFile = File.createTempFile("logs", ".cursor");
+        assertTrue(cursorFile.delete());
+        cursorFile.deleteOnExit();
+
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 300, SECOND_MICROS);
+        RecordingListener firstListener = new RecordingListener();
+        LogTailer first = LogTailer.builder().startFrom(START_TIME).cursorFile(cursorFile).listener(firstListener).build();
+        poll(api, first);
+
+        api.append(START_MICROS + 300 * SECOND_MICROS, 5, SECOND_MICROS);
+        RecordingListener secondListener = new RecordingListener();
+        LogTailer second = LogTailer.builder().cursorFile(cursorFile).listener(secondListener).build();
+        int requestsBefore = api.getRequests();
+        poll(api, second);
+
+        assertEquals(300, firstListener.logIds.size());
+        assertEquals(5, secondListener.logIds.size());
+        assertEquals(String.format("%020d", 305), secondListener.logIds.get(0));
+        assertEquals(String.format("%020d", 301), secondListener.logIds.get(4));
+        assertEquals(1, api.getRequests() - requestsBefore);
+    }
+
+    @Test
+    public void test_background_polling_reads_new_logs() throws VivialConnectException, InterruptedException {
+        final FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 50, SECOND_MICROS);
+        final RecordingListener listener = new RecordingListener();
+        final LogTailer tailer = LogTailer.builder()
+                .startFrom(START_TIME)
+                .pollInterval(10, 50, TimeUnit.MILLISECONDS)
+                .listener(listener)
+                .build();
+
+        api.call(new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                tailer.start();
+                return null;
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (listener.size() < 50 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        api.append(START_MICROS + 50 * SECOND_MICROS, 5, SECOND_MICROS);
+        while (listener.size() < 55 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        tailer.stop();
+        assertEquals(55, listener.size());
+    }
+
+    @Test
+    public void test_log_the_listener_fails_on_is_read_again() throws VivialConnectException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 10, SECOND_MICROS);
+        final RecordingListener listener = new RecordingListener() {
+
+            private boolean failed;
+
+            @Override
+            public synchronized void onLog(Log log) {
+                if (!failed && log.getLogId().equals(String.format("%020d", 5))) {
+                    failed = true;
+                    throw new IllegalStateException("Not now");
+                }
+
+                super.onLog(log);
+            }
+        };
+        LogTailer tailer = LogTailer.builder().startFrom(START_TIME).listener(listener).build();
+
+        try {
+            poll(api, tailer);
+            fail("Expected the listener's failure");
+        } catch (IllegalStateException expected) {
+            assertEquals(5, listener.size());
+        }
+
+        assertEquals(5, poll(api, tailer));
+        assertEquals(10, listener.size());
+        assertEquals(String.format("%020d", 5), listener.logIds.get(5));
+    }
+
+    @Test
+    public void test_listener_failure_backs_off_to_the_longest_interval() throws VivialConnectException, InterruptedException {
+        FakeLogApi api = new FakeLogApi(0);
+        api.append(START_MICROS, 10, SECOND_MICROS);
+        final List<VivialConnectException> failures = new ArrayList<VivialConnectException>();
+        final LogTailer tailer = LogTailer.builder()
+                .startFrom(START_TIME)
+                .pollInterval(10, 5000, TimeUnit.MILLISECONDS)
+                .listener(new LogTailer.Listener() {
+
+                    @Override
+                    public void onLog(Log log) {
+                        throw new IllegalStateException("Not now");
+                    }
+
+                    @Override
+                    public void onFailure(VivialConnectException failure) {
+                        synchronized (failures) {
+                            failures.add(failure);
+                        }
+                    }
+                })
+                .build();
+
+        api.call(new Callable<Void>() {
+
+            @Override
+            public Void call() {
+                tailer.start();
+                return null;
+            }
+        });
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (failures) {
+                if (!failures.isEmpty()) {
+                    break;
+                }
+            }
+
+            Thread.sleep(10);
+        }
+
+        tailer.stop();
+        synchronized (failures) {
+            assertEquals(1, failures.size());
+            assertTrue(failures.get(0).getCause() instanceof IllegalStateException);
+        }
+
+        assertEquals(5000, tailer.getPollInterval());
+    }
+
+    private static int poll(FakeLogApi api, final LogTailer tailer) throws VivialConnectException {
+        return api.call(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws VivialConnectException {
+                return tailer.poll();
+            }
+        });
+    }
+
+    private static class RecordingListener extends LogTailer.Listener {
+
+        private final List<String> logIds = new ArrayList<String>();
+
+        @Override
+        public synchronized void onLog(Log log) {
+            logIds.add(log.getLogId());
+        }
+
+        synchronized int size() {
+            return logIds.size();
+        }
+    }
+}
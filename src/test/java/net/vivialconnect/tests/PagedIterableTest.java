@@ -0,0 +1,232 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.PagedIterable;
+import net.vivialconnect.model.error.PageFetchException;
+import net.vivialconnect.model.error.VivialConnectException;
+
+public class PagedIterableTest {
+
+    @Test
+    public void test_every_page_is_walked_in_order() {
+        FakeEndpoint endpoint = new FakeEndpoint(1000, 1000);
+
+        assertEquals(expectedItems(1, 1000), collect(new PagedIterable<Integer>(endpoint, withLimitOf(150))));
+        assertEquals(7, endpoint.pagesFetched.get());
+        assertEquals(0, endpoint.countsFetched.get());
+    }
+
+    @Test
+    public void test_nothing_is_fetched_until_iteration_starts() {
+        FakeEndpoint endpoint = new FakeEndpoint(1000, 1000);
+        PagedIterable<Integer> items = new PagedIterable<Integer>(endpoint, null, 4);
+
+        assertEquals(0, endpoint.pagesFetched.get());
+        assertEquals(expectedItems(1, 1000), collect(items));
+        assertEquals(expectedItems(1, 1000), collect(items));
+    }
+
+    @Test
+    public void test_concurrent_pages_keep_their_order() {
+        FakeEndpoint endpoint = new FakeEndpoint(1000, 1000);
+
+        assertEquals(expectedItems(1, 1000), collect(new PagedIterable<Integer>(endpoint, withLimitOf(50), 8)));
+        assertEquals(1, endpoint.countsFetched.get());
+        /* The last page is full, so one more page confirms the end */
+        assertEquals(21, endpoint.pagesFetched.get());
+        assertTrue(endpoint.maxConcurrentFetches.get() > 1);
+        assertTrue(endpoint.maxConcurrentFetches.get() <= 8);
+    }
+
+    @Test
+    public void test_walk_continues_past_a_stale_count() {
+        FakeEndpoint endpoint = new FakeEndpoint(1000, 120);
+
+        assertEquals(expectedItems(1, 1000), collect(new PagedIterable<Integer>(endpoint, withLimitOf(50), 4)));
+    }
+
+    @Test
+    public void test_walk_starts_at_the_requested_page() {
+        Map<String, String> filters = withLimitOf(100);
+        filters.put("page", "3");
+
+        assertEquals(expectedItems(201, 1000), collect(new PagedIterable<Integer>(new FakeEndpoint(1000, 1000), filters)));
+    }
+
+    @Test
+    public void test_missing_page_ends_the_walk() {
+        FakeEndpoint endpoint = new FakeEndpoint(300, 300);
+        endpoint.notFoundPastTheEnd = true;
+
+        assertEquals(expectedItems(1, 300), collect(new PagedIterable<Integer>(endpoint, withLimitOf(100))));
+    }
+
+    @Test
+    public void test_failed_page_is_thrown_from_the_iterator() {
+        FakeEndpoint endpoint = new FakeEndpoint(1000, 1000);
+        endpoint.failingPage = 3;
+
+        List<Integer> items = new ArrayList<Integer>();
+        try {
+            for (Integer item : new PagedIterable<Integer>(endpoint, withLimitOf(100))) {
+                items.add(item);
+            }
+
+            fail("Expected a PageFetchException");
+        } catch (PageFetchException pfe) {
+            assertSame(endpoint.failure, pfe.getCause());
+        }
+
+        assertEquals(expectedItems(1, 200), items);
+    }
+
+    @Test
+    public void test_closed_iterator_stops_fetching() {
+        FakeEndpoint endpoint = new FakeEndpoint(1000, 1000);
+        PagedIterable<Integer>.PageIterator iterator = new PagedIterable<Integer>(endpoint, withLimitOf(100)).iterator();
+
+        assertEquals(Integer.valueOf(1), iterator.next());
+        iterator.close();
+
+        assertFalse(iterator.hasNext());
+        assertTrue(endpoint.pagesFetched.get() <= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_limit_above_the_max_page_size_is_rejected() {
+        new PagedIterable<Integer>(new FakeEndpoint(1000, 1000), withLimitOf(PagedIterable.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void test_pages_are_fetched_with_the_client_current_at_creation() throws VivialConnectException {
+        final FakeEndpoint endpoint = new FakeEndpoint(1000, 1000);
+        final AccountClient client = AccountClient.builder(2, "key", "secret").build();
+
+        PagedIterable<Integer> items = client.call(new Callable<PagedIterable<Integer>>() {
+
+            @Override
+            public PagedIterable<Integer> call() {
+                return new PagedIterable<Integer>(endpoint, withLimitOf(100), 4);
+            }
+        });
+
+        assertEquals(expectedItems(1, 1000), collect(items));
+        assertEquals(Collections.singleton(client), endpoint.clients);
+    }
+
+    private static List<Integer> collect(Iterable<Integer> items) {
+        List<Integer> collected = new ArrayList<Integer>();
+        for (Integer item : items) {
+            collected.add(item);
+        }
+
+        return collected;
+    }
+
+    private static List<Integer> expectedItems(int first, int last) {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = first; i <= last; i++) {
+            items.add(i);
+        }
+
+        return items;
+    }
+
+    private static Map<String, String> withLimitOf(int limit) {
+        Map<String, String> filters = new HashMap<String, String>();
+        filters.put("limit", String.valueOf(limit));
+
+        return filters;
+    }
+
+    /* Serves the numbers 1 to total, and reports a count that may be stale */
+    private static class FakeEndpoint extends PagedIterable.PageFetcher<Integer> {
+
+        private final int total;
+        private final int reportedCount;
+
+        private final AtomicInteger pagesFetched = new AtomicInteger();
+        private final AtomicInteger countsFetched = new AtomicInteger();
+        private final AtomicInteger concurrentFetches = new AtomicInteger();
+        private final AtomicInteger maxConcurrentFetches = new AtomicInteger();
+
+        private final Set<AccountClient> clients = Collections.synchronizedSet(new HashSet<AccountClient>());
+
+        private volatile boolean notFoundPastTheEnd;
+        private volatile int failingPage;
+        private final VivialConnectException failure = new VivialConnectException("Internal server error", null);
+
+        FakeEndpoint(int total, int reportedCount) {
+            this.total = total;
+            this.reportedCount = reportedCount;
+        }
+
+        @Override
+        public List<Integer> fetchPage(Map<String, String> queryParams) throws VivialConnectException {
+            int page = Integer.parseInt(queryParams.get("page"));
+            int limit = Integer.parseInt(queryParams.get("limit"));
+
+            pagesFetched.incrementAndGet();
+            clients.add(VivialConnectClient.current());
+            int concurrent = concurrentFetches.incrementAndGet();
+            try {
+                while (true) {
+                    int max = maxConcurrentFetches.get();
+                    if (concurrent <= max || maxConcurrentFetches.compareAndSet(max, concurrent)) {
+                        break;
+                    }
+                }
+
+                Thread.sleep(5);
+
+                if (page == failingPage) {
+                    throw failure;
+                }
+
+                int first = (page - 1) * limit + 1;
+                if (first > total && notFoundPastTheEnd) {
+                    VivialConnectException notFound = new VivialConnectException("Not found", null);
+                    notFound.setResponseCode(404);
+                    throw notFound;
+                }
+
+                List<Integer> items = new ArrayList<Integer>();
+                for (int i = first; i < first + limit && i <= total; i++) {
+                    items.add(i);
+                }
+
+                return items.isEmpty() ? Collections.<Integer>emptyList() : items;
+            } catch (InterruptedException ie) {
+                throw new VivialConnectException(ie);
+            } finally {
+                concurrentFetches.decrementAndGet();
+            }
+        }
+
+        @Override
+        public int count() {
+            countsFetched.incrementAndGet();
+            clients.add(VivialConnectClient.current());
+            return reportedCount;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.HedgingPolicy;
+import net.vivialconnect.client.RateLimiter;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.ScriptedTransport;
+import net.vivialconnect.tests.data.ScriptedTransport.Reply;
+
+public class RateLimiterTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+
+    @Test
+    public void test_requests_beyond_the_burst_are_paced() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setLimit(RateLimiter.MESSAGES, 20, 2);
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages.json");
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.acquire(endpoint);
+        }
+
+        /* Two permits at once, then one every 50 ms */
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(180));
+    }
+
+    @Test
+    public void test_limits_are_per_account_and_endpoint_class() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setLimit(RateLimiter.MESSAGES, 1, 1);
+        rateLimiter.setLimit(2, RateLimiter.MESSAGES, 1000, 10);
+
+        URL messages = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages.json");
+        URL numbers = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/numbers.json");
+        URL otherAccount = new URL("https://api.vivialconnect.net/api/v1.0/accounts/2/messages.json");
+
+        assertTrue(rateLimiter.tryAcquire(messages, 0, TimeUnit.MILLISECONDS));
+        assertFalse(rateLimiter.tryAcquire(messages, 10, TimeUnit.MILLISECONDS));
+        assertTrue(rateLimiter.tryAcquire(numbers, 0, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire(otherAccount, 0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void test_failed_try_does_not_use_a_permit() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setDefaultLimit(10, 1);
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/logs.json");
+
+        assertTrue(rateLimiter.tryAcquire(endpoint, 0, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 5; i++) {
+            assertFalse(rateLimiter.tryAcquire(endpoint, 1, TimeUnit.MILLISECONDS));
+        }
+
+        /* Only the first permit was taken, so the next one is 100 ms away, not 600 */
+        assertTrue(rateLimiter.tryAcquire(endpoint, 150, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void test_throttled_response_halves_the_rate_and_success_restores_it() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setDefaultLimit(100, 1);
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages.json");
+
+        rateLimiter.onResponse(endpoint, 429, null);
+        assertEquals(50, rateLimiter.getCurrentRate(endpoint), 0.001);
+
+        for (int i = 0; i < 100; i++) {
+            rateLimiter.onResponse(endpoint, 200, null);
+        }
+
+        assertEquals(100, rateLimiter.getCurrentRate(endpoint), 0.001);
+    }
+
+    @Test
+    public void test_retry_after_pauses_even_an_unlimited_group() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages.json");
+
+        rateLimiter.onResponse(endpoint, 429, "1");
+        assertFalse(rateLimiter.tryAcquire(endpoint, 500, TimeUnit.MILLISECONDS));
+        assertTrue(rateLimiter.tryAcquire(endpoint, 1500, TimeUnit.MILLISECONDS));
+
+        SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+        rateLimiter.onResponse(endpoint, 429, httpDate.format(new Date(System.currentTimeMillis() + 3000)));
+        assertFalse(rateLimiter.tryAcquire(endpoint, 1000, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void test_request_is_signed_after_waiting_for_the_rate_limiter() throws VivialConnectException {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.setLimit(RateLimiter.MESSAGES, 0.8, 1);
+        SkewRecordingTransport transport = new SkewRecordingTransport(new ScriptedTransport().respondByDefault(200, MESSAGE));
+        AccountClient client = AccountClient.builder(1, "key", "secret").transport(transport).rateLimiter(rateLimiter).build();
+
+        getMessage(client);
+        getMessage(client);
+
+        /* The second request waited over a second for its permit, and was signed afterwards */
+        assertEquals(2, transport.skewsMillis.size());
+        for (long skewMillis : transport.skewsMillis) {
+            assertTrue("Signed " + skewMillis + " ms before being sent", skewMillis < 1000);
+        }
+    }
+
+    @Test
+    public void test_hedged_attempt_is_signed_again() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().enqueue(new Reply(200, MESSAGE).latency(2000))
+                                                             .respondByDefault(200, MESSAGE);
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(0.95, 1100, 1);
+        AccountClient client = transport.clientBuilder().hedgingPolicy(hedgingPolicy).build();
+
+        try {
+            assertEquals("Hi", getMessage(client).getBody());
+        } finally {
+            hedgingPolicy.shutdown();
+        }
+
+        List<TransportRequest> requests = transport.getRequests();
+        assertEquals(2, requests.size());
+        assertNotSame(requests.get(0).getHeaders(), requests.get(1).getHeaders());
+        assertNotEquals(requests.get(0).getHeaders().get("X-Auth-Date"), requests.get(1).getHeaders().get("X-Auth-Date"));
+    }
+
+    private static Message getMessage(AccountClient client) throws VivialConnectException {
+        return client.call(new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        });
+    }
+
+    /* Records how long before being sent each request was signed */
+    private static class SkewRecordingTransport implements Transport {
+
+        private final Transport delegate;
+        private final List<Long> skewsMillis = Collections.synchronizedList(new ArrayList<Long>());
+
+        SkewRecordingTransport(Transport delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            try {
+                SimpleDateFormat iso8601 = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.ENGLISH);
+                iso8601.setTimeZone(TimeZone.getTimeZone("GMT"));
+                long signedAtMillis = iso8601.parse(request.getHeaders().get("X-Auth-Date")).getTime();
+                skewsMillis.add(System.currentTimeMillis() - signedAtMillis);
+            } catch (ParseException pe) {
+                throw new IOException(pe);
+            }
+
+            return delegate.execute(request);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.Deadline;
+import net.vivialconnect.client.RequestCoalescer;
+import net.vivialconnect.model.error.RequestTimeoutException;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.ScriptedTransport;
+import net.vivialconnect.tests.data.ScriptedTransport.Reply;
+
+public class RequestCoalescerTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+
+    @Test
+    public void test_concurrent_callers_share_one_request_and_decode_their_own_copy() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(new Reply(200, MESSAGE).latency(300));
+        RequestCoalescer requestCoalescer = new RequestCoalescer();
+        AccountClient client = transport.clientBuilder().requestCoalescer(requestCoalescer).build();
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+
+        try {
+            List<Future<Message>> results = new ArrayList<Future<Message>>();
+            for (int i = 0; i < 5; i++) {
+                results.add(executor.submit(getMessage(client, null)));
+            }
+
+            List<Message> messages = new ArrayList<Message>();
+            for (Future<Message> result : results) {
+                messages.add(result.get());
+            }
+
+            assertEquals(1, transport.getRequestCount());
+            assertEquals(4, requestCoalescer.getCoalesced());
+            assertEquals(0, requestCoalescer.getInFlight());
+
+            messages.get(0).setBody("Changed");
+            for (int i = 1; i < messages.size(); i++) {
+                assertNotSame(messages.get(0), messages.get(i));
+                assertEquals("Hi", messages.get(i).getBody());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_waiting_caller_gives_up_at_its_own_deadline() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(new Reply(200, MESSAGE).latency(500));
+        AccountClient client = transport.clientBuilder().requestCoalescer(new RequestCoalescer()).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Message> leader = executor.submit(getMessage(client, null));
+            Thread.sleep(50);
+
+            long startNanos = System.nanoTime();
+            try {
+                executor.submit(getMessage(client, Deadline.after(100, TimeUnit.MILLISECONDS))).get();
+                fail("Expected a RequestTimeoutException");
+            } catch (ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof RequestTimeoutException);
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 400);
+            }
+
+            assertEquals("Hi", leader.get().getBody());
+            assertEquals(1, transport.getRequestCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_waiting_caller_sends_the_request_again_when_the_leader_runs_out_of_time() throws Exception {
+        ScriptedTransport transport = new ScriptedTransport().enqueue(new Reply(200, MESSAGE).latency(300))
+                                                             .respondByDefault(200, MESSAGE);
+        AccountClient client = transport.clientBuilder().requestCoalescer(new RequestCoalescer()).build();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Message> leader = executor.submit(getMessage(client, Deadline.after(100, TimeUnit.MILLISECONDS)));
+            Thread.sleep(50);
+            Future<Message> follower = executor.submit(getMessage(client, Deadline.after(5, TimeUnit.SECONDS)));
+
+            try {
+                leader.get();
+                fail("Expected a RequestTimeoutException");
+            } catch (ExecutionException ee) {
+                assertTrue(ee.getCause() instanceof RequestTimeoutException);
+            }
+
+            assertEquals("Hi", follower.get().getBody());
+            assertEquals(2, transport.getRequestCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Callable<Message> getMessage(final AccountClient client, final Deadline deadline) {
+        final Callable<Message> operation = new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        };
+
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return deadline == null ? client.call(operation) : deadline.call(new Callable<Message>() {
+
+                    @Override
+                    public Message call() throws VivialConnectException {
+                        return client.call(operation);
+                    }
+                });
+            }
+        };
+    }
+}
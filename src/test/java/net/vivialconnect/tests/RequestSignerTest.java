@@ -0,0 +1,133 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.Test;
+
+import net.vivialconnect.http.CanonicalRequestBuilder;
+import net.vivialconnect.http.RequestSigner;
+import net.vivialconnect.http.RequestTimestamp;
+import net.vivialconnect.util.CryptoUtils;
+
+public class RequestSignerTest {
+
+    private static final String API_KEY = "key";
+    private static final String API_SECRET = "secret";
+
+    @Test
+    public void test_signature_matches_a_freshly_computed_hmac() throws Exception {
+        RequestSigner signer = new RequestSigner(API_KEY, API_SECRET);
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages.json?page=2&limit=50");
+        Map<String, String> queryParams = new HashMap<String, String>();
+        queryParams.put("page", "2");
+        queryParams.put("limit", "50");
+
+        Map<String, String> headers = signer.sign("GET", endpoint, queryParams, null, false);
+
+        assertEquals("HMAC " + API_KEY + ":" + expectedSignature("GET", endpoint, queryParams, null, headers),
+                     headers.get("Authorization"));
+        assertEquals("accept;date;host", headers.get("X-Auth-SignedHeaders"));
+        assertFalse(headers.containsKey("Content-Type"));
+    }
+
+    @Test
+    public void test_body_and_content_type_are_signed() throws Exception {
+        RequestSigner signer = new RequestSigner(API_KEY, API_SECRET);
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages.json");
+        byte[] body = "{\"message\":{\"body\":\"héllo\"}}".getBytes("UTF-8");
+
+        Map<String, String> headers = signer.sign("POST", endpoint, null, body, true);
+
+        assertEquals("application/json", headers.get("Content-Type"));
+        assertEquals("accept;content-type;date;host", headers.get("X-Auth-SignedHeaders"));
+        assertEquals("HMAC " + API_KEY + ":" + expectedSignature("POST", endpoint, null, body, headers),
+                     headers.get("Authorization"));
+    }
+
+    @Test
+    public void test_concurrent_signing_produces_valid_signatures() throws Exception {
+        final RequestSigner signer = new RequestSigner(API_KEY, API_SECRET);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 200; i++) {
+                final URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/1/messages/" + i + ".json");
+                final byte[] body = ("{\"message\":{\"id\":" + i + "}}").getBytes("UTF-8");
+                results.add(executor.submit(new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() throws Exception {
+                        Map<String, String> headers = signer.sign("PUT", endpoint, null, body, true);
+                        String expected = "HMAC " + API_KEY + ":" + expectedSignature("PUT", endpoint, null, body, headers);
+                        return expected.equals(headers.get("Authorization"));
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_timestamp_formats_describe_the_same_second() throws Exception {
+        RequestTimestamp timestamp = RequestTimestamp.now();
+
+        SimpleDateFormat iso8601 = new SimpleDateFormat(RequestTimestamp.ISO_8601_FORMAT, Locale.ENGLISH);
+        iso8601.setTimeZone(TimeZone.getTimeZone("GMT"));
+        SimpleDateFormat httpDate = new SimpleDateFormat(RequestTimestamp.HTTP_DATE_FORMAT, Locale.getDefault());
+
+        Date parsed = iso8601.parse(timestamp.getIso8601());
+        assertEquals(parsed, httpDate.parse(timestamp.getHttpDate()));
+        assertTrue(Math.abs(System.currentTimeMillis() - parsed.getTime()) < 2000);
+        assertEquals("20180101T000000Z", RequestTimestamp.formatIso8601(iso8601.parse("20180101T000000Z")));
+    }
+
+    /* Recomputes the signature the slow way, with a new Mac and canonical request for every call */
+    private static String expectedSignature(String method, URL endpoint, Map<String, String> queryParams, byte[] body,
+                                            Map<String, String> sentHeaders) throws Exception {
+        Map<String, String> signedHeaders = new HashMap<String, String>();
+        for (String name : sentHeaders.get("X-Auth-SignedHeaders").split(";")) {
+            for (Map.Entry<String, String> header : sentHeaders.entrySet()) {
+                if (header.getKey().equalsIgnoreCase(name)) {
+                    signedHeaders.put(header.getKey(), header.getValue());
+                }
+            }
+        }
+
+        String canonicalRequest = new CanonicalRequestBuilder().endpoint(endpoint)
+                                                               .requestTimestamp(sentHeaders.get("X-Auth-Date"))
+                                                               .body(body)
+                                                               .method(method)
+                                                               .headers(signedHeaders)
+                                                               .queryParams(queryParams)
+                                                               .build();
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(API_SECRET.getBytes(), "HmacSHA256"));
+        return CryptoUtils.toHex(mac.doFinal(canonicalRequest.getBytes("UTF-8")));
+    }
+}
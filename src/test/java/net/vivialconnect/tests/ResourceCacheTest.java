@@ -0,0 +1,146 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.ResourceCache;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.model.number.AssociatedNumber;
+import net.vivialconnect.tests.data.ScriptedTransport;
+
+public class ResourceCacheTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+    private static final byte[] BODY = { '{', '}' };
+
+    @Test
+    public void test_entries_expire_after_their_ttl() throws Exception {
+        ResourceCache cache = ResourceCache.builder().ttl(Message.class, 100, TimeUnit.MILLISECONDS).build();
+        URL endpoint = endpoint("messages/5");
+
+        cache.put(endpoint, Message.class, BODY, System.nanoTime());
+        assertArrayEquals(BODY, cache.get(endpoint, Message.class));
+
+        Thread.sleep(150);
+        assertNull(cache.get(endpoint, Message.class));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void test_only_classes_with_a_ttl_are_cached() throws Exception {
+        ResourceCache cache = ResourceCache.builder().ttl(Message.class, 1, TimeUnit.MINUTES).build();
+        URL endpoint = endpoint("numbers/7");
+
+        cache.put(endpoint, AssociatedNumber.class, BODY, System.nanoTime());
+        assertNull(cache.get(endpoint, AssociatedNumber.class));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void test_least_recently_used_entry_is_evicted() throws Exception {
+        ResourceCache cache = ResourceCache.builder().maxEntries(2).ttl(Message.class, 1, TimeUnit.MINUTES).build();
+
+        cache.put(endpoint("messages/1"), Message.class, BODY, System.nanoTime());
+        cache.put(endpoint("messages/2"), Message.class, BODY, System.nanoTime());
+        assertNotNull(cache.get(endpoint("messages/1"), Message.class));
+
+        cache.put(endpoint("messages/3"), Message.class, BODY, System.nanoTime());
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNotNull(cache.get(endpoint("messages/1"), Message.class));
+        assertNull(cache.get(endpoint("messages/2"), Message.class));
+        assertNotNull(cache.get(endpoint("messages/3"), Message.class));
+    }
+
+    @Test
+    public void test_invalidation_evicts_only_the_endpoint_group() throws Exception {
+        ResourceCache cache = ResourceCache.builder()
+                                           .ttl(Message.class, 1, TimeUnit.MINUTES)
+                                           .ttl(AssociatedNumber.class, 1, TimeUnit.MINUTES)
+                                           .build();
+
+        cache.put(endpoint("messages/5"), Message.class, BODY, System.nanoTime());
+        cache.put(endpoint("numbers/7"), AssociatedNumber.class, BODY, System.nanoTime());
+        cache.put(new URL("https://api.example.com/api/v1.0/accounts/2/messages/5.json"), Message.class, BODY, System.nanoTime());
+
+        cache.invalidate(endpoint("messages"));
+
+        assertNull(cache.get(endpoint("messages/5"), Message.class));
+        assertNotNull(cache.get(endpoint("numbers/7"), AssociatedNumber.class));
+        assertNotNull(cache.get(new URL("https://api.example.com/api/v1.0/accounts/2/messages/5.json"), Message.class));
+    }
+
+    @Test
+    public void test_read_sent_before_a_mutation_is_not_cached() throws Exception {
+        ResourceCache cache = ResourceCache.builder().ttl(Message.class, 1, TimeUnit.MINUTES).build();
+        URL endpoint = endpoint("messages/5");
+
+        long sentAtNanos = System.nanoTime();
+        cache.invalidate(endpoint("messages/5"));
+        cache.put(endpoint, Message.class, BODY, sentAtNanos);
+        assertNull(cache.get(endpoint, Message.class));
+
+        /* A read sent after the mutation is cached again */
+        Thread.sleep(2);
+        cache.put(endpoint, Message.class, BODY, System.nanoTime());
+        assertNotNull(cache.get(endpoint, Message.class));
+    }
+
+    @Test
+    public void test_reads_are_served_from_the_cache_until_a_write() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, MESSAGE);
+        ResourceCache cache = ResourceCache.builder().ttl(Message.class, 1, TimeUnit.MINUTES).build();
+        AccountClient client = transport.clientBuilder().resourceCache(cache).build();
+
+        Message first = client.call(getMessage());
+        Message second = client.call(getMessage());
+        assertEquals(1, transport.getRequestCount());
+        assertNotSame(first, second);
+        assertEquals("Hi", second.getBody());
+
+        client.call(new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                Message message = new Message();
+                message.setFromNumber("+13022136859");
+                message.setToNumber("+18099667830");
+                message.setBody("Hi");
+
+                return message.send();
+            }
+        });
+        assertEquals(2, transport.getRequestCount());
+
+        client.call(getMessage());
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    private static URL endpoint(String path) throws MalformedURLException {
+        return new URL("https://api.example.com/api/v1.0/accounts/1/" + path + ".json");
+    }
+
+    private static Callable<Message> getMessage() {
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        };
+    }
+}
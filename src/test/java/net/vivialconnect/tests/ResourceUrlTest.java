@@ -0,0 +1,150 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.model.VivialConnectResource;
+import net.vivialconnect.model.account.Account;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.model.number.Number;
+import net.vivialconnect.tests.data.ScriptedTransport;
+
+public class ResourceUrlTest {
+
+    private static final String ACCOUNT_URL = "https://api.example.com/api/v1.0/accounts/1";
+
+    @Test
+    public void test_collection_and_suffix_urls() throws VivialConnectException {
+        assertUrl(ACCOUNT_URL + "/messages.json", new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURL(Message.class);
+            }
+        });
+        assertUrl(ACCOUNT_URL + "/numbers/available.json", new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Number.class, "available");
+            }
+        });
+    }
+
+    @Test
+    public void test_id_overloads_match_the_formatted_urls() throws VivialConnectException {
+        assertUrl(String.format("%s/messages/%d.json", ACCOUNT_URL, 6789), new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Message.class, 6789);
+            }
+        });
+        assertUrl(String.format("%s/messages/%d/attachments.json", ACCOUNT_URL, 6789), new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Message.class, 6789, "attachments");
+            }
+        });
+        assertUrl(String.format("%s/numbers/local/%d.json", ACCOUNT_URL, 42), new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Number.class, "local", 42);
+            }
+        });
+        assertUrl(String.format("%s/messages/%d/attachments/%d.json", ACCOUNT_URL, 6789, 7), new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Message.class, 6789, "attachments", 7);
+            }
+        });
+        assertUrl(ACCOUNT_URL + "/messages/-1.json", new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Message.class, -1L);
+            }
+        });
+    }
+
+    @Test
+    public void test_single_and_unmapped_urls() throws VivialConnectException {
+        assertUrl(ACCOUNT_URL + ".json", new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.singleClassURL(Account.class);
+            }
+        });
+        assertUrl(ACCOUNT_URL + "/logs.json", new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.unmappedURL("logs");
+            }
+        });
+    }
+
+    @Test
+    public void test_urls_follow_the_bound_client() throws VivialConnectException {
+        AccountClient other = AccountClient.builder(2, "key", "secret").apiBaseUrl("https://eu.example.com/api/v1.0").build();
+
+        assertEquals("https://eu.example.com/api/v1.0/accounts/2/messages/5.json", other.call(new Callable<String>() {
+
+            @Override
+            public String call() {
+                return Urls.classURLWithSuffix(Message.class, 5);
+            }
+        }));
+    }
+
+    private static void assertUrl(String expected, Callable<String> url) throws VivialConnectException {
+        assertEquals(expected, new ScriptedTransport().clientBuilder().build().call(url));
+    }
+
+    /* Exposes the URL builders, which are only visible to resource classes */
+    private abstract static class Urls extends VivialConnectResource {
+
+        private static final long serialVersionUID = 1L;
+
+        protected static String classURL(Class<?> clazz) {
+            return VivialConnectResource.classURL(clazz);
+        }
+
+        protected static String classURLWithSuffix(Class<?> clazz, String suffix) {
+            return VivialConnectResource.classURLWithSuffix(clazz, suffix);
+        }
+
+        protected static String classURLWithSuffix(Class<?> clazz, long id) {
+            return VivialConnectResource.classURLWithSuffix(clazz, id);
+        }
+
+        protected static String classURLWithSuffix(Class<?> clazz, long id, String suffix) {
+            return VivialConnectResource.classURLWithSuffix(clazz, id, suffix);
+        }
+
+        protected static String classURLWithSuffix(Class<?> clazz, String prefix, long id) {
+            return VivialConnectResource.classURLWithSuffix(clazz, prefix, id);
+        }
+
+        protected static String classURLWithSuffix(Class<?> clazz, long id, String nestedResource, long nestedId) {
+            return VivialConnectResource.classURLWithSuffix(clazz, id, nestedResource, nestedId);
+        }
+
+        protected static String singleClassURL(Class<?> clazz) {
+            return VivialConnectResource.singleClassURL(clazz);
+        }
+
+        protected static String unmappedURL(String resourceName) {
+            return VivialConnectResource.unmappedURL(resourceName);
+        }
+    }
+}
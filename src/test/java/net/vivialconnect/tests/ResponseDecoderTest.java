@@ -0,0 +1,178 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Date;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import net.vivialconnect.model.format.ResponseDecoder;
+import net.vivialconnect.model.log.Log;
+import net.vivialconnect.model.log.LogCollection;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.model.message.MessageCollection;
+import net.vivialconnect.model.number.Number;
+import net.vivialconnect.model.number.NumberCollection;
+
+/* Decodes the same responses with the registered readers and with Jackson's data binding */
+public class ResponseDecoderTest {
+
+    /* Compares decoded values by their fields: some getters fetch related resources */
+    private static final ObjectMapper MAPPER = new ObjectMapper().setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+                                                                 .setVisibility(PropertyAccessor.FIELD, Visibility.ANY);
+
+    private final ResponseDecoder decoder = new ResponseDecoder();
+
+    @Test
+    public void test_collections_match_jackson() throws IOException {
+        assertSameAsJackson(fixture("messages"), MessageCollection.class, false);
+        assertSameAsJackson(fixture("associated-numbers"), NumberCollection.class, false);
+        assertSameAsJackson(fixture("available-numbers"), NumberCollection.class, false);
+        assertSameAsJackson(fixture("logs"), LogCollection.class, false);
+    }
+
+    @Test
+    public void test_single_resources_match_jackson() throws IOException {
+        for (JsonNode message : MAPPER.readTree(fixture("messages")).get("messages")) {
+            assertSameAsJackson("{\"message\":" + message + "}", Message.class, true);
+        }
+
+        assertSameAsJackson(fixture("associated-number"), Number.class, true);
+
+        for (JsonNode log : MAPPER.readTree(fixture("logs")).get("log_items")) {
+            assertSameAsJackson(log.toString(), Log.class, false);
+        }
+    }
+
+    @Test
+    public void test_edge_values_match_jackson() throws IOException {
+        assertSameAsJackson("{\"message\":{\"id\":\"12\",\"account_id\":null,\"body\":\"caf\\u00e9 \\\"hi\\\"\","
+                            + "\"num_media\":3.0,\"date_created\":\"2017-07-10T18:24:04-05:00\","
+                            + "\"date_modified\":1499711044000,\"sent\":\"2017-07-10T18:24:54\","
+                            + "\"unknown\":{\"nested\":[1,2,{\"x\":null}]},\"media_urls\":[\"a\",null],"
+                            + "\"connector_id\":null,\"error_code\":null}}", Message.class, true);
+
+        assertSameAsJackson("{\"phone_number\":{\"id\":7,\"active\":\"true\",\"capabilities\":null,"
+                            + "\"tags\":{\"a\":\"b\"},\"name\":null,\"extra\":[]}}", Number.class, true);
+
+        assertSameAsJackson("{\"log_id\":\"x\",\"account_id\":\"42\",\"log_timestamp\":20171115184924137248,"
+                            + "\"log_data\":{\"text\":\"hi\",\"ignored\":true},\"item_id\":null}", Log.class, false);
+
+        assertSameAsJackson("{\"messages\":[],\"count\":0}", MessageCollection.class, false);
+        assertSameAsJackson("{\"log_items\":null}", LogCollection.class, false);
+    }
+
+    /* Catches a property added to a model but not to its reader */
+    @Test
+    public void test_every_json_property_is_read_like_jackson() throws IOException {
+        Class<?>[] types = { Message.class, MessageCollection.class, Number.class, NumberCollection.class, Log.class,
+                             LogCollection.class };
+
+        for (Class<?> type : types) {
+            int properties = 0;
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    JsonProperty property = field.getAnnotation(JsonProperty.class);
+                    if (property == null) {
+                        continue;
+                    }
+
+                    String name = property.value().isEmpty() ? field.getName() : property.value();
+                    assertSameAsJackson("{\"" + name + "\":" + sampleValue(field.getType()) + "}", type, false);
+                    properties++;
+                }
+            }
+
+            assertTrue(type.getSimpleName(), properties > 0);
+        }
+    }
+
+    @Test
+    public void test_wrong_root_name_is_rejected_like_jackson() throws IOException {
+        String[] responses = { "{\"phone_number\":{\"id\":1}}", "{\"messages\":{\"id\":1}}", "{\"Message\":{\"id\":1}}" };
+
+        for (String response : responses) {
+            assertRejected(response, Message.class);
+        }
+
+        assertRejected("{\"message\":{\"id\":1}}", Number.class);
+        assertRejected("{\"log\":{\"log_id\":\"x\"}}", Log.class);
+        assertSameAsJackson("{\"Log\":{\"log_id\":\"x\"}}", Log.class, true);
+    }
+
+    private void assertSameAsJackson(String response, Class<?> type, boolean unwrapRoot) throws IOException {
+        JsonNode expected = MAPPER.valueToTree(jacksonReader(unwrapRoot).readValue(response, type));
+        JsonNode actual = MAPPER.valueToTree(decoder.decode(response, type, unwrapRoot));
+
+        assertEquals(response, expected, actual);
+    }
+
+    private void assertRejected(String response, Class<?> type) throws IOException {
+        try {
+            jacksonReader(true).readValue(response, type);
+            fail("Jackson accepted " + response);
+        } catch (JsonProcessingException expected) {
+            assertTrue(expected.getMessage().contains("Root name"));
+        }
+
+        try {
+            decoder.decode(response, type, true);
+            fail("The decoder accepted " + response);
+        } catch (JsonProcessingException expected) {
+            assertTrue(expected.getMessage().contains("Root name"));
+        }
+    }
+
+    /* A value other than the field's default, so that a property the reader skips shows */
+    private static String sampleValue(Class<?> type) {
+        if (type == String.class) {
+            return "\"12\"";
+        }
+        if (type == int.class || type == Integer.class || type == long.class || type == Long.class) {
+            return "12";
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return "true";
+        }
+        if (type == Date.class) {
+            return "\"2017-07-10T18:24:04-05:00\"";
+        }
+        if (Collection.class.isAssignableFrom(type) || type.isArray()) {
+            return "[]";
+        }
+
+        return "{}";
+    }
+
+    private static ObjectMapper jacksonReader(boolean unwrapRoot) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.UNWRAP_ROOT_VALUE, unwrapRoot);
+
+        return mapper;
+    }
+
+    private static String fixture(String name) throws IOException {
+        InputStream stream = ResponseDecoderTest.class.getClassLoader().getResourceAsStream(name + ".json");
+        try {
+            return IOUtils.toString(stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
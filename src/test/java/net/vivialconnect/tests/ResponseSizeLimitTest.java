@@ -0,0 +1,85 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.LocalHttpServer;
+import net.vivialconnect.tests.data.ScriptedTransport;
+import net.vivialconnect.util.ResponseTooLargeException;
+
+public class ResponseSizeLimitTest {
+
+    private static final String MESSAGE_PATH = "/api/v1.0/accounts/1/messages/5.json";
+
+    @Test
+    public void test_declared_oversize_response_is_not_retried() throws IOException {
+        LocalHttpServer server = new LocalHttpServer();
+        server.respond(MESSAGE_PATH, 200, largeMessage().getBytes("UTF-8"));
+
+        try {
+            AccountClient client = AccountClient.builder(1, "key", "secret")
+                                                .apiBaseUrl(server.url("/api/v1.0"))
+                                                .maxResponseSize(1024)
+                                                .build();
+
+            assertTooLarge(client);
+            assertEquals(1, server.getClientPorts().size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void test_streamed_oversize_response_is_not_retried() {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, largeMessage());
+        AccountClient client = transport.clientBuilder().maxResponseSize(1024).build();
+
+        assertTooLarge(client);
+        assertEquals(1, transport.getRequestCount());
+        assertEquals(0, transport.getOpenResponses());
+    }
+
+    @Test
+    public void test_response_within_the_limit_is_decoded() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(200, "{\"message\":{\"id\":5,\"body\":\"Hi\"}}");
+        AccountClient client = transport.clientBuilder().maxResponseSize(1024).build();
+
+        assertEquals("Hi", getMessage(client).getBody());
+    }
+
+    private static void assertTooLarge(AccountClient client) {
+        try {
+            getMessage(client);
+            fail("Expected a VivialConnectException");
+        } catch (VivialConnectException vce) {
+            assertTrue(vce.getCause() instanceof ResponseTooLargeException);
+        }
+    }
+
+    private static Message getMessage(AccountClient client) throws VivialConnectException {
+        return client.call(new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        });
+    }
+
+    private static String largeMessage() {
+        char[] body = new char[4096];
+        Arrays.fill(body, 'x');
+
+        return "{\"message\":{\"id\":5,\"body\":\"" + new String(body) + "\"}}";
+    }
+}
@@ -0,0 +1,149 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.client.RetryPolicy;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.message.Message;
+import net.vivialconnect.tests.data.ScriptedTransport;
+import net.vivialconnect.tests.data.ScriptedTransport.Reply;
+
+public class RetryPolicyTest {
+
+    private static final String MESSAGE = "{\"message\":{\"id\":5,\"body\":\"Hi\"}}";
+    private static final String UNAVAILABLE = "{\"message\":\"Unavailable\"}";
+
+    private static final RetryPolicy FAST = new RetryPolicy(3, 1, 5, 10000);
+
+    @Test
+    public void test_throttling_and_gateway_errors_are_transient() {
+        for (int status : new int[] { 429, 502, 503, 504 }) {
+            assertTrue(RetryPolicy.isTransient(withStatus(status)));
+        }
+
+        for (int status : new int[] { 400, 401, 404, 409, 500, 501 }) {
+            assertFalse(RetryPolicy.isTransient(withStatus(status)));
+        }
+
+        assertTrue(RetryPolicy.isTransient(new SocketTimeoutException()));
+        assertTrue(RetryPolicy.isTransient(new IOException("Connection reset")));
+        assertFalse(RetryPolicy.isTransient(new JsonParseException(null, "Unexpected character")));
+        assertFalse(RetryPolicy.isTransient(new IllegalStateException()));
+    }
+
+    @Test
+    public void test_delays_stay_under_the_exponential_ceiling() {
+        RetryPolicy policy = new RetryPolicy(10, 100, 1000, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.retryDelayMillis(withStatus(503), 1, 0) <= 100);
+            assertTrue(policy.retryDelayMillis(withStatus(503), 3, 0) <= 400);
+            assertTrue(policy.retryDelayMillis(withStatus(503), 9, 0) <= 1000);
+        }
+    }
+
+    @Test
+    public void test_attempt_limit_stops_retries() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(503, UNAVAILABLE);
+
+        assertFailsWith(503, transport.clientBuilder().retryPolicy(FAST).build(), getMessage());
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void test_total_time_limit_stops_retries() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(new Reply(503, UNAVAILABLE).latency(60));
+        RetryPolicy policy = new RetryPolicy(100, 1, 1, 200);
+
+        assertFailsWith(503, transport.clientBuilder().retryPolicy(policy).build(), getMessage());
+        assertTrue(transport.getRequestCount() > 1);
+        assertTrue(transport.getRequestCount() <= 5);
+    }
+
+    @Test
+    public void test_transient_failures_are_retried_until_success() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().enqueue(429, UNAVAILABLE)
+                                                             .enqueue(Reply.failure(new SocketTimeoutException("Read timed out")))
+                                                             .respondByDefault(200, MESSAGE);
+        AccountClient client = transport.clientBuilder().retryPolicy(FAST).build();
+
+        assertEquals("Hi", client.call(getMessage()).getBody());
+        assertEquals(3, transport.getRequestCount());
+    }
+
+    @Test
+    public void test_permanent_failures_are_not_retried() throws VivialConnectException {
+        ScriptedTransport transport = new ScriptedTransport().respondByDefault(404, "{\"message\":\"Not found\"}");
+
+        assertFailsWith(404, transport.clientBuilder().retryPolicy(FAST).build(), getMessage());
+        assertEquals(1, transport.getRequestCount());
+    }
+
+    @Test
+    public void test_post_is_retried_only_with_an_idempotency_key() throws VivialConnectException {
+        ScriptedTransport withoutKey = new ScriptedTransport().respondByDefault(503, UNAVAILABLE);
+        assertFailsWith(503, withoutKey.clientBuilder().retryPolicy(FAST).build(), send(null));
+        assertEquals(1, withoutKey.getRequestCount());
+        assertNull(withoutKey.getRequests().get(0).getHeaders().get("Idempotency-Key"));
+
+        ScriptedTransport withKey = new ScriptedTransport().enqueue(503, UNAVAILABLE).respondByDefault(200, MESSAGE);
+        assertEquals(5, withKey.clientBuilder().retryPolicy(FAST).build().call(send("key-1")).getId());
+        assertEquals(2, withKey.getRequestCount());
+        assertEquals("key-1", withKey.getRequests().get(0).getHeaders().get("Idempotency-Key"));
+        assertEquals("key-1", withKey.getRequests().get(1).getHeaders().get("Idempotency-Key"));
+    }
+
+    private static void assertFailsWith(int status, AccountClient client, Callable<Message> operation) {
+        try {
+            client.call(operation);
+            fail("Expected a VivialConnectException");
+        } catch (VivialConnectException vce) {
+            assertEquals(status, vce.getResponseCode());
+        }
+    }
+
+    private static Callable<Message> getMessage() {
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                return Message.getMessageById(5);
+            }
+        };
+    }
+
+    private static Callable<Message> send(final String idempotencyKey) {
+        return new Callable<Message>() {
+
+            @Override
+            public Message call() throws VivialConnectException {
+                Message message = new Message();
+                message.setFromNumber("+13022136859");
+                message.setToNumber("+18099667830");
+                message.setBody("Hi");
+
+                return message.send(idempotencyKey);
+            }
+        };
+    }
+
+    private static VivialConnectException withStatus(int status) {
+        VivialConnectException vce = new VivialConnectException("HTTP " + status, null);
+        vce.setResponseCode(status);
+
+        return vce;
+    }
+}
@@ -0,0 +1,63 @@
+package net.vivialconnect.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import net.vivialconnect.client.AsyncDispatcher;
+import net.vivialconnect.client.VirtualThreads;
+import net.vivialconnect.client.VivialConnectClient;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void test_executor_runs_on_virtual_threads_when_supported() throws Exception {
+        ExecutorService executor = VirtualThreads.newExecutor();
+
+        try {
+            Thread thread = executor.submit(new Callable<Thread>() {
+
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get(1, TimeUnit.SECONDS);
+
+            if (VirtualThreads.isSupported()) {
+                assertTrue(isVirtual(thread));
+            } else {
+                assertTrue(thread.isDaemon());
+                assertTrue(thread.getName().startsWith("vivialconnect-async-"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_default_client_dispatches_on_a_new_executor() {
+        AsyncDispatcher previous = VivialConnectClient.getAsyncDispatcher();
+        VivialConnectClient.useVirtualThreads(500);
+
+        try {
+            AsyncDispatcher dispatcher = VivialConnectClient.getAsyncDispatcher();
+            assertNotSame(previous, dispatcher);
+            assertEquals(500, dispatcher.getMaxInFlight());
+        } finally {
+            VivialConnectClient.getAsyncDispatcher().shutdown();
+            VivialConnectClient.setAsyncExecutor(previous.getExecutor(), previous.getMaxInFlight());
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        return (Boolean) isVirtual.invoke(thread);
+    }
+}
@@ -0,0 +1,160 @@
+package net.vivialconnect.tests.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.vivialconnect.client.VirtualThreads;
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.http.HttpURLConnectionTransport;
+import net.vivialconnect.model.message.Message;
+
+/**
+ * Compares concurrent {@link Message#send()} calls against a local {@link StubServer} when run on
+ * a platform thread per call (what callers have to do without the async API), on a fixed thread
+ * pool and on virtual threads.
+ * <p>
+ * Not part of the test suite. Run it with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.vivialconnect.tests.benchmark.ConcurrencyBenchmark \
+ *     -Dexec.args="[calls] [latencyMillis] [connectionsPerRoute] [poolSize]"
+ * </pre>
+ * Defaults are 10000 calls, 20 ms of server latency, 256 connections per route and a pool of 200
+ * threads.
+ */
+public class ConcurrencyBenchmark {
+
+    private static final int WARMUP_CALLS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int calls = intArg(args, 0, 10000);
+        long latencyMillis = intArg(args, 1, 20);
+        int connectionsPerRoute = intArg(args, 2, 256);
+        int poolSize = intArg(args, 3, 200);
+
+        StubServer server = new StubServer(latencyMillis);
+        server.start();
+
+        try {
+            VivialConnectClient.init(1, "benchmark-key", "benchmark-secret");
+            VivialConnectClient.overrideApiBaseUrl(server.getBaseUrl());
+            VivialConnectClient.setTransport(new HttpURLConnectionTransport(connectionsPerRoute));
+
+            System.out.printf("%d calls, %d ms server latency, %d connections per route, virtual threads %s%n",
+                    calls, latencyMillis, connectionsPerRoute, VirtualThreads.isSupported() ? "available" : "unavailable");
+
+            runThreadPerCall(WARMUP_CALLS);
+            report("platform thread per call", calls, runThreadPerCall(calls));
+
+            ExecutorService pool = Executors.newFixedThreadPool(poolSize);
+            VivialConnectClient.setAsyncExecutor(pool, poolSize);
+            runAsync(WARMUP_CALLS);
+            report("fixed pool of " + poolSize, calls, runAsync(calls));
+            pool.shutdown();
+
+            VivialConnectClient.useVirtualThreads(calls);
+            runAsync(WARMUP_CALLS);
+            report(VirtualThreads.isSupported() ? "virtual threads" : "virtual threads (platform fallback)", calls, runAsync(calls));
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static Result runThreadPerCall(int calls) throws InterruptedException {
+        final AtomicInteger errors = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>(calls);
+
+        long start = startRun();
+        for (int i = 0; i < calls; i++) {
+            Thread thread = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        newMessage().send();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        return endRun(start, errors.get());
+    }
+
+    private static Result runAsync(int calls) throws InterruptedException {
+        int errors = 0;
+        List<Future<Message>> sent = new ArrayList<Future<Message>>(calls);
+
+        long start = startRun();
+        for (int i = 0; i < calls; i++) {
+            sent.add(newMessage().sendAsync());
+        }
+
+        for (Future<Message> future : sent) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                errors++;
+            }
+        }
+
+        return endRun(start, errors);
+    }
+
+    private static Message newMessage() {
+        Message message = new Message();
+        message.setFromNumber("+13022136859");
+        message.setToNumber("+18099667830");
+        message.setBody("Benchmark");
+
+        return message;
+    }
+
+    private static long startRun() {
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        return System.nanoTime();
+    }
+
+    private static Result endRun(long start, int errors) {
+        long elapsedNanos = System.nanoTime() - start;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        return new Result(elapsedNanos, errors, threads.getPeakThreadCount());
+    }
+
+    private static void report(String mode, int calls, Result result) {
+        double seconds = result.elapsedNanos / 1e9;
+        System.out.printf("%-40s %8.0f ms %10.0f calls/s  peak platform threads %6d  errors %d%n",
+                mode, seconds * 1000, calls / seconds, result.peakThreads, result.errors);
+    }
+
+    private static int intArg(String[] args, int index, int defaultValue) {
+        return args.length > index ? Integer.parseInt(args[index]) : defaultValue;
+    }
+
+    private static class Result {
+
+        final long elapsedNanos;
+        final int errors;
+        final int peakThreads;
+
+        Result(long elapsedNanos, int errors, int peakThreads) {
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+            this.peakThreads = peakThreads;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.vivialconnect.tests.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+
+import net.vivialconnect.http.RequestSigner;
+
+/**
+ * Measures the time and the heap allocated to sign one request with {@link RequestSigner}.
+ * <p>
+ * Allocations are read from the HotSpot-specific {@link com.sun.management.ThreadMXBean}, so this
+ * needs a HotSpot-based JVM. Not part of the test suite. Run it with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.vivialconnect.tests.benchmark.SigningBenchmark \
+ *     -Dexec.args="[iterations]"
+ * </pre>
+ */
+public class SigningBenchmark {
+
+    private static final String BODY = "{\"message\":{\"from_number\":\"+13022136859\","
+            + "\"to_number\":\"+18099667830\",\"body\":\"Hello, from Vivial Connect!\"}}";
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        RequestSigner signer = new RequestSigner("MTKUAQS6SS0STMWT8PBLD530VWA0AYNURN8", "N8TBkht8QHoDFw50HKNA1mf339cVyOgsQ9K89Gk8rWbVAwmr");
+        URL endpoint = new URL("https://api.vivialconnect.net/api/v1.0/accounts/10130/messages.json");
+        byte[] body = BODY.getBytes("UTF-8");
+
+        /* Warm up so the JIT has compiled the signing path before measuring */
+        for (int i = 0; i < iterations / 4; i++) {
+            signer.sign("POST", endpoint, null, body, true);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            signer.sign("POST", endpoint, null, body, true);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytesAllocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        System.out.printf("%d signed requests: %d ns/op, %d bytes allocated/op%n",
+                iterations, elapsedNanos / iterations, bytesAllocated / iterations);
+    }
+}
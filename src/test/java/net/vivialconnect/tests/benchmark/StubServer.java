@@ -0,0 +1,83 @@
+package net.vivialconnect.tests.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Minimal local stand-in for the VivialConnect API, used by the benchmarks.
+ * <p>
+ * Every request is answered with the same canned message after an optional delay, which stands in
+ * for network and server latency.
+ */
+public class StubServer implements HttpHandler {
+
+    private static final byte[] MESSAGE_RESPONSE = ("{\"message\":{\"id\":1,\"account_id\":1,"
+            + "\"from_number\":\"+13022136859\",\"to_number\":\"+18099667830\",\"body\":\"Benchmark\","
+            + "\"status\":\"accepted\",\"direction\":\"outbound-api\",\"message_type\":\"local_sms\","
+            + "\"date_created\":\"2018-01-01T00:00:00\",\"date_modified\":\"2018-01-01T00:00:00\"}}").getBytes();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+
+    public StubServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        this.server.createContext("/", this);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v1.0";
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        drain(exchange.getRequestBody());
+        simulateLatency();
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, MESSAGE_RESPONSE.length);
+
+        OutputStream body = exchange.getResponseBody();
+        body.write(MESSAGE_RESPONSE);
+        body.close();
+    }
+
+    private void simulateLatency() {
+        if (latencyMillis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+            /* discard */
+        }
+        in.close();
+    }
+}
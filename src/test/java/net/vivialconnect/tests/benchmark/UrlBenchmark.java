@@ -0,0 +1,58 @@
+package net.vivialconnect.tests.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import net.vivialconnect.client.VivialConnectClient;
+import net.vivialconnect.model.VivialConnectResource;
+import net.vivialconnect.model.message.Message;
+
+/**
+ * Measures the time and the heap allocated to build the URLs of a resource, a resource by ID and
+ * a nested resource, as done before every request.
+ * <p>
+ * Allocations are read from the HotSpot-specific {@link com.sun.management.ThreadMXBean}, so this
+ * needs a HotSpot-based JVM. Not part of the test suite. Run it with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=net.vivialconnect.tests.benchmark.UrlBenchmark \
+ *     -Dexec.args="[iterations]"
+ * </pre>
+ */
+public class UrlBenchmark extends VivialConnectResource {
+
+    private static final long serialVersionUID = 1L;
+
+    private static int sink;
+
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        VivialConnectClient.init(10130, "MTKUAQS6SS0STMWT8PBLD530VWA0AYNURN8", "N8TBkht8QHoDFw50HKNA1mf339cVyOgsQ9K89Gk8rWbVAwmr");
+
+        /* Warm up so the JIT has compiled the URL building path before measuring */
+        for (int i = 0; i < iterations / 4; i++) {
+            buildUrls(i);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            buildUrls(i);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long bytesAllocated = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        System.out.printf("%d x 3 URLs: %d ns/op, %d bytes allocated/op (%d)%n",
+                iterations, elapsedNanos / iterations, bytesAllocated / iterations, sink);
+    }
+
+    private static void buildUrls(int id) {
+        sink += classURL(Message.class).length();
+        sink += classURLWithSuffix(Message.class, id).length();
+        sink += classURLWithSuffix(Message.class, id, "attachments", 7).length();
+    }
+}
@@ -0,0 +1,314 @@
+package net.vivialconnect.tests.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
+import net.vivialconnect.model.error.VivialConnectException;
+import net.vivialconnect.model.log.LogTimestamp;
+
+/**
+ * In-process stand-in for the logs endpoint, plugged into a client as its {@link Transport}.
+ * <p>
+ * Serves synthetic logs newest first, as the API does (see <code>logs.json</code>), filtered by
+ * <code>start_time</code> and <code>end_time</code> (start inclusive, end exclusive), in pages of
+ * <code>limit</code> logs chained by <code>last_key</code> and <code>start_key</code> towards older
+ * logs. Aggregated logs count the
+ * same logs per time bucket and log type, newest bucket first, in a single page. Logs can be
+ * appended while clients read, and each request can be delayed to stand in for latency.
+ */
+public class FakeLogApi implements Transport {
+
+    /** The time of the first log most tests serve, the start of 2018 */
+    public static final long START_MICROS = LogTimestamp.toEpochMicros("20180101000000000000");
+
+    public static final long SECOND_MICROS = 1000000L;
+    public static final long MINUTE_MICROS = 60 * SECOND_MICROS;
+    public static final long HOUR_MICROS = 60 * MINUTE_MICROS;
+
+    private static final String[] LOG_TYPES = { "message.queued", "message.sent", "message.delivered", "number.purchased" };
+
+    private static final Map<String, Integer> AGGREGATE_TIMESTAMP_LENGTHS = new HashMap<String, Integer>();
+
+    static {
+        AGGREGATE_TIMESTAMP_LENGTHS.put("minutes", 12);
+        AGGREGATE_TIMESTAMP_LENGTHS.put("hours", 10);
+        AGGREGATE_TIMESTAMP_LENGTHS.put("days", 8);
+        AGGREGATE_TIMESTAMP_LENGTHS.put("months", 6);
+        AGGREGATE_TIMESTAMP_LENGTHS.put("years", 4);
+    }
+
+    private final List<Long> timestamps = new ArrayList<Long>();
+    private final List<String> logIds = new ArrayList<String>();
+    private final Map<String, Integer> indexById = new HashMap<String, Integer>();
+
+    private final long latencyMillis;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public FakeLogApi(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Appends logs spaced evenly in time, no older than any log already served. Logs are kept
+     * oldest first, whatever order they are served in.
+     *
+     * @param firstTimestampMicros the timestamp of the first log, in microseconds since the epoch
+     * @param count the number of logs
+     * @param spacingMicros the time between two logs
+     */
+    public synchronized void append(long firstTimestampMicros, int count, long spacingMicros) {
+        for (int i = 0; i < count; i++) {
+            long timestamp = firstTimestampMicros + i * spacingMicros;
+            if (!timestamps.isEmpty() && timestamp < timestamps.get(timestamps.size() - 1)) {
+                throw new IllegalArgumentException("Logs must be appended in timestamp order");
+            }
+
+            String logId = String.format("%020d", logIds.size() + 1);
+            indexById.put(logId, logIds.size());
+            logIds.add(logId);
+            timestamps.add(timestamp);
+        }
+    }
+
+    /**
+     * Starts building a client for account 1 that sends its requests to this API.
+     */
+    public AccountClient.Builder clientBuilder() {
+        return AccountClient.builder(1, "key", "secret").transport(this);
+    }
+
+    /**
+     * Runs an operation with a client backed by this API bound to the current thread.
+     */
+    public <T> T call(Callable<T> operation) throws VivialConnectException {
+        return clientBuilder().build().call(operation);
+    }
+
+    /**
+     * Converts a log timestamp to the time the API filters on.
+     */
+    public static Date time(long micros) {
+        return new Date(micros / 1000);
+    }
+
+    public synchronized int size() {
+        return logIds.size();
+    }
+
+    public int getRequests() {
+        return requests.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        requests.incrementAndGet();
+        int concurrent = inFlight.incrementAndGet();
+        try {
+            while (true) {
+                int max = maxInFlight.get();
+                if (concurrent <= max || maxInFlight.compareAndSet(max, concurrent)) {
+                    break;
+                }
+            }
+
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+
+            Map<String, String> query = parseQuery(request.getEndpoint().getQuery());
+            boolean aggregate = request.getEndpoint().getPath().endsWith("/aggregate.json");
+            return new Response(aggregate ? aggregatePage(query) : logsPage(query));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted");
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private synchronized String logsPage(Map<String, String> query) throws IOException {
+        long startMicros = parseTime(query.get("start_time"));
+        long endMicros = parseTime(query.get("end_time"));
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : 50;
+
+        /* The newest log before the end, then older ones */
+        int index = firstIndexAtOrAfter(endMicros) - 1;
+        String startKey = query.get("start_key");
+        if (startKey != null) {
+            Integer previous = indexById.get(startKey);
+            if (previous == null) {
+                throw new IOException("Unknown start_key " + startKey);
+            }
+
+            index = Math.min(index, previous - 1);
+        }
+
+        StringBuilder items = new StringBuilder();
+        String lastId = null;
+        int returned = 0;
+        for (; index >= 0 && timestamps.get(index) >= startMicros && returned < limit; index--, returned++) {
+            if (returned > 0) {
+                items.append(',');
+            }
+
+            lastId = logIds.get(index);
+            appendLog(items, index);
+        }
+
+        boolean more = index >= 0 && timestamps.get(index) >= startMicros;
+        return "{\"last_key\":\"" + (more ? lastId : "") + "\",\"log_items\":[" + items + "]}";
+    }
+
+    private synchronized String aggregatePage(Map<String, String> query) throws IOException {
+        long startMicros = parseTime(query.get("start_time"));
+        long endMicros = parseTime(query.get("end_time"));
+        Integer timestampLength = AGGREGATE_TIMESTAMP_LENGTHS.get(query.get("aggregator_type"));
+        if (timestampLength == null) {
+            throw new IOException("Unknown aggregator_type " + query.get("aggregator_type"));
+        }
+
+        /* Newest bucket first, then by log type */
+        TreeMap<String, TreeMap<String, Integer>> counts = new TreeMap<String, TreeMap<String, Integer>>(Collections.reverseOrder());
+        for (int index = firstIndexAtOrAfter(startMicros); index < logIds.size() && timestamps.get(index) < endMicros; index++) {
+            String bucket = LogTimestamp.format(timestamps.get(index)).substring(0, timestampLength);
+            String logType = LOG_TYPES[index % LOG_TYPES.length];
+            if (!counts.containsKey(bucket)) {
+                counts.put(bucket, new TreeMap<String, Integer>());
+            }
+
+            Integer count = counts.get(bucket).get(logType);
+            counts.get(bucket).put(logType, count == null ? 1 : count + 1);
+        }
+
+        StringBuilder items = new StringBuilder();
+        for (Map.Entry<String, TreeMap<String, Integer>> bucket : counts.entrySet()) {
+            for (Map.Entry<String, Integer> count : bucket.getValue().entrySet()) {
+                if (items.length() > 0) {
+                    items.append(',');
+                }
+
+                items.append("{\"account_id\":\"1\",\"account_id_log_type\":\"1-").append(count.getKey())
+                     .append("\",\"aggregate_key\":\"").append(query.get("aggregator_type"))
+                     .append("\",\"log_count\":").append(count.getValue())
+                     .append(",\"log_timestamp\":").append(bucket.getKey())
+                     .append(",\"log_type\":\"").append(count.getKey()).append("\"}");
+            }
+        }
+
+        return "{\"last_key\":\"\",\"log_items\":[" + items + "]}";
+    }
+
+    private void appendLog(StringBuilder json, int index) {
+        String logId = logIds.get(index);
+        String logType = LOG_TYPES[index % LOG_TYPES.length];
+        int operatorId = index % 7 + 1;
+        String itemId = "+1555" + String.format("%07d", index % 1000);
+
+        json.append("{\"log_id\":\"").append(logId)
+            .append("\",\"account_id\":\"1\",\"account_id_item_id\":\"1-").append(itemId)
+            .append("\",\"account_id_log_type\":\"1-").append(logType)
+            .append("\",\"account_id_operator_id\":\"1-").append(operatorId)
+            .append("\",\"log_type\":\"").append(logType)
+            .append("\",\"item_type\":\"msg_out_local_sms\",\"item_id\":\"").append(itemId)
+            .append("\",\"operator_type\":\"message\",\"operator_id\":\"").append(operatorId)
+            .append("\",\"origin\":\"system\",\"description\":\"message status updated\"")
+            .append(",\"log_data_json\":\"{\\\"text\\\": \\\"Test\\\", \\\"sender\\\": \\\"").append(itemId).append("\\\"}\"")
+            .append(",\"log_timestamp\":").append(LogTimestamp.format(timestamps.get(index)))
+            .append('}');
+    }
+
+    private int firstIndexAtOrAfter(long micros) {
+        int low = 0;
+        int high = timestamps.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps.get(middle) < micros) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private static long parseTime(String value) throws IOException {
+        SimpleDateFormat format = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'", Locale.ENGLISH);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(value).getTime() * 1000;
+        } catch (ParseException pe) {
+            throw new IOException("Not a valid time: " + value);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<String, String>();
+        if (query == null) {
+            return params;
+        }
+
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            params.put(pair.substring(0, equals), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+        }
+
+        return params;
+    }
+
+    private static class Response implements TransportResponse {
+
+        private final byte[] body;
+
+        Response(String body) throws UnsupportedEncodingException {
+            this.body = body.getBytes("UTF-8");
+        }
+
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return "Content-Type".equalsIgnoreCase(name) ? "application/json" : null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+}
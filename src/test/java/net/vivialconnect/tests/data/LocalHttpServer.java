@@ -0,0 +1,142 @@
+package net.vivialconnect.tests.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server answering each path with a canned response, used to test transports against
+ * real sockets.
+ * <p>
+ * The client port of every exchange is recorded, so tests can tell whether a connection was reused.
+ */
+public class LocalHttpServer implements HttpHandler {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final Map<String, Integer> statuses = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, byte[]> bodies = new ConcurrentHashMap<String, byte[]>();
+    private final Map<String, Long> pathLatencies = new ConcurrentHashMap<String, Long>();
+    private final List<Integer> clientPorts = Collections.synchronizedList(new ArrayList<Integer>());
+
+    private volatile long latencyMillis;
+    private volatile Headers lastRequestHeaders;
+
+    public LocalHttpServer() throws IOException {
+        this.executor = Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+        this.server.createContext("/", this);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * Answers requests to the given path with the given status code and body.
+     */
+    public void respond(String path, int statusCode, byte[] body) {
+        statuses.put(path, statusCode);
+        bodies.put(path, body);
+    }
+
+    /**
+     * Delays every response by the given time, which stands in for a slow server.
+     */
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Delays the responses to the given path by the given time, in place of the overall latency.
+     */
+    public void setLatencyMillis(String path, long latencyMillis) {
+        pathLatencies.put(path, latencyMillis);
+    }
+
+    public String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    /**
+     * Gets the client port of every exchange served, in order.
+     */
+    public List<Integer> getClientPorts() {
+        synchronized (clientPorts) {
+            return new ArrayList<Integer>(clientPorts);
+        }
+    }
+
+    /**
+     * Gets a header of the last request served.
+     */
+    public String getLastRequestHeader(String name) {
+        return lastRequestHeaders == null ? null : lastRequestHeaders.getFirst(name);
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        lastRequestHeaders = exchange.getRequestHeaders();
+        drain(exchange.getRequestBody());
+
+        String path = exchange.getRequestURI().getPath();
+        Long pathLatencyMillis = pathLatencies.get(path);
+        simulateLatency(pathLatencyMillis != null ? pathLatencyMillis : latencyMillis);
+
+        Integer status = statuses.get(path);
+        byte[] body = bodies.get(path);
+        if (status == null) {
+            status = 404;
+            body = "{\"message\":\"Not found\"}".getBytes("UTF-8");
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(body);
+        } catch (IOException ioe) {
+            /* The client hung up before reading the whole body */
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void simulateLatency(long latencyMillis) {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[4096];
+        while (in.read(buffer) != -1) {
+            /* discard */
+        }
+
+        in.close();
+    }
+}
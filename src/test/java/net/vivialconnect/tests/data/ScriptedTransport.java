@@ -0,0 +1,248 @@
+package net.vivialconnect.tests.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.vivialconnect.client.AccountClient;
+import net.vivialconnect.http.Transport;
+import net.vivialconnect.http.TransportRequest;
+import net.vivialconnect.http.TransportResponse;
+
+/**
+ * In-process {@link Transport} that answers requests with scripted replies, in order, and then with
+ * a default reply. Every request is recorded, so tests can check what was sent and how often.
+ */
+public class ScriptedTransport implements Transport {
+
+    private final LinkedList<Reply> script = new LinkedList<Reply>();
+    private Reply fallback = new Reply(200, "{}");
+
+    private final List<TransportRequest> requests = new ArrayList<TransportRequest>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger openResponses = new AtomicInteger();
+
+    /**
+     * Answers the next unanswered request with the given reply.
+     */
+    public synchronized ScriptedTransport enqueue(Reply reply) {
+        script.add(reply);
+        return this;
+    }
+
+    public ScriptedTransport enqueue(int statusCode, String body) {
+        return enqueue(new Reply(statusCode, body));
+    }
+
+    /**
+     * Answers every request once the script has run out with the given reply.
+     */
+    public synchronized ScriptedTransport respondByDefault(Reply reply) {
+        this.fallback = reply;
+        return this;
+    }
+
+    public ScriptedTransport respondByDefault(int statusCode, String body) {
+        return respondByDefault(new Reply(statusCode, body));
+    }
+
+    /**
+     * Starts building a client that sends its requests through this transport.
+     */
+    public AccountClient.Builder clientBuilder() {
+        return AccountClient.builder(1, "key", "secret").apiBaseUrl("https://api.example.com/api/v1.0").transport(this);
+    }
+
+    public synchronized List<TransportRequest> getRequests() {
+        return new ArrayList<TransportRequest>(requests);
+    }
+
+    public synchronized int getRequestCount() {
+        return requests.size();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    /**
+     * Gets the number of responses handed out and not closed yet.
+     */
+    public int getOpenResponses() {
+        return openResponses.get();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        Reply reply;
+        synchronized (this) {
+            requests.add(request);
+            reply = script.isEmpty() ? fallback : script.removeFirst();
+        }
+
+        int concurrent = inFlight.incrementAndGet();
+        try {
+            while (true) {
+                int max = maxInFlight.get();
+                if (concurrent <= max || maxInFlight.compareAndSet(max, concurrent)) {
+                    break;
+                }
+            }
+
+            if (reply.latencyMillis > 0) {
+                try {
+                    Thread.sleep(reply.latencyMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the response");
+                }
+            }
+
+            if (reply.failure != null) {
+                throw reply.failure;
+            }
+
+            openResponses.incrementAndGet();
+            return new Response(reply);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * A scripted reply: a response, or a failure to send the request, after an optional delay.
+     */
+    public static class Reply {
+
+        private final int statusCode;
+        private final byte[] body;
+        private final Map<String, String> headers = new HashMap<String, String>();
+        private IOException failure;
+        private long latencyMillis;
+        private long millisPerByte;
+
+        public Reply(int statusCode, String body) {
+            this.statusCode = statusCode;
+            this.body = utf8(body);
+            this.headers.put("content-type", "application/json");
+        }
+
+        public static Reply failure(IOException failure) {
+            Reply reply = new Reply(0, "");
+            reply.failure = failure;
+            return reply;
+        }
+
+        public Reply header(String name, String value) {
+            headers.put(name.toLowerCase(), value);
+            return this;
+        }
+
+        public Reply latency(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        /**
+         * Sends the body one byte at a time, waiting the given time before each byte.
+         */
+        public Reply trickle(long millisPerByte) {
+            this.millisPerByte = millisPerByte;
+            return this;
+        }
+
+        private static byte[] utf8(String value) {
+            try {
+                return value.getBytes("UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private class Response implements TransportResponse {
+
+        private final Reply reply;
+        private InputStream body;
+        private boolean closed;
+
+        Response(Reply reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return reply.statusCode;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return reply.headers.get(name.toLowerCase());
+        }
+
+        @Override
+        public synchronized InputStream getBody() {
+            if (body == null) {
+                body = reply.millisPerByte > 0 ? new TrickleInputStream(reply.body, reply.millisPerByte)
+                                               : new ByteArrayInputStream(reply.body);
+            }
+
+            return body;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!closed) {
+                closed = true;
+                openResponses.decrementAndGet();
+            }
+        }
+    }
+
+    private static class TrickleInputStream extends InputStream {
+
+        private final ByteArrayInputStream in;
+        private final long millisPerByte;
+
+        TrickleInputStream(byte[] body, long millisPerByte) {
+            this.in = new ByteArrayInputStream(body);
+            this.millisPerByte = millisPerByte;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                Thread.sleep(millisPerByte);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading the response");
+            }
+
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+
+            int b = read();
+            if (b == -1) {
+                return -1;
+            }
+
+            buffer[offset] = (byte) b;
+            return 1;
+        }
+    }
+}